@@ -0,0 +1,68 @@
+package org.hein.client;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hein.rbac.RbacUpdate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Pulls RBAC updates from GET /api/v1/authz/replication of a mw-admin server.
+ * The caller needs the authz:VIEW permission; the bearer token is asked for on every fetch
+ * so it can be refreshed independently.
+ */
+public class HttpSnapshotSource implements SnapshotSource {
+
+    static final String REPLICATION_PATH = "/api/v1/authz/replication";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final String baseUri;
+    private final Supplier<String> bearerToken;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public HttpSnapshotSource(URI baseUri, Supplier<String> bearerToken, Duration timeout) {
+        this.baseUri = baseUri.toString().replaceAll("/+$", "");
+        this.bearerToken = bearerToken;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public RbacUpdate fetch(long sinceVersion) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + REPLICATION_PATH + "?since=" + sinceVersion))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer " + bearerToken.get())
+                .GET()
+                .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching RBAC updates", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("RBAC update request failed with status " + response.statusCode());
+        }
+
+        // The server wraps every body in ApiResponse; the update is its payload
+        JsonNode payload = MAPPER.readTree(response.body()).get("payload");
+        if (payload == null || payload.isNull()) {
+            throw new IOException("RBAC update response has no payload");
+        }
+        return MAPPER.treeToValue(payload, RbacUpdate.class);
+    }
+}
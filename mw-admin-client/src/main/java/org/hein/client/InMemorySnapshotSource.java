@@ -0,0 +1,49 @@
+package org.hein.client;
+
+import org.hein.rbac.RbacHistory;
+import org.hein.rbac.RbacState;
+import org.hein.rbac.RbacUpdate;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the mw-admin server, so services embedding the client can be tested
+ * offline. It answers fetches exactly like the server does, from the states published to it,
+ * and can be switched off to exercise the client's behaviour while the server is unreachable.
+ */
+public class InMemorySnapshotSource implements SnapshotSource {
+
+    private final RbacHistory history;
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile boolean available = true;
+
+    public InMemorySnapshotSource() {
+        this(16);
+    }
+
+    public InMemorySnapshotSource(int historySize) {
+        this.history = new RbacHistory(historySize);
+    }
+
+    public void publish(RbacState state) {
+        history.publish(state);
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    public int fetchCount() {
+        return fetches.get();
+    }
+
+    @Override
+    public RbacUpdate fetch(long sinceVersion) throws IOException {
+        fetches.incrementAndGet();
+        if (!available) {
+            throw new IOException("Snapshot source is unavailable");
+        }
+        return history.since(sinceVersion);
+    }
+}
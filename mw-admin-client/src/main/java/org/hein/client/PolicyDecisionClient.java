@@ -0,0 +1,165 @@
+package org.hein.client;
+
+import org.hein.policy.PolicyContext;
+import org.hein.rbac.PermissionSnapshot;
+import org.hein.rbac.RbacState;
+import org.hein.rbac.RbacUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Answers hasPermission locally from a replicated copy of mw-admin's RBAC state.
+ * <p>
+ * The client keeps the last {@link RbacState} it received and a {@link PermissionSnapshot}
+ * compiled from it. A background task asks the {@link SnapshotSource} for the changes since
+ * its version and recompiles when something changed, so steady state costs one small request
+ * per refresh interval and decisions never leave the process. When the source cannot be
+ * reached the last snapshot keeps answering; before the first snapshot arrives every check
+ * is denied.
+ */
+public class PolicyDecisionClient implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyDecisionClient.class);
+
+    private final SnapshotSource source;
+    private final Duration refreshInterval;
+    private final LongSupplier clock;
+
+    private volatile RbacState state;
+    private volatile PermissionSnapshot snapshot;
+    private volatile long lastRefreshMillis;
+    private ScheduledExecutorService scheduler;
+
+    private PolicyDecisionClient(Builder builder) {
+        this.source = builder.source;
+        this.refreshInterval = builder.refreshInterval;
+        this.clock = builder.clock;
+    }
+
+    public static Builder builder(SnapshotSource source) {
+        return new Builder(source);
+    }
+
+    /**
+     * Whether the subject (username) currently holds the permission ("feature_code:ACTION")
+     */
+    public boolean hasPermission(String subject, String permission) {
+        PermissionSnapshot current = snapshot;
+        return current != null && current.isGranted(subject, permission, clock.getAsLong());
+    }
+
+    /**
+     * Same, with constraint policies and assignment restrictions evaluated against the caller's
+     * request attributes instead of only the subject and the time
+     */
+    public boolean hasPermission(String subject, String permission, PolicyContext context) {
+        PermissionSnapshot current = snapshot;
+        return current != null && current.isGranted(subject, permission, () -> context, clock.getAsLong());
+    }
+
+    /**
+     * Version of the replicated state, 0 before the first successful refresh
+     */
+    public long version() {
+        RbacState current = state;
+        return current == null ? 0 : current.version();
+    }
+
+    /**
+     * Wall-clock time of the last successful refresh, 0 if there was none
+     */
+    public long lastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    /**
+     * Pull and apply the changes since the current version
+     *
+     * @return whether the snapshot changed
+     */
+    public synchronized boolean refresh() throws IOException {
+        RbacUpdate update = source.fetch(version());
+        if (update.delta() != null && update.delta().fromVersion() != version()) {
+            // Our version changed under the server's feet (e.g. it restarted); start over
+            update = source.fetch(0);
+        }
+        lastRefreshMillis = System.currentTimeMillis();
+        if (!update.isModified()) {
+            return false;
+        }
+
+        RbacState next = update.snapshot() != null ? update.snapshot() : state.apply(update.delta());
+        snapshot = PermissionSnapshot.compile(next);
+        state = next;
+        log.debug("Replicated RBAC state version {} ({})", next.version(),
+                update.snapshot() != null ? "full" : update.delta().size() + " changes");
+        return true;
+    }
+
+    /**
+     * Refresh now and then every refresh interval on a daemon thread
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "policy-decision-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("RBAC refresh failed, still serving version {}: {}", version(), e.getMessage());
+        }
+    }
+
+    public static final class Builder {
+
+        private final SnapshotSource source;
+        private Duration refreshInterval = Duration.ofSeconds(5);
+        private LongSupplier clock = System::currentTimeMillis;
+
+        private Builder(SnapshotSource source) {
+            this.source = Objects.requireNonNull(source);
+        }
+
+        public Builder refreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * Clock used to check time-bounded assignments, in epoch milliseconds
+         */
+        public Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public PolicyDecisionClient build() {
+            return new PolicyDecisionClient(this);
+        }
+    }
+}
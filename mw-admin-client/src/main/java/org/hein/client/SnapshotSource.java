@@ -0,0 +1,16 @@
+package org.hein.client;
+
+import org.hein.rbac.RbacUpdate;
+
+import java.io.IOException;
+
+/**
+ * Where a {@link PolicyDecisionClient} pulls RBAC updates from
+ */
+public interface SnapshotSource {
+
+    /**
+     * Changes since the given version; 0 asks for the full state
+     */
+    RbacUpdate fetch(long sinceVersion) throws IOException;
+}
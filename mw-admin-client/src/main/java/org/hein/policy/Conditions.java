@@ -0,0 +1,104 @@
+package org.hein.policy;
+
+import java.util.Arrays;
+
+/**
+ * Node types of a compiled policy tree
+ */
+final class Conditions {
+
+    private Conditions() {
+    }
+
+    enum Op {
+        EQ, NE, LT, LE, GT, GE;
+
+        boolean compare(int result) {
+            return switch (this) {
+                case EQ -> result == 0;
+                case NE -> result != 0;
+                case LT -> result < 0;
+                case LE -> result <= 0;
+                case GT -> result > 0;
+                case GE -> result >= 0;
+            };
+        }
+    }
+
+    record All(Policy[] parts) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            for (Policy part : parts) {
+                if (!part.test(context)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    record Any(Policy[] parts) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            for (Policy part : parts) {
+                if (part.test(context)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record Not(Policy part) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            return !part.test(context);
+        }
+    }
+
+    record StringCompare(int slot, Op op, String value) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            String actual = context.string(slot);
+            return actual != null && op.compare(actual.compareTo(value));
+        }
+    }
+
+    record NumberCompare(int slot, Op op, long value) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            return context.hasNumber(slot) && op.compare(Long.compare(context.number(slot), value));
+        }
+    }
+
+    /**
+     * Membership in a sorted string set
+     */
+    record StringIn(int slot, String[] sorted) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            String actual = context.string(slot);
+            return actual != null && Arrays.binarySearch(sorted, actual) >= 0;
+        }
+    }
+
+    /**
+     * Membership in a sorted number set
+     */
+    record NumberIn(int slot, long[] sorted) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            return context.hasNumber(slot) && Arrays.binarySearch(sorted, context.number(slot)) >= 0;
+        }
+    }
+
+    /**
+     * IPv4 range match against the numeric value of an address attribute
+     */
+    record Cidr(int slot, long network, long mask) implements Policy {
+        @Override
+        public boolean test(PolicyContext context) {
+            return context.hasNumber(slot) && (context.number(slot) & mask) == network;
+        }
+    }
+}
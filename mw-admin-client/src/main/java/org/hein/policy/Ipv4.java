@@ -0,0 +1,41 @@
+package org.hein.policy;
+
+/**
+ * Allocation-free IPv4 parsing for cidr(...) conditions
+ */
+final class Ipv4 {
+
+    private Ipv4() {
+    }
+
+    /**
+     * The address as an unsigned 32-bit value, or -1 if it is not a dotted-quad IPv4 address
+     */
+    static long parse(String address) {
+        if (address == null) {
+            return -1;
+        }
+        long value = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                value = (value << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || octet < 0) {
+            return -1;
+        }
+        return (value << 8) | octet;
+    }
+}
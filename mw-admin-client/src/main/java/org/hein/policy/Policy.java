@@ -0,0 +1,13 @@
+package org.hein.policy;
+
+/**
+ * A compiled, immutable constraint policy. Evaluation only reads the context and allocates nothing.
+ */
+@FunctionalInterface
+public interface Policy {
+
+    Policy ALLOW = context -> true;
+    Policy DENY = context -> false;
+
+    boolean test(PolicyContext context);
+}
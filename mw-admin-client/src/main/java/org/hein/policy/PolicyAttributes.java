@@ -0,0 +1,49 @@
+package org.hein.policy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns every attribute name used by a policy a fixed slot, so that compiled conditions read
+ * their attribute by array index instead of looking it up by name on every evaluation.
+ */
+public final class PolicyAttributes {
+
+    public static final String SUBJECT_USERNAME = "subject.username";
+    public static final String REQUEST_IP = "request.ip";
+    public static final String REQUEST_METHOD = "request.method";
+    public static final String REQUEST_PATH = "request.path";
+    public static final String TIME_HOUR = "time.hour";
+    public static final String TIME_DAY_OF_WEEK = "time.dayOfWeek";
+    public static final String TIME_EPOCH_SECOND = "time.epochSecond";
+
+    private static final Map<String, Integer> SLOTS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    static {
+        for (String name : new String[]{SUBJECT_USERNAME, REQUEST_IP, REQUEST_METHOD, REQUEST_PATH,
+                TIME_HOUR, TIME_DAY_OF_WEEK, TIME_EPOCH_SECOND}) {
+            slot(name);
+        }
+    }
+
+    private PolicyAttributes() {
+    }
+
+    public static int slot(String name) {
+        return SLOTS.computeIfAbsent(name, n -> NEXT.getAndIncrement());
+    }
+
+    /**
+     * Slot of an attribute that no policy has mentioned yet, or -1
+     */
+    static int existingSlot(String name) {
+        Integer slot = SLOTS.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    static int size() {
+        return NEXT.get();
+    }
+}
@@ -0,0 +1,363 @@
+package org.hein.policy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the text of a constraint policy into a {@link Policy} tree.
+ * <p>
+ * Two notations are accepted. The expression notation:
+ * <pre>
+ *   request.method in ['GET', 'HEAD'] &amp;&amp; (time.hour &gt;= 9 and time.hour &lt; 18)
+ *   request.ip in cidr('10.0.0.0/8') || !(subject.username == 'guest')
+ * </pre>
+ * and the JSON notation, where a node is {@code {"all": [...]}}, {@code {"any": [...]}},
+ * {@code {"not": {...}}} or {@code {"attr": "time.hour", "op": ">=", "value": 9}}; {@code op} is one of
+ * {@code == != < <= > >= in cidr}.
+ * <p>
+ * A blank policy places no constraint. Invalid policies are rejected with {@link IllegalArgumentException}.
+ */
+public final class PolicyCompiler {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private PolicyCompiler() {
+    }
+
+    public static Policy compile(String source) {
+        if (source == null || source.isBlank()) {
+            return Policy.ALLOW;
+        }
+        String trimmed = source.strip();
+        if (trimmed.startsWith("{")) {
+            return compileJson(trimmed);
+        }
+        return new Parser(trimmed).parse();
+    }
+
+    // JSON notation
+
+    private static Policy compileJson(String source) {
+        JsonNode root;
+        try {
+            root = JSON.readTree(source);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid policy JSON: " + e.getOriginalMessage());
+        }
+        return json(root);
+    }
+
+    private static Policy json(JsonNode node) {
+        if (node.isBoolean()) {
+            return node.booleanValue() ? Policy.ALLOW : Policy.DENY;
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Invalid policy node: " + node);
+        }
+        if (node.has("all")) {
+            return all(jsonList(node.get("all")));
+        }
+        if (node.has("any")) {
+            return any(jsonList(node.get("any")));
+        }
+        if (node.has("not")) {
+            return not(json(node.get("not")));
+        }
+        JsonNode attr = node.get("attr");
+        JsonNode op = node.get("op");
+        JsonNode value = node.get("value");
+        if (attr == null || !attr.isTextual() || op == null || !op.isTextual() || value == null) {
+            throw new IllegalArgumentException("Policy condition needs attr, op and value: " + node);
+        }
+        int slot = PolicyAttributes.slot(attr.textValue());
+        return switch (op.textValue()) {
+            case "in" -> {
+                if (!value.isArray()) {
+                    throw new IllegalArgumentException("Operator 'in' needs an array value: " + node);
+                }
+                List<Object> literals = new ArrayList<>();
+                value.forEach(v -> literals.add(jsonLiteral(v)));
+                yield in(slot, literals);
+            }
+            case "cidr" -> {
+                if (!value.isTextual()) {
+                    throw new IllegalArgumentException("Operator 'cidr' needs a string value: " + node);
+                }
+                yield cidr(slot, value.textValue());
+            }
+            default -> compare(slot, op(op.textValue()), jsonLiteral(value));
+        };
+    }
+
+    private static List<Policy> jsonList(JsonNode node) {
+        if (!node.isArray() || node.isEmpty()) {
+            throw new IllegalArgumentException("Expected a non-empty array: " + node);
+        }
+        List<Policy> parts = new ArrayList<>();
+        node.forEach(part -> parts.add(json(part)));
+        return parts;
+    }
+
+    private static Object jsonLiteral(JsonNode value) {
+        if (value.isTextual()) {
+            return value.textValue();
+        }
+        if (value.isIntegralNumber() && value.canConvertToLong()) {
+            return value.longValue();
+        }
+        throw new IllegalArgumentException("Unsupported policy value: " + value);
+    }
+
+    // Node construction, shared by both notations
+
+    private static Policy all(List<Policy> parts) {
+        return parts.size() == 1 ? parts.get(0) : new Conditions.All(parts.toArray(Policy[]::new));
+    }
+
+    private static Policy any(List<Policy> parts) {
+        return parts.size() == 1 ? parts.get(0) : new Conditions.Any(parts.toArray(Policy[]::new));
+    }
+
+    private static Policy not(Policy part) {
+        if (part == Policy.ALLOW) {
+            return Policy.DENY;
+        }
+        if (part == Policy.DENY) {
+            return Policy.ALLOW;
+        }
+        return part instanceof Conditions.Not not ? not.part() : new Conditions.Not(part);
+    }
+
+    private static Policy compare(int slot, Conditions.Op op, Object literal) {
+        return literal instanceof Long number
+                ? new Conditions.NumberCompare(slot, op, number)
+                : new Conditions.StringCompare(slot, op, (String) literal);
+    }
+
+    private static Policy in(int slot, List<Object> literals) {
+        if (literals.isEmpty()) {
+            throw new IllegalArgumentException("Operator 'in' needs at least one value");
+        }
+        if (literals.stream().allMatch(Long.class::isInstance)) {
+            long[] sorted = literals.stream().mapToLong(Long.class::cast).sorted().distinct().toArray();
+            return new Conditions.NumberIn(slot, sorted);
+        }
+        if (literals.stream().allMatch(String.class::isInstance)) {
+            String[] sorted = literals.stream().map(String.class::cast).sorted().distinct().toArray(String[]::new);
+            return new Conditions.StringIn(slot, sorted);
+        }
+        throw new IllegalArgumentException("Operator 'in' cannot mix strings and numbers");
+    }
+
+    private static Policy cidr(int slot, String block) {
+        int slash = block.indexOf('/');
+        long address = Ipv4.parse(slash < 0 ? block : block.substring(0, slash));
+        int bits;
+        try {
+            bits = slash < 0 ? 32 : Integer.parseInt(block.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            bits = -1;
+        }
+        if (address < 0 || bits < 0 || bits > 32) {
+            throw new IllegalArgumentException("Invalid IPv4 CIDR block: " + block);
+        }
+        long mask = bits == 0 ? 0 : (0xFFFFFFFFL << (32 - bits)) & 0xFFFFFFFFL;
+        return new Conditions.Cidr(slot, address & mask, mask);
+    }
+
+    private static Conditions.Op op(String symbol) {
+        return switch (symbol) {
+            case "==" -> Conditions.Op.EQ;
+            case "!=" -> Conditions.Op.NE;
+            case "<" -> Conditions.Op.LT;
+            case "<=" -> Conditions.Op.LE;
+            case ">" -> Conditions.Op.GT;
+            case ">=" -> Conditions.Op.GE;
+            default -> throw new IllegalArgumentException("Unknown policy operator: " + symbol);
+        };
+    }
+
+    // Expression notation: recursive descent over the raw text
+
+    private static final class Parser {
+
+        private final String src;
+        private int pos;
+
+        Parser(String src) {
+            this.src = src;
+        }
+
+        Policy parse() {
+            Policy policy = or();
+            skipSpace();
+            if (pos < src.length()) {
+                throw error("unexpected '" + src.charAt(pos) + "'");
+            }
+            return policy;
+        }
+
+        private Policy or() {
+            List<Policy> parts = new ArrayList<>(List.of(and()));
+            while (symbol("||") || keyword("or")) {
+                parts.add(and());
+            }
+            return any(parts);
+        }
+
+        private Policy and() {
+            List<Policy> parts = new ArrayList<>(List.of(unary()));
+            while (symbol("&&") || keyword("and")) {
+                parts.add(unary());
+            }
+            return all(parts);
+        }
+
+        private Policy unary() {
+            skipSpace();
+            if (peek('!') && !src.startsWith("!=", pos)) {
+                pos++;
+                return not(unary());
+            }
+            if (keyword("not")) {
+                return not(unary());
+            }
+            if (symbol("(")) {
+                Policy inner = or();
+                expect(")");
+                return inner;
+            }
+            if (keyword("true")) {
+                return Policy.ALLOW;
+            }
+            if (keyword("false")) {
+                return Policy.DENY;
+            }
+            return condition();
+        }
+
+        private Policy condition() {
+            String attribute = identifier();
+            int slot = PolicyAttributes.slot(attribute);
+            if (keyword("in")) {
+                if (keyword("cidr")) {
+                    expect("(");
+                    String block = string();
+                    expect(")");
+                    return cidr(slot, block);
+                }
+                expect("[");
+                List<Object> literals = new ArrayList<>(List.of(literal()));
+                while (symbol(",")) {
+                    literals.add(literal());
+                }
+                expect("]");
+                return in(slot, literals);
+            }
+            skipSpace();
+            for (String symbol : new String[]{"==", "!=", "<=", ">=", "<", ">"}) {
+                if (src.startsWith(symbol, pos)) {
+                    pos += symbol.length();
+                    return compare(slot, op(symbol), literal());
+                }
+            }
+            throw error("expected an operator after '" + attribute + "'");
+        }
+
+        private String identifier() {
+            skipSpace();
+            int start = pos;
+            while (pos < src.length() && isIdentifierPart(src.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos || !Character.isLetter(src.charAt(start))) {
+                throw error("expected an attribute name");
+            }
+            return src.substring(start, pos);
+        }
+
+        private Object literal() {
+            skipSpace();
+            if (peek('\'') || peek('"')) {
+                return string();
+            }
+            int start = pos;
+            if (peek('-')) {
+                pos++;
+            }
+            while (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+                pos++;
+            }
+            String digits = src.substring(start, pos);
+            try {
+                return Long.parseLong(digits);
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("expected a string or integer literal");
+            }
+        }
+
+        private String string() {
+            skipSpace();
+            if (!peek('\'') && !peek('"')) {
+                throw error("expected a quoted string");
+            }
+            char quote = src.charAt(pos++);
+            int end = src.indexOf(quote, pos);
+            if (end < 0) {
+                throw error("unterminated string");
+            }
+            String value = src.substring(pos, end);
+            pos = end + 1;
+            return value;
+        }
+
+        private boolean keyword(String word) {
+            skipSpace();
+            int end = pos + word.length();
+            if (src.regionMatches(true, pos, word, 0, word.length())
+                    && (end == src.length() || !isIdentifierPart(src.charAt(end)))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean symbol(String symbol) {
+            skipSpace();
+            if (src.startsWith(symbol, pos)) {
+                pos += symbol.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            if (!symbol(symbol)) {
+                throw error("expected '" + symbol + "'");
+            }
+        }
+
+        private boolean peek(char c) {
+            return pos < src.length() && src.charAt(pos) == c;
+        }
+
+        private void skipSpace() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private static boolean isIdentifierPart(char c) {
+            return Character.isLetterOrDigit(c) || c == '.' || c == '_';
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid policy at position %d: %s".formatted(pos, message));
+        }
+    }
+}
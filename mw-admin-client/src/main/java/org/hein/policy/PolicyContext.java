@@ -0,0 +1,83 @@
+package org.hein.policy;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Attribute values a policy is evaluated against. Each attribute may carry a string value, a numeric
+ * value or both; comparisons with a number literal read the numeric one. An attribute that was never
+ * set makes every comparison on it false, so policies fail closed.
+ * <p>
+ * Not thread-safe; build one per request and evaluate any number of policies against it.
+ */
+public final class PolicyContext {
+
+    private String[] strings;
+    private long[] numbers;
+    private boolean[] hasNumber;
+
+    public PolicyContext() {
+        int size = PolicyAttributes.size();
+        this.strings = new String[size];
+        this.numbers = new long[size];
+        this.hasNumber = new boolean[size];
+    }
+
+    /**
+     * The subject and the wall-clock attributes of the given time, for checks made outside a request
+     */
+    public static PolicyContext of(String username, ZonedDateTime now) {
+        return new PolicyContext()
+                .set(PolicyAttributes.SUBJECT_USERNAME, username)
+                .set(PolicyAttributes.TIME_HOUR, now.getHour())
+                .set(PolicyAttributes.TIME_DAY_OF_WEEK, now.getDayOfWeek().getValue())
+                .set(PolicyAttributes.TIME_EPOCH_SECOND, now.toEpochSecond());
+    }
+
+    public PolicyContext set(String attribute, String value) {
+        int slot = ensure(PolicyAttributes.slot(attribute));
+        strings[slot] = value;
+        return this;
+    }
+
+    public PolicyContext set(String attribute, long value) {
+        int slot = ensure(PolicyAttributes.slot(attribute));
+        numbers[slot] = value;
+        hasNumber[slot] = true;
+        return this;
+    }
+
+    /**
+     * Set an address attribute; an IPv4 address is also stored as a number for cidr(...) matches
+     */
+    public PolicyContext setAddress(String attribute, String address) {
+        set(attribute, address);
+        long ipv4 = Ipv4.parse(address);
+        if (ipv4 >= 0) {
+            set(attribute, ipv4);
+        }
+        return this;
+    }
+
+    String string(int slot) {
+        return slot < strings.length ? strings[slot] : null;
+    }
+
+    boolean hasNumber(int slot) {
+        return slot < hasNumber.length && hasNumber[slot];
+    }
+
+    long number(int slot) {
+        return numbers[slot];
+    }
+
+    private int ensure(int slot) {
+        if (slot >= strings.length) {
+            int size = Math.max(slot + 1, PolicyAttributes.size());
+            strings = Arrays.copyOf(strings, size);
+            numbers = Arrays.copyOf(numbers, size);
+            hasNumber = Arrays.copyOf(hasNumber, size);
+        }
+        return slot;
+    }
+}
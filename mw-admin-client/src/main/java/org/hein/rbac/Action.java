@@ -1,5 +1,8 @@
-package org.hein.entity;
+package org.hein.rbac;
 
+/**
+ * Actions a permission can grant on a feature; a permission is named "feature_code:ACTION"
+ */
 public enum Action {
     VIEW,
     CREATE,
@@ -0,0 +1,294 @@
+package org.hein.rbac;
+
+import org.hein.policy.Policy;
+import org.hein.policy.PolicyCompiler;
+import org.hein.policy.PolicyContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, precompiled view of who holds which permission, used to answer authorization
+ * decisions without touching the database. Permission names ("feature:ACTION") are mapped to
+ * bit positions and every subject's effective permissions (assigned roles plus their parent
+ * chain) are folded into one bitset, so a decision is two hash lookups and a bit test.
+ * <p>
+ * Assignments bounded by valid-from / valid-to keep their own bitset and are checked against
+ * the clock at decision time, so a snapshot stays correct as assignments start and expire.
+ * Which assignments count is decided when the {@link RbacState} is loaded; the server applies
+ * the same rules as its own login (active assignments of enabled, unlocked users).
+ * <p>
+ * Constraint policies of permissions and restrictions of assignments are compiled once per
+ * snapshot and evaluated against a {@link PolicyContext} only for the checks they apply to;
+ * a stored policy that does not compile denies. Without a caller-supplied context, policies see
+ * the subject and the time of the check and nothing about a request, so request conditions fail.
+ */
+public final class PermissionSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionSnapshot.class);
+
+    private final long version;
+    private final Instant builtAt;
+    private final Map<String, Integer> permissionBits;
+    private final Policy[] constraints;
+    private final Map<String, Subject> subjects;
+    private final boolean hasPolicies;
+
+    private PermissionSnapshot(long version, Instant builtAt, Map<String, Integer> permissionBits,
+                               Policy[] constraints, Map<String, Subject> subjects, boolean hasPolicies) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.permissionBits = permissionBits;
+        this.constraints = constraints;
+        this.subjects = subjects;
+        this.hasPolicies = hasPolicies;
+    }
+
+    /**
+     * Compile the state; grants that expired before now are dropped
+     */
+    public static PermissionSnapshot compile(RbacState state) {
+        Instant builtAt = Instant.now();
+        long now = builtAt.toEpochMilli();
+
+        Map<String, Integer> permissionBits = new HashMap<>();
+        Map<Long, Integer> bitsById = new HashMap<>();
+        state.permissions().forEach((id, name) ->
+                bitsById.put(id, permissionBits.computeIfAbsent(name, n -> permissionBits.size())));
+        int words = (permissionBits.size() + 63) >>> 6;
+
+        Map<String, Policy> compiled = new HashMap<>();
+        Policy[] constraints = new Policy[permissionBits.size()];
+        state.constraints().forEach((id, source) -> {
+            Integer bit = bitsById.get(id);
+            if (bit != null) {
+                constraints[bit] = compiled.computeIfAbsent(source, PermissionSnapshot::compileOrDeny);
+            }
+        });
+
+        Map<Long, long[]> effective = new HashMap<>();
+        Map<String, Subject> subjects = new HashMap<>(state.subjects().size() * 2);
+        state.subjects().forEach((subject, grants) -> {
+            long[] bits = new long[words];
+            long[] restricted = NO_BITS;
+            List<ConditionalGrant> conditional = new ArrayList<>();
+            for (RbacState.Grant grant : grants) {
+                long[] roleBits = effective.computeIfAbsent(grant.roleId(), id -> effectiveBits(state, id, bitsById, words));
+                long from = grant.validFrom() == null ? Long.MIN_VALUE : grant.validFrom();
+                long to = grant.validTo() == null ? Long.MAX_VALUE : grant.validTo();
+                Policy restrictions = grant.restrictions() == null ? null
+                        : compiled.computeIfAbsent(grant.restrictions(), PermissionSnapshot::compileOrDeny);
+                if (restrictions != null) {
+                    restricted = restricted == NO_BITS ? new long[words] : restricted;
+                    or(restricted, roleBits);
+                }
+                if (restrictions == null && to == Long.MAX_VALUE && from <= now) {
+                    or(bits, roleBits);
+                } else if (to >= now) {
+                    conditional.add(new ConditionalGrant(from, to, restrictions, roleBits));
+                }
+            }
+            subjects.put(subject, new Subject(bits, conditional.toArray(NO_CONDITIONAL_GRANTS), onlyIn(restricted, bits, conditional)));
+        });
+        return new PermissionSnapshot(state.version(), builtAt, Map.copyOf(permissionBits), constraints, subjects, !compiled.isEmpty());
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Instant builtAt() {
+        return builtAt;
+    }
+
+    public int subjectCount() {
+        return subjects.size();
+    }
+
+    public int permissionCount() {
+        return permissionBits.size();
+    }
+
+    public boolean isGranted(String subject, String permission, long nowMillis) {
+        return isGranted(subject, permission, lazyContext(subject, nowMillis), nowMillis);
+    }
+
+    /**
+     * Whether the subject holds the permission, with policies evaluated against the supplied
+     * context; it is only asked for when a policy applies
+     */
+    public boolean isGranted(String subject, String permission, Supplier<PolicyContext> context, long nowMillis) {
+        Subject holder = subject == null ? null : subjects.get(subject);
+        Integer bit = permission == null ? null : permissionBits.get(permission);
+        return holder != null && bit != null && holder.has(bit, nowMillis, constraints[bit], context);
+    }
+
+    /**
+     * Whether the policies attached to a permission the subject already holds through other means,
+     * such as the claims of a token issued earlier, allow using it: its constraint policy must hold
+     * and, when the subject only holds it through restricted assignments, one of them must apply.
+     * Permissions and subjects this snapshot does not know carry no policy.
+     */
+    public boolean policiesAllow(String subject, String permission, Supplier<PolicyContext> context, long nowMillis) {
+        Integer bit = permission == null ? null : permissionBits.get(permission);
+        if (bit == null) {
+            return true;
+        }
+        Subject holder = subject == null ? null : subjects.get(subject);
+        Policy constraint = constraints[bit];
+        if (holder == null || !isSet(holder.restrictedOnly(), bit)) {
+            return constraint == null || constraint.test(context.get());
+        }
+        return holder.has(bit, nowMillis, constraint, context);
+    }
+
+    /**
+     * Whether any permission has a constraint policy or any assignment has restrictions
+     */
+    public boolean hasPolicies() {
+        return hasPolicies;
+    }
+
+    /**
+     * Decide a batch of checks at one instant. Consecutive checks for the same subject reuse
+     * its lookup, so batches grouped by subject are cheaper.
+     */
+    public <T> boolean[] decide(List<T> checks, Function<T, String> subject, Function<T, String> permission,
+                                long nowMillis) {
+        boolean[] decisions = new boolean[checks.size()];
+        String lastName = null;
+        Subject last = null;
+        Supplier<PolicyContext> context = null;
+        for (int i = 0; i < decisions.length; i++) {
+            T check = checks.get(i);
+            String name = subject.apply(check);
+            if (name == null) {
+                continue;
+            }
+            if (!name.equals(lastName)) {
+                lastName = name;
+                last = subjects.get(name);
+                context = lazyContext(name, nowMillis);
+            }
+            if (last == null) {
+                continue;
+            }
+            String permissionName = permission.apply(check);
+            Integer bit = permissionName == null ? null : permissionBits.get(permissionName);
+            decisions[i] = bit != null && last.has(bit, nowMillis, constraints[bit], context);
+        }
+        return decisions;
+    }
+
+    private static final long[] NO_BITS = new long[0];
+    private static final ConditionalGrant[] NO_CONDITIONAL_GRANTS = new ConditionalGrant[0];
+
+    /**
+     * A time-bounded or restricted assignment; restrictions is null when there are none
+     */
+    private record ConditionalGrant(long fromMillis, long toMillis, Policy restrictions, long[] bits) {
+    }
+
+    /**
+     * @param restrictedOnly permissions held through restricted assignments and no unrestricted one
+     */
+    private record Subject(long[] bits, ConditionalGrant[] conditional, long[] restrictedOnly) {
+
+        boolean has(int bit, long nowMillis, Policy constraint, Supplier<PolicyContext> context) {
+            boolean held = isSet(bits, bit);
+            for (int i = 0; !held && i < conditional.length; i++) {
+                ConditionalGrant grant = conditional[i];
+                held = nowMillis >= grant.fromMillis() && nowMillis <= grant.toMillis() && isSet(grant.bits(), bit)
+                        && (grant.restrictions() == null || grant.restrictions().test(context.get()));
+            }
+            return held && (constraint == null || constraint.test(context.get()));
+        }
+    }
+
+    /**
+     * The subject and the time of the check, built on first use and then reused
+     */
+    private static Supplier<PolicyContext> lazyContext(String subject, long nowMillis) {
+        PolicyContext[] context = new PolicyContext[1];
+        return () -> {
+            if (context[0] == null) {
+                context[0] = PolicyContext.of(subject, ZonedDateTime.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneId.systemDefault()));
+            }
+            return context[0];
+        };
+    }
+
+    private static Policy compileOrDeny(String source) {
+        try {
+            return PolicyCompiler.compile(source);
+        } catch (IllegalArgumentException e) {
+            log.warn("Stored policy does not compile and denies: {}", e.getMessage());
+            return Policy.DENY;
+        }
+    }
+
+    /**
+     * Bits of restricted that are in neither bits nor an unrestricted conditional grant, or an empty array
+     */
+    private static long[] onlyIn(long[] restricted, long[] bits, List<ConditionalGrant> conditional) {
+        if (restricted == NO_BITS) {
+            return NO_BITS;
+        }
+        long[] only = restricted.clone();
+        for (int i = 0; i < only.length; i++) {
+            only[i] &= ~bits[i];
+        }
+        for (ConditionalGrant grant : conditional) {
+            if (grant.restrictions() == null) {
+                for (int i = 0; i < only.length; i++) {
+                    only[i] &= ~grant.bits()[i];
+                }
+            }
+        }
+        return only;
+    }
+
+    private static boolean isSet(long[] bits, int bit) {
+        int word = bit >>> 6;
+        return word < bits.length && (bits[word] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Permissions of the role and its whole parent chain; a cycle in the hierarchy ends the walk
+     */
+    private static long[] effectiveBits(RbacState state, long roleId, Map<Long, Integer> bitsById, int words) {
+        long[] bits = new long[words];
+        Set<Long> visited = new HashSet<>();
+        for (Long id = roleId; id != null && visited.add(id); ) {
+            RbacState.Role role = state.roles().get(id);
+            if (role == null) {
+                break;
+            }
+            for (Long permissionId : role.permissionIds()) {
+                Integer bit = bitsById.get(permissionId);
+                if (bit != null) {
+                    bits[bit >>> 6] |= 1L << bit;
+                }
+            }
+            id = role.parentId();
+        }
+        return bits;
+    }
+
+    private static void or(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= source[i];
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.hein.rbac;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Changes between two versions of the {@link RbacState}: entries added or changed, and keys removed
+ */
+public record RbacDelta(
+        long fromVersion,
+        long toVersion,
+        Map<Long, String> permissions,
+        Set<Long> removedPermissions,
+        Map<Long, String> constraints,
+        Set<Long> removedConstraints,
+        Map<Long, RbacState.Role> roles,
+        Set<Long> removedRoles,
+        Map<String, List<RbacState.Grant>> subjects,
+        Set<String> removedSubjects
+) {
+
+    public RbacDelta {
+        permissions = Map.copyOf(permissions);
+        removedPermissions = Set.copyOf(removedPermissions);
+        constraints = constraints == null ? Map.of() : Map.copyOf(constraints);
+        removedConstraints = removedConstraints == null ? Set.of() : Set.copyOf(removedConstraints);
+        roles = Map.copyOf(roles);
+        removedRoles = Set.copyOf(removedRoles);
+        subjects = Map.copyOf(subjects);
+        removedSubjects = Set.copyOf(removedSubjects);
+    }
+
+    public int size() {
+        return permissions.size() + removedPermissions.size()
+                + constraints.size() + removedConstraints.size()
+                + roles.size() + removedRoles.size()
+                + subjects.size() + removedSubjects.size();
+    }
+}
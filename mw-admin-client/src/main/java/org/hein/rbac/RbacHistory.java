@@ -0,0 +1,72 @@
+package org.hein.rbac;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The last few published {@link RbacState}s, used to answer {@link #since} with a delta when
+ * the caller's version is still known and with the full state otherwise. Deltas are computed
+ * once per retained base version and reused until the next publish; unknown versions come from
+ * the caller and are never cached.
+ */
+public class RbacHistory {
+
+    private final int capacity;
+    private final ArrayDeque<RbacState> states;
+    private final Map<Long, RbacUpdate> updates = new HashMap<>();
+
+    private RbacState current;
+
+    public RbacHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.states = new ArrayDeque<>(capacity);
+    }
+
+    public synchronized void publish(RbacState state) {
+        if (current != null && state.version() <= current.version()) {
+            throw new IllegalArgumentException("Version " + state.version() + " is not newer than " + current.version());
+        }
+        if (states.size() == capacity) {
+            states.removeFirst();
+        }
+        states.addLast(state);
+        updates.clear();
+        current = state;
+    }
+
+    /**
+     * The latest state, or null before the first publish
+     */
+    public synchronized RbacState current() {
+        return current;
+    }
+
+    public synchronized RbacUpdate since(long version) {
+        if (current == null) {
+            throw new IllegalStateException("Nothing published yet");
+        }
+        if (version == current.version()) {
+            return RbacUpdate.notModified(version);
+        }
+        RbacState base = find(version);
+        if (base == null) {
+            return RbacUpdate.full(current);
+        }
+        return updates.computeIfAbsent(version, v -> RbacUpdate.delta(current.diff(base)));
+    }
+
+    private RbacState find(long version) {
+        for (Iterator<RbacState> it = states.descendingIterator(); it.hasNext(); ) {
+            RbacState state = it.next();
+            if (state.version() == version) {
+                return state;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,177 @@
+package org.hein.rbac;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Complete, immutable RBAC state at one version: every permission by id with its constraint policy,
+ * every role with its parent and direct permissions, and the granting role assignments of every
+ * subject with their restrictions. This is what gets replicated to clients; {@link PermissionSnapshot}
+ * is compiled from it.
+ *
+ * @param permissions permission id to name ("feature_code:ACTION")
+ * @param constraints permission id to constraint policy, for the permissions that have one
+ * @param roles       role id to parent and direct permissions
+ * @param subjects    username to the role assignments that currently or will grant permissions
+ */
+public record RbacState(
+        long version,
+        Map<Long, String> permissions,
+        Map<Long, String> constraints,
+        Map<Long, Role> roles,
+        Map<String, List<Grant>> subjects
+) {
+
+    /**
+     * @param parentId      parent role, whose permissions are inherited; null for a top-level role
+     * @param permissionIds ids of the permissions assigned directly to the role
+     */
+    public record Role(Long parentId, Set<Long> permissionIds) {
+
+        public Role {
+            permissionIds = Set.copyOf(permissionIds);
+        }
+    }
+
+    /**
+     * A role assignment, valid between the two instants in epoch milliseconds (inclusive)
+     *
+     * @param validFrom    null when valid since forever
+     * @param validTo      null when it never expires
+     * @param restrictions policy the request must satisfy for the assignment to count, null for none
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Grant(long roleId, Long validFrom, Long validTo, String restrictions) {
+    }
+
+    public RbacState {
+        permissions = Map.copyOf(permissions);
+        constraints = constraints == null ? Map.of() : Map.copyOf(constraints);
+        roles = Map.copyOf(roles);
+        subjects = Map.copyOf(subjects);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The changes that turn the older state into this one
+     */
+    public RbacDelta diff(RbacState older) {
+        return new RbacDelta(
+                older.version, version,
+                changed(older.permissions, permissions), removed(older.permissions, permissions),
+                changed(older.constraints, constraints), removed(older.constraints, constraints),
+                changed(older.roles, roles), removed(older.roles, roles),
+                changed(older.subjects, subjects), removed(older.subjects, subjects)
+        );
+    }
+
+    /**
+     * Apply a delta computed against this version
+     *
+     * @throws IllegalArgumentException if the delta starts from another version
+     */
+    public RbacState apply(RbacDelta delta) {
+        if (delta.fromVersion() != version) {
+            throw new IllegalArgumentException("Delta from version " + delta.fromVersion() + " cannot be applied to version " + version);
+        }
+        return new RbacState(
+                delta.toVersion(),
+                merge(permissions, delta.permissions(), delta.removedPermissions()),
+                merge(constraints, delta.constraints(), delta.removedConstraints()),
+                merge(roles, delta.roles(), delta.removedRoles()),
+                merge(subjects, delta.subjects(), delta.removedSubjects())
+        );
+    }
+
+    private static <K, V> Map<K, V> changed(Map<K, V> before, Map<K, V> after) {
+        Map<K, V> changed = new HashMap<>();
+        after.forEach((key, value) -> {
+            if (!value.equals(before.get(key))) {
+                changed.put(key, value);
+            }
+        });
+        return changed;
+    }
+
+    private static <K> Set<K> removed(Map<K, ?> before, Map<K, ?> after) {
+        Set<K> removed = new HashSet<>(before.keySet());
+        removed.removeAll(after.keySet());
+        return removed;
+    }
+
+    private static <K, V> Map<K, V> merge(Map<K, V> base, Map<K, V> changed, Set<K> removed) {
+        Map<K, V> merged = new HashMap<>(base);
+        merged.keySet().removeAll(removed);
+        merged.putAll(changed);
+        return merged;
+    }
+
+    /**
+     * Collects rows in any order and assembles them on {@link #build}
+     */
+    public static final class Builder {
+
+        private final Map<Long, String> permissions = new HashMap<>();
+        private final Map<Long, String> constraints = new HashMap<>();
+        private final Map<Long, Long> parents = new HashMap<>();
+        private final Map<Long, Set<Long>> rolePermissions = new HashMap<>();
+        private final Map<String, List<Grant>> subjects = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder permission(long id, String name) {
+            permissions.put(id, Objects.requireNonNull(name));
+            return this;
+        }
+
+        /**
+         * The permission's constraint policy; a blank one places no constraint and is left out
+         */
+        public Builder constraint(long permissionId, String policy) {
+            if (policy != null && !policy.isBlank()) {
+                constraints.put(permissionId, policy);
+            }
+            return this;
+        }
+
+        public Builder role(long id, Long parentId) {
+            parents.put(id, parentId);
+            return this;
+        }
+
+        public Builder rolePermission(long roleId, long permissionId) {
+            rolePermissions.computeIfAbsent(roleId, id -> new LinkedHashSet<>()).add(permissionId);
+            return this;
+        }
+
+        public Builder grant(String subject, long roleId, Long validFrom, Long validTo) {
+            return grant(subject, roleId, validFrom, validTo, null);
+        }
+
+        public Builder grant(String subject, long roleId, Long validFrom, Long validTo, String restrictions) {
+            String policy = restrictions == null || restrictions.isBlank() ? null : restrictions;
+            subjects.computeIfAbsent(subject, s -> new ArrayList<>()).add(new Grant(roleId, validFrom, validTo, policy));
+            return this;
+        }
+
+        public RbacState build(long version) {
+            Map<Long, Role> roles = new HashMap<>();
+            parents.forEach((id, parentId) -> roles.put(id, new Role(parentId, rolePermissions.getOrDefault(id, Set.of()))));
+            Map<String, List<Grant>> grants = new HashMap<>();
+            subjects.forEach((subject, list) -> grants.put(subject, List.copyOf(list)));
+            return new RbacState(version, permissions, constraints, roles, grants);
+        }
+    }
+}
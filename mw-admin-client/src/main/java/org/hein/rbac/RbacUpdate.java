@@ -0,0 +1,26 @@
+package org.hein.rbac;
+
+/**
+ * Answer to "what changed since version N": nothing, a delta from N, or the full state when
+ * N is unknown or too old. Exactly one of snapshot and delta is set unless nothing changed.
+ *
+ * @param version the version the receiver holds after applying this update
+ */
+public record RbacUpdate(long version, RbacState snapshot, RbacDelta delta) {
+
+    public static RbacUpdate notModified(long version) {
+        return new RbacUpdate(version, null, null);
+    }
+
+    public static RbacUpdate full(RbacState snapshot) {
+        return new RbacUpdate(snapshot.version(), snapshot, null);
+    }
+
+    public static RbacUpdate delta(RbacDelta delta) {
+        return new RbacUpdate(delta.toVersion(), null, delta);
+    }
+
+    public boolean isModified() {
+        return snapshot != null || delta != null;
+    }
+}
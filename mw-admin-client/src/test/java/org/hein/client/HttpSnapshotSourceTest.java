@@ -0,0 +1,92 @@
+package org.hein.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.hein.rbac.RbacHistory;
+import org.hein.rbac.RbacState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the HTTP source against a local stand-in of the replication endpoint that answers
+ * in the server's ApiResponse envelope
+ */
+class HttpSnapshotSourceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final RbacHistory history = new RbacHistory(4);
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(HttpSnapshotSource.REPLICATION_PATH, exchange -> {
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            long since = Long.parseLong(exchange.getRequestURI().getQuery().substring("since=".length()));
+            byte[] body = mapper.writeValueAsString(Map.of("statusCode", 200, "payload", history.since(since)))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/forbidden", exchange -> {
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void clientReplicatesOverHttp() throws IOException {
+        history.publish(RbacState.builder()
+                .permission(1, "users:VIEW")
+                .role(1, null)
+                .rolePermission(1, 1)
+                .grant("alice", 1, null, 4_102_444_800_000L)
+                .build(7));
+        URI base = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        PolicyDecisionClient client = PolicyDecisionClient.builder(
+                new HttpSnapshotSource(base, () -> "token", Duration.ofSeconds(2))).build();
+
+        assertTrue(client.refresh());
+        assertEquals("Bearer token", authorization.get());
+        assertTrue(client.hasPermission("alice", "users:VIEW"));
+
+        history.publish(RbacState.builder()
+                .permission(1, "users:VIEW")
+                .role(1, null)
+                .rolePermission(1, 1)
+                .grant("bob", 1, null, null)
+                .build(8));
+        assertTrue(client.refresh());
+        assertEquals(8, client.version());
+        assertTrue(client.hasPermission("bob", "users:VIEW"));
+    }
+
+    @Test
+    void nonOkStatusFails() {
+        URI base = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/forbidden");
+        HttpSnapshotSource source = new HttpSnapshotSource(base, () -> "token", Duration.ofSeconds(2));
+        assertThrows(IOException.class, () -> source.fetch(0));
+    }
+}
@@ -0,0 +1,85 @@
+package org.hein.client;
+
+import org.hein.rbac.RbacState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicyDecisionClientTest {
+
+    private static RbacState.Builder base() {
+        return RbacState.builder()
+                .permission(1, "users:VIEW")
+                .permission(2, "users:DELETE")
+                .role(1, null)
+                .role(2, 1L)
+                .rolePermission(1, 2)
+                .rolePermission(2, 1);
+    }
+
+    @Test
+    void followsTheServerThroughFullStateAndDeltas() throws IOException {
+        InMemorySnapshotSource server = new InMemorySnapshotSource();
+        PolicyDecisionClient client = PolicyDecisionClient.builder(server).build();
+
+        assertFalse(client.hasPermission("alice", "users:VIEW"));
+
+        server.publish(base().grant("alice", 2, null, null).build(10));
+        assertTrue(client.refresh());
+        assertEquals(10, client.version());
+        assertTrue(client.hasPermission("alice", "users:VIEW"));
+        assertTrue(client.hasPermission("alice", "users:DELETE"));
+        assertFalse(client.hasPermission("bob", "users:VIEW"));
+
+        assertFalse(client.refresh());
+
+        server.publish(base().grant("bob", 1, null, null).build(11));
+        assertNotNull(server.fetch(10).delta());
+        assertTrue(client.refresh());
+        assertEquals(11, client.version());
+        assertFalse(client.hasPermission("alice", "users:VIEW"));
+        assertTrue(client.hasPermission("bob", "users:DELETE"));
+        assertFalse(client.hasPermission("bob", "users:VIEW"));
+    }
+
+    @Test
+    void unknownVersionGetsTheFullState() throws IOException {
+        InMemorySnapshotSource server = new InMemorySnapshotSource(2);
+        server.publish(base().build(1));
+        server.publish(base().build(2));
+        server.publish(base().grant("alice", 1, null, null).build(3));
+
+        assertNull(server.fetch(1).delta());
+        assertNotNull(server.fetch(1).snapshot());
+        assertNotNull(server.fetch(2).delta());
+        assertFalse(server.fetch(3).isModified());
+    }
+
+    @Test
+    void keepsServingWhileTheServerIsUnreachable() throws IOException {
+        InMemorySnapshotSource server = new InMemorySnapshotSource();
+        server.publish(base().grant("alice", 1, null, null).build(1));
+        PolicyDecisionClient client = PolicyDecisionClient.builder(server).build();
+        client.refresh();
+
+        server.setAvailable(false);
+        assertThrows(IOException.class, client::refresh);
+        assertTrue(client.hasPermission("alice", "users:DELETE"));
+    }
+
+    @Test
+    void deltaAppliedToOlderStateEqualsNewerState() {
+        RbacState older = base().grant("alice", 1, null, null).grant("bob", 2, 5L, 10L).build(1);
+        RbacState newer = base().role(3, 2L).rolePermission(3, 2).grant("bob", 3, null, null).build(2);
+
+        assertEquals(newer, older.apply(newer.diff(older)));
+        assertThrows(IllegalArgumentException.class, () -> newer.apply(newer.diff(older)));
+    }
+}
@@ -0,0 +1,101 @@
+package org.hein.policy;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every policy of policies/corpus.txt through the compiler and against a fixed request context
+ */
+class PolicyCorpusTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 50_000;
+
+    static final PolicyContext CONTEXT = new PolicyContext()
+            .set(PolicyAttributes.SUBJECT_USERNAME, "alice")
+            .setAddress(PolicyAttributes.REQUEST_IP, "10.1.2.3")
+            .set(PolicyAttributes.REQUEST_METHOD, "GET")
+            .set(PolicyAttributes.REQUEST_PATH, "/api/v1/users")
+            .set(PolicyAttributes.TIME_HOUR, 10)
+            .set(PolicyAttributes.TIME_DAY_OF_WEEK, 3)
+            .set(PolicyAttributes.TIME_EPOCH_SECOND, 1_760_000_000L);
+
+    @TestFactory
+    Stream<DynamicTest> corpus() throws Exception {
+        return corpusLines().map(line -> {
+            String expected = line.substring(0, line.indexOf('\t'));
+            String policy = line.substring(line.indexOf('\t') + 1);
+            return DynamicTest.dynamicTest(expected + ": " + policy, () -> {
+                if (expected.equals("error")) {
+                    assertThrows(IllegalArgumentException.class, () -> PolicyCompiler.compile(policy));
+                } else {
+                    assertEquals(Boolean.parseBoolean(expected), PolicyCompiler.compile(policy).test(CONTEXT));
+                }
+            });
+        });
+    }
+
+    @Test
+    void compiledEvaluationDoesNotAllocate() throws Exception {
+        Policy[] policies = compiledCorpus();
+        for (int i = 0; i < WARMUP; i++) {
+            evaluateAll(policies, CONTEXT);
+        }
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            evaluateAll(policies, CONTEXT);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // Allow for the odd allocation of the measurement itself, far below one object per check
+        double checks = (double) ITERATIONS * policies.length;
+        assertTrue(allocated < checks / 100, "compiled evaluation allocated " + allocated + " bytes");
+    }
+
+    /**
+     * Sources of the valid corpus policies
+     */
+    static List<String> corpusSources() throws Exception {
+        return corpusLines()
+                .filter(line -> !line.startsWith("error"))
+                .map(line -> line.substring(line.indexOf('\t') + 1))
+                .toList();
+    }
+
+    static Policy[] compiledCorpus() throws Exception {
+        return corpusSources().stream().map(PolicyCompiler::compile).toArray(Policy[]::new);
+    }
+
+    static int evaluateAll(Policy[] policies, PolicyContext context) {
+        int granted = 0;
+        for (Policy policy : policies) {
+            if (policy.test(context)) {
+                granted++;
+            }
+        }
+        return granted;
+    }
+
+    static Stream<String> corpusLines() throws Exception {
+        var reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(PolicyCorpusTest.class.getResourceAsStream("/policies/corpus.txt")),
+                StandardCharsets.UTF_8));
+        return reader.lines().filter(line -> !line.isBlank() && !line.startsWith("#")).toList().stream();
+    }
+}
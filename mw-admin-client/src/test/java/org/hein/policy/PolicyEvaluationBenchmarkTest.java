@@ -0,0 +1,56 @@
+package org.hein.policy;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.hein.policy.PolicyCorpusTest.compiledCorpus;
+import static org.hein.policy.PolicyCorpusTest.corpusSources;
+import static org.hein.policy.PolicyCorpusTest.evaluateAll;
+
+/**
+ * Cost of evaluating the valid corpus policies compiled once, as the server and the snapshot do, against
+ * parsing the text on every check. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class PolicyEvaluationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyEvaluationBenchmarkTest.class);
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 50_000;
+
+    @Test
+    void compiledAgainstParsePerCheck() throws Exception {
+        List<String> sources = corpusSources();
+        Policy[] policies = compiledCorpus();
+        PolicyContext context = PolicyCorpusTest.CONTEXT;
+
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += evaluateAll(policies, context);
+        }
+
+        long compiledStartedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += evaluateAll(policies, context);
+        }
+        long compiledNanos = System.nanoTime() - compiledStartedAt;
+
+        int parseIterations = ITERATIONS / 50;
+        long parseStartedAt = System.nanoTime();
+        for (int i = 0; i < parseIterations; i++) {
+            for (String source : sources) {
+                sink += PolicyCompiler.compile(source).test(context) ? 1 : 0;
+            }
+        }
+        long parseNanos = System.nanoTime() - parseStartedAt;
+
+        log.info(String.format("compiled %6.1f ns/check; parse per check %8.1f ns/check (sink %d)",
+                compiledNanos / ((double) ITERATIONS * policies.length),
+                parseNanos / ((double) parseIterations * sources.size()), sink));
+    }
+}
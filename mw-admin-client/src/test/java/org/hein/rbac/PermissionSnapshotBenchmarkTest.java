@@ -0,0 +1,99 @@
+package org.hein.rbac;
+
+import org.hein.rbac.PermissionSnapshotTest.Check;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hein.rbac.PermissionSnapshotTest.DAY;
+import static org.hein.rbac.PermissionSnapshotTest.NOW;
+
+/**
+ * Load test: one decision thread per core over a synthetic tree of 20k users, 200 roles
+ * in parent chains and 1000 permissions, in batches of 1000 random checks. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class PermissionSnapshotBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionSnapshotBenchmarkTest.class);
+
+    @Test
+    void decisionsPerSecondPerCore() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        RbacState.Builder builder = RbacState.builder();
+        int permissions = 1000, roles = 200, users = 20_000;
+        for (int p = 0; p < permissions; p++) {
+            builder.permission(p, "feature" + (p / 10) + ":ACTION" + (p % 10));
+        }
+        for (int r = 0; r < roles; r++) {
+            builder.role(r, r % 4 == 0 ? null : (long) r - 1);
+            for (int i = 0; i < 25; i++) {
+                builder.rolePermission(r, random.nextInt(permissions));
+            }
+        }
+        for (int u = 0; u < users; u++) {
+            for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                Long validTo = random.nextInt(10) == 0 ? NOW + 30 * DAY : null;
+                builder.grant("user" + u, random.nextInt(roles), null, validTo);
+            }
+        }
+        PermissionSnapshot snapshot = PermissionSnapshot.compile(builder.build(1));
+
+        int batchSize = 1000, batches = 64;
+        List<List<Check>> workload = new ArrayList<>(batches);
+        for (int b = 0; b < batches; b++) {
+            List<Check> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(new Check("user" + random.nextInt(users + users / 10),
+                        "feature" + random.nextInt(permissions / 10) + ":ACTION" + random.nextInt(10)));
+            }
+            workload.add(batch);
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        long durationNanos = TimeUnit.SECONDS.toNanos(2);
+        ExecutorService executor = Executors.newFixedThreadPool(cores);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < cores; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    long decisions = 0, granted = 0;
+                    long startedAt = System.nanoTime();
+                    for (int b = offset; System.nanoTime() - startedAt < durationNanos; b++) {
+                        for (boolean decision : snapshot.decide(workload.get(b % batches), Check::subject, Check::permission, NOW)) {
+                            granted += decision ? 1 : 0;
+                        }
+                        decisions += batchSize;
+                    }
+                    return new long[]{decisions, granted, System.nanoTime() - startedAt};
+                }));
+            }
+            start.countDown();
+
+            double total = 0;
+            long granted = 0;
+            for (Future<long[]> result : results) {
+                long[] r = result.get();
+                total += r[0] / (r[2] / 1e9);
+                granted += r[1];
+            }
+            log.info(String.format("permission snapshot: cores=%d decisions/s=%.0f decisions/s/core=%.0f granted=%d",
+                    cores, total, total / cores, granted));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
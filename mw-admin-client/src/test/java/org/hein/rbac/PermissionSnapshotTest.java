@@ -0,0 +1,117 @@
+package org.hein.rbac;
+
+import org.hein.policy.PolicyAttributes;
+import org.hein.policy.PolicyContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermissionSnapshotTest {
+
+    static final long NOW = System.currentTimeMillis();
+    static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    record Check(String subject, String permission) {
+    }
+
+    @Test
+    void decisionsFollowRoleHierarchyAndValidity() {
+        PermissionSnapshot snapshot = PermissionSnapshot.compile(RbacState.builder()
+                .permission(1, "users:VIEW")
+                .permission(2, "users:DELETE")
+                .permission(3, "roles:VIEW")
+                .role(1, null)
+                .role(2, 1L)
+                .role(3, null)
+                .rolePermission(1, 2)
+                .rolePermission(2, 1)
+                .rolePermission(3, 3)
+                .grant("alice", 2, null, null)
+                .grant("bob", 3, NOW - DAY, NOW + DAY)
+                .grant("carol", 3, NOW + DAY, null)
+                .grant("erin", 3, NOW - 2 * DAY, NOW - DAY)
+                .build(1));
+
+        assertTrue(snapshot.isGranted("alice", "users:VIEW", NOW));
+        assertTrue(snapshot.isGranted("alice", "users:DELETE", NOW));
+        assertFalse(snapshot.isGranted("alice", "roles:VIEW", NOW));
+        assertTrue(snapshot.isGranted("bob", "roles:VIEW", NOW));
+        assertFalse(snapshot.isGranted("bob", "roles:VIEW", NOW + 2 * DAY));
+        assertFalse(snapshot.isGranted("carol", "roles:VIEW", NOW));
+        assertTrue(snapshot.isGranted("carol", "roles:VIEW", NOW + 2 * DAY));
+        assertFalse(snapshot.isGranted("erin", "roles:VIEW", NOW - DAY - DAY / 2));
+        assertFalse(snapshot.isGranted("dave", "users:VIEW", NOW));
+        assertFalse(snapshot.isGranted("alice", "unknown:VIEW", NOW));
+
+        boolean[] decisions = snapshot.decide(List.of(
+                        new Check("alice", "users:VIEW"),
+                        new Check("alice", "roles:VIEW"),
+                        new Check(null, "users:VIEW"),
+                        new Check("bob", null),
+                        new Check("bob", "roles:VIEW")),
+                Check::subject, Check::permission, NOW);
+        assertArrayEquals(new boolean[]{true, false, false, false, true}, decisions);
+    }
+
+    @Test
+    void policiesOfPermissionsAndAssignmentsApply() {
+        RbacState state = RbacState.builder()
+                .permission(1, "users:VIEW")
+                .permission(2, "users:DELETE")
+                .constraint(2, "request.ip in cidr('10.0.0.0/8')")
+                .role(1, null)
+                .role(2, null)
+                .rolePermission(1, 1)
+                .rolePermission(1, 2)
+                .rolePermission(2, 1)
+                .grant("alice", 1, null, null)
+                .grant("bob", 1, null, null, "request.method == 'GET'")
+                .grant("carol", 1, null, null, "request.method == 'GET'")
+                .grant("carol", 2, null, null)
+                .build(1);
+        PermissionSnapshot snapshot = PermissionSnapshot.compile(state);
+        PolicyContext internalGet = new PolicyContext()
+                .setAddress(PolicyAttributes.REQUEST_IP, "10.1.2.3")
+                .set(PolicyAttributes.REQUEST_METHOD, "GET");
+        PolicyContext externalPost = new PolicyContext()
+                .setAddress(PolicyAttributes.REQUEST_IP, "203.0.113.9")
+                .set(PolicyAttributes.REQUEST_METHOD, "POST");
+
+        assertTrue(snapshot.hasPolicies());
+        // Permission constraint
+        assertTrue(snapshot.isGranted("alice", "users:DELETE", () -> internalGet, NOW));
+        assertFalse(snapshot.isGranted("alice", "users:DELETE", () -> externalPost, NOW));
+        assertTrue(snapshot.isGranted("alice", "users:VIEW", () -> externalPost, NOW));
+        // Without a request context request conditions fail closed
+        assertFalse(snapshot.isGranted("alice", "users:DELETE", NOW));
+        // Assignment restrictions
+        assertTrue(snapshot.isGranted("bob", "users:VIEW", () -> internalGet, NOW));
+        assertFalse(snapshot.isGranted("bob", "users:VIEW", () -> externalPost, NOW));
+        assertTrue(snapshot.isGranted("carol", "users:VIEW", () -> externalPost, NOW));
+
+        // Permissions already held through a token
+        assertFalse(snapshot.policiesAllow("bob", "users:VIEW", () -> externalPost, NOW));
+        assertTrue(snapshot.policiesAllow("carol", "users:VIEW", () -> externalPost, NOW));
+        assertFalse(snapshot.policiesAllow("carol", "users:DELETE", () -> externalPost, NOW));
+        assertTrue(snapshot.policiesAllow("dave", "users:VIEW", () -> externalPost, NOW));
+        assertTrue(snapshot.policiesAllow("bob", "unknown:VIEW", () -> externalPost, NOW));
+
+        // Policies survive replication as a delta
+        RbacState changed = RbacState.builder()
+                .permission(1, "users:VIEW")
+                .permission(2, "users:DELETE")
+                .role(1, null)
+                .rolePermission(1, 1)
+                .grant("bob", 1, null, null, "request.method == 'POST'")
+                .build(2);
+        RbacState replicated = state.apply(changed.diff(state));
+        assertEquals(changed, replicated);
+        assertTrue(PermissionSnapshot.compile(replicated).isGranted("bob", "users:VIEW", () -> externalPost, NOW));
+    }
+}
@@ -0,0 +1,44 @@
+package org.hein.rbac;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RbacHistoryTest {
+
+    private final RbacHistory history = new RbacHistory(3);
+
+    @Test
+    void deltaForRetainedVersionFullStateOtherwise() {
+        history.publish(state(1));
+        history.publish(state(2));
+
+        RbacUpdate delta = history.since(1);
+        assertNotNull(delta.delta());
+        assertSame(delta, history.since(1));
+
+        RbacUpdate unknown = history.since(99);
+        assertSame(history.current(), unknown.snapshot());
+        assertEquals(2, history.since(2).version());
+    }
+
+    @Test
+    void unknownVersionsAreNotCached() {
+        history.publish(state(1));
+        history.publish(state(2));
+
+        assertNotSame(history.since(99), history.since(99));
+    }
+
+    private static RbacState state(long version) {
+        return RbacState.builder()
+                .permission(1, "USER:READ")
+                .role(10, null)
+                .rolePermission(10, 1)
+                .grant("user" + version, 10, null, null)
+                .build(version);
+    }
+}
@@ -2,6 +2,7 @@ package org.hein.api.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.hein.api.request.auth.TokenRefreshForm;
 import org.hein.api.request.auth.TokenRequestForm;
@@ -26,8 +27,8 @@ public class AuthApi {
 
     @PostMapping("/login")
     @Operation(summary = "Authenticate user and generate access tokens")
-    public ResponseEntity<ApiResponse<TokenResponse>> generate(@Valid @RequestBody TokenRequestForm form) {
-        TokenResponse tokenResponse = tokenService.generate(form);
+    public ResponseEntity<ApiResponse<TokenResponse>> generate(@Valid @RequestBody TokenRequestForm form, HttpServletRequest request) {
+        TokenResponse tokenResponse = tokenService.generate(form, request.getRemoteAddr());
         return ApiResponse.of(tokenResponse);
     }
 
@@ -0,0 +1,100 @@
+package org.hein.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.hein.api.request.authz.DecisionBatchRequest;
+import org.hein.api.request.authz.ImpactSimulationRequest;
+import org.hein.api.response.authz.DecisionBatchResponse;
+import org.hein.authz.ImpactSimulator;
+import org.hein.rbac.RbacUpdate;
+import org.hein.service.AuthorizationDecisionService;
+import org.hein.utils.ApiResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller answering authorization decisions for other services
+ */
+@RestController
+@RequestMapping("/api/v1/authz")
+@Tag(name = "Authorization Decisions", description = "APIs for checking other users' permissions")
+public class AuthorizationApi {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final AuthorizationDecisionService decisionService;
+    private final ObjectMapper objectMapper;
+
+    public AuthorizationApi(AuthorizationDecisionService decisionService, ObjectMapper objectMapper) {
+        this.decisionService = decisionService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Decide a batch of (subject, permission) checks
+     */
+    @PostMapping("/decisions")
+    @Operation(summary = "Decide a batch of (subject, permission) checks")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public ResponseEntity<ApiResponse<DecisionBatchResponse>> decide(@Valid @RequestBody DecisionBatchRequest request) {
+        return ApiResponse.of(decisionService.decide(request));
+    }
+
+    /**
+     * RBAC state changes since a version, for embedded policy-decision clients
+     */
+    @GetMapping("/replication")
+    @Operation(summary = "Get RBAC changes since a version (0 for the full state)")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public ResponseEntity<ApiResponse<RbacUpdate>> replicate(@RequestParam(defaultValue = "0") long since) {
+        return ApiResponse.of(decisionService.replicate(since));
+    }
+
+    /**
+     * Simulate role changes against the current state and stream the users whose permissions would change,
+     * as newline-delimited JSON: a header with the version and affected roles, one line per user, a summary
+     */
+    @PostMapping(value = "/simulations", produces = "application/x-ndjson")
+    @Operation(summary = "Stream the per-user permission changes a set of role changes would cause")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public ResponseEntity<StreamingResponseBody> simulate(@Valid @RequestBody ImpactSimulationRequest request) {
+        ImpactSimulator.Simulation simulation = decisionService.simulate(request);
+        long now = System.currentTimeMillis();
+        StreamingResponseBody body = out -> {
+            writeLine(out, Map.of("version", simulation.version(), "affectedRoleIds", simulation.affectedRoleIds()));
+            ImpactSimulator.Summary summary = simulation.run(now, batch -> writeLines(out, batch));
+            writeLine(out, Map.of("summary", summary));
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, Object line) {
+        writeLines(out, List.of(line));
+    }
+
+    /**
+     * Write and flush, so that results reach the client while the simulation is still running
+     */
+    private void writeLines(OutputStream out, List<?> lines) {
+        try {
+            for (Object line : lines) {
+                out.write(objectMapper.writeValueAsBytes(line));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.hein.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.hein.security.token.SigningKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes the token verification keys so other services can validate access tokens locally.
+ * The body is a plain RFC 7517 JWK Set rather than the usual ApiResponse envelope, since that is
+ * what JWT libraries fetch.
+ */
+@RestController
+@Tag(name = "Token Keys", description = "Public keys for verifying issued tokens")
+public class JwksApi {
+
+    private final SigningKeyRing signingKeyRing;
+
+    public JwksApi(SigningKeyRing signingKeyRing) {
+        this.signingKeyRing = signingKeyRing;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(summary = "Get the JWK Set of token verification keys")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(signingKeyRing.jwksMaxAgeSeconds())).cachePublic())
+                .body(signingKeyRing.jwks());
+    }
+}
@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.hein.api.request.permission.PermissionCreateRequest;
+import org.hein.api.response.permission.PermissionHoldersResponse;
 import org.hein.api.response.permission.PermissionResponse;
 import org.hein.service.PermissionService;
 import org.hein.utils.ApiResponse;
@@ -101,4 +102,18 @@ public class PermissionApi {
         List<PermissionResponse> permissions = permissionService.findRequiresApproval();
         return ApiResponse.of(permissions);
     }
+
+    /**
+     * Get the roles and users that effectively hold a permission
+     */
+    @GetMapping("/{id}/holders")
+    @Operation(summary = "Get the roles and users that hold a permission")
+    @PreAuthorize("hasAuthority('permissions:VIEW')")
+    public ResponseEntity<ApiResponse<PermissionHoldersResponse>> getHolders(
+            @PathVariable Long id,
+            @Parameter(description = "Username the previous page ended with")
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int size) {
+        return ApiResponse.of(permissionService.findHolders(id, after, size));
+    }
 }
@@ -0,0 +1,63 @@
+package org.hein.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.hein.api.response.authz.RbacChangesResponse;
+import org.hein.rbac.RbacState;
+import org.hein.service.RbacChangeFeedService;
+import org.hein.utils.ApiResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller for the versioned RBAC change feed
+ */
+@RestController
+@RequestMapping("/api/v1/rbac")
+@Tag(name = "RBAC Change Feed", description = "APIs for syncing RBAC state incrementally")
+public class RbacChangeFeedApi {
+
+    private final RbacChangeFeedService changeFeedService;
+
+    public RbacChangeFeedApi(RbacChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    /**
+     * Get the full RBAC state; the ETag is its revision, so If-None-Match answers 304 while nothing changed
+     */
+    @GetMapping("/snapshot")
+    @Operation(summary = "Get the full RBAC state at the current revision")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public ResponseEntity<ApiResponse<RbacState>> snapshot() {
+        RbacState state = changeFeedService.snapshot();
+        return ResponseEntity.ok()
+                .eTag(Long.toString(state.version()))
+                .body(ApiResponse.of(state).getBody());
+    }
+
+    /**
+     * Get the aggregates changed after a revision
+     */
+    @GetMapping("/changes")
+    @Operation(summary = "Get RBAC changes after a revision")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public ResponseEntity<ApiResponse<RbacChangesResponse>> changes(
+            @RequestParam long since,
+            @RequestParam(defaultValue = "500") int maxRevisions) {
+        return ApiResponse.of(changeFeedService.changesSince(since, maxRevisions));
+    }
+
+    /**
+     * Stream new revisions as server-sent events
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream new RBAC revisions as server-sent events")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public SseEmitter stream() {
+        return changeFeedService.subscribe();
+    }
+}
@@ -0,0 +1,61 @@
+package org.hein.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.hein.rbacconfig.RbacConfigDiff;
+import org.hein.rbacconfig.RbacConfigSnapshot;
+import org.hein.service.RbacConfigService;
+import org.hein.utils.ApiResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for exporting RBAC configuration and applying it in another environment
+ */
+@RestController
+@RequestMapping("/api/v1/rbac/config")
+@Tag(name = "RBAC Configuration", description = "APIs for promoting features, permissions and roles between environments")
+public class RbacConfigApi {
+
+    private final RbacConfigService configService;
+
+    public RbacConfigApi(RbacConfigService configService) {
+        this.configService = configService;
+    }
+
+    /**
+     * Export features, permissions and roles with their hierarchies and grants
+     */
+    @GetMapping
+    @Operation(summary = "Export the RBAC configuration as a snapshot")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public ResponseEntity<ApiResponse<RbacConfigSnapshot>> export() {
+        return ApiResponse.of(configService.export());
+    }
+
+    /**
+     * Compare a snapshot with the current configuration
+     */
+    @PostMapping("/diff")
+    @Operation(summary = "List the changes applying a snapshot would make")
+    @PreAuthorize("hasAuthority('authz:VIEW')")
+    public ResponseEntity<ApiResponse<RbacConfigDiff>> diff(
+            @RequestBody RbacConfigSnapshot snapshot,
+            @RequestParam(defaultValue = "false") boolean prune) {
+        return ApiResponse.of(configService.diff(snapshot, prune));
+    }
+
+    /**
+     * Apply a snapshot in one transaction; pass the baseRevision of a reviewed diff to apply exactly that diff
+     */
+    @PostMapping("/apply")
+    @Operation(summary = "Apply a snapshot to the current configuration")
+    @PreAuthorize("hasAuthority('features:UPDATE') and hasAuthority('permissions:UPDATE') and hasAuthority('roles:UPDATE')")
+    public ResponseEntity<ApiResponse<RbacConfigDiff>> apply(
+            @RequestBody RbacConfigSnapshot snapshot,
+            @RequestParam(defaultValue = "false") boolean prune,
+            @RequestParam(required = false) Long baseRevision) {
+        return ApiResponse.of(configService.apply(snapshot, prune, baseRevision));
+    }
+}
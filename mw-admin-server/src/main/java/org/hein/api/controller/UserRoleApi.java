@@ -3,7 +3,12 @@ package org.hein.api.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.hein.api.request.userrole.ApprovalDecisionRequest;
 import org.hein.api.request.userrole.UserRoleAssignmentRequest;
+import org.hein.api.request.userrole.UserRoleBulkRequest;
+import org.hein.api.response.userrole.PendingApprovalResponse;
+import org.hein.api.response.userrole.UserRoleBatchResponse;
+import org.hein.api.response.userrole.UserRoleHistoryResponse;
 import org.hein.api.response.userrole.UserRoleResponse;
 import org.hein.service.UserRoleService;
 import org.hein.utils.ApiResponse;
@@ -105,16 +110,76 @@ public class UserRoleApi {
     }
 
     /**
-     * Find role assignments that require approval
+     * Find archived role assignments, newest first, one page at a time
+     */
+    @GetMapping("/history")
+    @Operation(summary = "Find archived role assignments of a user or role")
+    @PreAuthorize("hasAuthority('users:VIEW') or hasAuthority('roles:VIEW')")
+    public ResponseEntity<ApiResponse<List<UserRoleHistoryResponse>>> findHistory(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long roleId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int size) {
+        return ApiResponse.of(userRoleService.findHistory(userId, roleId, beforeId, size));
+    }
+
+    /**
+     * Find role assignments that require approval, one page at a time
      */
     @GetMapping("/pending")
     @Operation(summary = "Find role assignments that require approval")
     @PreAuthorize("hasAuthority('users:APPROVE_ROLE')")
-    public ResponseEntity<ApiResponse<List<UserRoleResponse>>> findPendingApprovals() {
-        List<UserRoleResponse> responses = userRoleService.findPendingApprovals();
+    public ResponseEntity<ApiResponse<List<PendingApprovalResponse>>> findPendingApprovals(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size) {
+        List<PendingApprovalResponse> responses = userRoleService.findPendingApprovals(afterId, size);
+        return ApiResponse.of(responses);
+    }
+
+    /**
+     * Claim the next pending role assignments for review
+     */
+    @PostMapping("/pending/claim")
+    @Operation(summary = "Claim the next pending role assignments for review")
+    @PreAuthorize("hasAuthority('users:APPROVE_ROLE')")
+    public ResponseEntity<ApiResponse<List<PendingApprovalResponse>>> claimPendingApprovals(
+            @RequestParam(defaultValue = "20") int limit) {
+        List<PendingApprovalResponse> responses = userRoleService.claimPendingApprovals(limit);
         return ApiResponse.of(responses);
     }
 
+    /**
+     * Return claimed role assignments to the queue
+     */
+    @PostMapping("/pending/release")
+    @Operation(summary = "Return claimed role assignments to the queue")
+    @PreAuthorize("hasAuthority('users:APPROVE_ROLE')")
+    public ResponseEntity<ApiResponse<Integer>> releaseClaims(@RequestBody List<Long> userRoleIds) {
+        return ApiResponse.of(userRoleService.releaseClaims(userRoleIds));
+    }
+
+    /**
+     * Approve a batch of claimed role assignments
+     */
+    @PostMapping("/pending/approve")
+    @Operation(summary = "Approve a batch of claimed role assignments")
+    @PreAuthorize("hasAuthority('users:APPROVE_ROLE')")
+    public ResponseEntity<ApiResponse<UserRoleBatchResponse>> approveClaimed(
+            @Valid @RequestBody ApprovalDecisionRequest request) {
+        return ApiResponse.of(userRoleService.approveClaimed(request));
+    }
+
+    /**
+     * Reject a batch of claimed role assignments
+     */
+    @PostMapping("/pending/reject")
+    @Operation(summary = "Reject a batch of claimed role assignments")
+    @PreAuthorize("hasAuthority('users:APPROVE_ROLE')")
+    public ResponseEntity<ApiResponse<UserRoleBatchResponse>> rejectClaimed(
+            @Valid @RequestBody ApprovalDecisionRequest request) {
+        return ApiResponse.of(userRoleService.rejectClaimed(request));
+    }
+
     /**
      * Find role assignments that will expire within a specified number of days
      */
@@ -153,4 +218,44 @@ public class UserRoleApi {
         userRoleService.revokeAssignment(userRoleId, revocationReason);
         return ApiResponse.of(null, HttpStatus.NO_CONTENT);
     }
+
+    /**
+     * Approve every pending role assignment selected by ids or filters
+     */
+    @PostMapping("/bulk/approve")
+    @Operation(summary = "Approve role assignments in bulk")
+    @PreAuthorize("hasAuthority('users:APPROVE_ROLE')")
+    public ResponseEntity<ApiResponse<UserRoleBatchResponse>> bulkApprove(@Valid @RequestBody UserRoleBulkRequest request) {
+        return ApiResponse.of(userRoleService.bulkApprove(request));
+    }
+
+    /**
+     * Reject every pending role assignment selected by ids or filters
+     */
+    @PostMapping("/bulk/reject")
+    @Operation(summary = "Reject role assignments in bulk")
+    @PreAuthorize("hasAuthority('users:APPROVE_ROLE')")
+    public ResponseEntity<ApiResponse<UserRoleBatchResponse>> bulkReject(@Valid @RequestBody UserRoleBulkRequest request) {
+        return ApiResponse.of(userRoleService.bulkReject(request));
+    }
+
+    /**
+     * Revoke every role assignment selected by ids or filters
+     */
+    @PostMapping("/bulk/revoke")
+    @Operation(summary = "Revoke role assignments in bulk")
+    @PreAuthorize("hasAuthority('users:REMOVE_ROLE')")
+    public ResponseEntity<ApiResponse<UserRoleBatchResponse>> bulkRevoke(@Valid @RequestBody UserRoleBulkRequest request) {
+        return ApiResponse.of(userRoleService.bulkRevoke(request));
+    }
+
+    /**
+     * Extend every role assignment selected by ids or filters to a new expiry date
+     */
+    @PostMapping("/bulk/extend")
+    @Operation(summary = "Extend role assignments in bulk")
+    @PreAuthorize("hasAuthority('users:ASSIGN_ROLE')")
+    public ResponseEntity<ApiResponse<UserRoleBatchResponse>> bulkExtend(@Valid @RequestBody UserRoleBulkRequest request) {
+        return ApiResponse.of(userRoleService.bulkExtend(request));
+    }
 }
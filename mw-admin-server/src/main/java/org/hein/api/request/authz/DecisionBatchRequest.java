@@ -0,0 +1,23 @@
+package org.hein.api.request.authz;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Request DTO for deciding a batch of (subject, permission) checks in one call
+ */
+public record DecisionBatchRequest(
+        @NotEmpty(message = "At least one check is required")
+        List<Check> checks
+) {
+    /**
+     * A single check: may the user with this username exercise the permission ("feature:ACTION")?
+     * Checks with a missing subject or permission are denied rather than rejected.
+     */
+    public record Check(
+            String subject,
+            String permission
+    ) {
+    }
+}
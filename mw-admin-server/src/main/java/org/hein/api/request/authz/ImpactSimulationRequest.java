@@ -0,0 +1,34 @@
+package org.hein.api.request.authz;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import org.hein.authz.RoleChange;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Request DTO for simulating the effect of role changes on every user's permissions, applied in order
+ */
+public record ImpactSimulationRequest(
+        @NotEmpty(message = "At least one change is required")
+        List<@Valid Change> changes
+) {
+    /**
+     * A proposed change: permissions added to or removed from a role, a role moved under another
+     * parent (none for top-level), or a role deleted
+     */
+    public record Change(
+            @NotNull(message = "Change type is required")
+            RoleChange.Type type,
+            @NotNull(message = "Role ID is required")
+            Long roleId,
+            Set<Long> permissionIds,
+            Long parentId
+    ) {
+        public RoleChange toRoleChange() {
+            return new RoleChange(type, roleId, permissionIds, parentId);
+        }
+    }
+}
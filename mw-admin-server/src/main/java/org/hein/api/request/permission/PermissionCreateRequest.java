@@ -6,8 +6,8 @@ import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
-import org.hein.entity.Action;
 import org.hein.entity.Permission;
+import org.hein.rbac.Action;
 
 /**
  * Request DTO for creating or updating a Permission
@@ -0,0 +1,18 @@
+package org.hein.api.request.userrole;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request DTO for approving or rejecting a batch of claimed role assignments
+ */
+public record ApprovalDecisionRequest(
+        @NotEmpty(message = "At least one assignment id is required")
+        List<Long> ids,
+
+        @Size(max = 500, message = "Notes cannot exceed 500 characters")
+        String notes
+) {
+}
@@ -0,0 +1,31 @@
+package org.hein.api.request.userrole;
+
+import jakarta.validation.constraints.Size;
+import org.hein.approval.UserRoleBulkUpdater;
+import org.hein.entity.UserRoleStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Request DTO for applying one operation to many role assignments, selected by ids, by filters or both.
+ * At least one selector is required.
+ */
+public record UserRoleBulkRequest(
+        List<Long> ids,
+
+        Long roleId,
+
+        LocalDateTime expiringBefore,
+
+        UserRoleStatus status,
+
+        @Size(max = 500, message = "Reason cannot exceed 500 characters")
+        String reason,
+
+        LocalDateTime newExpiryDate
+) {
+    public UserRoleBulkUpdater.Filter filter() {
+        return new UserRoleBulkUpdater.Filter(ids, roleId, expiringBefore, status);
+    }
+}
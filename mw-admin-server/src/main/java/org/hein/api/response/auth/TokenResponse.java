@@ -0,0 +1,11 @@
+package org.hein.api.response.auth;
+
+public record TokenResponse (
+		String username,
+		String accessToken,
+		String refreshToken ) {
+
+	public static TokenResponse from(String username, String accessToken, String refreshToken) {
+		return new TokenResponse(username, accessToken, refreshToken);
+	}
+}
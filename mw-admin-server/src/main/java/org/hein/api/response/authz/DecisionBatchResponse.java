@@ -0,0 +1,15 @@
+package org.hein.api.response.authz;
+
+import java.time.Instant;
+
+/**
+ * Response DTO for a batch of authorization decisions.
+ * decisions[i] answers checks[i] of the request; all of them were taken against the same
+ * permission snapshot, identified by its version and build time.
+ */
+public record DecisionBatchResponse(
+        long snapshotVersion,
+        Instant snapshotBuiltAt,
+        boolean[] decisions
+) {
+}
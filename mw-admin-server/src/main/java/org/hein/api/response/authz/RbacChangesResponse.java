@@ -0,0 +1,23 @@
+package org.hein.api.response.authz;
+
+import org.hein.authz.RbacChange;
+
+import java.util.List;
+
+/**
+ * Response DTO for a page of the RBAC change feed
+ *
+ * @param revision      revision reached after applying these changes; pass it as since for the next page
+ * @param current       latest committed revision
+ * @param hasMore       revision is still behind current; ask again from revision
+ * @param resetRequired the requested revision is older than the retained log; reload the full snapshot
+ * @param changes       aggregates changed after the requested revision, oldest first
+ */
+public record RbacChangesResponse(
+        long revision,
+        long current,
+        boolean hasMore,
+        boolean resetRequired,
+        List<RbacChange> changes
+) {
+}
@@ -0,0 +1,27 @@
+package org.hein.api.response.permission;
+
+import org.hein.authz.PermissionHolderIndex;
+
+import java.util.List;
+
+/**
+ * One page of the roles and users that effectively hold a permission
+ *
+ * @param version   RBAC revision the answer reflects
+ * @param roleIds   every role holding the permission directly or through a parent role
+ * @param usernames users holding it now, in username order
+ * @param nextAfter pass as {@code after} to get the next page; null on the last page
+ */
+public record PermissionHoldersResponse(
+        long version,
+        Long permissionId,
+        String permission,
+        List<Long> roleIds,
+        List<String> usernames,
+        String nextAfter
+) {
+    public static PermissionHoldersResponse from(PermissionHolderIndex.Holders holders) {
+        return new PermissionHoldersResponse(holders.version(), holders.permissionId(), holders.permission(),
+                holders.roleIds(), holders.usernames(), holders.nextAfter());
+    }
+}
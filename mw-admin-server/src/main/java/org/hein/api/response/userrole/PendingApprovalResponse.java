@@ -0,0 +1,33 @@
+package org.hein.api.response.userrole;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.hein.approval.ApprovalQueue;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for a pending role assignment in the approval queue
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PendingApprovalResponse(
+    Long id,
+    Long userId,
+    String username,
+    Long roleId,
+    String roleCode,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime assignedAt,
+
+    String assignmentReason,
+    String claimedBy,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime claimExpiresAt
+) {
+    public static PendingApprovalResponse from(ApprovalQueue.Item item) {
+        return new PendingApprovalResponse(item.id(), item.userId(), item.username(), item.roleId(), item.roleCode(),
+                item.assignedAt(), item.assignmentReason(), item.claimedBy(), item.claimExpiresAt());
+    }
+}
@@ -0,0 +1,18 @@
+package org.hein.api.response.userrole;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch operation on role assignments: the ids it was applied to and, for requested
+ * ids it did not apply to, why not
+ */
+public record UserRoleBatchResponse(
+    List<Long> applied,
+    List<Skipped> skipped
+) {
+    public record Skipped(
+        Long id,
+        String reason
+    ) {
+    }
+}
@@ -0,0 +1,57 @@
+package org.hein.api.response.userrole;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.hein.approval.UserRoleArchive;
+import org.hein.entity.UserRoleStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for an archived role assignment
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserRoleHistoryResponse(
+    Long id,
+    Long userId,
+    String username,
+    Long roleId,
+    String roleCode,
+    UserRoleStatus status,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime assignedAt,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime validFrom,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime validTo,
+
+    String assignmentReason,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime approvedAt,
+
+    String approverNotes,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime rejectionDate,
+
+    String rejectionReason,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime revocationDate,
+
+    String revocationReason,
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime archivedAt
+) {
+    public static UserRoleHistoryResponse from(UserRoleArchive.Entry entry) {
+        return new UserRoleHistoryResponse(entry.id(), entry.userId(), entry.username(), entry.roleId(), entry.roleCode(),
+                UserRoleStatus.valueOf(entry.status()), entry.assignedAt(), entry.validFrom(), entry.validTo(),
+                entry.assignmentReason(), entry.approvedAt(), entry.approverNotes(), entry.rejectionDate(),
+                entry.rejectionReason(), entry.revocationDate(), entry.revocationReason(), entry.archivedAt());
+    }
+}
@@ -0,0 +1,177 @@
+package org.hein.approval;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Work queue over the PENDING rows of user_roles.
+ * <p>
+ * An approver claims the next batch with {@code FOR UPDATE SKIP LOCKED}, so concurrent approvers are
+ * handed disjoint rows instead of racing on the same ones, and the claim is a lease recorded in
+ * claimed_by / claim_expires_at. Decisions are applied with one set-based UPDATE that only matches rows
+ * the caller still holds a live lease on; rows whose lease ran out go back to the queue and can be
+ * claimed by someone else. Nothing here loads the backlog into memory: every statement is bounded by
+ * its limit or its id list and runs on idx_user_roles_pending.
+ */
+@Slf4j
+@Component
+public class ApprovalQueue {
+
+    private static final String CLAIM_SQL = """
+            WITH claimed AS (
+                UPDATE user_roles SET claimed_by = ?, claim_expires_at = ?
+                WHERE id IN (SELECT id FROM user_roles
+                             WHERE status = 'PENDING' AND (claim_expires_at IS NULL OR claim_expires_at < ?)
+                             ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING id, user_id, role_id, assigned_at, assignment_reason, claimed_by, claim_expires_at)
+            SELECT c.id, c.user_id, u.username, c.role_id, r.code, c.assigned_at, c.assignment_reason,
+                   c.claimed_by, c.claim_expires_at
+            FROM claimed c JOIN users u ON u.id = c.user_id JOIN roles r ON r.id = c.role_id
+            ORDER BY c.id""";
+
+    private static final String LIST_SQL = """
+            SELECT ur.id, ur.user_id, u.username, ur.role_id, r.code, ur.assigned_at, ur.assignment_reason,
+                   CASE WHEN ur.claim_expires_at >= ? THEN ur.claimed_by END,
+                   CASE WHEN ur.claim_expires_at >= ? THEN ur.claim_expires_at END
+            FROM user_roles ur JOIN users u ON u.id = ur.user_id JOIN roles r ON r.id = ur.role_id
+            WHERE ur.status = 'PENDING' AND ur.id > ?
+            ORDER BY ur.id LIMIT ?""";
+
+    private static final String RELEASE_SQL = "UPDATE user_roles SET claimed_by = NULL, claim_expires_at = NULL "
+            + "WHERE id = ANY (?) AND status = 'PENDING' AND claimed_by = ?";
+
+    private static final String APPROVE_SQL = """
+            UPDATE user_roles SET status = 'ACTIVE', approved_at = ?, approver_notes = ?,
+                approved_by_id = (SELECT id FROM users WHERE username = ?),
+                claimed_by = NULL, claim_expires_at = NULL, updated_at = ?, updated_by = ?, version = version + 1
+            WHERE id = ANY (?) AND status = 'PENDING' AND claimed_by = ? AND claim_expires_at >= ?
+            RETURNING id, user_id""";
+
+    private static final String REJECT_SQL = """
+            UPDATE user_roles SET status = 'REJECTED', rejection_date = ?, rejection_reason = ?,
+                approved_by_id = (SELECT id FROM users WHERE username = ?), active = FALSE,
+                claimed_by = NULL, claim_expires_at = NULL, updated_at = ?, updated_by = ?, version = version + 1
+            WHERE id = ANY (?) AND status = 'PENDING' AND claimed_by = ? AND claim_expires_at >= ?
+            RETURNING id, user_id""";
+
+    private static final RowMapper<Item> ITEM = (rs, rowNum) -> new Item(
+            rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4), rs.getString(5),
+            toLocalDateTime(rs.getTimestamp(6)), rs.getString(7), rs.getString(8), toLocalDateTime(rs.getTimestamp(9)));
+
+    private static final RowMapper<Decided> DECIDED = (rs, rowNum) -> new Decided(rs.getLong(1), rs.getLong(2));
+
+    /**
+     * A pending assignment as the queue shows it; claimedBy and claimExpiresAt are null when it is free
+     */
+    public record Item(Long id, Long userId, String username, Long roleId, String roleCode,
+                       LocalDateTime assignedAt, String assignmentReason,
+                       String claimedBy, LocalDateTime claimExpiresAt) {
+    }
+
+    /**
+     * An assignment a decision was applied to
+     */
+    public record Decided(Long id, Long userId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long leaseSeconds;
+    private final int maxBatch;
+
+    public ApprovalQueue(JdbcTemplate jdbcTemplate,
+                         @Value("${app.approval.lease-seconds:300}") long leaseSeconds,
+                         @Value("${app.approval.max-batch:500}") int maxBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseSeconds = leaseSeconds;
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Lease up to limit of the oldest unclaimed pending assignments to the approver
+     */
+    @Transactional
+    public List<Item> claim(String approver, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Item> claimed = jdbcTemplate.query(CLAIM_SQL, ITEM, approver, Timestamp.valueOf(now.plusSeconds(leaseSeconds)),
+                Timestamp.valueOf(now), checkBatch(limit));
+        log.debug("{} claimed {} pending assignments", approver, claimed.size());
+        return claimed;
+    }
+
+    /**
+     * One page of the pending assignments after the given id, claimed or not
+     */
+    public List<Item> list(long afterId, int size) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.query(LIST_SQL, ITEM, now, now, afterId, checkBatch(size));
+    }
+
+    /**
+     * Hand claimed assignments back to the queue before their lease runs out
+     */
+    @Transactional
+    public int release(String approver, Collection<Long> ids) {
+        checkBatch(ids.size());
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(RELEASE_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            ps.setString(2, approver);
+            return ps;
+        });
+    }
+
+    /**
+     * Approve the given assignments the approver holds a live lease on, in the caller's transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Decided> approve(String approver, Collection<Long> ids, String notes) {
+        return decide(APPROVE_SQL, approver, ids, notes);
+    }
+
+    /**
+     * Reject the given assignments the approver holds a live lease on, in the caller's transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Decided> reject(String approver, Collection<Long> ids, String reason) {
+        return decide(REJECT_SQL, approver, ids, reason);
+    }
+
+    private List<Decided> decide(String sql, String approver, Collection<Long> ids, String text) {
+        checkBatch(ids.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setTimestamp(1, now);
+            ps.setString(2, text);
+            ps.setString(3, approver);
+            ps.setTimestamp(4, now);
+            ps.setString(5, approver);
+            ps.setArray(6, con.createArrayOf("bigint", ids.toArray()));
+            ps.setString(7, approver);
+            ps.setTimestamp(8, now);
+            return ps;
+        }, DECIDED);
+    }
+
+    private int checkBatch(int size) {
+        if (size < 1 || size > maxBatch) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + maxBatch);
+        }
+        return size;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
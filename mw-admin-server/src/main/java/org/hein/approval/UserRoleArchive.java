@@ -0,0 +1,156 @@
+package org.hein.approval;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.cache.InvalidationOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves finished role assignments out of user_roles into user_roles_history, so that the live table,
+ * its indexes and the User.userRoles / Role.userRoles collections only hold assignments that grant or
+ * may still grant something.
+ * <p>
+ * An assignment is archived once it has been REJECTED, REVOKED or EXPIRED for app.user-role.archive.after-days,
+ * or is ACTIVE with a validity that ended that long ago; the latter is archived as EXPIRED and can no
+ * longer be extended. Each batch moves the rows with one DELETE ... RETURNING feeding an INSERT, in its
+ * own transaction, and locks them with SKIP LOCKED so that several nodes may run the job at once.
+ * Archived assignments stay readable through {@link #history}.
+ */
+@Slf4j
+@Component
+public class UserRoleArchive {
+
+    private static final String ARCHIVE_SQL = """
+            WITH moved AS (
+                DELETE FROM user_roles
+                WHERE id IN (SELECT id FROM user_roles
+                             WHERE (status IN ('REJECTED', 'REVOKED', 'EXPIRED') AND COALESCE(updated_at, created_at) < ?)
+                                OR (status = 'ACTIVE' AND valid_to < ?)
+                             ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING *)
+            INSERT INTO user_roles_history (id, user_id, role_id, status, assigned_at, valid_from, valid_to, assigned_by_id,
+                assignment_reason, approved_by_id, approved_at, approver_notes, rejection_reason, rejection_date,
+                revoked_by_id, revocation_date, revocation_reason, inherit_permissions, restrictions,
+                created_at, created_by, updated_at, updated_by, archived_at)
+            SELECT id, user_id, role_id, CASE WHEN status = 'ACTIVE' THEN 'EXPIRED' ELSE status END, assigned_at, valid_from,
+                valid_to, assigned_by_id, assignment_reason, approved_by_id, approved_at, approver_notes, rejection_reason,
+                rejection_date, revoked_by_id, revocation_date, revocation_reason, inherit_permissions, restrictions,
+                created_at, created_by, updated_at, updated_by, ?
+            FROM moved
+            RETURNING user_id""";
+
+    private static final String HISTORY_SQL = """
+            SELECT h.id, h.user_id, u.username, h.role_id, r.code, h.status, h.assigned_at, h.valid_from, h.valid_to,
+                   h.assignment_reason, h.approved_at, h.approver_notes, h.rejection_date, h.rejection_reason,
+                   h.revocation_date, h.revocation_reason, h.archived_at
+            FROM user_roles_history h LEFT JOIN users u ON u.id = h.user_id LEFT JOIN roles r ON r.id = h.role_id
+            WHERE h.id < ?""";
+
+    private static final RowMapper<Entry> ENTRY = (rs, rowNum) -> new Entry(
+            rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4), rs.getString(5), rs.getString(6),
+            toLocalDateTime(rs.getTimestamp(7)), toLocalDateTime(rs.getTimestamp(8)), toLocalDateTime(rs.getTimestamp(9)),
+            rs.getString(10), toLocalDateTime(rs.getTimestamp(11)), rs.getString(12), toLocalDateTime(rs.getTimestamp(13)),
+            rs.getString(14), toLocalDateTime(rs.getTimestamp(15)), rs.getString(16), toLocalDateTime(rs.getTimestamp(17)));
+
+    /**
+     * An archived assignment; username and roleCode are null once the user or role has been deleted
+     */
+    public record Entry(Long id, Long userId, String username, Long roleId, String roleCode, String status,
+                        LocalDateTime assignedAt, LocalDateTime validFrom, LocalDateTime validTo, String assignmentReason,
+                        LocalDateTime approvedAt, String approverNotes, LocalDateTime rejectionDate, String rejectionReason,
+                        LocalDateTime revocationDate, String revocationReason, LocalDateTime archivedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InvalidationOutbox invalidationOutbox;
+    private final int afterDays;
+    private final int batchSize;
+    private final Counter archived;
+
+    public UserRoleArchive(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           InvalidationOutbox invalidationOutbox,
+                           MeterRegistry registry,
+                           @Value("${app.user-role.archive.after-days:7}") int afterDays,
+                           @Value("${app.user-role.archive.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.invalidationOutbox = invalidationOutbox;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.archived = Counter.builder("user_roles.archived")
+                .description("Finished role assignments moved to user_roles_history")
+                .register(registry);
+    }
+
+    /**
+     * Archive batches until a batch comes back short
+     *
+     * @return the number of assignments archived
+     */
+    @Scheduled(cron = "${app.user-role.archive.cron:0 15 3 * * *}")
+    public int archive() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(afterDays));
+        int total = 0;
+        int moved;
+        do {
+            moved = archiveBatch(cutoff);
+            total += moved;
+        } while (moved == batchSize);
+        log.info("Archived {} role assignments finished before {}", total, cutoff);
+        return total;
+    }
+
+    private int archiveBatch(Timestamp cutoff) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Long> userIds = jdbcTemplate.queryForList(ARCHIVE_SQL, Long.class,
+                    cutoff, cutoff, batchSize, Timestamp.valueOf(LocalDateTime.now()));
+            if (!userIds.isEmpty()) {
+                // cached assignment lists of these users still show the archived rows
+                invalidationOutbox.usersChanged(userIds.stream().distinct().toList());
+            }
+            return userIds.size();
+        });
+        archived.increment(moved);
+        return moved;
+    }
+
+    /**
+     * One page of archived assignments, newest first, optionally of one user or role
+     *
+     * @param beforeId only assignments with a smaller id, null for the first page
+     */
+    public List<Entry> history(Long userId, Long roleId, Long beforeId, int size) {
+        StringBuilder sql = new StringBuilder(HISTORY_SQL);
+        List<Object> params = new ArrayList<>();
+        params.add(beforeId != null ? beforeId : Long.MAX_VALUE);
+        if (userId != null) {
+            sql.append(" AND h.user_id = ?");
+            params.add(userId);
+        }
+        if (roleId != null) {
+            sql.append(" AND h.role_id = ?");
+            params.add(roleId);
+        }
+        sql.append(" ORDER BY h.id DESC LIMIT ?");
+        params.add(size);
+        return jdbcTemplate.query(sql.toString(), ENTRY, params.toArray());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
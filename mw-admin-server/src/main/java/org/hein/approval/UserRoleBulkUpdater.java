@@ -0,0 +1,243 @@
+package org.hein.approval;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hein.api.response.userrole.UserRoleBatchResponse;
+import org.hein.entity.UserRoleStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Applies approve, reject, revoke and extend to many user_roles rows with one set-based UPDATE.
+ * <p>
+ * Rows are selected by an id list or by a filter on role, expiry and status, and only rows in a state
+ * the operation applies to are touched (pending for approve and reject, not yet revoked for revoke, a
+ * bounded expiry earlier than the new one for extend), mirroring the single-item checks in
+ * UserRoleServiceImpl. Approve and reject also skip rows another approver holds an unexpired
+ * approval-queue claim on. Every updated row gets its version bumped, so a concurrent single-item edit
+ * fails its optimistic lock instead of overwriting the bulk change, and any approval-queue claim on it
+ * is cleared. A filter updates at most app.user-role.bulk.max-rows rows per call; the caller repeats
+ * the call until nothing is applied.
+ */
+@Slf4j
+@Component
+public class UserRoleBulkUpdater {
+
+    /**
+     * Approve and reject leave rows claimed by another approver alone until the lease runs out, like
+     * the single-item decisions; the actor and the current time are bound after the precondition
+     */
+    private static final String UNCLAIMED = "(claimed_by IS NULL OR claimed_by = ? OR claim_expires_at < ?)";
+
+    private static final String NOT_SELECTED = "does not match the filter";
+
+    public enum Operation {
+        APPROVE("status = 'ACTIVE', approved_at = ?, approver_notes = ?, approved_by_id = (SELECT id FROM users WHERE username = ?)",
+                "status = 'PENDING' AND " + UNCLAIMED),
+        REJECT("status = 'REJECTED', rejection_date = ?, rejection_reason = ?, active = FALSE, "
+                + "approved_by_id = (SELECT id FROM users WHERE username = ?)",
+                "status = 'PENDING' AND " + UNCLAIMED),
+        REVOKE("status = 'REVOKED', revocation_date = ?, revocation_reason = ?, active = FALSE, "
+                + "revoked_by_id = (SELECT id FROM users WHERE username = ?)",
+                "status <> 'REVOKED'"),
+        EXTEND("valid_to = ?",
+                "status IN ('ACTIVE', 'PENDING') AND valid_to IS NOT NULL AND valid_to <= ?");
+
+        private final String assignments;
+        private final String precondition;
+
+        Operation(String assignments, String precondition) {
+            this.assignments = assignments;
+            this.precondition = precondition;
+        }
+
+        /**
+         * Why a row the operation did not update failed its precondition
+         *
+         * @param newExpiryDate the new end of validity for EXTEND, ignored otherwise
+         */
+        public String skipReason(Current row, String actor, LocalDateTime newExpiryDate) {
+            return switch (this) {
+                case APPROVE, REJECT -> !UserRoleStatus.PENDING.name().equals(row.status()) ? "status is " + row.status()
+                        : row.isClaimedByOther(actor, LocalDateTime.now()) ? "claimed by another approver"
+                        : NOT_SELECTED;
+                case REVOKE -> UserRoleStatus.REVOKED.name().equals(row.status()) ? "status is " + row.status()
+                        : NOT_SELECTED;
+                case EXTEND -> !UserRoleStatus.ACTIVE.name().equals(row.status())
+                        && !UserRoleStatus.PENDING.name().equals(row.status()) ? "status is " + row.status()
+                        : row.validTo() == null ? "has no expiry date"
+                        : newExpiryDate != null && row.validTo().isAfter(newExpiryDate) ? "already valid beyond the new expiry date"
+                        : NOT_SELECTED;
+            };
+        }
+    }
+
+    /**
+     * The state of a requested row that was not updated, to tell the caller why
+     */
+    public record Current(String status, LocalDateTime validTo, String claimedBy, LocalDateTime claimExpiresAt) {
+
+        boolean isClaimedByOther(String actor, LocalDateTime now) {
+            return claimedBy != null && !claimedBy.equals(actor) && (claimExpiresAt == null || !claimExpiresAt.isBefore(now));
+        }
+    }
+
+    /**
+     * Selects the rows of a bulk operation; at least one criterion must be given
+     *
+     * @param ids            explicit assignment ids, matched in addition to the other criteria
+     * @param roleId         assignments of this role
+     * @param expiringBefore assignments whose validity ends on or before this time
+     * @param status         assignments in this status
+     */
+    public record Filter(Collection<Long> ids, Long roleId, LocalDateTime expiringBefore, UserRoleStatus status) {
+
+        boolean isEmpty() {
+            return (ids == null || ids.isEmpty()) && roleId == null && expiringBefore == null && status == null;
+        }
+    }
+
+    /**
+     * An updated assignment and the user holding it
+     */
+    public record Updated(Long id, Long userId, String username) {
+    }
+
+    private static final RowMapper<Updated> UPDATED = (rs, rowNum) -> new Updated(rs.getLong(1), rs.getLong(2), rs.getString(3));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxRows;
+
+    public UserRoleBulkUpdater(JdbcTemplate jdbcTemplate,
+                               @Value("${app.user-role.bulk.max-rows:10000}") int maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Apply the operation in the caller's transaction.
+     *
+     * @param text          approver notes, rejection or revocation reason; ignored by EXTEND
+     * @param newExpiryDate the new end of validity for EXTEND, ignored otherwise
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Updated> apply(Operation operation, Filter filter, String actor, String text, LocalDateTime newExpiryDate) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("A bulk update needs ids or at least one filter");
+        }
+        if (filter.ids() != null && filter.ids().size() > maxRows) {
+            throw new IllegalArgumentException("A bulk update takes at most " + maxRows + " ids");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("WITH updated AS (UPDATE user_roles SET ")
+                .append(operation.assignments);
+        if (operation == Operation.EXTEND) {
+            if (newExpiryDate == null || !newExpiryDate.isAfter(now)) {
+                throw new IllegalArgumentException("New expiry date must be in the future");
+            }
+            params.add(newExpiryDate);
+        } else {
+            params.add(now);
+            params.add(text);
+            params.add(actor);
+        }
+        sql.append(", claimed_by = NULL, claim_expires_at = NULL, updated_at = ?, updated_by = ?, version = version + 1")
+                .append(" WHERE id IN (SELECT id FROM user_roles WHERE ").append(operation.precondition);
+        params.add(now);
+        params.add(actor);
+        if (operation == Operation.EXTEND) {
+            params.add(newExpiryDate);
+        } else if (operation == Operation.APPROVE || operation == Operation.REJECT) {
+            params.add(actor);
+            params.add(now);
+        }
+        if (filter.ids() != null && !filter.ids().isEmpty()) {
+            sql.append(" AND id = ANY (?)");
+            params.add(filter.ids());
+        }
+        if (filter.roleId() != null) {
+            sql.append(" AND role_id = ?");
+            params.add(filter.roleId());
+        }
+        if (filter.expiringBefore() != null) {
+            sql.append(" AND valid_to IS NOT NULL AND valid_to <= ?");
+            params.add(filter.expiringBefore());
+        }
+        if (filter.status() != null) {
+            sql.append(" AND status = ?");
+            params.add(filter.status().name());
+        }
+        sql.append(" ORDER BY id LIMIT ? FOR UPDATE) RETURNING id, user_id)")
+                .append(" SELECT up.id, up.user_id, u.username FROM updated up JOIN users u ON u.id = up.user_id ORDER BY up.id");
+        params.add(maxRows);
+
+        List<Updated> updated = jdbcTemplate.query(con -> prepare(con, sql.toString(), params), UPDATED);
+        log.info("Bulk {} by {} updated {} role assignments", operation, actor, updated.size());
+        return updated;
+    }
+
+    /**
+     * Per-item outcome: every updated id is applied, every requested id that was not is skipped with
+     * the reason it did not qualify
+     *
+     * @param skipReason why an existing row was not updated, given its current state
+     */
+    public UserRoleBatchResponse outcome(Collection<Long> requested, List<Long> applied, Function<Current, String> skipReason) {
+        Set<Long> appliedIds = new HashSet<>(applied);
+        List<Long> missed = requested == null ? List.of() : requested.stream()
+                .distinct()
+                .filter(id -> !appliedIds.contains(id))
+                .toList();
+        Map<Long, Current> current = new HashMap<>();
+        if (!missed.isEmpty()) {
+            jdbcTemplate.query(con -> prepare(con, "SELECT id, status, valid_to, claimed_by, claim_expires_at "
+                            + "FROM user_roles WHERE id = ANY (?)", List.of(missed)),
+                    rs -> {
+                        current.put(rs.getLong(1), new Current(rs.getString(2), toLocalDateTime(rs.getTimestamp(3)),
+                                rs.getString(4), toLocalDateTime(rs.getTimestamp(5))));
+                    });
+        }
+        List<UserRoleBatchResponse.Skipped> skipped = missed.stream()
+                .map(id -> new UserRoleBatchResponse.Skipped(id,
+                        current.containsKey(id) ? skipReason.apply(current.get(id)) : "not found"))
+                .toList();
+        return new UserRoleBatchResponse(List.copyOf(applied), skipped);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static PreparedStatement prepare(Connection con, String sql, List<Object> params) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        for (int i = 0; i < params.size(); i++) {
+            Object param = params.get(i);
+            if (param instanceof Collection<?> ids) {
+                ps.setArray(i + 1, con.createArrayOf("bigint", ids.toArray()));
+            } else if (param instanceof LocalDateTime time) {
+                ps.setTimestamp(i + 1, Timestamp.valueOf(time));
+            } else {
+                ps.setObject(i + 1, param);
+            }
+        }
+        return ps;
+    }
+}
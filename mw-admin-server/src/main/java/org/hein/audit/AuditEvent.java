@@ -0,0 +1,25 @@
+package org.hein.audit;
+
+import java.time.Instant;
+
+/**
+ * One immutable entry of the audit trail
+ *
+ * @param occurredAt when the change was made (or the transaction committed)
+ * @param type       what happened
+ * @param actor      the authenticated user, the attempted username for logins, or "System"
+ * @param targetType the kind of object affected, e.g. "UserRole"
+ * @param targetId   the id or name of the object affected
+ * @param detail     short free-form context; never contains credentials
+ * @param requestId  correlation id of the originating request, if any
+ */
+public record AuditEvent(
+        Instant occurredAt,
+        AuditEventType type,
+        String actor,
+        String targetType,
+        String targetId,
+        String detail,
+        String requestId
+) {
+}
@@ -0,0 +1,20 @@
+package org.hein.audit;
+
+public enum AuditEventType {
+    ROLE_ASSIGNED,
+    ROLE_UNASSIGNED,
+    ROLE_ASSIGNMENT_APPROVED,
+    ROLE_ASSIGNMENT_REJECTED,
+    ROLE_ASSIGNMENT_EXTENDED,
+    ROLE_ASSIGNMENT_REVOKED,
+    ROLE_PERMISSIONS_ADDED,
+    ROLE_PERMISSIONS_REMOVED,
+    PERMISSION_CREATED,
+    PERMISSION_UPDATED,
+    PERMISSION_DELETED,
+    RBAC_CONFIG_APPLIED,
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    TOKEN_REFRESHED,
+    TOKEN_REVOKED
+}
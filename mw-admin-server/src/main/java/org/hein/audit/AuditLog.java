@@ -0,0 +1,188 @@
+package org.hein.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.observability.RequestTraceFilter;
+import org.hein.utils.AuditorAwareBean;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entry point of the audit pipeline. Services hand events to a bounded in-memory
+ * ring buffer and return immediately; {@link AuditWriter} drains the buffer in batches
+ * on its own thread. Mutations are published only once their transaction commits, so a
+ * rolled-back change never shows up in the trail.
+ * <p>
+ * When the buffer is full the configured {@link AuditOverflowPolicy} applies and every
+ * lost event is counted in audit.events.dropped, so gaps in the trail are always visible.
+ */
+@Slf4j
+@Component
+public class AuditLog {
+
+    private static final long DROP_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final ArrayBlockingQueue<AuditEvent> buffer;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final AuditorAwareBean auditorAware;
+
+    private final Counter published;
+    private final Counter blocked;
+    private final Counter droppedNewest;
+    private final Counter droppedOldest;
+    private final AtomicLong lastDropWarning = new AtomicLong(System.nanoTime() - DROP_WARNING_INTERVAL_NANOS);
+
+    public AuditLog(@Value("${app.audit.buffer-capacity:8192}") int capacity,
+                    @Value("${app.audit.overflow-policy:BLOCK}") AuditOverflowPolicy overflowPolicy,
+                    @Value("${app.audit.block-timeout-ms:50}") long blockTimeoutMs,
+                    AuditorAwareBean auditorAware,
+                    MeterRegistry registry) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.auditorAware = auditorAware;
+
+        Gauge.builder("audit.buffer.size", buffer, ArrayBlockingQueue::size)
+                .description("Audit events waiting to be written")
+                .register(registry);
+        Gauge.builder("audit.buffer.capacity", buffer, b -> b.size() + b.remainingCapacity())
+                .register(registry);
+        this.published = Counter.builder("audit.events.published").register(registry);
+        this.blocked = Counter.builder("audit.buffer.blocked")
+                .description("Publishes that had to wait for buffer space")
+                .register(registry);
+        this.droppedNewest = Counter.builder("audit.events.dropped").tag("policy", "drop-newest").register(registry);
+        this.droppedOldest = Counter.builder("audit.events.dropped").tag("policy", "drop-oldest").register(registry);
+    }
+
+    /**
+     * Record a change made by the current user once the surrounding transaction commits
+     */
+    public void record(AuditEventType type, String targetType, Object targetId, String detail) {
+        AuditEvent event = event(type, currentActor(), targetType, targetId, detail);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    /**
+     * Record the same change to many targets once the surrounding transaction commits, using a
+     * single transaction callback for the whole batch
+     */
+    public void recordAll(AuditEventType type, String targetType, Collection<?> targetIds, String detail) {
+        String actor = currentActor();
+        List<AuditEvent> events = targetIds.stream()
+                .map(targetId -> event(type, actor, targetType, targetId, detail))
+                .toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.forEach(AuditLog.this::publish);
+                }
+            });
+        } else {
+            events.forEach(this::publish);
+        }
+    }
+
+    /**
+     * Record an event on behalf of the given actor right away, regardless of any transaction.
+     * Used for authentication events, which must be kept even when the request fails.
+     */
+    public void recordNow(AuditEventType type, String actor, String targetType, Object targetId, String detail) {
+        publish(event(type, actor, targetType, targetId, detail));
+    }
+
+    void publish(AuditEvent event) {
+        if (buffer.offer(event)) {
+            published.increment();
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                blocked.increment();
+                try {
+                    if (buffer.offer(event, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        published.increment();
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped(droppedNewest);
+            }
+            case DROP_NEWEST -> dropped(droppedNewest);
+            case DROP_OLDEST -> {
+                while (!buffer.offer(event)) {
+                    if (buffer.poll() != null) {
+                        dropped(droppedOldest);
+                    }
+                }
+                published.increment();
+            }
+        }
+    }
+
+    /**
+     * Move up to maxEvents buffered events into the batch, waiting up to timeoutMs for the first one
+     */
+    int drainTo(Collection<AuditEvent> batch, int maxEvents, long timeoutMs) throws InterruptedException {
+        AuditEvent first = buffer.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+        batch.add(first);
+        return 1 + buffer.drainTo(batch, maxEvents - 1);
+    }
+
+    boolean isEmpty() {
+        return buffer.isEmpty();
+    }
+
+    private void dropped(Counter counter) {
+        counter.increment();
+        long now = System.nanoTime();
+        long last = lastDropWarning.get();
+        if (now - last >= DROP_WARNING_INTERVAL_NANOS && lastDropWarning.compareAndSet(last, now)) {
+            log.warn("Audit buffer is full, events are being dropped (policy {}); see audit.events.dropped", overflowPolicy);
+        }
+    }
+
+    private String currentActor() {
+        return auditorAware.getCurrentAuditor().orElse("System");
+    }
+
+    private static AuditEvent event(AuditEventType type, String actor, String targetType, Object targetId, String detail) {
+        return new AuditEvent(
+                Instant.now(),
+                type,
+                actor,
+                targetType,
+                targetId == null ? null : targetId.toString(),
+                detail,
+                MDC.get(RequestTraceFilter.MDC_REQUEST_ID)
+        );
+    }
+}
@@ -0,0 +1,19 @@
+package org.hein.audit;
+
+/**
+ * What {@link AuditLog} does when the ring buffer is full
+ */
+public enum AuditOverflowPolicy {
+    /**
+     * Wait up to app.audit.block-timeout-ms for space, then drop the new event
+     */
+    BLOCK,
+    /**
+     * Drop the new event immediately
+     */
+    DROP_NEWEST,
+    /**
+     * Evict the oldest buffered event to make room for the new one
+     */
+    DROP_OLDEST
+}
@@ -0,0 +1,11 @@
+package org.hein.audit;
+
+import java.util.List;
+
+/**
+ * Durable destination of audit batches, written to by a single {@link AuditWriter} thread
+ */
+public interface AuditSink {
+
+    void write(List<AuditEvent> batch) throws Exception;
+}
@@ -0,0 +1,139 @@
+package org.hein.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single background thread that drains {@link AuditLog} in batches and hands them to the
+ * {@link AuditSink}. A batch is flushed when it is full or when app.audit.flush-interval-ms
+ * passes without new events. Failed batches are retried a bounded number of times and then
+ * counted in audit.events.failed, so a broken sink cannot back up the request threads
+ * for longer than the buffer's overflow policy allows.
+ */
+@Slf4j
+@Component
+public class AuditWriter implements SmartLifecycle {
+
+    private final AuditLog auditLog;
+    private final AuditSink sink;
+
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.audit.shutdown-timeout-ms:5000}")
+    private long shutdownTimeoutMs;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter written;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AuditWriter(AuditLog auditLog, AuditSink sink, MeterRegistry registry) {
+        this.auditLog = auditLog;
+        this.sink = sink;
+        this.flushTimer = Timer.builder("audit.flush")
+                .description("Time to write one audit batch to the sink")
+                .register(registry);
+        this.batchSizes = DistributionSummary.builder("audit.flush.batch.size")
+                .register(registry);
+        this.written = Counter.builder("audit.events.written").register(registry);
+        this.failed = Counter.builder("audit.events.failed")
+                .description("Events lost because the sink kept failing")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "audit-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("Audit writer did not drain within {} ms; remaining events are lost", shutdownTimeoutMs);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server and the rest of the application so late events still get written
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE + 1000;
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !auditLog.isEmpty()) {
+            try {
+                if (auditLog.drainTo(batch, batchSize, flushIntervalMs) > 0) {
+                    flush(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in audit writer", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<AuditEvent> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            long startedAt = System.nanoTime();
+            try {
+                sink.write(batch);
+                flushTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                written.increment(batch.size());
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    failed.increment(batch.size());
+                    log.error("Failed to write {} audit events after {} attempts", batch.size(), attempt, e);
+                    return;
+                }
+                log.warn("Audit batch write failed (attempt {}/{}): {}", attempt, maxAttempts, e.getMessage());
+                Thread.sleep(flushIntervalMs * attempt);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.hein.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends audit batches as JSON lines to a local file, for deployments without a
+ * database-backed trail. Each batch is flushed to the OS before the write returns.
+ */
+@Component
+@ConditionalOnProperty(name = "app.audit.sink", havingValue = "file")
+public class FileAuditSink implements AuditSink {
+
+    private final ObjectMapper objectMapper;
+    private final BufferedWriter writer;
+
+    public FileAuditSink(ObjectMapper objectMapper, @Value("${app.audit.file:logs/audit.jsonl}") Path file) throws IOException {
+        this.objectMapper = objectMapper;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(List<AuditEvent> batch) throws IOException {
+        for (AuditEvent event : batch) {
+            writer.write(objectMapper.writeValueAsString(event));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writer.close();
+    }
+}
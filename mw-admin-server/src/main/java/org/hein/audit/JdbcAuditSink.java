@@ -0,0 +1,69 @@
+package org.hein.audit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Appends audit batches to the audit_log table, which is range-partitioned by month.
+ * The partition for the current and the next month is created before the first write
+ * of each month, so rows never land in the default partition under normal operation
+ * and old months can be detached or dropped without touching live data.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.audit.sink", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcAuditSink implements AuditSink {
+
+    private static final String INSERT = """
+            INSERT INTO audit_log (occurred_at, event_type, actor, target_type, target_id, detail, request_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Only touched by the single audit writer thread
+    private YearMonth partitionedThrough;
+
+    @Override
+    public void write(List<AuditEvent> batch) {
+        ensurePartitions(YearMonth.from(batch.getLast().occurredAt().atZone(ZoneOffset.UTC)));
+
+        jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, event) -> {
+            ps.setTimestamp(1, Timestamp.from(event.occurredAt()));
+            ps.setString(2, event.type().name());
+            ps.setString(3, event.actor());
+            ps.setString(4, event.targetType());
+            ps.setString(5, event.targetId());
+            ps.setString(6, event.detail());
+            ps.setString(7, event.requestId());
+        });
+    }
+
+    private void ensurePartitions(YearMonth month) {
+        if (partitionedThrough != null && month.isBefore(partitionedThrough)) {
+            return;
+        }
+        createPartition(month);
+        createPartition(month.plusMonths(1));
+        partitionedThrough = month.plusMonths(1);
+    }
+
+    private void createPartition(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String name = String.format("audit_log_y%04dm%02d", month.getYear(), month.getMonthValue());
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF audit_log"
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.debug("Ensured audit partition {}", name);
+    }
+}
@@ -0,0 +1,242 @@
+package org.hein.authz;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.cache.InvalidationEvent;
+import org.hein.cache.InvalidationListener;
+import org.hein.cache.InvalidationType;
+import org.hein.repository.FeatureRepository;
+import org.hein.repository.PermissionRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Effective enablement of the feature tree: a feature is effectively enabled only if it and every
+ * ancestor are enabled. The result is published as an immutable mask of permission ids whose feature
+ * is effectively disabled, so a check costs one bit test however deep the tree is.
+ * <p>
+ * The tree is loaded once; after that a FEATURE invalidation (toggleStatus, moveToParent, ...) reloads
+ * one feature row and recomputes only its subtree, and a PERMISSION invalidation relinks one permission.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeatureEnablementIndex implements InvalidationListener {
+
+    private record Node(Long parentId, String code, boolean enabled) {
+    }
+
+    private record Visit(Long id, boolean parentEnabled) {
+    }
+
+    /**
+     * Published state; never modified after publication
+     */
+    private record Mask(BitSet disabledPermissions, Set<String> disabledCodes) {
+    }
+
+    private final FeatureRepository featureRepository;
+    private final PermissionRepository permissionRepository;
+
+    // Guarded by this
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final Map<Long, Set<Long>> children = new HashMap<>();
+    private final Map<Long, Set<Long>> permissionsByFeature = new HashMap<>();
+    private final Map<Long, Long> featureByPermission = new HashMap<>();
+    private final Set<Long> disabledFeatures = new HashSet<>();
+
+    private volatile Mask mask;
+
+    /**
+     * Permission ids whose feature is effectively disabled. The returned set is shared and must not be modified.
+     */
+    public BitSet disabledPermissions() {
+        return mask().disabledPermissions();
+    }
+
+    /**
+     * Whether a "feature:ACTION" permission name belongs to an effectively enabled feature.
+     * Names without a feature part, such as ROLE_ authorities, are always enabled.
+     */
+    public boolean isEnabled(String permissionName) {
+        int separator = permissionName.lastIndexOf(':');
+        return separator < 0 || !mask().disabledCodes().contains(permissionName.substring(0, separator));
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (mask == null || (event.type() != InvalidationType.FEATURE && event.type() != InvalidationType.PERMISSION)) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (event.id() == null) {
+                    load();
+                } else if (event.type() == InvalidationType.FEATURE) {
+                    refreshFeature(event.id());
+                } else {
+                    refreshPermission(event.id());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Feature enablement update for {} failed, reloading on next use: {}", event, e.getMessage());
+            mask = null;
+        }
+    }
+
+    /**
+     * Ids of the effectively disabled features among tree nodes shaped like
+     * {@link FeatureRepository#findAllTreeNodes()} rows
+     */
+    public static Set<Long> disabledFeatures(List<Object[]> treeNodes) {
+        Map<Long, Node> nodes = new HashMap<>();
+        Map<Long, Set<Long>> children = new HashMap<>();
+        for (Object[] row : treeNodes) {
+            link(nodes, children, (Long) row[0], new Node((Long) row[1], (String) row[2], (Boolean) row[3]));
+        }
+        Set<Long> disabled = new HashSet<>();
+        nodes.forEach((id, node) -> {
+            if (node.parentId() == null || !nodes.containsKey(node.parentId())) {
+                propagate(nodes, children, id, true, disabled, null);
+            }
+        });
+        return disabled;
+    }
+
+    private Mask mask() {
+        Mask current = mask;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            return mask != null ? mask : load();
+        }
+    }
+
+    private Mask load() {
+        nodes.clear();
+        children.clear();
+        permissionsByFeature.clear();
+        featureByPermission.clear();
+        for (Object[] row : featureRepository.findAllTreeNodes()) {
+            link(nodes, children, (Long) row[0], new Node((Long) row[1], (String) row[2], (Boolean) row[3]));
+        }
+        for (Object[] row : permissionRepository.findAllFeatureLinks()) {
+            linkPermission((Long) row[0], (Long) row[1]);
+        }
+        disabledFeatures.clear();
+        nodes.forEach((id, node) -> {
+            if (node.parentId() == null || !nodes.containsKey(node.parentId())) {
+                propagate(nodes, children, id, true, disabledFeatures, null);
+            }
+        });
+        BitSet disabledPermissions = new BitSet();
+        for (Long featureId : disabledFeatures) {
+            permissionsByFeature.getOrDefault(featureId, Set.of()).forEach(id -> disabledPermissions.set(Math.toIntExact(id)));
+        }
+        log.debug("Loaded feature enablement: {} of {} features disabled", disabledFeatures.size(), nodes.size());
+        return publish(disabledPermissions);
+    }
+
+    private void refreshFeature(Long id) {
+        Node previous = nodes.remove(id);
+        if (previous != null && previous.parentId() != null) {
+            children.getOrDefault(previous.parentId(), new HashSet<>()).remove(id);
+        }
+        List<Object[]> rows = featureRepository.findTreeNode(id);
+        BitSet disabledPermissions = (BitSet) mask.disabledPermissions().clone();
+        if (rows.isEmpty()) {
+            // Deleted; the service only deletes features without children or permissions
+            disabledFeatures.remove(id);
+            children.remove(id);
+            publish(disabledPermissions);
+            return;
+        }
+        Object[] row = rows.get(0);
+        Node node = new Node((Long) row[1], (String) row[2], (Boolean) row[3]);
+        link(nodes, children, id, node);
+        boolean parentEnabled = node.parentId() == null || !disabledFeatures.contains(node.parentId());
+        propagate(nodes, children, id, parentEnabled, disabledFeatures, (featureId, disabled) ->
+                permissionsByFeature.getOrDefault(featureId, Set.of()).forEach(permissionId ->
+                        disabledPermissions.set(Math.toIntExact(permissionId), disabled)));
+        publish(disabledPermissions);
+    }
+
+    private void refreshPermission(Long id) {
+        Long previousFeature = featureByPermission.remove(id);
+        if (previousFeature != null) {
+            permissionsByFeature.getOrDefault(previousFeature, new HashSet<>()).remove(id);
+        }
+        BitSet disabledPermissions = (BitSet) mask.disabledPermissions().clone();
+        disabledPermissions.clear(Math.toIntExact(id));
+        permissionRepository.findFeatureIdById(id).ifPresent(featureId -> {
+            linkPermission(id, featureId);
+            disabledPermissions.set(Math.toIntExact(id), disabledFeatures.contains(featureId));
+        });
+        publish(disabledPermissions);
+    }
+
+    private void linkPermission(Long permissionId, Long featureId) {
+        featureByPermission.put(permissionId, featureId);
+        permissionsByFeature.computeIfAbsent(featureId, f -> new HashSet<>()).add(permissionId);
+    }
+
+    private Mask publish(BitSet disabledPermissions) {
+        Set<String> disabledCodes = new HashSet<>();
+        for (Long featureId : disabledFeatures) {
+            Node node = nodes.get(featureId);
+            if (node != null) {
+                disabledCodes.add(node.code());
+            }
+        }
+        Mask published = new Mask(disabledPermissions, Set.copyOf(disabledCodes));
+        mask = published;
+        return published;
+    }
+
+    private static void link(Map<Long, Node> nodes, Map<Long, Set<Long>> children, Long id, Node node) {
+        nodes.put(id, node);
+        if (node.parentId() != null) {
+            children.computeIfAbsent(node.parentId(), p -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Walk the subtree under root and record the effective state of every feature in it
+     */
+    private static void propagate(Map<Long, Node> nodes, Map<Long, Set<Long>> children, Long root, boolean parentEnabled,
+                                  Set<Long> disabled, BiConsumer<Long, Boolean> change) {
+        Deque<Visit> pending = new ArrayDeque<>();
+        pending.push(new Visit(root, parentEnabled));
+        Set<Long> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            Visit visit = pending.pop();
+            Long id = visit.id();
+            Node node = nodes.get(id);
+            if (node == null || !visited.add(id)) {
+                continue;
+            }
+            boolean enabled = visit.parentEnabled() && node.enabled();
+            if (enabled) {
+                disabled.remove(id);
+            } else {
+                disabled.add(id);
+            }
+            if (change != null) {
+                change.accept(id, !enabled);
+            }
+            for (Long child : children.getOrDefault(id, Set.of())) {
+                pending.push(new Visit(child, enabled));
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.hein.authz;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.rbac.RbacState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * What-if analysis of role graph changes: which users would gain or lose which permissions.
+ * <p>
+ * The proposed {@link RoleChange}s are applied to a copy of the role map of an {@link RbacState}, and the
+ * effective permissions of every role are folded into bitsets for both graphs. Subjects are then split
+ * into chunks that a dedicated fork-join pool processes in parallel: each subject's permissions before
+ * and after are the OR of its granting roles' bitsets, and subjects whose sets differ are handed to the
+ * sink a chunk at a time, so results can be streamed while the scan is still running. Subjects none of
+ * whose roles changed are skipped after one lookup per grant.
+ * <p>
+ * Like the decision API, only assignments that grant now count; the state already leaves out inactive
+ * assignments and disabled or locked users.
+ */
+@Slf4j
+@Component
+public class ImpactSimulator {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Permissions one user would gain and lose, as "feature:ACTION" names
+     */
+    public record UserImpact(String username, List<String> gained, List<String> lost) {
+    }
+
+    /**
+     * @param affectedRoleIds roles whose effective permissions change
+     */
+    public record Summary(long version, List<Long> affectedRoleIds, int usersScanned, int usersAffected, long elapsedMillis) {
+    }
+
+    private final ForkJoinPool pool;
+    private final Timer timer;
+
+    public ImpactSimulator(@Value("${app.simulation.parallelism:0}") int parallelism, MeterRegistry registry) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.timer = Timer.builder("authz.simulation")
+                .description("Time to simulate a role graph change over all subjects")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Apply the changes to a copy of the state's role graph and work out which roles they affect
+     *
+     * @throws IllegalArgumentException if a change refers to an unknown role or permission, would
+     *                                  create a cycle or deletes a role that still has children or
+     *                                  assignments
+     */
+    public Simulation prepare(RbacState state, List<RoleChange> changes) {
+        Map<Long, RbacState.Role> after = apply(state, changes);
+
+        long[] permissionIds = state.permissions().keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        String[] names = new String[permissionIds.length];
+        Map<Long, Integer> bits = new HashMap<>();
+        for (int i = 0; i < permissionIds.length; i++) {
+            bits.put(permissionIds[i], i);
+            names[i] = state.permissions().get(permissionIds[i]);
+        }
+
+        Map<Long, BitSet> effectiveBefore = effective(state.roles(), bits);
+        Map<Long, BitSet> effectiveAfter = effective(after, bits);
+        Set<Long> affected = new HashSet<>();
+        effectiveBefore.forEach((roleId, before) -> {
+            if (!before.equals(effectiveAfter.get(roleId))) {
+                affected.add(roleId);
+            }
+        });
+        return new Simulation(state, changes.size(), affected, effectiveBefore, effectiveAfter, names);
+    }
+
+    /**
+     * A validated change set against one state, ready to be run over its subjects
+     */
+    public final class Simulation {
+
+        private final RbacState state;
+        private final int changeCount;
+        private final Set<Long> affected;
+        private final Map<Long, BitSet> before;
+        private final Map<Long, BitSet> after;
+        private final String[] names;
+
+        private Simulation(RbacState state, int changeCount, Set<Long> affected,
+                           Map<Long, BitSet> before, Map<Long, BitSet> after, String[] names) {
+            this.state = state;
+            this.changeCount = changeCount;
+            this.affected = affected;
+            this.before = before;
+            this.after = after;
+            this.names = names;
+        }
+
+        public long version() {
+            return state.version();
+        }
+
+        public List<Long> affectedRoleIds() {
+            return affected.stream().sorted().toList();
+        }
+
+        /**
+         * Scan every subject, handing batches of affected users to the sink from pool threads;
+         * the sink is never called concurrently
+         */
+        public Summary run(long nowMillis, Consumer<List<UserImpact>> sink) {
+            long startedAt = System.nanoTime();
+            List<Map.Entry<String, List<RbacState.Grant>>> subjects = new ArrayList<>(state.subjects().entrySet());
+            AtomicInteger usersAffected = new AtomicInteger();
+            if (!affected.isEmpty()) {
+                Consumer<List<UserImpact>> serialized = batch -> {
+                    synchronized (sink) {
+                        sink.accept(batch);
+                    }
+                };
+                pool.invoke(new Scan(subjects, 0, subjects.size(), affected, before, after, names,
+                        nowMillis, serialized, usersAffected));
+            }
+
+            long elapsed = System.nanoTime() - startedAt;
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            Summary summary = new Summary(state.version(), affectedRoleIds(), subjects.size(),
+                    usersAffected.get(), elapsed / 1_000_000);
+            log.info("Simulated {} role changes against version {}: {} roles and {} of {} users affected in {} ms",
+                    changeCount, state.version(), affected.size(), summary.usersAffected(), subjects.size(), summary.elapsedMillis());
+            return summary;
+        }
+    }
+
+    /**
+     * The role map with the changes applied in order
+     */
+    static Map<Long, RbacState.Role> apply(RbacState state, List<RoleChange> changes) {
+        Map<Long, RbacState.Role> roles = new HashMap<>(state.roles());
+        for (RoleChange change : changes) {
+            RbacState.Role role = roles.get(change.roleId());
+            if (role == null || change.type() == null) {
+                throw new IllegalArgumentException("Unknown role or change type in " + change);
+            }
+            switch (change.type()) {
+                case ADD_PERMISSIONS, REMOVE_PERMISSIONS -> {
+                    Set<Long> permissionIds = change.permissionIds() == null ? Set.of() : change.permissionIds();
+                    for (Long permissionId : permissionIds) {
+                        if (!state.permissions().containsKey(permissionId)) {
+                            throw new IllegalArgumentException("Unknown or disabled permission: " + permissionId);
+                        }
+                    }
+                    Set<Long> updated = new HashSet<>(role.permissionIds());
+                    if (change.type() == RoleChange.Type.ADD_PERMISSIONS) {
+                        updated.addAll(permissionIds);
+                    } else {
+                        updated.removeAll(permissionIds);
+                    }
+                    roles.put(change.roleId(), new RbacState.Role(role.parentId(), updated));
+                }
+                case MOVE_TO_PARENT -> {
+                    Long parentId = change.parentId();
+                    if (parentId != null && !roles.containsKey(parentId)) {
+                        throw new IllegalArgumentException("Unknown parent role: " + parentId);
+                    }
+                    for (Long id = parentId; id != null; id = roles.get(id).parentId()) {
+                        if (id.equals(change.roleId())) {
+                            throw new IllegalArgumentException("Circular reference detected in role hierarchy");
+                        }
+                    }
+                    roles.put(change.roleId(), new RbacState.Role(parentId, role.permissionIds()));
+                }
+                case DELETE_ROLE -> {
+                    for (RbacState.Role other : roles.values()) {
+                        if (change.roleId().equals(other.parentId())) {
+                            throw new IllegalArgumentException("Cannot delete role with children. Remove children first.");
+                        }
+                    }
+                    for (List<RbacState.Grant> grants : state.subjects().values()) {
+                        for (RbacState.Grant grant : grants) {
+                            if (grant.roleId() == change.roleId()) {
+                                throw new IllegalArgumentException("Cannot delete role that is assigned to users. Remove from users first.");
+                            }
+                        }
+                    }
+                    roles.remove(change.roleId());
+                }
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Effective permission bits of every role: its own and its ancestors'
+     */
+    private static Map<Long, BitSet> effective(Map<Long, RbacState.Role> roles, Map<Long, Integer> bits) {
+        Map<Long, BitSet> effective = new HashMap<>();
+        for (Long roleId : roles.keySet()) {
+            BitSet set = new BitSet(bits.size());
+            Set<Long> visited = new HashSet<>();
+            for (Long id = roleId; id != null && visited.add(id); ) {
+                RbacState.Role role = roles.get(id);
+                if (role == null) {
+                    break;
+                }
+                for (Long permissionId : role.permissionIds()) {
+                    Integer bit = bits.get(permissionId);
+                    if (bit != null) {
+                        set.set(bit);
+                    }
+                }
+                id = role.parentId();
+            }
+            effective.put(roleId, set);
+        }
+        return effective;
+    }
+
+    private static final class Scan extends RecursiveAction {
+
+        private final List<Map.Entry<String, List<RbacState.Grant>>> subjects;
+        private final int from;
+        private final int to;
+        private final Set<Long> affected;
+        private final Map<Long, BitSet> before;
+        private final Map<Long, BitSet> after;
+        private final String[] names;
+        private final long now;
+        private final Consumer<List<UserImpact>> sink;
+        private final AtomicInteger usersAffected;
+
+        Scan(List<Map.Entry<String, List<RbacState.Grant>>> subjects, int from, int to, Set<Long> affected,
+             Map<Long, BitSet> before, Map<Long, BitSet> after, String[] names, long now,
+             Consumer<List<UserImpact>> sink, AtomicInteger usersAffected) {
+            this.subjects = subjects;
+            this.from = from;
+            this.to = to;
+            this.affected = affected;
+            this.before = before;
+            this.after = after;
+            this.names = names;
+            this.now = now;
+            this.sink = sink;
+            this.usersAffected = usersAffected;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Scan(subjects, from, middle, affected, before, after, names, now, sink, usersAffected),
+                        new Scan(subjects, middle, to, affected, before, after, names, now, sink, usersAffected));
+                return;
+            }
+            List<UserImpact> impacts = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                UserImpact impact = impact(subjects.get(i).getKey(), subjects.get(i).getValue());
+                if (impact != null) {
+                    impacts.add(impact);
+                }
+            }
+            if (!impacts.isEmpty()) {
+                usersAffected.addAndGet(impacts.size());
+                sink.accept(impacts);
+            }
+        }
+
+        private UserImpact impact(String subject, List<RbacState.Grant> grants) {
+            boolean touched = false;
+            for (RbacState.Grant grant : grants) {
+                if (affected.contains(grant.roleId()) && grants(grant)) {
+                    touched = true;
+                    break;
+                }
+            }
+            if (!touched) {
+                return null;
+            }
+            BitSet had = new BitSet(names.length);
+            BitSet has = new BitSet(names.length);
+            for (RbacState.Grant grant : grants) {
+                if (grants(grant)) {
+                    BitSet roleBefore = before.get(grant.roleId());
+                    if (roleBefore != null) {
+                        had.or(roleBefore);
+                    }
+                    BitSet roleAfter = after.get(grant.roleId());
+                    if (roleAfter != null) {
+                        has.or(roleAfter);
+                    }
+                }
+            }
+            BitSet gained = (BitSet) has.clone();
+            gained.andNot(had);
+            had.andNot(has);
+            if (gained.isEmpty() && had.isEmpty()) {
+                return null;
+            }
+            return new UserImpact(subject, names(gained), names(had));
+        }
+
+        private boolean grants(RbacState.Grant grant) {
+            return (grant.validFrom() == null || grant.validFrom() <= now)
+                    && (grant.validTo() == null || grant.validTo() >= now);
+        }
+
+        private List<String> names(BitSet set) {
+            List<String> result = new ArrayList<>(set.cardinality());
+            set.stream().forEach(bit -> result.add(names[bit]));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.hein.authz;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.rbac.RbacDelta;
+import org.hein.rbac.RbacState;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reverse index from a permission to the roles and users that effectively hold it.
+ * <p>
+ * A role holds a permission assigned to it or to any of its ancestors; a user holds it through any
+ * granting assignment of such a role. The index follows the {@link RbacState}s built by
+ * {@link PermissionSnapshotHolder}: each new state is diffed against the last one and only the changed
+ * subjects, and the changed roles with their descendants, are re-linked, so an assignment change costs
+ * work proportional to that user's roles, not to the size of the RBAC tables.
+ * <p>
+ * Users are kept per permission in a sorted map counting the roles through which they hold it, so
+ * pages are read in username order with the last username as the cursor. Assignment validity windows
+ * are checked against the clock when a page is read, like {@link org.hein.rbac.PermissionSnapshot} does.
+ */
+@Slf4j
+@Component
+public class PermissionHolderIndex {
+
+    /**
+     * One page of holders
+     *
+     * @param roleIds   every role holding the permission, directly or inherited
+     * @param usernames users holding it now, in username order
+     * @param nextAfter cursor for the next page, null on the last page
+     */
+    public record Holders(long version, long permissionId, String permission, List<Long> roleIds,
+                          List<String> usernames, String nextAfter) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Set<Long>> permissionsByRole = new HashMap<>();
+    private final Map<Long, Set<Long>> rolesByPermission = new HashMap<>();
+    private final Map<Long, Set<String>> subjectsByRole = new HashMap<>();
+    private final Map<Long, NavigableMap<String, Integer>> subjectsByPermission = new HashMap<>();
+    private RbacState state;
+
+    public PermissionHolderIndex(MeterRegistry registry) {
+        Gauge.builder("authz.holder.index.permissions", this, index -> index.subjectsByPermission.size())
+                .description("Permissions with at least one holding user in the reverse index")
+                .register(registry);
+    }
+
+    /**
+     * Bring the index up to the given state; older or equal versions are ignored
+     */
+    public void apply(RbacState next) {
+        lock.writeLock().lock();
+        try {
+            if (state == null) {
+                rebuild(next);
+            } else if (next.version() > state.version()) {
+                try {
+                    update(state, next);
+                } catch (RuntimeException e) {
+                    log.warn("Incremental holder index update to version {} failed, rebuilding: {}", next.version(), e.getMessage());
+                    rebuild(next);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Holders of the permission, or null if there is no such (enabled) permission or the index is not
+     * built yet
+     *
+     * @param after     username the previous page ended with, null for the first page
+     * @param nowMillis assignments not valid at this instant are left out
+     */
+    public Holders holders(long permissionId, String after, int size, long nowMillis) {
+        lock.readLock().lock();
+        try {
+            if (state == null || !state.permissions().containsKey(permissionId)) {
+                return null;
+            }
+            Set<Long> roles = rolesByPermission.getOrDefault(permissionId, Set.of());
+            NavigableMap<String, Integer> subjects = subjectsByPermission.getOrDefault(permissionId, new TreeMap<>());
+            NavigableMap<String, Integer> remaining = after == null ? subjects : subjects.tailMap(after, false);
+            List<String> page = new ArrayList<>(size);
+            String last = null;
+            for (String subject : remaining.keySet()) {
+                if (page.size() == size) {
+                    break;
+                }
+                last = subject;
+                if (holdsNow(subject, roles, nowMillis)) {
+                    page.add(subject);
+                }
+            }
+            String nextAfter = last != null && remaining.higherKey(last) != null ? last : null;
+            return new Holders(state.version(), permissionId, state.permissions().get(permissionId),
+                    List.copyOf(roles), page, nextAfter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean holdsNow(String subject, Set<Long> roles, long now) {
+        for (RbacState.Grant grant : state.subjects().getOrDefault(subject, List.of())) {
+            if (roles.contains(grant.roleId())
+                    && (grant.validFrom() == null || grant.validFrom() <= now)
+                    && (grant.validTo() == null || grant.validTo() >= now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebuild(RbacState next) {
+        permissionsByRole.clear();
+        rolesByPermission.clear();
+        subjectsByRole.clear();
+        subjectsByPermission.clear();
+        state = null;
+        for (Long roleId : next.roles().keySet()) {
+            relinkRole(next, roleId);
+        }
+        next.subjects().forEach((subject, grants) -> roleIds(grants).forEach(roleId -> link(subject, roleId)));
+        state = next;
+    }
+
+    private void update(RbacState previous, RbacState next) {
+        RbacDelta delta = next.diff(previous);
+        Set<String> subjects = new HashSet<>(delta.subjects().keySet());
+        subjects.addAll(delta.removedSubjects());
+
+        // Take out the changed subjects while the role links still describe the previous state
+        for (String subject : subjects) {
+            roleIds(previous.subjects().getOrDefault(subject, List.of())).forEach(roleId -> unlink(subject, roleId));
+        }
+
+        Set<Long> changedRoles = new HashSet<>(delta.roles().keySet());
+        changedRoles.addAll(delta.removedRoles());
+        Set<Long> affected = descendants(previous, changedRoles);
+        affected.addAll(descendants(next, changedRoles));
+        for (Long roleId : affected) {
+            relinkRole(next, roleId);
+        }
+
+        for (String subject : subjects) {
+            roleIds(next.subjects().getOrDefault(subject, List.of())).forEach(roleId -> link(subject, roleId));
+        }
+        state = next;
+        log.debug("Holder index updated to version {}: {} subjects, {} roles re-linked", next.version(),
+                subjects.size(), affected.size());
+    }
+
+    /**
+     * Replace the effective permissions of one role, moving its users along
+     */
+    private void relinkRole(RbacState next, Long roleId) {
+        Set<Long> before = permissionsByRole.getOrDefault(roleId, Set.of());
+        Set<Long> after = next.roles().containsKey(roleId) ? effectivePermissions(next, roleId) : Set.of();
+        Set<String> users = subjectsByRole.getOrDefault(roleId, Set.of());
+        for (Long permissionId : before) {
+            if (!after.contains(permissionId)) {
+                removeFrom(rolesByPermission, permissionId, roleId);
+                users.forEach(subject -> decrement(permissionId, subject));
+            }
+        }
+        for (Long permissionId : after) {
+            if (!before.contains(permissionId)) {
+                rolesByPermission.computeIfAbsent(permissionId, id -> new TreeSet<>()).add(roleId);
+                users.forEach(subject -> increment(permissionId, subject));
+            }
+        }
+        if (after.isEmpty()) {
+            permissionsByRole.remove(roleId);
+        } else {
+            permissionsByRole.put(roleId, after);
+        }
+    }
+
+    private void link(String subject, Long roleId) {
+        subjectsByRole.computeIfAbsent(roleId, id -> new HashSet<>()).add(subject);
+        permissionsByRole.getOrDefault(roleId, Set.of()).forEach(permissionId -> increment(permissionId, subject));
+    }
+
+    private void unlink(String subject, Long roleId) {
+        removeFrom(subjectsByRole, roleId, subject);
+        permissionsByRole.getOrDefault(roleId, Set.of()).forEach(permissionId -> decrement(permissionId, subject));
+    }
+
+    private void increment(Long permissionId, String subject) {
+        subjectsByPermission.computeIfAbsent(permissionId, id -> new TreeMap<>()).merge(subject, 1, Integer::sum);
+    }
+
+    private void decrement(Long permissionId, String subject) {
+        NavigableMap<String, Integer> subjects = subjectsByPermission.get(permissionId);
+        if (subjects == null) {
+            return;
+        }
+        subjects.computeIfPresent(subject, (s, count) -> count > 1 ? count - 1 : null);
+        if (subjects.isEmpty()) {
+            subjectsByPermission.remove(permissionId);
+        }
+    }
+
+    private static <K, V> void removeFrom(Map<K, ? extends Set<V>> map, K key, V value) {
+        Set<V> values = map.get(key);
+        if (values != null && values.remove(value) && values.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    private static Set<Long> roleIds(List<RbacState.Grant> grants) {
+        Set<Long> roleIds = new HashSet<>();
+        grants.forEach(grant -> roleIds.add(grant.roleId()));
+        return roleIds;
+    }
+
+    /**
+     * Permissions of the role and all its ancestors; a parent cycle is cut where it closes
+     */
+    private static Set<Long> effectivePermissions(RbacState state, Long roleId) {
+        Set<Long> permissions = new HashSet<>();
+        Set<Long> visited = new HashSet<>();
+        for (Long id = roleId; id != null && visited.add(id); ) {
+            RbacState.Role role = state.roles().get(id);
+            if (role == null) {
+                break;
+            }
+            permissions.addAll(role.permissionIds());
+            id = role.parentId();
+        }
+        return permissions;
+    }
+
+    /**
+     * The given roles and every role below them in the state's hierarchy
+     */
+    private static Set<Long> descendants(RbacState state, Set<Long> roots) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        state.roles().forEach((id, role) -> {
+            if (role.parentId() != null) {
+                children.computeIfAbsent(role.parentId(), p -> new ArrayList<>()).add(id);
+            }
+        });
+        Set<Long> result = new HashSet<>(roots);
+        Deque<Long> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            for (Long child : children.getOrDefault(pending.pop(), List.of())) {
+                if (result.add(child)) {
+                    pending.push(child);
+                }
+            }
+        }
+        return result;
+    }
+}
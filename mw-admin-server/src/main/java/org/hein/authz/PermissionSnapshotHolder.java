@@ -0,0 +1,147 @@
+package org.hein.authz;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.cache.InvalidationEvent;
+import org.hein.cache.InvalidationListener;
+import org.hein.cache.InvalidationType;
+import org.hein.datasource.ReadWriteRoutingDataSource;
+import org.hein.rbac.PermissionSnapshot;
+import org.hein.rbac.RbacHistory;
+import org.hein.rbac.RbacState;
+import org.hein.rbac.RbacUpdate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the current {@link PermissionSnapshot} and recompiles it after RBAC changes.
+ * Invalidation events only mark the snapshot stale; a scheduled task rebuilds it at most once
+ * per app.decision.rebuild-interval-ms, so a burst of changes costs one rebuild. Decisions keep
+ * using the previous snapshot until the new one is swapped in.
+ * <p>
+ * The last app.decision.history-size states are kept so replicating clients get deltas.
+ * Versions are RBAC revisions, so they are the same on every node; every new version is
+ * announced on the {@link RbacChangeStream} and fed to the {@link PermissionHolderIndex}.
+ */
+@Slf4j
+@Component
+public class PermissionSnapshotHolder implements InvalidationListener {
+
+    private final PermissionSnapshotLoader loader;
+    private final RbacChangeStream changeStream;
+    private final RbacHistory history;
+    private final PermissionHolderIndex holderIndex;
+    private final Timer rebuildTimer;
+
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private volatile PermissionSnapshot current;
+
+    public PermissionSnapshotHolder(PermissionSnapshotLoader loader,
+                                    RbacChangeStream changeStream,
+                                    PermissionHolderIndex holderIndex,
+                                    @Value("${app.decision.history-size:16}") int historySize,
+                                    MeterRegistry registry) {
+        this.loader = loader;
+        this.changeStream = changeStream;
+        this.holderIndex = holderIndex;
+        this.history = new RbacHistory(historySize);
+        this.rebuildTimer = Timer.builder("authz.snapshot.rebuild")
+                .description("Time to load and compile the permission snapshot")
+                .register(registry);
+        Gauge.builder("authz.snapshot.subjects", this, h -> h.current == null ? 0 : h.current.subjectCount())
+                .register(registry);
+        Gauge.builder("authz.snapshot.age", this, h -> h.current == null ? 0
+                        : Duration.between(h.current.builtAt(), Instant.now()).toMillis() / 1000.0)
+                .description("Seconds since the permission snapshot in use was built")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * The snapshot in use, built on the calling thread if none exists yet
+     */
+    public PermissionSnapshot current() {
+        PermissionSnapshot snapshot = current;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            return current != null ? current : rebuild();
+        }
+    }
+
+    /**
+     * Changes since the given version for replicating clients
+     */
+    public RbacUpdate since(long version) {
+        current();
+        return history.since(version);
+    }
+
+    /**
+     * The full state behind the current snapshot
+     */
+    public RbacState currentState() {
+        current();
+        return history.current();
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.type() != InvalidationType.USER_TOKENS) {
+            stale.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.decision.rebuild-interval-ms:250}")
+    public void rebuildIfStale() {
+        if (!stale.get()) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Permission snapshot rebuild failed, keeping version {}: {}",
+                    current == null ? 0 : current.version(), e.getMessage());
+        }
+    }
+
+    private PermissionSnapshot rebuild() {
+        // Cleared before loading so that a change committed during the load triggers another rebuild
+        stale.set(false);
+        try {
+            PermissionSnapshot previous = current;
+            PermissionSnapshot snapshot = rebuildTimer.record(() -> {
+                // A lagging replica would hand back the state from before the change that made us stale
+                RbacState state = ReadWriteRoutingDataSource.onPrimary(loader::load);
+                if (previous != null && state.version() <= previous.version()) {
+                    // Nothing committed since the last build, e.g. the event was our own and already loaded
+                    return previous;
+                }
+                PermissionSnapshot compiled = PermissionSnapshot.compile(state);
+                history.publish(state);
+                holderIndex.apply(state);
+                return compiled;
+            });
+            if (snapshot != previous) {
+                current = snapshot;
+                changeStream.publish(snapshot.version());
+                log.debug("Compiled permission snapshot {} with {} subjects and {} permissions",
+                        snapshot.version(), snapshot.subjectCount(), snapshot.permissionCount());
+            }
+            return snapshot;
+        } catch (RuntimeException e) {
+            stale.set(true);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.hein.authz;
+
+import lombok.RequiredArgsConstructor;
+import org.hein.rbac.Action;
+import org.hein.rbac.RbacState;
+import org.hein.repository.FeatureRepository;
+import org.hein.repository.PermissionRepository;
+import org.hein.repository.RoleRepository;
+import org.hein.repository.UserRoleRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+
+/**
+ * Reads the RBAC tables with five flat projection queries into an {@link RbacState}, including
+ * the constraint policies of permissions and the restrictions of assignments.
+ * No entities are materialized, so the cost is one row per permission, role link and assignment.
+ * Validity timestamps are converted with the JVM zone, the same one UserRole.isValid() uses.
+ * The state is versioned with the RBAC revision read in the same repeatable-read transaction,
+ * so the version always describes exactly the rows that were loaded.
+ * Permissions of effectively disabled features are left out, so neither the decision API nor
+ * replicating clients grant them.
+ */
+@Component
+@RequiredArgsConstructor
+public class PermissionSnapshotLoader {
+
+    private final FeatureRepository featureRepository;
+    private final PermissionRepository permissionRepository;
+    private final RoleRepository roleRepository;
+    private final UserRoleRepository userRoleRepository;
+    private final RbacChangeLog changeLog;
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public RbacState load() {
+        long revision = changeLog.current();
+        ZoneId zone = ZoneId.systemDefault();
+        RbacState.Builder builder = RbacState.builder();
+        Set<Long> disabledFeatures = FeatureEnablementIndex.disabledFeatures(featureRepository.findAllTreeNodes());
+        for (Object[] row : permissionRepository.findAllPermissionNames()) {
+            if (!disabledFeatures.contains((Long) row[3])) {
+                builder.permission((Long) row[0], row[1] + ":" + ((Action) row[2]).name())
+                        .constraint((Long) row[0], (String) row[4]);
+            }
+        }
+        for (Object[] row : roleRepository.findAllParentLinks()) {
+            builder.role((Long) row[0], (Long) row[1]);
+        }
+        for (Object[] row : roleRepository.findAllPermissionLinks()) {
+            builder.rolePermission((Long) row[0], (Long) row[1]);
+        }
+        for (Object[] row : userRoleRepository.findGrantingAssignments()) {
+            builder.grant((String) row[0], (Long) row[1], toMillis((LocalDateTime) row[2], zone), toMillis((LocalDateTime) row[3], zone),
+                    (String) row[4]);
+        }
+        return builder.build(revision);
+    }
+
+    private static Long toMillis(LocalDateTime time, ZoneId zone) {
+        return time == null ? null : time.atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,11 @@
+package org.hein.authz;
+
+import org.hein.cache.InvalidationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One aggregate changed at a revision of the RBAC state
+ */
+public record RbacChange(long revision, InvalidationType type, long id, LocalDateTime changedAt) {
+}
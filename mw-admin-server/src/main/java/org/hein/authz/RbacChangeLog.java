@@ -0,0 +1,110 @@
+package org.hein.authz;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.cache.InvalidationEvent;
+import org.hein.cache.InvalidationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The RBAC revision counter and the log of which aggregates changed at each revision.
+ * {@link #next()} runs inside the mutating transaction, so a revision becomes visible together
+ * with the changes it stands for, and the row lock it takes orders concurrent writers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RbacChangeLog {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.rbac.change-log.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * The current revision, with the row locked until the transaction ends so that no other RBAC change
+     * commits in between
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long lock() {
+        Long revision = jdbcTemplate.queryForObject("SELECT revision FROM rbac_revision WHERE id = 1 FOR UPDATE", Long.class);
+        if (revision == null) {
+            throw new IllegalStateException("rbac_revision is not initialized");
+        }
+        return revision;
+    }
+
+    /**
+     * Increment and return the revision; the row stays locked until the transaction ends
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next() {
+        Long revision = jdbcTemplate.queryForObject(
+                "UPDATE rbac_revision SET revision = revision + 1 WHERE id = 1 RETURNING revision", Long.class);
+        if (revision == null) {
+            throw new IllegalStateException("rbac_revision is not initialized");
+        }
+        return revision;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(long revision, InvalidationEvent event) {
+        jdbcTemplate.update("INSERT INTO rbac_change_log (revision, event_type, aggregate_id) VALUES (?, ?, ?) "
+                + "ON CONFLICT DO NOTHING", revision, event.type().name(), event.id());
+    }
+
+    /**
+     * Record many aggregates under one revision with a single batched statement
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(long revision, List<InvalidationEvent> events) {
+        jdbcTemplate.batchUpdate("INSERT INTO rbac_change_log (revision, event_type, aggregate_id) VALUES (?, ?, ?) "
+                + "ON CONFLICT DO NOTHING", events.stream()
+                .map(event -> new Object[]{revision, event.type().name(), event.id()})
+                .toList());
+    }
+
+    public long current() {
+        Long revision = jdbcTemplate.queryForObject("SELECT revision FROM rbac_revision WHERE id = 1", Long.class);
+        return revision == null ? 0 : revision;
+    }
+
+    /**
+     * Changes of the revisions after from up to and including to, oldest first.
+     * Revisions have no gaps, so paging by revision range never splits a revision.
+     */
+    public List<RbacChange> between(long from, long to) {
+        return jdbcTemplate.query(
+                "SELECT revision, event_type, aggregate_id, changed_at FROM rbac_change_log "
+                        + "WHERE revision > ? AND revision <= ? ORDER BY revision, event_type, aggregate_id",
+                (rs, i) -> new RbacChange(
+                        rs.getLong(1),
+                        InvalidationType.valueOf(rs.getString(2)),
+                        rs.getLong(3),
+                        rs.getTimestamp(4).toLocalDateTime()),
+                from, to);
+    }
+
+    /**
+     * Oldest revision still in the log, or null when it is empty
+     */
+    public Long oldest() {
+        return jdbcTemplate.queryForObject("SELECT MIN(revision) FROM rbac_change_log", Long.class);
+    }
+
+    @Scheduled(cron = "${app.rbac.change-log.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        int purged = jdbcTemplate.update("DELETE FROM rbac_change_log WHERE changed_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        log.info("Purged {} RBAC change log rows older than {} days", purged, retentionDays);
+    }
+}
@@ -0,0 +1,69 @@
+package org.hein.authz;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-sent event subscribers of the RBAC change feed. Each new revision is pushed as a
+ * "revision" event carrying only the number; subscribers then pull what they need through
+ * the changes or replication endpoints, so a slow subscriber never holds up the others.
+ */
+@Slf4j
+@Component
+public class RbacChangeStream {
+
+    static final String EVENT_NAME = "revision";
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final long timeoutMs;
+
+    public RbacChangeStream(@Value("${app.rbac.stream-timeout-ms:1800000}") long timeoutMs, MeterRegistry registry) {
+        this.timeoutMs = timeoutMs;
+        Gauge.builder("rbac.stream.subscribers", subscribers, List::size)
+                .description("Open RBAC change feed streams")
+                .register(registry);
+    }
+
+    /**
+     * Open a stream that starts with the given current revision
+     */
+    public SseEmitter subscribe(long currentRevision) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        send(emitter, currentRevision);
+        return emitter;
+    }
+
+    public void publish(long revision) {
+        for (SseEmitter emitter : subscribers) {
+            send(emitter, revision);
+        }
+    }
+
+    private void send(SseEmitter emitter, long revision) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(Long.toString(revision))
+                    .data(revision));
+        } catch (IOException e) {
+            log.debug("Dropping RBAC change feed subscriber: {}", e.getMessage());
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // Already completed by the container
+            subscribers.remove(emitter);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.hein.authz;
+
+import java.util.Set;
+
+/**
+ * One proposed change to the role graph, in the terms of the RoleService operations it stands for
+ *
+ * @param roleId        role the change applies to
+ * @param permissionIds permissions to add or remove, for ADD_PERMISSIONS and REMOVE_PERMISSIONS
+ * @param parentId      new parent for MOVE_TO_PARENT, null to make the role top-level
+ */
+public record RoleChange(Type type, Long roleId, Set<Long> permissionIds, Long parentId) {
+
+    public enum Type {
+        ADD_PERMISSIONS,
+        REMOVE_PERMISSIONS,
+        MOVE_TO_PARENT,
+        /**
+         * Delete the role; refused like RoleService.deleteById while it still has child roles or
+         * assignments. Only assignments in the snapshot are seen, so a pending or revoked one can
+         * still block the real delete.
+         */
+        DELETE_ROLE
+    }
+}
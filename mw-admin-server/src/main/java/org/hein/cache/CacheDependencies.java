@@ -0,0 +1,68 @@
+package org.hein.cache;
+
+import org.hein.api.response.feature.FeatureResponse;
+import org.hein.api.response.permission.PermissionResponse;
+import org.hein.api.response.role.RoleResponse;
+import org.hein.api.response.user.UserResponse;
+import org.hein.api.response.user.UserSummaryResponse;
+import org.hein.api.response.userrole.UserRoleResponse;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Derives the aggregates a cached response depends on from the response itself.
+ * Whatever a response embeds is a dependency: a user depends on the roles it lists,
+ * a role on its parent, children and permissions, a permission on its feature, and so on.
+ * Together with {@link DependencyIndex} this yields the reverse edges role -> users,
+ * permission -> roles, feature -> permissions and parent -> descendants without a
+ * separate query per change.
+ */
+final class CacheDependencies {
+
+    private CacheDependencies() {
+    }
+
+    static void collect(Object value, Set<Dependency> into) {
+        switch (value) {
+            case null -> {
+            }
+            case Collection<?> values -> values.forEach(v -> collect(v, into));
+            case UserResponse user -> {
+                add(into, InvalidationType.USER, user.id());
+                collect(user.roles(), into);
+            }
+            case UserSummaryResponse user -> add(into, InvalidationType.USER, user.id());
+            case UserRoleResponse assignment -> {
+                collect(assignment.user(), into);
+                collect(assignment.role(), into);
+                collect(assignment.assignedBy(), into);
+                collect(assignment.approvedBy(), into);
+                collect(assignment.revokedBy(), into);
+            }
+            case RoleResponse role -> {
+                add(into, InvalidationType.ROLE, role.id());
+                add(into, InvalidationType.ROLE, role.parentId());
+                collect(role.childRoles(), into);
+                collect(role.permissions(), into);
+            }
+            case PermissionResponse permission -> {
+                add(into, InvalidationType.PERMISSION, permission.id());
+                collect(permission.feature(), into);
+            }
+            case FeatureResponse feature -> {
+                add(into, InvalidationType.FEATURE, feature.getId());
+                add(into, InvalidationType.FEATURE, feature.getParentId());
+                collect(feature.getChildren(), into);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void add(Set<Dependency> into, InvalidationType type, Long id) {
+        if (id != null) {
+            into.add(Dependency.of(type, id));
+        }
+    }
+}
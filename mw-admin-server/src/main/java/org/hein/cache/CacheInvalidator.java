@@ -0,0 +1,53 @@
+package org.hein.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Applies invalidation events to the local caches by evicting exactly the entries that
+ * the {@link DependencyIndex} recorded for the changed aggregate, plus the cached lists
+ * of its type, then notifies the {@link InvalidationListener}s. Applying the same
+ * aggregate event twice is harmless, which the at-least-once relay relies on. Token
+ * revocations do not touch the local caches and are applied by {@link OutboxRelay}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidator {
+
+    private final CacheManager cacheManager;
+    private final DependencyIndex dependencyIndex;
+    private final ObjectProvider<InvalidationListener> listeners;
+
+    public void apply(Collection<InvalidationEvent> events) {
+        for (InvalidationEvent event : events) {
+            apply(event);
+        }
+    }
+
+    public void apply(InvalidationEvent event) {
+        if (event.type() == InvalidationType.USER_TOKENS) {
+            return;
+        }
+        log.debug("Invalidating {}", event);
+        dependencyIndex.advance();
+        evict(Dependency.of(event.type(), event.id()));
+        evict(Dependency.collection(event.type()));
+        listeners.orderedStream().forEach(listener -> listener.onInvalidation(event));
+    }
+
+    private void evict(Dependency dependency) {
+        for (DependencyIndex.Entry entry : dependencyIndex.consume(dependency)) {
+            Cache cache = cacheManager.getCache(entry.cacheName());
+            if (cache != null) {
+                cache.evict(entry.key());
+            }
+        }
+    }
+}
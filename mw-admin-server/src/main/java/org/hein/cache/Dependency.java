@@ -0,0 +1,19 @@
+package org.hein.cache;
+
+/**
+ * A single aggregate, or with a null id the whole collection of a type,
+ * that cached entries can depend on
+ */
+record Dependency(InvalidationType type, Long id) {
+
+    static Dependency of(InvalidationType type, Long id) {
+        return new Dependency(type, id);
+    }
+
+    /**
+     * Membership of the type's collection, which list entries depend on
+     */
+    static Dependency collection(InvalidationType type) {
+        return new Dependency(type, null);
+    }
+}
@@ -0,0 +1,91 @@
+package org.hein.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reverse index from aggregates to the cache entries built from them.
+ * Entries are registered by {@link DependencyTrackingCache} before they become visible,
+ * so an invalidation racing with a put either sees the registration or happens before it.
+ * Every invalidation first advances a global sequence, which a load compares before storing
+ * its value, so a load that read the old rows is not cached even if its key was not registered yet.
+ * An aggregate's registrations are consumed when it is invalidated, and entries the cache evicts
+ * on its own (expiry, size) are unregistered by the eviction listener of
+ * {@link DependencyTrackingCacheManager}. Registration and eviction of a key are serialized by the
+ * cache, so the listener never removes the registration of a value stored after the evicted one.
+ */
+@Component
+public class DependencyIndex {
+
+    record Entry(String cacheName, Object key) {
+    }
+
+    private final Map<Dependency, Set<Entry>> dependents = new ConcurrentHashMap<>();
+    // Advanced before every invalidation, so a load can tell whether one started while it ran
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter evictions;
+
+    public DependencyIndex(MeterRegistry registry) {
+        Gauge.builder("cache.dependency.index.size", dependents, Map::size)
+                .description("Aggregates with at least one dependent cache entry")
+                .register(registry);
+        this.evictions = Counter.builder("cache.dependency.evictions")
+                .description("Cache entries evicted because an aggregate they depend on changed")
+                .register(registry);
+    }
+
+    long sequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Mark the start of an invalidation; loads that began before it are not stored
+     */
+    void advance() {
+        sequence.incrementAndGet();
+    }
+
+    void register(String cacheName, Object key, Set<Dependency> dependencies) {
+        Entry entry = new Entry(cacheName, key);
+        for (Dependency dependency : dependencies) {
+            // Inside compute, so a concurrent unregister cannot drop the set this entry is added to
+            dependents.compute(dependency, (d, entries) -> {
+                Set<Entry> registered = entries != null ? entries : ConcurrentHashMap.newKeySet();
+                registered.add(entry);
+                return registered;
+            });
+        }
+    }
+
+    /**
+     * Forget an entry that left its cache without an invalidation
+     */
+    void unregister(String cacheName, Object key, Set<Dependency> dependencies) {
+        Entry entry = new Entry(cacheName, key);
+        for (Dependency dependency : dependencies) {
+            dependents.computeIfPresent(dependency, (d, entries) -> {
+                entries.remove(entry);
+                return entries.isEmpty() ? null : entries;
+            });
+        }
+    }
+
+    /**
+     * Remove and return the entries that depend on the given aggregate
+     */
+    Set<Entry> consume(Dependency dependency) {
+        Set<Entry> entries = dependents.remove(dependency);
+        if (entries == null) {
+            return Set.of();
+        }
+        evictions.increment(entries.size());
+        return entries;
+    }
+}
@@ -0,0 +1,185 @@
+package org.hein.cache;
+
+import org.hein.datasource.ReadWriteRoutingDataSource;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caffeine cache that registers every stored value in the {@link DependencyIndex}.
+ * List values additionally depend on their membership scope (see
+ * {@link DependencyTrackingCacheManager}), so creating or deleting an aggregate evicts
+ * the lists it would appear in. Extends {@link CaffeineCache} so cache metrics still bind.
+ * <p>
+ * Misses taken through {@link #get(Object, Callable)} (@Cacheable(sync = true)) are coalesced by
+ * a {@link SingleFlight}: one caller loads, concurrent callers for the same key wait for it.
+ * The load runs outside Caffeine's compute lock so a slow query does not block unrelated keys.
+ * With a positive refresh-after, an entry older than that is still served while a single
+ * background load replaces it (stale-while-revalidate); invalidated entries are always
+ * evicted and never served stale. Loads read the primary, so an entry is never filled from a replica
+ * that has not caught up with the write that evicted it.
+ */
+public class DependencyTrackingCache extends CaffeineCache {
+
+    private final Function<Object, Dependency> listScope;
+    private final DependencyIndex dependencyIndex;
+    private final SingleFlight singleFlight;
+    private final Duration refreshAfter;
+    private final Executor refreshExecutor;
+    private final UnaryOperator<Callable<Object>> refreshScope;
+
+    private final LongAdder refreshes = new LongAdder();
+
+    DependencyTrackingCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                            boolean allowNullValues, Function<Object, Dependency> listScope, DependencyIndex dependencyIndex,
+                            SingleFlight singleFlight, Duration refreshAfter, Executor refreshExecutor,
+                            UnaryOperator<Callable<Object>> refreshScope) {
+        super(name, cache, allowNullValues);
+        this.listScope = listScope;
+        this.dependencyIndex = dependencyIndex;
+        this.singleFlight = singleFlight;
+        this.refreshAfter = refreshAfter;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshScope = refreshScope;
+    }
+
+    /**
+     * Registers under the key's lock, so it cannot interleave with the eviction of the previous value
+     */
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        getNativeCache().asMap().compute(key, (k, current) -> {
+            track(key, value);
+            return stored;
+        });
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        Object[] existing = new Object[1];
+        getNativeCache().asMap().compute(key, (k, current) -> {
+            if (current != null) {
+                existing[0] = current;
+                return current;
+            }
+            track(key, value);
+            return stored;
+        });
+        return toValueWrapper(existing[0]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = getNativeCache().getIfPresent(key);
+        if (stored != null) {
+            if (isStale(key)) {
+                refreshInBackground(key, (Callable<Object>) valueLoader);
+            }
+            return (T) fromStoreValue(stored);
+        }
+
+        try {
+            return singleFlight.load(key, () -> loadAndStore(key, valueLoader));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        dependencyIndex.advance();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        dependencyIndex.advance();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        dependencyIndex.advance();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        dependencyIndex.advance();
+        return super.invalidate();
+    }
+
+    SingleFlight singleFlight() {
+        return singleFlight;
+    }
+
+    long refreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Load and store the value unless an invalidation started since the load began. The check and
+     * the store run under the key's lock, after registering the dependencies: an invalidation that
+     * starts later finds the registration, and its evict waits for the store.
+     */
+    private <T> T loadAndStore(Object key, Callable<T> valueLoader) throws Exception {
+        long sequence = dependencyIndex.sequence();
+        // A lagging replica could hand back the value from before the change that evicted it
+        T value = ReadWriteRoutingDataSource.callOnPrimary(valueLoader);
+        Object stored = toStoreValue(value);
+        getNativeCache().asMap().compute(key, (k, current) -> {
+            track(key, value);
+            return dependencyIndex.sequence() == sequence ? stored : current;
+        });
+        return value;
+    }
+
+    private boolean isStale(Object key) {
+        if (refreshAfter.isZero()) {
+            return false;
+        }
+        return getNativeCache().policy().expireAfterWrite()
+                .flatMap(expiration -> expiration.ageOf(key))
+                .map(age -> age.compareTo(refreshAfter) >= 0)
+                .orElse(false);
+    }
+
+    private void refreshInBackground(Object key, Callable<Object> valueLoader) {
+        if (singleFlight.loadAsync(key, refreshScope.apply(() -> loadAndStore(key, valueLoader)), refreshExecutor)) {
+            refreshes.increment();
+        }
+    }
+
+    private void track(Object key, Object value) {
+        Set<Dependency> dependencies = dependencies(key, value, listScope);
+        if (!dependencies.isEmpty()) {
+            dependencyIndex.register(getName(), key, dependencies);
+        }
+    }
+
+    /**
+     * The aggregates a cached value depends on: whatever it embeds, plus the membership scope of a list
+     */
+    static Set<Dependency> dependencies(Object key, Object value, Function<Object, Dependency> listScope) {
+        Set<Dependency> dependencies = new HashSet<>();
+        CacheDependencies.collect(value, dependencies);
+        if (value instanceof Collection<?>) {
+            Dependency scope = listScope.apply(key);
+            if (scope != null) {
+                dependencies.add(scope);
+            }
+        }
+        return dependencies;
+    }
+}
@@ -0,0 +1,131 @@
+package org.hein.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caffeine cache manager whose caches record their dependencies in the {@link DependencyIndex}.
+ * It also defines the membership scope of cached lists: most lists depend on the whole
+ * collection of their cache's aggregate type, but per-user assignment lists ("user-42")
+ * depend only on that user, so editing one user's roles does not evict everyone else's.
+ * <p>
+ * Entries the cache evicts on its own, by expiry or size, are unregistered from the index by an
+ * eviction listener, so the index does not grow with entries that are long gone. Caches are built
+ * from the specification given to {@link #setCacheSpecification} or {@link #setCaffeineSpec}.
+ * <p>
+ * Every cache gets its own {@link SingleFlight}, whose load, coalesce and timeout counts
+ * are published as cache.singleflight.* meters tagged with the cache name.
+ */
+public class DependencyTrackingCacheManager extends CaffeineCacheManager {
+
+    private static final String USER_KEY_PREFIX = "user-";
+
+    private static final Map<String, InvalidationType> CACHE_TYPES = Map.of(
+            "users", InvalidationType.USER,
+            "user-roles", InvalidationType.USER,
+            "roles", InvalidationType.ROLE,
+            "permissions", InvalidationType.PERMISSION,
+            "features", InvalidationType.FEATURE
+    );
+
+    private final DependencyIndex dependencyIndex;
+    private final MeterRegistry registry;
+    private final Duration loadTimeout;
+    private final Duration refreshAfter;
+    private final Executor refreshExecutor;
+    private final UnaryOperator<Callable<Object>> refreshScope;
+    private CaffeineSpec spec;
+
+    /**
+     * @param refreshAfter    age after which a hit triggers a background refresh, zero to disable
+     * @param refreshExecutor runs background refreshes
+     * @param refreshScope    wraps each background refresh, e.g. in a read-only transaction
+     */
+    public DependencyTrackingCacheManager(DependencyIndex dependencyIndex, MeterRegistry registry,
+                                          Duration loadTimeout, Duration refreshAfter,
+                                          Executor refreshExecutor, UnaryOperator<Callable<Object>> refreshScope) {
+        this.dependencyIndex = dependencyIndex;
+        this.registry = registry;
+        this.loadTimeout = loadTimeout;
+        this.refreshAfter = refreshAfter;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshScope = refreshScope;
+    }
+
+    @Override
+    public void setCacheSpecification(String cacheSpecification) {
+        this.spec = CaffeineSpec.parse(cacheSpecification);
+        super.setCacheSpecification(cacheSpecification);
+    }
+
+    @Override
+    public void setCaffeineSpec(CaffeineSpec caffeineSpec) {
+        this.spec = caffeineSpec;
+        super.setCaffeineSpec(caffeineSpec);
+    }
+
+    /**
+     * Each cache needs its own builder: the eviction listener has to know the cache's name and list scope
+     */
+    @Override
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+        Function<Object, Dependency> scope = listScope(name);
+        Caffeine<Object, Object> builder = spec != null ? Caffeine.from(spec) : Caffeine.newBuilder();
+        return builder
+                .evictionListener((key, value, cause) -> {
+                    // Explicit removals and replacements are handled by invalidation and the new registration
+                    if (key != null && value != null) {
+                        dependencyIndex.unregister(name, key, DependencyTrackingCache.dependencies(key, value, scope));
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        DependencyTrackingCache adapted = new DependencyTrackingCache(name, cache, isAllowNullValues(), listScope(name),
+                dependencyIndex, new SingleFlight(loadTimeout.toMillis()), refreshAfter, refreshExecutor, refreshScope);
+        counter("cache.singleflight.loads", "Loads executed on a miss or refresh", name, adapted, c -> c.singleFlight().loads());
+        counter("cache.singleflight.coalesced", "Callers that waited for an in-flight load instead of loading", name, adapted,
+                c -> c.singleFlight().coalesced());
+        counter("cache.singleflight.timeouts", "Callers that gave up waiting for an in-flight load", name, adapted,
+                c -> c.singleFlight().timeouts());
+        counter("cache.refreshes", "Stale hits served while a background refresh ran", name, adapted,
+                DependencyTrackingCache::refreshes);
+        return adapted;
+    }
+
+    private void counter(String meter, String description, String cacheName, DependencyTrackingCache cache,
+                         ToDoubleFunction<DependencyTrackingCache> count) {
+        FunctionCounter.builder(meter, cache, count)
+                .description(description)
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+
+    private static Function<Object, Dependency> listScope(String cacheName) {
+        InvalidationType type = CACHE_TYPES.get(cacheName);
+        if (type == null) {
+            return key -> null;
+        }
+        Dependency collection = Dependency.collection(type);
+        if (!"user-roles".equals(cacheName)) {
+            return key -> collection;
+        }
+        return key -> key instanceof String s && s.startsWith(USER_KEY_PREFIX)
+                ? Dependency.of(InvalidationType.USER, Long.valueOf(s.substring(USER_KEY_PREFIX.length())))
+                : collection;
+    }
+}
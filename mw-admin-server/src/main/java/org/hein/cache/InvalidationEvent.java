@@ -0,0 +1,20 @@
+package org.hein.cache;
+
+/**
+ * Precise invalidation message relayed between nodes
+ *
+ * @param type what changed
+ * @param id   id of the changed aggregate; for {@link InvalidationType#USER_TOKENS} the epoch millisecond
+ *             up to which the user's tokens are revoked
+ * @param key  username for {@link InvalidationType#USER_TOKENS}, otherwise null
+ */
+public record InvalidationEvent(InvalidationType type, Long id, String key) {
+
+    public static InvalidationEvent of(InvalidationType type, Long id) {
+        return new InvalidationEvent(type, id, null);
+    }
+
+    public static InvalidationEvent tokens(String username, long issuedBefore) {
+        return new InvalidationEvent(InvalidationType.USER_TOKENS, issuedBefore, username);
+    }
+}
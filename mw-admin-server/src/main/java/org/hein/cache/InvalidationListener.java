@@ -0,0 +1,10 @@
+package org.hein.cache;
+
+/**
+ * Notified of every invalidation event this node applies, after its cache entries were evicted.
+ * For components that keep derived state outside the Spring caches.
+ */
+public interface InvalidationListener {
+
+    void onInvalidation(InvalidationEvent event);
+}
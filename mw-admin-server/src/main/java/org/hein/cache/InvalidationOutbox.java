@@ -0,0 +1,192 @@
+package org.hein.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.authz.RbacChangeLog;
+import org.hein.entity.InvalidationOutboxEntry;
+import org.hein.repository.InvalidationOutboxRepository;
+import org.hein.security.token.JtiTokenStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records invalidation events in the invalidation_outbox table as part of the caller's
+ * transaction, so an event exists if and only if the change it describes was committed.
+ * {@link OutboxRelay} publishes the rows to every node; the local node additionally applies
+ * the events right after commit so its own next read is never stale.
+ * Duplicate events within one transaction are written once.
+ * <p>
+ * Token revocations are written to the outbox just before commit, each with the current time as
+ * the cutoff up to which the user's tokens are rejected, and applied to the shared token store by
+ * {@link OutboxRelay}. The writing node also applies them right after commit; if that fails, or
+ * the node dies first, the relay still does. Tokens issued between the cutoff and the commit
+ * itself are not covered, a window of one commit.
+ * <p>
+ * The first aggregate event of a transaction also takes the next RBAC revision, and every
+ * aggregate event is recorded in the change log under it, so the change feed sees exactly
+ * the committed transactions, in commit order.
+ * <p>
+ * Bulk operations publish their events through the collection variants, which write the
+ * outbox and change log rows with one batched statement each instead of one per aggregate.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvalidationOutbox {
+
+    private final InvalidationOutboxRepository outboxRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final RbacChangeLog changeLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final JtiTokenStore jtiTokenStore;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userChanged(Long userId) {
+        publish(InvalidationEvent.of(InvalidationType.USER, userId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void roleChanged(Long roleId) {
+        publish(InvalidationEvent.of(InvalidationType.ROLE, roleId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void permissionChanged(Long permissionId) {
+        publish(InvalidationEvent.of(InvalidationType.PERMISSION, permissionId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void featureChanged(Long featureId) {
+        publish(InvalidationEvent.of(InvalidationType.FEATURE, featureId));
+    }
+
+    /**
+     * Revoke the tokens the user was issued up to the commit of this transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revokeTokens(String username) {
+        pending().revocations.add(username);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void usersChanged(Collection<Long> userIds) {
+        publishAll(userIds.stream().map(id -> InvalidationEvent.of(InvalidationType.USER, id)).toList());
+    }
+
+    /**
+     * Revoke the tokens all the given users were issued up to the commit of this transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revokeTokens(Collection<String> usernames) {
+        pending().revocations.addAll(usernames);
+    }
+
+    /**
+     * Publish changes to many aggregates of any type at once
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aggregatesChanged(Collection<InvalidationEvent> events) {
+        publishAll(List.copyOf(events));
+    }
+
+    private void publishAll(List<InvalidationEvent> events) {
+        Pending pending = pending();
+        List<InvalidationEvent> aggregates = events.stream()
+                .filter(event -> event.id() != null)
+                .filter(pending.events::add)
+                .toList();
+        if (aggregates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO invalidation_outbox (event_type, aggregate_id, aggregate_key) VALUES (?, ?, ?)",
+                aggregates.stream().map(event -> new Object[]{event.type().name(), event.id(), event.key()}).toList());
+        if (pending.revision == 0) {
+            pending.revision = changeLog.next();
+        }
+        changeLog.recordAll(pending.revision, aggregates);
+    }
+
+    private void publish(InvalidationEvent event) {
+        if (event.id() == null) {
+            return;
+        }
+        Pending pending = pending();
+        if (!pending.events.add(event)) {
+            return;
+        }
+        outboxRepository.save(new InvalidationOutboxEntry(event.type(), event.id(), event.key()));
+        if (pending.revision == 0) {
+            pending.revision = changeLog.next();
+        }
+        changeLog.record(pending.revision, event);
+    }
+
+    private Pending pending() {
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    recordRevocations(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationOutbox.this);
+                    if (status == STATUS_COMMITTED) {
+                        applyRevocations(created);
+                        cacheInvalidator.apply(created.events);
+                    }
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    /**
+     * Written as late as possible, so the cutoff also covers tokens issued while the transaction ran
+     */
+    private void recordRevocations(Pending pending) {
+        if (pending.revocations.isEmpty()) {
+            return;
+        }
+        pending.revokedBefore = System.currentTimeMillis();
+        jdbcTemplate.batchUpdate("INSERT INTO invalidation_outbox (event_type, aggregate_id, aggregate_key) VALUES (?, ?, ?)",
+                pending.revocations.stream()
+                        .map(username -> new Object[]{InvalidationType.USER_TOKENS.name(), pending.revokedBefore, username})
+                        .toList());
+    }
+
+    private void applyRevocations(Pending pending) {
+        for (String username : pending.revocations) {
+            try {
+                jtiTokenStore.revokeIssuedBefore(username, pending.revokedBefore);
+            } catch (RuntimeException e) {
+                log.warn("Could not revoke the tokens of {} after commit, left to the outbox relay", username, e);
+            }
+        }
+    }
+
+    /**
+     * Events, token revocations and RBAC revision of the current transaction
+     */
+    private static final class Pending {
+
+        private final Set<InvalidationEvent> events = new LinkedHashSet<>();
+        private final Set<String> revocations = new LinkedHashSet<>();
+        private long revision;
+        private long revokedBefore;
+    }
+}
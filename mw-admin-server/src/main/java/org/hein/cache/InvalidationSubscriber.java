@@ -0,0 +1,36 @@
+package org.hein.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives relayed invalidation batches from other nodes (and this one) and applies them locally
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvalidationSubscriber implements MessageListener {
+
+    private static final TypeReference<List<InvalidationEvent>> EVENTS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidator cacheInvalidator;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            cacheInvalidator.apply(objectMapper.readValue(message.getBody(), EVENTS));
+        } catch (IOException e) {
+            log.error("Discarding malformed invalidation message", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.hein.cache;
+
+/**
+ * Kind of aggregate whose cached views must be invalidated
+ */
+public enum InvalidationType {
+    USER,
+    ROLE,
+    PERMISSION,
+    FEATURE,
+    /**
+     * Revoke the tokens of a user, identified by username, issued up to a point in time. Applied to
+     * the shared token store by {@link OutboxRelay} rather than relayed to every node; the cutoff
+     * only moves forward, so a late or repeated replay never revokes tokens issued after it.
+     */
+    USER_TOKENS
+}
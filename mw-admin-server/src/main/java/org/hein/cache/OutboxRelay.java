@@ -0,0 +1,68 @@
+package org.hein.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.entity.InvalidationOutboxEntry;
+import org.hein.repository.InvalidationOutboxRepository;
+import org.hein.security.token.JtiTokenStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Publishes committed outbox rows to the Redis invalidation channel in batches and
+ * deletes them in the same transaction. Rows are locked with SKIP LOCKED, so several
+ * nodes can run the relay concurrently without publishing the same row twice; if Redis
+ * is unavailable the transaction rolls back and the rows are retried on the next run
+ * (delivery is at-least-once, which {@link CacheInvalidator} tolerates).
+ * Token revocation rows are not published: they are applied to the shared token store
+ * directly, in the same transaction, see {@link InvalidationType#USER_TOKENS}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    public static final String CHANNEL = "rbac:invalidation";
+
+    private final InvalidationOutboxRepository outboxRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final JtiTokenStore jtiTokenStore;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    @Transactional
+    public void relay() throws JsonProcessingException {
+        List<InvalidationOutboxEntry> entries = outboxRepository.lockNextBatch(batchSize);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        for (InvalidationOutboxEntry entry : entries) {
+            if (entry.getType() == InvalidationType.USER_TOKENS) {
+                jtiTokenStore.revokeIssuedBefore(entry.getAggregateKey(), entry.getAggregateId());
+            }
+        }
+
+        List<InvalidationEvent> events = entries.stream()
+                .filter(entry -> entry.getType() != InvalidationType.USER_TOKENS)
+                .map(entry -> new InvalidationEvent(entry.getType(), entry.getAggregateId(), entry.getAggregateKey()))
+                .distinct()
+                .toList();
+        if (!events.isEmpty()) {
+            stringRedisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(events));
+        }
+
+        outboxRepository.deleteAllInBatch(entries);
+        log.debug("Relayed {} invalidation events", events.size());
+    }
+}
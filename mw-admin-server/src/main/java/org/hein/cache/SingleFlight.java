@@ -0,0 +1,114 @@
+package org.hein.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent loads of the same key into one in-flight {@link CompletableFuture}.
+ * The first caller (the leader) runs the loader on its own thread; everyone else arriving
+ * while the load is in flight waits for the leader's result, up to the configured timeout.
+ * The in-flight entry is removed only after the loader returned, so a loader that publishes
+ * its result to a cache before returning leaves no window for a second load.
+ */
+public class SingleFlight {
+
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Load the key, joining an in-flight load of the same key if there is one
+     *
+     * @throws TimeoutException when an in-flight load by another thread does not finish in time
+     * @throws Exception        whatever the loader threw, for the leader and every waiter
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(Object key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(existing);
+        }
+        return (T) lead(key, future, loader);
+    }
+
+    /**
+     * Start a background load of the key unless one is already in flight
+     *
+     * @return whether a load was started
+     */
+    public boolean loadAsync(Object key, Callable<?> loader, Executor executor) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    lead(key, future, loader);
+                } catch (Exception ignored) {
+                    // Already delivered to waiters through the future
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            return false;
+        }
+        return true;
+    }
+
+    private Object lead(Object key, CompletableFuture<Object> future, Callable<?> loader) throws Exception {
+        loads.increment();
+        try {
+            Object value = loader.call();
+            future.complete(value);
+            return value;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public long loads() {
+        return loads.sum();
+    }
+
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    public long timeouts() {
+        return timeouts.sum();
+    }
+}
@@ -3,4 +3,5 @@ package org.hein.commons.constant;
 public class RedisKeys {
     public static final String REFRESH_TOKEN_BY_USER = "auth:refresh:%s";
     public static final String ACCESS_TOKEN_BY_USER = "auth:access:%s";
+    public static final String TOKENS_REVOKED_BEFORE_BY_USER = "auth:revoked-before:%s";
 }
@@ -0,0 +1,78 @@
+package org.hein.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hein.cache.DependencyIndex;
+import org.hein.cache.DependencyTrackingCacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns on the @Cacheable annotations of the service layer.
+ * The caches are Caffeine caches that record which aggregates each entry was built from,
+ * so invalidation events evict only the affected keys. Cache names and the Caffeine spec
+ * are still read from spring.cache, and hit ratios are published through the actuator metrics.
+ * <p>
+ * Cached service methods use @Cacheable(sync = true), so concurrent misses on one key run a
+ * single query. Entries older than app.cache.refresh-after-ms are refreshed in the background
+ * on a small bounded pool while the old value keeps being served; when the pool is saturated
+ * the stale value is simply served until a later hit gets a slot.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    @Bean
+    public CacheManager cacheManager(DependencyIndex dependencyIndex,
+                                     MeterRegistry registry,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${spring.cache.cache-names}") List<String> cacheNames,
+                                     @Value("${spring.cache.caffeine.spec}") String spec,
+                                     @Value("${app.cache.load-timeout-ms:5000}") long loadTimeoutMs,
+                                     @Value("${app.cache.refresh-after-ms:0}") long refreshAfterMs,
+                                     @Value("${app.cache.refresh-threads:2}") int refreshThreads) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        DependencyTrackingCacheManager cacheManager = new DependencyTrackingCacheManager(
+                dependencyIndex,
+                registry,
+                Duration.ofMillis(loadTimeoutMs),
+                Duration.ofMillis(refreshAfterMs),
+                refreshExecutor(refreshThreads),
+                loader -> () -> readOnly.execute(status -> call(loader))
+        );
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setCacheNames(cacheNames);
+        return cacheManager;
+    }
+
+    private static ThreadPoolExecutor refreshExecutor(int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 64), threadFactory);
+    }
+
+    private static Object call(Callable<Object> loader) {
+        try {
+            return loader.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.hein.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hein.datasource.ReadWriteRoutingDataSource;
+import org.hein.datasource.RecentWriters;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primary and replica connection pools with read-only transactions routed to the replica, enabled by
+ * setting app.datasource.replica.url. Without it the single auto-configured spring.datasource is used.
+ * <p>
+ * Both pools are Hikari beans named "primary" and "replica", so their hikaricp.* and jdbc.connections.*
+ * meters are reported per pool. The replica pool hands out read-only connections. Schema initialization
+ * and everything outside a read-only transaction runs on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class DataSourceRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:}") String username,
+                                              @Value("${app.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+        dataSource.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public RecentWriters recentWriters(@Value("${app.datasource.replica.read-your-writes-ms:5000}") long windowMillis) {
+        return new RecentWriters(Duration.ofMillis(windowMillis));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 RecentWriters recentWriters,
+                                 MeterRegistry registry) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, recentWriters, registry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,87 @@
+package org.hein.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.hein.observability.SecurityMetrics;
+import org.hein.observability.TracingAuthorizationManager;
+import org.hein.security.RbacPermissionEvaluator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.config.ObjectPostProcessor;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Configuration
+@EnableMethodSecurity(
+    securedEnabled = true,
+    jsr250Enabled = true
+)
+public class MethodSecurityConfig {
+    private final PermissionEvaluator rbacPermissionEvaluator;
+
+    public MethodSecurityConfig(RbacPermissionEvaluator rbacPermissionEvaluator) {
+        this.rbacPermissionEvaluator = rbacPermissionEvaluator;
+    }
+
+    @Bean
+    public MethodSecurityExpressionHandler methodSecurityExpressionHandler() {
+        DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
+        expressionHandler.setPermissionEvaluator(rbacPermissionEvaluator);
+        return expressionHandler;
+    }
+
+    /**
+     * Wraps the @PreAuthorize manager that prePostEnabled registers so that every decision is timed
+     * as part of the request trace and counted under its expression, which is a bounded,
+     * low-cardinality tag. @PostAuthorize, @PreFilter and @PostFilter keep their stock interceptors.
+     * Method security only applies a post-processor it finds uniquely, so this one is primary and
+     * runs the others (Spring Security's observation wrapper) first, for every manager.
+     */
+    @Bean
+    @Primary
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static ObjectPostProcessor<AuthorizationManager<MethodInvocation>> preAuthorizeTracingPostProcessor(
+            ObjectProvider<ObjectPostProcessor<AuthorizationManager<MethodInvocation>>> postProcessors,
+            ObjectProvider<SecurityMetrics> securityMetrics) {
+        Map<Method, String> expressions = new ConcurrentHashMap<>();
+        return new ObjectPostProcessor<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <O extends AuthorizationManager<MethodInvocation>> O postProcess(O manager) {
+                AuthorizationManager<MethodInvocation> processed = manager;
+                for (ObjectPostProcessor<AuthorizationManager<MethodInvocation>> other : postProcessors) {
+                    if (other != this) {
+                        processed = other.postProcess(processed);
+                    }
+                }
+                if (manager instanceof PreAuthorizeAuthorizationManager) {
+                    AuthorizationManager<MethodInvocation> delegate = processed;
+                    processed = new TracingAuthorizationManager<>(() -> delegate, securityMetrics::getObject,
+                            invocation -> expressions.computeIfAbsent(invocation.getMethod(), MethodSecurityConfig::preAuthorizeExpression));
+                }
+                return (O) processed;
+            }
+        };
+    }
+
+    private static String preAuthorizeExpression(Method method) {
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(method, PreAuthorize.class);
+        if (preAuthorize == null) {
+            preAuthorize = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), PreAuthorize.class);
+        }
+        return preAuthorize == null ? "none" : preAuthorize.value();
+    }
+}
@@ -0,0 +1,25 @@
+package org.hein.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+    /**
+     * Keeps beans with {@link Scheduled} methods eager under spring.main.lazy-initialization;
+     * a lazy bean is only registered with the scheduler once something else asks for it.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>)
+                        method -> AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
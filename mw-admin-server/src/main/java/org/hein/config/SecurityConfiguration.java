@@ -0,0 +1,111 @@
+package org.hein.config;
+
+import org.hein.exceptions.handler.SecurityExceptionResolver;
+import org.hein.observability.SecurityMetrics;
+import org.hein.observability.TimedPasswordEncoder;
+import org.hein.security.token.JwtTokenFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.ExceptionTranslationFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@Configuration
+@EnableWebSecurity
+public class SecurityConfiguration {
+
+	private static final String[] PUBLIC_ENDPOINTS = {
+			"/api/v1/auth/login",
+			"/api/v1/auth/refresh",
+			"/api/v1/auth/logout",
+			"/v3/api-docs/**",
+			"/swagger-ui/**",
+			"/swagger-ui.html",
+			"/actuator/health",
+			"/.well-known/jwks.json",
+	};
+
+	private static final String SCRAPE_ENDPOINT = "/actuator/prometheus";
+
+	/**
+	 * The Prometheus scrape carries per-permission counters and pool internals, so it is served only to
+	 * the scrape account over HTTP Basic, and refused outright while app.metrics.scrape.password is unset
+	 */
+	@Bean
+	@Order(1)
+	SecurityFilterChain scrapeFilterChain(HttpSecurity http,
+										  @Value("${app.metrics.scrape.username:prometheus}") String username,
+										  @Value("${app.metrics.scrape.password:}") String password) throws Exception {
+
+		http.securityMatcher(SCRAPE_ENDPOINT);
+		http.csrf(AbstractHttpConfigurer::disable);
+		http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+		if (password.isEmpty()) {
+			http.authorizeHttpRequests(req -> req.anyRequest().denyAll());
+			return http.build();
+		}
+
+		byte[] expected = password.getBytes(StandardCharsets.UTF_8);
+		http.authenticationManager(authentication -> {
+			byte[] presented = String.valueOf(authentication.getCredentials()).getBytes(StandardCharsets.UTF_8);
+			if (!username.equals(authentication.getName()) || !MessageDigest.isEqual(expected, presented)) {
+				throw new BadCredentialsException("Bad scrape credentials");
+			}
+			return UsernamePasswordAuthenticationToken.authenticated(username, null, AuthorityUtils.NO_AUTHORITIES);
+		});
+		http.httpBasic(Customizer.withDefaults());
+		http.authorizeHttpRequests(req -> req.anyRequest().authenticated());
+		return http.build();
+	}
+
+	@Bean
+	SecurityFilterChain securityFilterChain(HttpSecurity http,
+											JwtTokenFilter jwtTokenFilter,
+											SecurityExceptionResolver securityExceptionResolver) throws Exception {
+		
+		http.csrf(AbstractHttpConfigurer::disable);
+		http.cors(cors -> {});
+		
+		http.authorizeHttpRequests(req -> {
+			req.requestMatchers(PUBLIC_ENDPOINTS).permitAll();
+			req.anyRequest().authenticated();
+		});
+
+		http.addFilterAfter(jwtTokenFilter, ExceptionTranslationFilter.class);
+		http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+		http.exceptionHandling(ex -> {
+			ex.authenticationEntryPoint(securityExceptionResolver);
+			ex.accessDeniedHandler(securityExceptionResolver);
+		});
+
+		return http.build();
+	}
+	
+	@Bean
+	AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
+		return config.getAuthenticationManager();
+	}
+
+	@Bean
+	PasswordEncoder passwordEncoder(SecurityMetrics securityMetrics) {
+		return new TimedPasswordEncoder(new BCryptPasswordEncoder(), securityMetrics);
+	}
+}
@@ -0,0 +1,19 @@
+package org.hein.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.sql.init.AbstractScriptDatabaseInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SqlInitializationConfiguration {
+
+    /**
+     * Keeps the schema.sql/data.sql initializer eager under spring.main.lazy-initialization; with
+     * spring.jpa.defer-datasource-initialization nothing depends on it, so a lazy one would never run.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter scriptDatabaseInitializerExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(AbstractScriptDatabaseInitializer.class);
+    }
+}
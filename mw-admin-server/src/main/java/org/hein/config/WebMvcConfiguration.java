@@ -1,8 +1,10 @@
 package org.hein.config;
 
+import org.hein.observability.RequestTraceInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -16,4 +18,9 @@ public class WebMvcConfiguration implements WebMvcConfigurer {
 			.allowedMethods("*")
 			.allowedHeaders("*");
 	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new RequestTraceInterceptor());
+	}
 }
@@ -0,0 +1,130 @@
+package org.hein.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to the replica pool and all others to the primary.
+ * <p>
+ * Exceptions that stay on the primary:
+ * <ul>
+ *     <li>read-only transactions of a user who committed a write within the read-your-writes window,
+ *     see {@link RecentWriters};</li>
+ *     <li>anything run through {@link #onPrimary}, for reads that must not lag behind: the permission
+ *     snapshot rebuilt after an invalidation event, cache loads, and the user and authority reads of
+ *     login and token refresh.</li>
+ * </ul>
+ * Must be wrapped in a LazyConnectionDataSourceProxy: the transaction managers fetch the connection
+ * before the transaction is marked read-only, and the proxy defers choosing the pool to the first
+ * statement. Every routing decision is counted in datasource.routing by pool and reason.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Pool {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final RecentWriters recentWriters;
+    private final Counter writes;
+    private final Counter replicaReads;
+    private final Counter readYourWrites;
+    private final Counter primaryOnly;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, RecentWriters recentWriters,
+                                      MeterRegistry registry) {
+        this.recentWriters = recentWriters;
+        setTargetDataSources(Map.of(Pool.PRIMARY, primary, Pool.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.writes = counter(registry, Pool.PRIMARY, "write");
+        this.replicaReads = counter(registry, Pool.REPLICA, "read");
+        this.readYourWrites = counter(registry, Pool.PRIMARY, "read_your_writes");
+        this.primaryOnly = counter(registry, Pool.PRIMARY, "primary_only");
+    }
+
+    /**
+     * Run the action with every transaction it starts on the primary, read-only or not
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean outer = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (outer == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    /**
+     * {@link #onPrimary} for an action that throws checked exceptions
+     */
+    public static <T> T callOnPrimary(Callable<T> action) throws Exception {
+        Boolean outer = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.call();
+        } finally {
+            if (outer == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            if (username != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recentWriters.recordWrite(username);
+                    }
+                });
+            }
+            return Pool.PRIMARY;
+        }
+        if (PRIMARY_ONLY.get() != null) {
+            primaryOnly.increment();
+            return Pool.PRIMARY;
+        }
+        if (username != null && recentWriters.wroteRecently(username)) {
+            readYourWrites.increment();
+            return Pool.PRIMARY;
+        }
+        replicaReads.increment();
+        return Pool.REPLICA;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static Counter counter(MeterRegistry registry, Pool pool, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("Connections routed to each pool, by reason")
+                .tag("pool", pool.name().toLowerCase())
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,33 @@
+package org.hein.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Users who committed a read-write transaction on this node within the read-your-writes window.
+ * Their read-only transactions go to the primary until the window has passed, so that a replica
+ * lagging behind never hides their own change from them.
+ * <p>
+ * The window is per node: behind a load balancer without session affinity it protects requests that
+ * reach the node the write went through.
+ */
+public class RecentWriters {
+
+    private final Cache<String, Boolean> writers;
+
+    public RecentWriters(Duration window) {
+        this.writers = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void recordWrite(String username) {
+        writers.put(username, Boolean.TRUE);
+    }
+
+    public boolean wroteRecently(String username) {
+        return writers.getIfPresent(username) != null;
+    }
+}
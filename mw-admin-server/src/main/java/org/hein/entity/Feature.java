@@ -16,7 +16,6 @@ import java.util.Set;
 
 @Entity
 @Table(name = "features", indexes = {
-        @Index(name = "idx_feature_code", columnList = "code", unique = true),
         @Index(name = "idx_feature_parent_id", columnList = "parent_id")
 })
 @Cache(region = "feature", usage = CacheConcurrencyStrategy.READ_WRITE)
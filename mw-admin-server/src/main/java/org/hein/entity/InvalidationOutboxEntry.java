@@ -0,0 +1,46 @@
+package org.hein.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hein.cache.InvalidationType;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Invalidation event written in the same transaction as the change it describes,
+ * and deleted once the outbox relay has published it
+ */
+@Entity
+@Table(name = "invalidation_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class InvalidationOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 20)
+    private InvalidationType type;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "aggregate_key", length = 100)
+    private String aggregateKey;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public InvalidationOutboxEntry(InvalidationType type, Long aggregateId, String aggregateKey) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.aggregateKey = aggregateKey;
+    }
+}
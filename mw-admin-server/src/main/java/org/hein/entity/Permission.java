@@ -2,6 +2,7 @@ package org.hein.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hein.rbac.Action;
 import org.hein.utils.AuditableEntity;
 import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
@@ -12,8 +13,8 @@ import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "permissions", indexes = {
-        @Index(name = "idx_permission_feature_action", columnList = "feature_id,action", unique = true)
+@Table(name = "permissions", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"feature_id", "action"})
 })
 @Cache(region = "permission", usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
@@ -15,8 +15,6 @@ import java.util.Set;
 
 @Entity
 @Table(name = "roles", indexes = {
-        @Index(name = "idx_role_name", columnList = "name", unique = true),
-        @Index(name = "idx_role_code", columnList = "code", unique = true),
         @Index(name = "idx_role_parent_id", columnList = "parent_id")
 })
 @Cache(region = "role", usage = CacheConcurrencyStrategy.READ_WRITE)
@@ -96,7 +94,7 @@ public class Role extends AuditableEntity {
             joinColumns = @JoinColumn(name = "role_id"),
             inverseJoinColumns = @JoinColumn(name = "permission_id"),
             indexes = {
-                    @Index(name = "idx_role_permission", columnList = "role_id,permission_id")
+                    @Index(name = "idx_role_permissions_permission_id", columnList = "permission_id")
             }
     )
     @Builder.Default
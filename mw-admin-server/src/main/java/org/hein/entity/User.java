@@ -16,12 +16,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "users", indexes = {
-        @Index(name = "idx_user_username", columnList = "username", unique = true),
-        @Index(name = "idx_user_email", columnList = "email", unique = true),
-        @Index(name = "idx_user_enabled", columnList = "enabled"),
-        @Index(name = "idx_user_locked", columnList = "locked")
-})
+@Table(name = "users")
 @Cache(region = "user", usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
@@ -11,10 +11,8 @@ import java.util.Objects;
 @Table(name = "user_roles", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_id", "role_id"})
 }, indexes = {
-        @Index(name = "idx_user_role_user_id", columnList = "user_id"),
-        @Index(name = "idx_user_role_role_id", columnList = "role_id"),
-        @Index(name = "idx_user_role_active", columnList = "active"),
-        @Index(name = "idx_user_role_valid_to", columnList = "valid_to")
+        // Partial indexes on status = 'ACTIVE' are declared in schema.sql
+        @Index(name = "idx_user_roles_role_id", columnList = "role_id")
 })
 @Getter
 @Setter
@@ -102,6 +100,19 @@ public class UserRole extends AuditableEntity {
     @Column(name = "restrictions", length = 1000)
     private String restrictions;
 
+    /**
+     * Approver holding the approval-queue lease on this pending assignment. Written only by
+     * ApprovalQueue, so saving the entity never overwrites a claim.
+     */
+    @Column(name = "claimed_by", length = 50, insertable = false, updatable = false)
+    private String claimedBy;
+
+    /**
+     * When the approval-queue lease runs out and the assignment can be claimed again
+     */
+    @Column(name = "claim_expires_at", insertable = false, updatable = false)
+    private LocalDateTime claimExpiresAt;
+
     /**
      * Notes provided during approval
      */
@@ -13,4 +13,11 @@ public class ApiJwtTokenExpirationException extends AuthenticationException {
 		super(msg);
 	}
 
+	/**
+	 * Token rejections are routine under bad-client traffic and always handled, so no stack trace is captured
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
 }
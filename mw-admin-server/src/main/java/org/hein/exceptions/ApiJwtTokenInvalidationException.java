@@ -17,4 +17,11 @@ public class ApiJwtTokenInvalidationException extends AuthenticationException {
 		super(msg, cause);
 	}
 
+	/**
+	 * Token rejections are routine under bad-client traffic and always handled, so no stack trace is captured
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
 }
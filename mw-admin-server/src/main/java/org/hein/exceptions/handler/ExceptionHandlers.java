@@ -3,6 +3,7 @@ package org.hein.exceptions.handler;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.hein.exceptions.*;
+import org.hein.observability.LogThrottle;
 import org.hein.utils.ApiResponse;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.http.HttpStatus;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.nio.file.AccessDeniedException;
+import java.time.Duration;
 import java.util.List;
 
 import static org.hein.utils.ErrorCodes.*;
@@ -23,6 +25,10 @@ import static org.hein.utils.ErrorCodes.*;
 @RestControllerAdvice
 public class ExceptionHandlers {
 
+	// Token and login failures arrive in floods under credential stuffing or a misbehaving client
+	private final LogThrottle invalidTokenLog = new LogThrottle(10, Duration.ofSeconds(1));
+	private final LogThrottle authenticationLog = new LogThrottle(10, Duration.ofSeconds(1));
+
 	@ExceptionHandler(ApiValidationException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ResponseEntity<ApiResponse<List<String>>> handle(ApiValidationException e) {
@@ -45,14 +51,20 @@ public class ExceptionHandlers {
 	@ExceptionHandler(ApiJwtTokenInvalidationException.class)
 	@ResponseStatus(HttpStatus.UNAUTHORIZED)
 	public ResponseEntity<ApiResponse<List<String>>> handle(ApiJwtTokenInvalidationException e) {
-		log.error("Invalid token usage: {}", e.getMessage());
+		long suppressed = invalidTokenLog.tryAcquire();
+		if (suppressed >= 0) {
+			log.warn("Invalid token usage: {} ({} similar suppressed)", e.getMessage(), suppressed);
+		}
 		return ApiResponse.of(List.of("Token is invalid."), HttpStatus.UNAUTHORIZED, INVALID_TOKEN);
 	}
 
 	@ExceptionHandler(AuthenticationException.class)
 	@ResponseStatus(HttpStatus.UNAUTHORIZED)
 	public ResponseEntity<ApiResponse<List<String>>> handle(AuthenticationException e) {
-		log.error("Authentication failed: {}", e.getClass().getSimpleName());
+		long suppressed = authenticationLog.tryAcquire();
+		if (suppressed >= 0) {
+			log.warn("Authentication failed: {} ({} similar suppressed)", e.getClass().getSimpleName(), suppressed);
+		}
 
 		List<String> messages = switch (e) {
 			case BadCredentialsException ex -> List.of("Incorrect password. Please try again.");
@@ -0,0 +1,64 @@
+package org.hein.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records how long after JVM start the first request was answered, published as
+ * application.first.request.time next to Boot's application.started.time and
+ * application.ready.time. With lazy initialization the first request also pays for the
+ * beans it touches, so this is the figure the fast-start profile is measured by.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class FirstRequestTimer extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "application.first.request.time";
+
+    private final MeterRegistry registry;
+
+    private final AtomicBoolean served = new AtomicBoolean();
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return served.get();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (served.compareAndSet(false, true)) {
+                record(request);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request) {
+        long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        TimeGauge.builder(METRIC_NAME, () -> millis, TimeUnit.MILLISECONDS)
+                .description("Time from JVM start until the first request was answered")
+                .register(registry);
+        log.info("First request ({} {}) answered {} ms after JVM start", request.getMethod(), request.getRequestURI(), millis);
+    }
+}
@@ -0,0 +1,39 @@
+package org.hein.observability;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets at most a fixed number of log lines through per interval and counts the rest,
+ * so a flood of identical failures cannot turn into a flood of log I/O.
+ */
+public final class LogThrottle {
+
+    private final int permitsPerInterval;
+    private final long intervalNanos;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogThrottle(int permitsPerInterval, Duration interval) {
+        this.permitsPerInterval = permitsPerInterval;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Returns how many lines were suppressed since the last one allowed, or -1 if this one
+     * should be suppressed as well
+     */
+    public long tryAcquire() {
+        long currentWindow = System.nanoTime() / intervalNanos;
+        long seen = window.get();
+        if (seen != currentWindow && window.compareAndSet(seen, currentWindow)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() > permitsPerInterval) {
+            suppressed.incrementAndGet();
+            return -1;
+        }
+        return suppressed.getAndSet(0);
+    }
+}
@@ -0,0 +1,82 @@
+package org.hein.observability;
+
+/**
+ * Per-request phase timings for the authentication and authorization pipeline.
+ * One instance is reused per thread, so recording a phase never allocates;
+ * {@link RequestTraceFilter} decides afterwards whether the request is written to the log.
+ */
+public final class RequestTrace {
+
+    /**
+     * Phases measured for every request
+     */
+    public enum Phase {
+        TOKEN_PARSE,
+        JTI_LOOKUP,
+        PERMISSION_EVALUATION,
+        CONTROLLER
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private static final ThreadLocal<RequestTrace> CURRENT = ThreadLocal.withInitial(RequestTrace::new);
+
+    private final long[] phaseNanos = new long[PHASES.length];
+    private long startNanos;
+    private long controllerStartNanos;
+    private boolean active;
+
+    private RequestTrace() {
+    }
+
+    /**
+     * The trace bound to the current thread; inactive outside of a traced request
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Start a phase, returning the timestamp to hand back to {@link #stop(Phase, long)}
+     */
+    public long start() {
+        return active ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Stop a phase started with {@link #start()}; repeated phases accumulate
+     */
+    public void stop(Phase phase, long startedAt) {
+        if (active) {
+            phaseNanos[phase.ordinal()] += System.nanoTime() - startedAt;
+        }
+    }
+
+    void startController() {
+        controllerStartNanos = start();
+    }
+
+    void stopController() {
+        stop(Phase.CONTROLLER, controllerStartNanos);
+    }
+
+    public long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    void begin() {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = 0L;
+        }
+        startNanos = System.nanoTime();
+        active = true;
+    }
+
+    void end() {
+        active = false;
+    }
+}
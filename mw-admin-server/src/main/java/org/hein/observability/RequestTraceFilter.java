@@ -0,0 +1,94 @@
+package org.hein.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.hein.observability.RequestTrace.Phase.*;
+
+/**
+ * Outermost filter that binds a correlation id to the MDC and writes one structured
+ * trace line for sampled or slow requests. Phase timings are always collected into the
+ * thread's {@link RequestTrace}; only the log write is sampled.
+ */
+@Slf4j(topic = "org.hein.trace")
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    /**
+     * Inbound ids are echoed into logs and the response, so anything outside this is replaced
+     */
+    private static final Pattern INBOUND_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Value("${app.trace.header:X-Request-Id}")
+    private String requestIdHeader;
+
+    @Value("${app.trace.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${app.trace.slow-threshold-ms:500}")
+    private long slowThresholdMs;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String requestId = resolveRequestId(request);
+        MDC.put(MDC_REQUEST_ID, requestId);
+        response.setHeader(requestIdHeader, requestId);
+
+        RequestTrace trace = RequestTrace.current();
+        trace.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = trace.elapsedNanos();
+            trace.end();
+            if (log.isInfoEnabled() && (isSlow(elapsed) || isSampled())) {
+                log.info("trace method={} path={} status={} totalUs={} tokenParseUs={} jtiLookupUs={} permissionUs={} controllerUs={}",
+                        request.getMethod(),
+                        request.getRequestURI(),
+                        response.getStatus(),
+                        TimeUnit.NANOSECONDS.toMicros(elapsed),
+                        TimeUnit.NANOSECONDS.toMicros(trace.phaseNanos(TOKEN_PARSE)),
+                        TimeUnit.NANOSECONDS.toMicros(trace.phaseNanos(JTI_LOOKUP)),
+                        TimeUnit.NANOSECONDS.toMicros(trace.phaseNanos(PERMISSION_EVALUATION)),
+                        TimeUnit.NANOSECONDS.toMicros(trace.phaseNanos(CONTROLLER)));
+            }
+            MDC.remove(MDC_REQUEST_ID);
+        }
+    }
+
+    private String resolveRequestId(HttpServletRequest request) {
+        String inbound = request.getHeader(requestIdHeader);
+        if (inbound != null && INBOUND_ID.matcher(inbound).matches()) {
+            return inbound;
+        }
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    private boolean isSlow(long elapsedNanos) {
+        return slowThresholdMs > 0 && elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    private boolean isSampled() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -0,0 +1,24 @@
+package org.hein.observability;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Records the controller phase of the current {@link RequestTrace}, which includes
+ * method-level authorization running in front of the handler
+ */
+public class RequestTraceInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        RequestTrace.current().startController();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler, Exception ex) {
+        RequestTrace.current().stopController();
+    }
+}
@@ -0,0 +1,140 @@
+package org.hein.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the authentication and authorization hot paths.
+ * Every tag value comes from a fixed enum, except the permission name on decision
+ * counters, which is bounded by {@link #MAX_PERMISSION_TAGS}; meters are registered
+ * up front or cached so that recording is a lookup and an atomic add.
+ */
+@Component
+public class SecurityMetrics {
+
+    /**
+     * Permission names beyond this many distinct values are counted under {@link #OTHER}
+     */
+    static final int MAX_PERMISSION_TAGS = 512;
+
+    static final String OTHER = "other";
+
+    public enum TokenOperation {
+        GENERATE, REFRESH, REVOKE
+    }
+
+    public enum ParseOutcome {
+        OK, EXPIRED, INVALID, JTI_MISMATCH, MALFORMED, KNOWN_REJECTED
+    }
+
+    public enum JtiOperation {
+        STORE, VALIDATE, REVOKE
+    }
+
+    public enum PasswordOperation {
+        ENCODE, MATCHES
+    }
+
+    public enum Evaluator {
+        RBAC, CUSTOM, PRE_AUTHORIZE
+    }
+
+    private final MeterRegistry registry;
+
+    private final Timer[][] tokenOperations = new Timer[TokenOperation.values().length][2];
+    private final Timer[][] tokenParses = new Timer[2][ParseOutcome.values().length];
+    private final Timer[] jtiOperations = new Timer[JtiOperation.values().length];
+    private final Timer[] passwordOperations = new Timer[PasswordOperation.values().length];
+    private final Map<String, Counter[]> permissionDecisions = new ConcurrentHashMap<>();
+
+    public SecurityMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        for (TokenOperation operation : TokenOperation.values()) {
+            tokenOperations[operation.ordinal()][0] = timer("auth.token.operations", "Token endpoint latency including authentication and JTI storage",
+                    "operation", tagValue(operation), "outcome", "success");
+            tokenOperations[operation.ordinal()][1] = timer("auth.token.operations", "Token endpoint latency including authentication and JTI storage",
+                    "operation", tagValue(operation), "outcome", "failure");
+        }
+        for (ParseOutcome outcome : ParseOutcome.values()) {
+            tokenParses[0][outcome.ordinal()] = timer("auth.token.parse", "JWT verification and JTI validation",
+                    "type", "access", "outcome", tagValue(outcome));
+            tokenParses[1][outcome.ordinal()] = timer("auth.token.parse", "JWT verification and JTI validation",
+                    "type", "refresh", "outcome", tagValue(outcome));
+        }
+        for (JtiOperation operation : JtiOperation.values()) {
+            jtiOperations[operation.ordinal()] = timer("auth.jti.redis", "Redis round trips of the JTI token store",
+                    "operation", tagValue(operation));
+        }
+        for (PasswordOperation operation : PasswordOperation.values()) {
+            passwordOperations[operation.ordinal()] = timer("auth.password.hash", "Password hashing and verification",
+                    "operation", tagValue(operation));
+        }
+    }
+
+    public void recordTokenOperation(TokenOperation operation, boolean success, long startedAt) {
+        tokenOperations[operation.ordinal()][success ? 0 : 1].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokenParse(boolean access, ParseOutcome outcome, long startedAt) {
+        tokenParses[access ? 0 : 1][outcome.ordinal()].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordJtiOperation(JtiOperation operation, long startedAt) {
+        jtiOperations[operation.ordinal()].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPasswordOperation(PasswordOperation operation, long startedAt) {
+        passwordOperations[operation.ordinal()].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count a permission decision, returning the decision so callers can record inline
+     */
+    public boolean recordDecision(Evaluator evaluator, String permission, boolean granted) {
+        String key = permission == null ? OTHER : permission;
+        Counter[] counters = permissionDecisions.get(key);
+        if (counters == null) {
+            if (permissionDecisions.size() >= MAX_PERMISSION_TAGS) {
+                key = OTHER;
+            }
+            counters = permissionDecisions.computeIfAbsent(key, this::decisionCounters);
+        }
+        counters[evaluator.ordinal() * 2 + (granted ? 0 : 1)].increment();
+        return granted;
+    }
+
+    private Counter[] decisionCounters(String permission) {
+        Counter[] counters = new Counter[Evaluator.values().length * 2];
+        for (Evaluator evaluator : Evaluator.values()) {
+            counters[evaluator.ordinal() * 2] = decisionCounter(evaluator, permission, "granted");
+            counters[evaluator.ordinal() * 2 + 1] = decisionCounter(evaluator, permission, "denied");
+        }
+        return counters;
+    }
+
+    private Counter decisionCounter(Evaluator evaluator, String permission, String decision) {
+        return Counter.builder("rbac.permission.decisions")
+                .description("Permission evaluator decisions")
+                .tags("evaluator", tagValue(evaluator), "permission", permission, "decision", decision)
+                .register(registry);
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,46 @@
+package org.hein.observability;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.hein.observability.SecurityMetrics.PasswordOperation.ENCODE;
+import static org.hein.observability.SecurityMetrics.PasswordOperation.MATCHES;
+
+/**
+ * Decorates a {@link PasswordEncoder} so that hashing cost shows up separately from
+ * the database and Redis work done during login
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final SecurityMetrics metrics;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, SecurityMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long startedAt = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            metrics.recordPasswordOperation(ENCODE, startedAt);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long startedAt = System.nanoTime();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            metrics.recordPasswordOperation(MATCHES, startedAt);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,66 @@
+package org.hein.observability;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decorates an {@link AuthorizationManager} so that its decisions are recorded as the
+ * permission-evaluation phase of the current {@link RequestTrace} and counted per
+ * permission in {@link SecurityMetrics}.
+ * The delegate and the metrics are resolved lazily so that security infrastructure beans
+ * do not force early initialization of the repositories behind the permission evaluator.
+ */
+public class TracingAuthorizationManager<T> implements AuthorizationManager<T> {
+
+    private final Supplier<AuthorizationManager<T>> delegate;
+    private final Supplier<SecurityMetrics> metrics;
+    private final Function<T, String> permission;
+
+    public TracingAuthorizationManager(Supplier<AuthorizationManager<T>> delegate,
+                                       Supplier<SecurityMetrics> metrics,
+                                       Function<T, String> permission) {
+        this.delegate = SingletonSupplier.of(delegate);
+        this.metrics = SingletonSupplier.of(metrics);
+        this.permission = permission;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, T object) {
+        RequestTrace trace = RequestTrace.current();
+        long startedAt = trace.start();
+        try {
+            AuthorizationDecision decision = delegate.get().check(authentication, object);
+            record(object, decision);
+            return decision;
+        } finally {
+            trace.stop(RequestTrace.Phase.PERMISSION_EVALUATION, startedAt);
+        }
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, T object) {
+        RequestTrace trace = RequestTrace.current();
+        long startedAt = trace.start();
+        try {
+            AuthorizationResult result = delegate.get().authorize(authentication, object);
+            record(object, result);
+            return result;
+        } finally {
+            trace.stop(RequestTrace.Phase.PERMISSION_EVALUATION, startedAt);
+        }
+    }
+
+    private void record(T object, AuthorizationResult result) {
+        // A null result means the manager abstained, e.g. the method has no @PreAuthorize
+        if (result != null) {
+            metrics.get().recordDecision(SecurityMetrics.Evaluator.PRE_AUTHORIZE, permission.apply(object), result.isGranted());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.hein.policy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+
+/**
+ * Builds the {@link PolicyContext} of the current request: the subject, the client address, the HTTP
+ * method and path, and the wall-clock time in the server's zone
+ */
+@Component
+public class PolicyContextFactory {
+
+    private static final String ATTRIBUTE = PolicyContext.class.getName();
+
+    private final Clock clock;
+
+    public PolicyContextFactory() {
+        this(Clock.systemDefaultZone());
+    }
+
+    PolicyContextFactory(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * The context of the current request, built once and reused for every check made while serving it
+     */
+    public PolicyContext current(String username) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return build(username, null);
+        }
+        Object cached = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof PolicyContext context) {
+            return context;
+        }
+        HttpServletRequest request = attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest() : null;
+        PolicyContext context = build(username, request);
+        attributes.setAttribute(ATTRIBUTE, context, RequestAttributes.SCOPE_REQUEST);
+        return context;
+    }
+
+    PolicyContext build(String username, HttpServletRequest request) {
+        PolicyContext context = PolicyContext.of(username, ZonedDateTime.now(clock));
+        if (request != null) {
+            context.setAddress(PolicyAttributes.REQUEST_IP, request.getRemoteAddr())
+                    .set(PolicyAttributes.REQUEST_METHOD, request.getMethod())
+                    .set(PolicyAttributes.REQUEST_PATH, request.getRequestURI());
+        }
+        return context;
+    }
+}
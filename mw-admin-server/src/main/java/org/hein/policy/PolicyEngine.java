@@ -0,0 +1,108 @@
+package org.hein.policy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.entity.Permission;
+import org.hein.entity.Role;
+import org.hein.entity.User;
+import org.hein.entity.UserRole;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Evaluates {@link Permission#getConstraintPolicy()} and {@link UserRole#getRestrictions()}.
+ * <p>
+ * Each policy text is compiled once and cached under the owning row's id and version, so an update to
+ * the row compiles the new text on first use and the stale entry simply ages out. A stored policy that
+ * no longer compiles denies rather than failing open; {@link #validate} keeps new ones from being stored.
+ */
+@Slf4j
+@Component
+public class PolicyEngine {
+
+    private enum Kind { PERMISSION, ASSIGNMENT }
+
+    private record Key(Kind kind, Long id, Long version) {
+    }
+
+    private record Compiled(String source, Policy policy) {
+    }
+
+    private final Cache<Key, Compiled> compiled;
+
+    public PolicyEngine(@Value("${app.policy.cache-size:10000}") long cacheSize,
+                        @Value("${app.policy.cache-idle-minutes:60}") long cacheIdleMinutes) {
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterAccess(Duration.ofMinutes(cacheIdleMinutes))
+                .build();
+    }
+
+    /**
+     * Reject a policy that does not compile
+     *
+     * @throws IllegalArgumentException describing the first syntax error
+     */
+    public void validate(String source) {
+        PolicyCompiler.compile(source);
+    }
+
+    /**
+     * Whether any currently valid assignment of the user grants the permission with both the
+     * assignment's restrictions and the permission's constraint policy satisfied
+     */
+    public boolean isGranted(User user, String permissionName, PolicyContext context) {
+        for (UserRole assignment : user.getUserRoles()) {
+            if (!assignment.isValid() || !assignmentPolicy(assignment).test(context)) {
+                continue;
+            }
+            for (Role role = assignment.getRole(); role != null; role = role.getParent()) {
+                for (Permission permission : role.getPermissions()) {
+                    if (permission.getPermissionName().equals(permissionName)
+                            && permissionPolicy(permission).test(context)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public Policy permissionPolicy(Permission permission) {
+        return lookup(Kind.PERMISSION, permission.getId(), permission.getVersion(), permission.getConstraintPolicy());
+    }
+
+    public Policy assignmentPolicy(UserRole assignment) {
+        return lookup(Kind.ASSIGNMENT, assignment.getId(), assignment.getVersion(), assignment.getRestrictions());
+    }
+
+    private Policy lookup(Kind kind, Long id, Long version, String source) {
+        if (source == null || source.isBlank()) {
+            return Policy.ALLOW;
+        }
+        if (id == null) {
+            return compileOrDeny(kind, null, source);
+        }
+        Key key = new Key(kind, id, version);
+        Compiled entry = compiled.getIfPresent(key);
+        // The version guards against most edits; comparing the text also covers rows changed outside JPA
+        if (entry == null || !Objects.equals(entry.source(), source)) {
+            entry = new Compiled(source, compileOrDeny(kind, id, source));
+            compiled.put(key, entry);
+        }
+        return entry.policy();
+    }
+
+    private Policy compileOrDeny(Kind kind, Long id, String source) {
+        try {
+            return PolicyCompiler.compile(source);
+        } catch (IllegalArgumentException e) {
+            log.warn("Stored {} policy of id {} does not compile and denies: {}", kind, id, e.getMessage());
+            return Policy.DENY;
+        }
+    }
+}
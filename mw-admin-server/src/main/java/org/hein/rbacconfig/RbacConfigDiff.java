@@ -0,0 +1,162 @@
+package org.hein.rbacconfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The minimal changes that turn the current configuration into a target snapshot. Entries are matched
+ * by key; grants of roles are listed separately from the roles' own fields so that a role whose only
+ * change is a granted permission is not rewritten.
+ *
+ * @param baseRevision RBAC revision the diff was computed against
+ */
+public record RbacConfigDiff(
+        long baseRevision,
+        List<Change> features,
+        List<Change> permissions,
+        List<Change> roles,
+        List<Grant> grantsAdded,
+        List<Grant> grantsRemoved
+) {
+
+    public enum Op {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * @param fields the fields that differ, for an update
+     */
+    public record Change(Op op, String key, List<String> fields) {
+    }
+
+    public record Grant(String role, String permission) {
+    }
+
+    private static final Comparator<Grant> GRANT_ORDER = Comparator.comparing(Grant::role).thenComparing(Grant::permission);
+
+    public boolean isEmpty() {
+        return features.isEmpty() && permissions.isEmpty() && roles.isEmpty()
+                && grantsAdded.isEmpty() && grantsRemoved.isEmpty();
+    }
+
+    /**
+     * Keys of the changes with the given operation
+     */
+    public static List<String> keys(List<Change> changes, Op op) {
+        return changes.stream().filter(change -> change.op() == op).map(Change::key).toList();
+    }
+
+    /**
+     * The diff from the current configuration to the target. Without prune, entries missing from the
+     * target are left alone and the target may refer to them; with prune, they are deleted.
+     *
+     * @throws IllegalArgumentException if the target, or the configuration it would produce, is invalid
+     */
+    public static RbacConfigDiff between(RbacConfigSnapshot current, RbacConfigSnapshot target, boolean prune) {
+        Map<String, RbacConfigSnapshot.Role> targetRoles =
+                RbacConfigSnapshot.index(target.roles(), RbacConfigSnapshot.Role::code, "role code");
+        RbacConfigSnapshot.index(target.features(), RbacConfigSnapshot.Feature::code, "feature code");
+        RbacConfigSnapshot.index(target.permissions(), RbacConfigSnapshot.Permission::name, "permission");
+        (prune ? target : target.over(current)).validate();
+
+        Map<String, RbacConfigSnapshot.Role> currentRoles =
+                RbacConfigSnapshot.index(current.roles(), RbacConfigSnapshot.Role::code, "role code");
+        List<Grant> added = new ArrayList<>();
+        List<Grant> removed = new ArrayList<>();
+        for (RbacConfigSnapshot.Role role : targetRoles.values()) {
+            RbacConfigSnapshot.Role existing = currentRoles.get(role.code());
+            Set<String> before = new TreeSet<>(existing == null ? List.of() : existing.permissions());
+            for (String permission : role.permissions()) {
+                if (!before.remove(permission)) {
+                    added.add(new Grant(role.code(), permission));
+                }
+            }
+            // a deleted role's grants go with it
+            if (existing != null) {
+                before.forEach(permission -> removed.add(new Grant(role.code(), permission)));
+            }
+        }
+        added.sort(GRANT_ORDER);
+        removed.sort(GRANT_ORDER);
+
+        return new RbacConfigDiff(current.revision() == null ? 0 : current.revision(),
+                changes(current.features(), target.features(), RbacConfigSnapshot.Feature::code, prune, RbacConfigDiff::featureFields),
+                changes(current.permissions(), target.permissions(), RbacConfigSnapshot.Permission::name, prune, RbacConfigDiff::permissionFields),
+                changes(current.roles(), target.roles(), RbacConfigSnapshot.Role::code, prune, RbacConfigDiff::roleFields),
+                added, removed);
+    }
+
+    private static <T> List<Change> changes(List<T> current, List<T> target, Function<T, String> key, boolean prune,
+                                            BiFunction<T, T, List<String>> fields) {
+        Map<String, T> existing = RbacConfigSnapshot.index(current, key, "key");
+        List<Change> changes = new ArrayList<>();
+        Set<String> kept = new TreeSet<>();
+        for (T entry : target) {
+            String code = key.apply(entry);
+            kept.add(code);
+            T before = existing.get(code);
+            if (before == null) {
+                changes.add(new Change(Op.CREATE, code, List.of()));
+            } else {
+                List<String> differing = fields.apply(before, entry);
+                if (!differing.isEmpty()) {
+                    changes.add(new Change(Op.UPDATE, code, differing));
+                }
+            }
+        }
+        if (prune) {
+            for (T entry : current) {
+                if (!kept.contains(key.apply(entry))) {
+                    changes.add(new Change(Op.DELETE, key.apply(entry), List.of()));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static List<String> featureFields(RbacConfigSnapshot.Feature a, RbacConfigSnapshot.Feature b) {
+        List<String> fields = new ArrayList<>();
+        compare(fields, "name", a.name(), b.name());
+        compare(fields, "description", a.description(), b.description());
+        compare(fields, "enabled", a.enabled(), b.enabled());
+        compare(fields, "displayOrder", a.displayOrder(), b.displayOrder());
+        compare(fields, "icon", a.icon(), b.icon());
+        compare(fields, "parent", a.parent(), b.parent());
+        return fields;
+    }
+
+    private static List<String> permissionFields(RbacConfigSnapshot.Permission a, RbacConfigSnapshot.Permission b) {
+        List<String> fields = new ArrayList<>();
+        compare(fields, "description", a.description(), b.description());
+        compare(fields, "requiresApproval", a.requiresApproval(), b.requiresApproval());
+        compare(fields, "constraintPolicy", a.constraintPolicy(), b.constraintPolicy());
+        return fields;
+    }
+
+    private static List<String> roleFields(RbacConfigSnapshot.Role a, RbacConfigSnapshot.Role b) {
+        List<String> fields = new ArrayList<>();
+        compare(fields, "name", a.name(), b.name());
+        compare(fields, "description", a.description(), b.description());
+        compare(fields, "priority", a.priority(), b.priority());
+        compare(fields, "systemRole", a.systemRole(), b.systemRole());
+        compare(fields, "defaultRole", a.defaultRole(), b.defaultRole());
+        compare(fields, "parent", a.parent(), b.parent());
+        compare(fields, "expiryDate", a.expiryDate(), b.expiryDate());
+        return fields;
+    }
+
+    private static void compare(List<String> fields, String field, Object a, Object b) {
+        if (!Objects.equals(a, b)) {
+            fields.add(field);
+        }
+    }
+}
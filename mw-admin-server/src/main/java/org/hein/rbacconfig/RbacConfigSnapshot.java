@@ -0,0 +1,168 @@
+package org.hein.rbacconfig;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.hein.rbac.Action;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The feature, permission and role configuration of an environment, keyed by natural keys instead
+ * of database ids so that it can be exported from one environment and applied to another: features
+ * and roles by code, permissions by name ("feature_code:ACTION"). Parents and granted permissions are
+ * references by the same keys. User assignments are not part of it.
+ *
+ * @param format     snapshot format, {@link #FORMAT} for snapshots this version writes
+ * @param revision   RBAC revision exported, absent in hand-written snapshots
+ * @param exportedAt export time, absent in hand-written snapshots
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RbacConfigSnapshot(
+        int format,
+        Long revision,
+        LocalDateTime exportedAt,
+        List<Feature> features,
+        List<Permission> permissions,
+        List<Role> roles
+) {
+
+    public static final int FORMAT = 1;
+
+    /**
+     * @param parent code of the parent feature, null for a top-level feature
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Feature(String code, String name, String description, boolean enabled,
+                          Integer displayOrder, String icon, String parent) {
+    }
+
+    /**
+     * @param name "feature_code:ACTION"
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Permission(String name, String description, boolean requiresApproval, String constraintPolicy) {
+
+        public String feature() {
+            return name.substring(0, name.lastIndexOf(':'));
+        }
+
+        public Action action() {
+            return Action.valueOf(name.substring(name.lastIndexOf(':') + 1));
+        }
+    }
+
+    /**
+     * @param parent      code of the parent role, null for a top-level role
+     * @param permissions names of the permissions granted directly, sorted
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Role(String code, String name, String description, Integer priority, boolean systemRole,
+                       boolean defaultRole, String parent, LocalDateTime expiryDate, List<String> permissions) {
+
+        public Role {
+            permissions = permissions == null ? List.of() : permissions.stream().sorted().toList();
+        }
+    }
+
+    public RbacConfigSnapshot {
+        features = features == null ? List.of() : features.stream().sorted(Comparator.comparing(Feature::code)).toList();
+        permissions = permissions == null ? List.of() : permissions.stream().sorted(Comparator.comparing(Permission::name)).toList();
+        roles = roles == null ? List.of() : roles.stream().sorted(Comparator.comparing(Role::code)).toList();
+    }
+
+    /**
+     * Check that keys and names are unique, permission names are well-formed, every reference
+     * resolves within the snapshot and neither hierarchy has a cycle
+     *
+     * @throws IllegalArgumentException describing the first problem found
+     */
+    public void validate() {
+        if (format != FORMAT) {
+            throw new IllegalArgumentException("Unsupported snapshot format " + format + ", expected " + FORMAT);
+        }
+        Map<String, Feature> featuresByCode = index(features, Feature::code, "feature code");
+        index(features, Feature::name, "feature name");
+        Map<String, Permission> permissionsByName = index(permissions, Permission::name, "permission");
+        Map<String, Role> rolesByCode = index(roles, Role::code, "role code");
+        index(roles, Role::name, "role name");
+
+        for (Permission permission : permissions) {
+            int separator = permission.name().lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Permission name must be feature_code:ACTION: " + permission.name());
+            }
+            try {
+                permission.action();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown action in permission " + permission.name());
+            }
+            if (!featuresByCode.containsKey(permission.feature())) {
+                throw new IllegalArgumentException("Permission " + permission.name() + " refers to unknown feature " + permission.feature());
+            }
+        }
+        for (Role role : roles) {
+            for (String permission : role.permissions()) {
+                if (!permissionsByName.containsKey(permission)) {
+                    throw new IllegalArgumentException("Role " + role.code() + " grants unknown permission " + permission);
+                }
+            }
+        }
+        checkHierarchy("feature", featuresByCode, Feature::parent);
+        checkHierarchy("role", rolesByCode, Role::parent);
+    }
+
+    /**
+     * This snapshot laid over another: entries of this one replace those with the same key, the
+     * others' remaining entries are kept
+     */
+    public RbacConfigSnapshot over(RbacConfigSnapshot base) {
+        return new RbacConfigSnapshot(format, revision, exportedAt,
+                overlay(base.features, features, Feature::code),
+                overlay(base.permissions, permissions, Permission::name),
+                overlay(base.roles, roles, Role::code));
+    }
+
+    private static <T> List<T> overlay(List<T> base, List<T> top, Function<T, String> key) {
+        Map<String, T> merged = new HashMap<>();
+        base.forEach(entry -> merged.put(key.apply(entry), entry));
+        top.forEach(entry -> merged.put(key.apply(entry), entry));
+        return List.copyOf(merged.values());
+    }
+
+    static <T> Map<String, T> index(List<T> entries, Function<T, String> key, String what) {
+        Map<String, T> index = new HashMap<>();
+        for (T entry : entries) {
+            String value = key.apply(entry);
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("Missing " + what + " in " + entry);
+            }
+            if (index.put(value, entry) != null) {
+                throw new IllegalArgumentException("Duplicate " + what + ": " + value);
+            }
+        }
+        return index;
+    }
+
+    private static <T> void checkHierarchy(String what, Map<String, T> byCode, Function<T, String> parent) {
+        for (Map.Entry<String, T> entry : byCode.entrySet()) {
+            Set<String> path = new HashSet<>();
+            path.add(entry.getKey());
+            for (String code = parent.apply(entry.getValue()); code != null; ) {
+                T next = byCode.get(code);
+                if (next == null) {
+                    throw new IllegalArgumentException("Unknown parent " + what + " " + code + " of " + entry.getKey());
+                }
+                if (!path.add(code)) {
+                    throw new IllegalArgumentException("Circular reference detected in " + what + " hierarchy at " + entry.getKey());
+                }
+                code = parent.apply(next);
+            }
+        }
+    }
+}
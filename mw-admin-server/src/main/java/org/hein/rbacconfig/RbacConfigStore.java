@@ -0,0 +1,240 @@
+package org.hein.rbacconfig;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the feature, permission and role configuration into a {@link RbacConfigSnapshot} and applies
+ * a {@link RbacConfigDiff} to it with one batched statement per kind of change, in the caller's
+ * transaction. New rows refer to their feature, parent and granted permissions by key, so creates
+ * need no id lookups in between.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RbacConfigStore {
+
+    private static final String PERMISSION_ID =
+            "(SELECT p.id FROM permissions p JOIN features f ON f.id = p.feature_id WHERE f.code = ? AND p.action = ?)";
+
+    /**
+     * Database ids of the configuration entries by key
+     */
+    public record Ids(Map<String, Long> features, Map<String, Long> permissions, Map<String, Long> roles) {
+    }
+
+    /**
+     * The configuration as stored, with the ids of its entries
+     */
+    public record Loaded(RbacConfigSnapshot snapshot, Ids ids) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Loaded load(long revision) {
+        Map<String, Long> featureIds = new HashMap<>();
+        List<RbacConfigSnapshot.Feature> features = jdbcTemplate.query("""
+                SELECT f.id, f.code, f.name, f.description, f.enabled, f.display_order, f.icon, p.code
+                FROM features f LEFT JOIN features p ON p.id = f.parent_id""", (rs, rowNum) -> {
+            featureIds.put(rs.getString(2), rs.getLong(1));
+            return new RbacConfigSnapshot.Feature(rs.getString(2), rs.getString(3), rs.getString(4), rs.getBoolean(5),
+                    (Integer) rs.getObject(6), rs.getString(7), rs.getString(8));
+        });
+
+        Map<String, Long> permissionIds = new HashMap<>();
+        List<RbacConfigSnapshot.Permission> permissions = jdbcTemplate.query("""
+                SELECT p.id, f.code || ':' || p.action, p.description, p.requires_approval, p.constraint_policy
+                FROM permissions p JOIN features f ON f.id = p.feature_id""", (rs, rowNum) -> {
+            permissionIds.put(rs.getString(2), rs.getLong(1));
+            return new RbacConfigSnapshot.Permission(rs.getString(2), rs.getString(3), rs.getBoolean(4), rs.getString(5));
+        });
+
+        Map<Long, List<String>> grants = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT rp.role_id, f.code || ':' || p.action
+                FROM role_permissions rp JOIN permissions p ON p.id = rp.permission_id JOIN features f ON f.id = p.feature_id""",
+                rs -> {
+                    grants.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getString(2));
+                });
+
+        Map<String, Long> roleIds = new HashMap<>();
+        List<RbacConfigSnapshot.Role> roles = jdbcTemplate.query("""
+                SELECT r.id, r.code, r.name, r.description, r.priority, r.system_role, r.default_role, p.code, r.expiry_date
+                FROM roles r LEFT JOIN roles p ON p.id = r.parent_id""", (rs, rowNum) -> {
+            roleIds.put(rs.getString(2), rs.getLong(1));
+            Timestamp expiry = rs.getTimestamp(9);
+            return new RbacConfigSnapshot.Role(rs.getString(2), rs.getString(3), rs.getString(4), (Integer) rs.getObject(5),
+                    rs.getBoolean(6), rs.getBoolean(7), rs.getString(8), expiry == null ? null : expiry.toLocalDateTime(),
+                    grants.getOrDefault(rs.getLong(1), List.of()));
+        });
+
+        return new Loaded(new RbacConfigSnapshot(RbacConfigSnapshot.FORMAT, revision, LocalDateTime.now(), features, permissions, roles),
+                new Ids(featureIds, permissionIds, roleIds));
+    }
+
+    public Ids ids() {
+        return new Ids(
+                idsBy("SELECT code, id FROM features"),
+                idsBy("SELECT f.code || ':' || p.action, p.id FROM permissions p JOIN features f ON f.id = p.feature_id"),
+                idsBy("SELECT code, id FROM roles"));
+    }
+
+    /**
+     * Apply a diff computed against the loaded configuration. Removed grants and pruned entries go first,
+     * so that a new entry may reuse the name of a deleted one; parents are set after all creates, so that
+     * a new entry may have a new parent.
+     *
+     * @throws IllegalStateException if a pruned role is still assigned to users
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Loaded current, RbacConfigDiff diff, RbacConfigSnapshot target, String actor) {
+        Ids ids = current.ids();
+        Map<String, RbacConfigSnapshot.Feature> features = byKey(target.features(), RbacConfigSnapshot.Feature::code);
+        Map<String, RbacConfigSnapshot.Permission> permissions = byKey(target.permissions(), RbacConfigSnapshot.Permission::name);
+        Map<String, RbacConfigSnapshot.Role> roles = byKey(target.roles(), RbacConfigSnapshot.Role::code);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Long> prunedRoles = RbacConfigDiff.keys(diff.roles(), RbacConfigDiff.Op.DELETE).stream().map(ids.roles()::get).toList();
+        if (!prunedRoles.isEmpty()) {
+            List<String> assigned = jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement("SELECT r.code FROM roles r WHERE r.id = ANY (?) "
+                        + "AND EXISTS (SELECT 1 FROM user_roles ur WHERE ur.role_id = r.id) ORDER BY r.code");
+                ps.setArray(1, con.createArrayOf("bigint", prunedRoles.toArray()));
+                return ps;
+            }, (rs, rowNum) -> rs.getString(1));
+            if (!assigned.isEmpty()) {
+                throw new IllegalStateException("Cannot delete roles that are assigned to users: " + String.join(", ", assigned));
+            }
+        }
+
+        batch("DELETE FROM role_permissions WHERE role_id = ? AND permission_id = ?", diff.grantsRemoved().stream()
+                .map(grant -> new Object[]{ids.roles().get(grant.role()), ids.permissions().get(grant.permission())}).toList());
+        batch("DELETE FROM roles WHERE id = ?", prunedRoles.stream().map(id -> new Object[]{id}).toList());
+        batch("DELETE FROM permissions WHERE id = ?", RbacConfigDiff.keys(diff.permissions(), RbacConfigDiff.Op.DELETE).stream()
+                .map(name -> new Object[]{ids.permissions().get(name)}).toList());
+        batch("DELETE FROM features WHERE id = ?", RbacConfigDiff.keys(diff.features(), RbacConfigDiff.Op.DELETE).stream()
+                .map(code -> new Object[]{ids.features().get(code)}).toList());
+
+        batch("""
+                INSERT INTO features (code, name, description, enabled, display_order, icon, created_at, created_by, updated_at, updated_by, version)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)""", RbacConfigDiff.keys(diff.features(), RbacConfigDiff.Op.CREATE).stream()
+                .map(features::get)
+                .map(f -> new Object[]{f.code(), f.name(), f.description(), f.enabled(), f.displayOrder(), f.icon(), now, actor, now, actor})
+                .toList());
+        batch("""
+                UPDATE features SET name = ?, description = ?, enabled = ?, display_order = ?, icon = ?,
+                    updated_at = ?, updated_by = ?, version = version + 1
+                WHERE id = ?""", RbacConfigDiff.keys(diff.features(), RbacConfigDiff.Op.UPDATE).stream()
+                .map(features::get)
+                .map(f -> new Object[]{f.name(), f.description(), f.enabled(), f.displayOrder(), f.icon(), now, actor, ids.features().get(f.code())})
+                .toList());
+        batch("UPDATE features SET parent_id = (SELECT id FROM features WHERE code = ?) WHERE code = ?",
+                reparented(diff.features(), features, RbacConfigSnapshot.Feature::parent));
+
+        batch("""
+                INSERT INTO permissions (feature_id, action, description, requires_approval, constraint_policy,
+                    created_at, created_by, updated_at, updated_by, version)
+                VALUES ((SELECT id FROM features WHERE code = ?), ?, ?, ?, ?, ?, ?, ?, ?, 0)""",
+                RbacConfigDiff.keys(diff.permissions(), RbacConfigDiff.Op.CREATE).stream()
+                        .map(permissions::get)
+                        .map(p -> new Object[]{p.feature(), p.action().name(), p.description(), p.requiresApproval(), p.constraintPolicy(),
+                                now, actor, now, actor})
+                        .toList());
+        batch("""
+                UPDATE permissions SET description = ?, requires_approval = ?, constraint_policy = ?,
+                    updated_at = ?, updated_by = ?, version = version + 1
+                WHERE id = ?""", RbacConfigDiff.keys(diff.permissions(), RbacConfigDiff.Op.UPDATE).stream()
+                .map(permissions::get)
+                .map(p -> new Object[]{p.description(), p.requiresApproval(), p.constraintPolicy(), now, actor, ids.permissions().get(p.name())})
+                .toList());
+
+        batch("""
+                INSERT INTO roles (code, name, description, priority, system_role, default_role, expiry_date,
+                    created_at, created_by, updated_at, updated_by, version)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)""", RbacConfigDiff.keys(diff.roles(), RbacConfigDiff.Op.CREATE).stream()
+                .map(roles::get)
+                .map(r -> new Object[]{r.code(), r.name(), r.description(), r.priority(), r.systemRole(), r.defaultRole(),
+                        timestamp(r.expiryDate()), now, actor, now, actor})
+                .toList());
+        // roles whose grants change have their version bumped too, as a JPA update of the collection would
+        List<String> updatedRoles = new ArrayList<>(RbacConfigDiff.keys(diff.roles(), RbacConfigDiff.Op.UPDATE));
+        List<String> created = RbacConfigDiff.keys(diff.roles(), RbacConfigDiff.Op.CREATE);
+        Stream.concat(diff.grantsAdded().stream(), diff.grantsRemoved().stream())
+                .map(RbacConfigDiff.Grant::role)
+                .distinct()
+                .filter(code -> !updatedRoles.contains(code) && !created.contains(code))
+                .forEach(updatedRoles::add);
+        batch("""
+                UPDATE roles SET name = ?, description = ?, priority = ?, system_role = ?, default_role = ?, expiry_date = ?,
+                    updated_at = ?, updated_by = ?, version = version + 1
+                WHERE id = ?""", updatedRoles.stream()
+                .map(roles::get)
+                .map(r -> new Object[]{r.name(), r.description(), r.priority(), r.systemRole(), r.defaultRole(),
+                        timestamp(r.expiryDate()), now, actor, ids.roles().get(r.code())})
+                .toList());
+        batch("UPDATE roles SET parent_id = (SELECT id FROM roles WHERE code = ?) WHERE code = ?",
+                reparented(diff.roles(), roles, RbacConfigSnapshot.Role::parent));
+
+        batch("INSERT INTO role_permissions (role_id, permission_id) VALUES ((SELECT id FROM roles WHERE code = ?), " + PERMISSION_ID + ")",
+                diff.grantsAdded().stream()
+                        .map(grant -> {
+                            // the permission may be an existing one the snapshot does not list
+                            int separator = grant.permission().lastIndexOf(':');
+                            return new Object[]{grant.role(), grant.permission().substring(0, separator),
+                                    grant.permission().substring(separator + 1)};
+                        })
+                        .toList());
+
+        log.info("Applied RBAC configuration by {}: {} feature, {} permission, {} role changes, {} grants added, {} removed",
+                actor, diff.features().size(), diff.permissions().size(), diff.roles().size(),
+                diff.grantsAdded().size(), diff.grantsRemoved().size());
+    }
+
+    private void batch(String sql, List<Object[]> args) {
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, args);
+        }
+    }
+
+    private Map<String, Long> idsBy(String sql) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            ids.put(rs.getString(1), rs.getLong(2));
+        });
+        return ids;
+    }
+
+    /**
+     * (parent key, key) of created entries with a parent and of updated entries whose parent changed
+     */
+    private static <T> List<Object[]> reparented(List<RbacConfigDiff.Change> changes, Map<String, T> target,
+                                                 Function<T, String> parent) {
+        return changes.stream()
+                .filter(change -> change.op() == RbacConfigDiff.Op.CREATE && parent.apply(target.get(change.key())) != null
+                        || change.op() == RbacConfigDiff.Op.UPDATE && change.fields().contains("parent"))
+                .map(change -> new Object[]{parent.apply(target.get(change.key())), change.key()})
+                .toList();
+    }
+
+    private static <T> Map<String, T> byKey(List<T> entries, Function<T, String> key) {
+        return entries.stream().collect(Collectors.toMap(key, Function.identity()));
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+}
@@ -0,0 +1,30 @@
+package org.hein.repository;
+
+import org.hein.entity.Feature;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FeatureRepository extends JpaRepository<Feature, Long> {
+    
+    /**
+     * Find all top-level features (those without a parent)
+     */
+    List<Feature> findByParentIsNull();
+
+    /**
+     * Id, parent id, code and enabled flag of every feature, for computing effective enablement
+     */
+    @Query("SELECT f.id, p.id, f.code, f.enabled FROM Feature f LEFT JOIN f.parent p")
+    List<Object[]> findAllTreeNodes();
+
+    /**
+     * The same columns as {@link #findAllTreeNodes()} for a single feature
+     */
+    @Query("SELECT f.id, p.id, f.code, f.enabled FROM Feature f LEFT JOIN f.parent p WHERE f.id = :id")
+    List<Object[]> findTreeNode(@Param("id") Long id);
+}
@@ -0,0 +1,19 @@
+package org.hein.repository;
+
+import org.hein.entity.InvalidationOutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvalidationOutboxRepository extends JpaRepository<InvalidationOutboxEntry, Long> {
+
+    /**
+     * Lock the oldest unpublished entries; rows locked by another relay are skipped
+     */
+    @Query(value = "SELECT * FROM invalidation_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<InvalidationOutboxEntry> lockNextBatch(@Param("limit") int limit);
+}
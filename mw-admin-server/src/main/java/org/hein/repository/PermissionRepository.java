@@ -1,12 +1,14 @@
 package org.hein.repository;
 
-import org.hein.entity.Action;
 import org.hein.entity.Permission;
+import org.hein.rbac.Action;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for Permission entities with enhanced querying capabilities
@@ -39,4 +41,19 @@ public interface PermissionRepository extends JpaRepository<Permission, Long> {
      * Find permissions by constraint policy
      */
     List<Permission> findByConstraintPolicy(String constraintPolicy);
-}
\ No newline at end of file
+
+    /**
+     * Id, feature code, action, feature id and constraint policy of every permission, for compiling permission snapshots
+     */
+    @Query("SELECT p.id, f.code, p.action, f.id, p.constraintPolicy FROM Permission p JOIN p.feature f")
+    List<Object[]> findAllPermissionNames();
+
+    /**
+     * Id and feature id of every permission
+     */
+    @Query("SELECT p.id, p.feature.id FROM Permission p")
+    List<Object[]> findAllFeatureLinks();
+
+    @Query("SELECT p.feature.id FROM Permission p WHERE p.id = :id")
+    Optional<Long> findFeatureIdById(@Param("id") Long id);
+}
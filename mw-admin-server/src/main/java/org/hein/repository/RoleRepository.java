@@ -35,4 +35,16 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
      */
     @Query("SELECT r FROM Role r JOIN r.permissions p WHERE p.id = :permissionId")
     List<Role> findByPermissionId(Long permissionId);
-}
\ No newline at end of file
+
+    /**
+     * Id and parent id of every role, for compiling permission snapshots
+     */
+    @Query("SELECT r.id, parent.id FROM Role r LEFT JOIN r.parent parent")
+    List<Object[]> findAllParentLinks();
+
+    /**
+     * Role id / permission id pairs of every role's direct permissions
+     */
+    @Query("SELECT r.id, p.id FROM Role r JOIN r.permissions p")
+    List<Object[]> findAllPermissionLinks();
+}
@@ -37,4 +37,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT DISTINCT u FROM User u JOIN u.userRoles ur WHERE ur.status = 'ACTIVE' " +
            "AND ur.validTo IS NOT NULL AND ur.validTo <= :expiryDate")
     List<User> findByRoleExpiringBefore(@Param("expiryDate") LocalDateTime expiryDate);
-}
\ No newline at end of file
+
+    /**
+     * Authority names of a user in one statement: ROLE_ names of the roles held through valid assignments
+     * and the feature:ACTION names of their permissions, including those of every ancestor role.
+     * Same result as walking User.getRoles() and Role.getAllPermissions(), without loading the graph.
+     */
+    @Query(value = "WITH RECURSIVE granted (id, parent_id, name, direct) AS (" +
+           "  SELECT r.id, r.parent_id, r.name, TRUE FROM user_roles ur JOIN roles r ON r.id = ur.role_id" +
+           "  WHERE ur.user_id = :userId AND ur.active AND ur.status = 'ACTIVE'" +
+           "  AND (ur.valid_from IS NULL OR ur.valid_from <= :now) AND (ur.valid_to IS NULL OR ur.valid_to >= :now)" +
+           "  UNION" +
+           "  SELECT p.id, p.parent_id, p.name, FALSE FROM roles p JOIN granted g ON p.id = g.parent_id" +
+           ") " +
+           "SELECT 'ROLE_' || UPPER(g.name) FROM granted g WHERE g.direct " +
+           "UNION " +
+           "SELECT f.code || ':' || pm.action FROM granted g " +
+           "JOIN role_permissions rp ON rp.role_id = g.id " +
+           "JOIN permissions pm ON pm.id = rp.permission_id " +
+           "JOIN features f ON f.id = pm.feature_id", nativeQuery = true)
+    List<String> findAuthorityNames(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+}
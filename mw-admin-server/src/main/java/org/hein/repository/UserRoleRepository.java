@@ -56,4 +56,13 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
     @Query("SELECT ur FROM UserRole ur WHERE ur.status = org.hein.entity.UserRoleStatus.ACTIVE "+
            "AND ur.validTo IS NOT NULL AND ur.validTo <= :expiryDate")
     List<UserRole> findByValidToBefore(@Param("expiryDate") LocalDateTime expiryDate);
-}
\ No newline at end of file
+
+    /**
+     * Username, role id, validity window and restrictions of every active assignment held by an enabled,
+     * unlocked user. The validity window is left to the caller so the result can be reused as time passes.
+     */
+    @Query("SELECT u.username, ur.role.id, ur.validFrom, ur.validTo, ur.restrictions FROM UserRole ur JOIN ur.user u "+
+           "WHERE ur.active = true AND ur.status = org.hein.entity.UserRoleStatus.ACTIVE "+
+           "AND u.enabled = true AND u.locked = false")
+    List<Object[]> findGrantingAssignments();
+}
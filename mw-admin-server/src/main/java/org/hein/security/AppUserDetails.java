@@ -0,0 +1,25 @@
+package org.hein.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal produced by {@link AppUserDetailsService}. It carries the user id and the authorities
+ * computed during authentication, so token generation never has to load the user again.
+ */
+public class AppUserDetails extends User {
+
+	private final Long id;
+
+	public AppUserDetails(Long id, String username, String password, boolean enabled, boolean credentialsNonExpired,
+						  boolean accountNonLocked, Collection<? extends GrantedAuthority> authorities) {
+		super(username, password, enabled, true, credentialsNonExpired, accountNonLocked, authorities);
+		this.id = id;
+	}
+
+	public Long getId() {
+		return id;
+	}
+}
@@ -0,0 +1,76 @@
+package org.hein.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hein.datasource.ReadWriteRoutingDataSource;
+import org.hein.entity.User;
+import org.hein.repository.UserRepository;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service to load user-specific data for Spring Security.
+ * This service adapts our User entity to Spring Security's UserDetails interface.
+ * A load costs two statements, the user row and its authority names, whatever the size of
+ * the role graph. Both read the primary, even inside the read-only transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class AppUserDetailsService implements UserDetailsService {
+
+	private final UserRepository userRepository;
+
+	@Override
+	@Transactional(readOnly = true)
+	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		// A lagging replica could still accept a changed password or grant a revoked role
+		return ReadWriteRoutingDataSource.onPrimary(() -> load(username));
+	}
+
+	private UserDetails load(String username) {
+		log.debug("Authenticating {}", username);
+		
+		User user = userRepository.findByUsername(username)
+				.orElseThrow(() -> new UsernameNotFoundException("User '" + username + "' not found"));
+
+		if (!user.isEnabled()) {
+			throw new DisabledException("User is disabled");
+		}
+
+		if (user.isLocked()) {
+			throw new LockedException("User is locked");
+		}
+
+		return new AppUserDetails(
+				user.getId(),
+				user.getUsername(),
+				user.getPassword(),
+				user.isEnabled(),
+				!user.isPasswordExpired(),
+				!user.isLocked(),
+				getAuthorities(user));
+	}
+
+	/**
+	 * The user's permissions from their valid roles and those roles' ancestors, in the format
+	 * "feature:ACTION", plus a ROLE_ authority for each valid role.
+	 * 
+	 * @param user The user whose permissions to extract
+	 * @return The GrantedAuthority objects representing the user's permissions
+	 */
+	private List<GrantedAuthority> getAuthorities(User user) {
+		return userRepository.findAuthorityNames(user.getId(), LocalDateTime.now()).stream()
+				.<GrantedAuthority>map(SimpleGrantedAuthority::new)
+				.toList();
+	}
+}
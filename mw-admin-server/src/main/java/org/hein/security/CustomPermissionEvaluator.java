@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hein.entity.Feature;
 import org.hein.exceptions.PermissionDeniedException;
+import org.hein.observability.SecurityMetrics;
 import org.hein.repository.FeatureRepository;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
@@ -12,6 +13,8 @@ import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
 
+import static org.hein.observability.SecurityMetrics.Evaluator.CUSTOM;
+
 /**
  * Custom permission evaluator for RBAC that supports both
  * feature-action based permissions and direct permission strings.
@@ -21,6 +24,7 @@ import java.io.Serializable;
 @RequiredArgsConstructor
 public class CustomPermissionEvaluator implements PermissionEvaluator {
     private final FeatureRepository featureRepository;
+    private final SecurityMetrics securityMetrics;
     // We'll keep the repository reference for feature lookups
     // Additional services can be uncommented when needed for more complex permission checks
 
@@ -38,9 +42,7 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
         
         // Check for direct permission strings (e.g., 'users:CREATE')
         String permissionString = permission.toString();
-        return authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(auth -> auth.equals(permissionString));
+        return hasAuthority(authentication, permissionString);
     }
 
     @Override
@@ -60,9 +62,7 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
         if (targetType.equalsIgnoreCase("Entity")) {
             // Format: entityType:action, e.g., "user:view"
             String permissionString = permission.toString();
-            return authentication.getAuthorities().stream()
-                    .map(GrantedAuthority::getAuthority)
-                    .anyMatch(auth -> auth.equals(permissionString));
+            return hasAuthority(authentication, permissionString);
         }
 
         return false;
@@ -85,9 +85,17 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
         String fullPermission = feature.getName().toLowerCase() + ":" + permissionString.toUpperCase();
         
         // Check if the user has this permission
-        return authentication.getAuthorities().stream()
+        return hasAuthority(authentication, fullPermission);
+    }
+
+    /**
+     * Check the authorities carried by the token and record the decision
+     */
+    private boolean hasAuthority(Authentication authentication, String permission) {
+        boolean granted = authentication.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
-                .anyMatch(auth -> auth.equals(fullPermission));
+                .anyMatch(auth -> auth.equals(permission));
+        return securityMetrics.recordDecision(CUSTOM, permission, granted);
     }
 
     /**
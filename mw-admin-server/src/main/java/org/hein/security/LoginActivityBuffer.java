@@ -0,0 +1,140 @@
+package org.hein.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Write-behind buffer for users.last_login_at, last_login_ip and failed_attempts.
+ * <p>
+ * Logins only touch this in-memory map, so the login transaction stays read-only. Repeated logins
+ * of the same user between flushes collapse into one entry, and every app.login-activity.flush-interval-ms
+ * the entries are written as two batched UPDATEs that leave the version column alone, so they never
+ * conflict with concurrent administrative edits. Failed attempts are flushed as increments, which keeps
+ * counts from several instances additive. A batch that fails to write is merged back and retried on the next
+ * flush; up to one interval of activity is lost if the process dies.
+ */
+@Slf4j
+@Component
+public class LoginActivityBuffer {
+
+    private static final String SUCCESS_SQL = "UPDATE users SET last_login_at = ?, last_login_ip = ?, "
+            + "failed_attempts = ?, locked_until = NULL WHERE username = ?";
+    private static final String FAILURE_SQL = "UPDATE users SET failed_attempts = COALESCE(failed_attempts, 0) + ? "
+            + "WHERE username = ?";
+
+    /**
+     * Coalesced activity of one user: the latest success, if any, and the failures after it
+     */
+    private record Activity(LocalDateTime lastLoginAt, String lastLoginIp, int failures) {
+
+        Activity succeeded(LocalDateTime at, String ip) {
+            return new Activity(at, ip, 0);
+        }
+
+        Activity failed() {
+            return new Activity(lastLoginAt, lastLoginIp, failures + 1);
+        }
+
+        /**
+         * This activity with a later one applied on top: a later success replaces it, later failures add up
+         */
+        Activity followedBy(Activity later) {
+            return later.lastLoginAt() != null ? later : new Activity(lastLoginAt, lastLoginIp, failures + later.failures());
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Activity> pending = new ConcurrentHashMap<>();
+    private final Counter flushed;
+    private final Counter dropped;
+
+    @Value("${app.login-activity.max-pending:100000}")
+    private int maxPending;
+
+    public LoginActivityBuffer(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushed = Counter.builder("login.activity.flushed")
+                .description("Users whose login activity was written")
+                .register(registry);
+        this.dropped = Counter.builder("login.activity.dropped")
+                .description("Login events not buffered because app.login-activity.max-pending was reached")
+                .register(registry);
+        Gauge.builder("login.activity.pending", pending, Map::size).register(registry);
+    }
+
+    public void loginSucceeded(String username, String ipAddress) {
+        record(username, activity -> activity.succeeded(LocalDateTime.now(), ipAddress));
+    }
+
+    public void loginFailed(String username) {
+        record(username, Activity::failed);
+    }
+
+    private void record(String username, UnaryOperator<Activity> change) {
+        if (pending.size() >= maxPending && !pending.containsKey(username)) {
+            // Bounds memory under a password-spraying burst of unknown usernames
+            dropped.increment();
+            return;
+        }
+        pending.compute(username, (key, activity) -> change.apply(activity == null ? new Activity(null, null, 0) : activity));
+    }
+
+    @Scheduled(fixedDelayString = "${app.login-activity.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Activity> successes = new HashMap<>();
+        Map<String, Activity> failures = new HashMap<>();
+        for (String username : List.copyOf(pending.keySet())) {
+            Activity activity = pending.remove(username);
+            if (activity == null) {
+                continue;
+            }
+            (activity.lastLoginAt() != null ? successes : failures).put(username, activity);
+        }
+        write(SUCCESS_SQL, successes, (username, activity) -> new Object[]{
+                Timestamp.valueOf(activity.lastLoginAt()), activity.lastLoginIp(), activity.failures(), username});
+        write(FAILURE_SQL, failures, (username, activity) -> new Object[]{activity.failures(), username});
+    }
+
+    /**
+     * Write one batch; if it fails, put its activity back in front of whatever was recorded meanwhile
+     * so the next flush retries it
+     */
+    private void write(String sql, Map<String, Activity> drained, BiFunction<String, Activity, Object[]> row) {
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, drained.entrySet().stream()
+                    .map(entry -> row.apply(entry.getKey(), entry.getValue()))
+                    .toList());
+            flushed.increment(drained.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to write login activity of {} users, retrying on the next flush: {}", drained.size(), e.getMessage());
+            drained.forEach((username, activity) -> pending.merge(username, activity, (recorded, failed) -> failed.followedBy(recorded)));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
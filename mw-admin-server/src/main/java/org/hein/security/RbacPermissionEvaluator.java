@@ -2,7 +2,11 @@ package org.hein.security;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hein.authz.FeatureEnablementIndex;
 import org.hein.entity.User;
+import org.hein.observability.SecurityMetrics;
+import org.hein.policy.PolicyContextFactory;
+import org.hein.policy.PolicyEngine;
 import org.hein.repository.UserRepository;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
@@ -10,6 +14,8 @@ import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
 
+import static org.hein.observability.SecurityMetrics.Evaluator.RBAC;
+
 /**
  * Custom PermissionEvaluator that integrates with our RBAC system
  * This allows us to use hasPermission() expressions in @PreAuthorize annotations
@@ -20,6 +26,10 @@ import java.io.Serializable;
 public class RbacPermissionEvaluator implements PermissionEvaluator {
 
     private final UserRepository userRepository;
+    private final SecurityMetrics securityMetrics;
+    private final FeatureEnablementIndex featureEnablement;
+    private final PolicyEngine policyEngine;
+    private final PolicyContextFactory policyContexts;
     
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
@@ -53,6 +63,12 @@ public class RbacPermissionEvaluator implements PermissionEvaluator {
      * Check if the authenticated user has the specified permission
      */
     private boolean checkPermission(Authentication authentication, String permissionName) {
+        // Nobody, not even a system account, holds a permission of a disabled feature
+        if (!featureEnablement.isEnabled(permissionName)) {
+            log.debug("Permission {} denied, its feature is disabled", permissionName);
+            return securityMetrics.recordDecision(RBAC, permissionName, false);
+        }
+
         String username = authentication.getName();
         
         // Find the user by username
@@ -61,23 +77,24 @@ public class RbacPermissionEvaluator implements PermissionEvaluator {
         
         if (user == null) {
             log.warn("Permission check for non-existent user: {}", username);
-            return false;
+            return securityMetrics.recordDecision(RBAC, permissionName, false);
         }
         
         // System accounts can have special privileges
         if (user.isSystemAccount()) {
             log.debug("System account access: {}", username);
-            return true;
+            return securityMetrics.recordDecision(RBAC, permissionName, true);
         }
         
         // Check if the user is enabled
         if (!user.isEnabled() || user.isLocked()) {
             log.debug("Permission denied for disabled/locked user: {}", username);
-            return false;
+            return securityMetrics.recordDecision(RBAC, permissionName, false);
         }
         
-        // Check if the user has the permission directly or through roles
-        boolean hasPermission = user.hasPermission(permissionName);
+        // Check if the user has the permission through a role whose assignment restrictions and
+        // permission constraint policy both hold for this request
+        boolean hasPermission = policyEngine.isGranted(user, permissionName, policyContexts.current(username));
         
         if (hasPermission) {
             log.debug("User {} has permission: {}", username, permissionName);
@@ -85,6 +102,6 @@ public class RbacPermissionEvaluator implements PermissionEvaluator {
             log.debug("User {} denied permission: {}", username, permissionName);
         }
         
-        return hasPermission;
+        return securityMetrics.recordDecision(RBAC, permissionName, hasPermission);
     }
 }
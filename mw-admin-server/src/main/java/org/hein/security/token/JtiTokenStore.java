@@ -0,0 +1,99 @@
+package org.hein.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.hein.observability.SecurityMetrics;
+import org.hein.utils.RedisUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hein.commons.constant.RedisKeys.*;
+import static org.hein.observability.SecurityMetrics.JtiOperation.*;
+
+@Component
+@RequiredArgsConstructor
+public class JtiTokenStore {
+
+    @Value("${app.token.expiration.access}")
+    private int accessLife;
+
+    @Value("${app.token.expiration.refresh}")
+    private int refreshLife;
+
+    private final RedisUtil redisUtil;
+    private final SecurityMetrics securityMetrics;
+
+    public void storeAccessJti(String jti, String username) {
+        long startedAt = System.nanoTime();
+        try {
+            redisUtil.setWithExpiration(String.format(ACCESS_TOKEN_BY_USER, username), jti, accessLife, TimeUnit.MINUTES);
+        } finally {
+            securityMetrics.recordJtiOperation(STORE, startedAt);
+        }
+    }
+
+    public void storeRefreshJti(String jti, String username) {
+        long startedAt = System.nanoTime();
+        try {
+            redisUtil.setWithExpiration(String.format(REFRESH_TOKEN_BY_USER, username), jti, refreshLife, TimeUnit.MINUTES);
+        } finally {
+            securityMetrics.recordJtiOperation(STORE, startedAt);
+        }
+    }
+
+    /**
+     * Whether the jti is the user's current access jti and the token was issued after the user's
+     * last revocation; both are read in one round trip
+     */
+    public boolean validateAccessJti(String jti, String username, Date issuedAt) {
+        return validate(jti, String.format(ACCESS_TOKEN_BY_USER, username), username, issuedAt);
+    }
+
+    public boolean validateRefreshJti(String jti, String username, Date issuedAt) {
+        return validate(jti, String.format(REFRESH_TOKEN_BY_USER, username), username, issuedAt);
+    }
+
+    /**
+     * Reject every token of the user issued at or before the given time, applied from the outbox.
+     * The cutoff only ever moves forward, so replaying a revocation late or twice leaves tokens
+     * issued after it valid. It is kept for the refresh token life, after which every token it
+     * covers has expired anyway.
+     */
+    public void revokeIssuedBefore(String username, long cutoffMillis) {
+        long startedAt = System.nanoTime();
+        try {
+            redisUtil.setIfGreater(String.format(TOKENS_REVOKED_BEFORE_BY_USER, username), cutoffMillis, refreshLife, TimeUnit.MINUTES);
+        } finally {
+            securityMetrics.recordJtiOperation(REVOKE, startedAt);
+        }
+    }
+
+    public void revokeTokens(String username) {
+        String accessKey = String.format(ACCESS_TOKEN_BY_USER, username);
+        String refreshKey = String.format(REFRESH_TOKEN_BY_USER, username);
+        long startedAt = System.nanoTime();
+        try {
+            redisUtil.delete(accessKey);
+            redisUtil.delete(refreshKey);
+        } finally {
+            securityMetrics.recordJtiOperation(REVOKE, startedAt);
+        }
+    }
+
+    private boolean validate(String jti, String key, String username, Date issuedAt) {
+        long startedAt = System.nanoTime();
+        try {
+            List<Object> values = redisUtil.multiGet(List.of(key, String.format(TOKENS_REVOKED_BEFORE_BY_USER, username)));
+            if (values == null || !jti.equals(values.get(0))) {
+                return false;
+            }
+            // iat has second precision, so a token issued in the same second as the revocation is rejected too
+            return !(values.get(1) instanceof Number cutoff) || (issuedAt != null && issuedAt.getTime() > cutoff.longValue());
+        } finally {
+            securityMetrics.recordJtiOperation(VALIDATE, startedAt);
+        }
+    }
+}
@@ -1,31 +1,29 @@
 package org.hein.security.token;
 
-import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.hein.commons.enum_.TokenType;
 import io.jsonwebtoken.Jwts;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
-import java.util.stream.Collectors;
 
 @Component
+@RequiredArgsConstructor
 public class JwtTokenGenerator {
 
-	@Value("${app.token.secret}")
-	private String secretKeyValue;
-
 	@Value("${app.token.issuer}")
 	private String issuer;
 
 	@Value("${app.token.role.key}")
 	private String roleKey;
 
+	@Value("${app.token.permission.key}")
+	private String permissionKey;
+
 	@Value("${app.token.type.key}")
 	private String typeKey;
 
@@ -38,12 +36,8 @@ public class JwtTokenGenerator {
 	@Value("${app.token.expiration.refresh}")
 	private int refreshLife;
 
-	private SecretKey secretKey;
-
-	@PostConstruct
-	public void initBean() {
-		this.secretKey = SecretKeys.stringToKey(secretKeyValue);
-	}
+	private final SigningKeyRing signingKeyRing;
+	private final PermissionClaims permissionClaims;
 
 	public String generateAccessToken(Authentication auth, String accessJti) {
 		return generateAccess(auth, accessJti);
@@ -54,42 +48,44 @@ public class JwtTokenGenerator {
 	}
 
 	private String generateAccess(Authentication auth, String accessJti) {
-		var roles = extractRoles(auth);
+		var claims = permissionClaims.encode(auth.getAuthorities());
 		var now = Instant.now();
 		var expiration = now.plus(accessLife, ChronoUnit.MINUTES);
 
+		var signingKey = signingKeyRing.active();
+
 		return Jwts.builder()
+				.header().keyId(signingKey.kid()).and()
 				.subject(auth.getName())
 				.issuer(issuer)
 				.issuedAt(Date.from(now))
 				.expiration(Date.from(expiration))
-				.claim(roleKey, roles)
+				.claim(roleKey, claims.others())
+				.claim(permissionKey, claims.permissions())
 				.claim(typeKey, TokenType.Access.name())
 				.claim(jtiKey, accessJti)
-				.signWith(secretKey)
+				.signWith(signingKey.signingKey())
 				.compact();
 	}
 
 	private String generateRefresh(Authentication auth, String refreshJti) {
-		var roles = extractRoles(auth);
+		var claims = permissionClaims.encode(auth.getAuthorities());
 		var now = Instant.now();
 		var expiration = now.plus(refreshLife, ChronoUnit.MINUTES);
 
+		var signingKey = signingKeyRing.active();
+
 		return Jwts.builder()
+				.header().keyId(signingKey.kid()).and()
 				.subject(auth.getName())
 				.issuer(issuer)
 				.issuedAt(Date.from(now))
 				.expiration(Date.from(expiration))
-				.claim(roleKey, roles)
+				.claim(roleKey, claims.others())
+				.claim(permissionKey, claims.permissions())
 				.claim(typeKey, TokenType.Refresh.name())
 				.claim(jtiKey, refreshJti)
-				.signWith(secretKey)
+				.signWith(signingKey.signingKey())
 				.compact();
 	}
-
-	private String extractRoles(Authentication auth) {
-		return auth.getAuthorities().stream()
-				.map(GrantedAuthority::getAuthority)
-				.collect(Collectors.joining(","));
-	}
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package org.hein.security.token;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.hein.commons.enum_.TokenType;
+import org.hein.exceptions.ApiJwtTokenExpirationException;
+import org.hein.exceptions.ApiJwtTokenInvalidationException;
+import org.hein.observability.RequestTrace;
+import org.hein.observability.SecurityMetrics;
+import org.hein.observability.SecurityMetrics.ParseOutcome;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.hein.utils.TokenUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class JwtTokenParser {
+
+	@Value("${app.token.issuer}")
+	private String issuer;
+
+	@Value("${app.token.role.key}")
+	private String roleKey;
+
+	@Value("${app.token.permission.key}")
+	private String permissionKey;
+
+	@Value("${app.token.type.key}")
+	private String typeKey;
+
+	@Value("${app.token.jti.key}")
+	private String jtiKey;
+
+	private final JtiTokenStore jtiTokenStore;
+	private final SecurityMetrics securityMetrics;
+	private final SigningKeyRing signingKeyRing;
+	private final PermissionClaims permissionClaims;
+	private final TokenPrecheck tokenPrecheck;
+
+	private JwtParser jwtParser;
+
+	@PostConstruct
+	public void initBean() {
+		// Parsers are immutable and thread-safe, so one is built instead of one per request
+		this.jwtParser = Jwts.parser()
+				.requireIssuer(issuer)
+				.keyLocator(signingKeyRing)
+				.build();
+	}
+
+	public Authentication parse(TokenType expectedType, String jwtToken) {
+		RequestTrace trace = RequestTrace.current();
+		long startedAt = System.nanoTime();
+		ParseOutcome outcome = ParseOutcome.INVALID;
+		String token = null;
+		try {
+			token = TokenUtils.extractToken(jwtToken);
+
+			outcome = ParseOutcome.MALFORMED;
+			tokenPrecheck.checkStructure(token);
+			var known = tokenPrecheck.knownRejection(expectedType, token);
+			if (known != null) {
+				outcome = ParseOutcome.KNOWN_REJECTED;
+				throw known;
+			}
+			outcome = ParseOutcome.INVALID;
+
+			long parseStartedAt = trace.start();
+			var jwt = jwtParser.parseSignedClaims(token);
+			trace.stop(RequestTrace.Phase.TOKEN_PARSE, parseStartedAt);
+
+			var claims = jwt.getPayload();
+
+			var typeValue = claims.get(typeKey, String.class);
+			if (!expectedType.name().equals(typeValue)) {
+				throw reject(expectedType, token, new ApiJwtTokenInvalidationException("Invalid Token type"));
+			}
+
+			var username = claims.getSubject();
+
+			var jtiValue = claims.get(jtiKey, String.class);
+
+			long jtiStartedAt = trace.start();
+			boolean jtiValid = expectedType == TokenType.Access
+					? jtiTokenStore.validateAccessJti(jtiValue, username, claims.getIssuedAt())
+					: jtiTokenStore.validateRefreshJti(jtiValue, username, claims.getIssuedAt());
+			trace.stop(RequestTrace.Phase.JTI_LOOKUP, jtiStartedAt);
+
+			if (!jtiValid) {
+				outcome = ParseOutcome.JTI_MISMATCH;
+				// A jti is replaced on every login, refresh and revoke and a revocation cutoff only moves
+				// forward, so either rejection is permanent
+				throw reject(expectedType, token, new ApiJwtTokenInvalidationException(expectedType == TokenType.Access ? "Expired access token." : "Expired refresh token."));
+			}
+
+			var permissionClaim = claims.get(permissionKey, String.class);
+			var othersClaim = claims.get(roleKey, String.class);
+
+			outcome = ParseOutcome.OK;
+			return new TokenAuthentication(username, () -> permissionClaims.decode(username, permissionClaim, othersClaim));
+
+		} catch (ExpiredJwtException e) {
+			outcome = ParseOutcome.EXPIRED;
+			if (expectedType == TokenType.Access) {
+				throw reject(expectedType, token, new ApiJwtTokenExpirationException("Expired access token."));
+			} else {
+				throw reject(expectedType, token, new ApiJwtTokenInvalidationException("Expired refresh token."));
+			}
+		} catch (SigningKeyRing.UnknownKeyException e) {
+			// Not remembered: the key may only be missing from this instance's ring so far
+			throw new ApiJwtTokenInvalidationException("Token is invalid.", e);
+		} catch (JwtException e) {
+			throw reject(expectedType, token, new ApiJwtTokenInvalidationException("Token is invalid.", e));
+		} finally {
+			securityMetrics.recordTokenParse(expectedType == TokenType.Access, outcome, startedAt);
+		}
+	}
+
+	/**
+	 * Records a rejection that cannot change for this token: malformed, bad signature under a
+	 * known key, expired, wrong type or superseded jti
+	 */
+	private AuthenticationException reject(TokenType expectedType, String token, AuthenticationException rejection) {
+		tokenPrecheck.remember(expectedType, token, rejection);
+		return rejection;
+	}
+
+	public String extractJti(String token) {
+		token = TokenUtils.extractToken(token);
+		var claims = jwtParser.parseSignedClaims(token).getPayload();
+		return claims.get(jtiKey, String.class);
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.hein.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.hein.authz.FeatureEnablementIndex;
+import org.hein.authz.PermissionSnapshotHolder;
+import org.hein.policy.PolicyContext;
+import org.hein.policy.PolicyContextFactory;
+import org.hein.rbac.PermissionSnapshot;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Encodes a user's authorities into the compact token claims and back, against a
+ * {@link PermissionRegistry} kept in step with the permission snapshot.
+ * <p>
+ * Permissions go into the bitmap claim, so the token grows by one bit per permission id instead of
+ * one name per granted permission; the role claim keeps only what the registry does not know,
+ * usually just the ROLE_ entries.
+ * <p>
+ * Decoding drops permissions of effectively disabled features through the {@link FeatureEnablementIndex}
+ * mask, so disabling a feature takes effect on tokens that were already issued. It then drops the
+ * permissions whose constraint policy or assignment restrictions do not hold for the current request,
+ * so hasAuthority checks enforce policies the same way the hasPermission evaluator does.
+ */
+@Component
+@RequiredArgsConstructor
+public class PermissionClaims {
+
+	public record Encoded(String permissions, String others) {
+	}
+
+	private final PermissionSnapshotHolder snapshotHolder;
+	private final FeatureEnablementIndex featureEnablement;
+	private final PolicyContextFactory policyContexts;
+
+	private volatile PermissionRegistry registry;
+
+	public Encoded encode(Collection<? extends GrantedAuthority> authorities) {
+		List<String> others = new ArrayList<>();
+		String permissions = registry().encode(authorities, others);
+		return new Encoded(permissions, String.join(",", others));
+	}
+
+	/**
+	 * Decode the claims of the user's token; permissionClaim is null for tokens that list every authority by name
+	 */
+	public Collection<GrantedAuthority> decode(String username, String permissionClaim, String othersClaim) {
+		List<GrantedAuthority> others = StringUtils.hasLength(othersClaim)
+				? StringUtils.commaDelimitedListToSet(othersClaim).stream()
+						.filter(featureEnablement::isEnabled)
+						.<GrantedAuthority>map(SimpleGrantedAuthority::new)
+						.toList()
+				: List.of();
+		if (permissionClaim == null) {
+			return withPolicies(username, others);
+		}
+		return withPolicies(username, registry().decode(permissionClaim, others, featureEnablement.disabledPermissions()));
+	}
+
+	private Collection<GrantedAuthority> withPolicies(String username, Collection<GrantedAuthority> authorities) {
+		PermissionSnapshot snapshot = snapshotHolder.current();
+		if (!snapshot.hasPolicies()) {
+			return authorities;
+		}
+		long now = System.currentTimeMillis();
+		Supplier<PolicyContext> context = () -> policyContexts.current(username);
+		List<GrantedAuthority> allowed = new ArrayList<>(authorities.size());
+		for (GrantedAuthority authority : authorities) {
+			if (snapshot.policiesAllow(username, authority.getAuthority(), context, now)) {
+				allowed.add(authority);
+			}
+		}
+		return allowed;
+	}
+
+	/**
+	 * The registry of the current snapshot, rebuilt only when the snapshot version moves
+	 */
+	private PermissionRegistry registry() {
+		long version = snapshotHolder.current().version();
+		PermissionRegistry current = registry;
+		if (current == null || current.version() != version) {
+			var state = snapshotHolder.currentState();
+			current = PermissionRegistry.of(state.version(), state.permissions());
+			registry = current;
+		}
+		return current;
+	}
+}
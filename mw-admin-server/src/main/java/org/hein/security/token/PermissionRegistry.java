@@ -0,0 +1,134 @@
+package org.hein.security.token;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.AbstractCollection;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Permission names indexed by permission id, used to carry a user's permissions in a token as a
+ * bitmap of ids instead of a list of names. Ids are never reused, so a bitmap encoded against one
+ * registry version decodes correctly against any later one; permissions deleted since simply drop out.
+ * <p>
+ * The claim value is {@code <registry version>.<base64url bitmap>}, where bit i is permission id i.
+ */
+public final class PermissionRegistry {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final long version;
+	private final GrantedAuthority[] authorities;
+	private final Map<String, Integer> ids;
+
+	private PermissionRegistry(long version, GrantedAuthority[] authorities, Map<String, Integer> ids) {
+		this.version = version;
+		this.authorities = authorities;
+		this.ids = ids;
+	}
+
+	public static PermissionRegistry of(long version, Map<Long, String> permissions) {
+		int size = permissions.keySet().stream().mapToInt(Math::toIntExact).max().orElse(-1) + 1;
+		GrantedAuthority[] authorities = new GrantedAuthority[size];
+		Map<String, Integer> ids = new HashMap<>(permissions.size() * 2);
+		permissions.forEach((id, name) -> {
+			authorities[Math.toIntExact(id)] = new SimpleGrantedAuthority(name);
+			ids.put(name, Math.toIntExact(id));
+		});
+		return new PermissionRegistry(version, authorities, ids);
+	}
+
+	public long version() {
+		return version;
+	}
+
+	/**
+	 * Encode the authorities known to the registry as a bitmap claim and add the names of all
+	 * others (role authorities, permissions created after this registry was built) to rest
+	 */
+	public String encode(Collection<? extends GrantedAuthority> granted, List<String> rest) {
+		BitSet bits = new BitSet(authorities.length);
+		for (GrantedAuthority authority : granted) {
+			Integer id = ids.get(authority.getAuthority());
+			if (id == null) {
+				rest.add(authority.getAuthority());
+			} else {
+				bits.set(id);
+			}
+		}
+		return version + "." + ENCODER.encodeToString(bits.toByteArray());
+	}
+
+	/**
+	 * The authorities of a bitmap claim, minus the masked permission ids, followed by the other
+	 * authorities, without copying or allocating per permission
+	 */
+	public Collection<GrantedAuthority> decode(String claim, List<GrantedAuthority> others, BitSet masked) {
+		int separator = claim.indexOf('.');
+		if (separator < 0) {
+			throw new IllegalArgumentException("Malformed permission claim");
+		}
+		BitSet bits = BitSet.valueOf(DECODER.decode(claim.substring(separator + 1)));
+		bits.andNot(masked);
+		for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+			if (id >= authorities.length || authorities[id] == null) {
+				bits.clear(id);
+			}
+		}
+		return new Authorities(bits, authorities, others);
+	}
+
+	private static final class Authorities extends AbstractCollection<GrantedAuthority> {
+
+		private final BitSet bits;
+		private final GrantedAuthority[] authorities;
+		private final List<GrantedAuthority> others;
+		private final int size;
+
+		Authorities(BitSet bits, GrantedAuthority[] authorities, List<GrantedAuthority> others) {
+			this.bits = bits;
+			this.authorities = authorities;
+			this.others = others;
+			this.size = bits.cardinality() + others.size();
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Iterator<GrantedAuthority> iterator() {
+			return new Iterator<>() {
+				private int next = bits.nextSetBit(0);
+				private int other = 0;
+
+				@Override
+				public boolean hasNext() {
+					return next >= 0 || other < others.size();
+				}
+
+				@Override
+				public GrantedAuthority next() {
+					if (next >= 0) {
+						GrantedAuthority authority = authorities[next];
+						next = bits.nextSetBit(next + 1);
+						return authority;
+					}
+					if (other < others.size()) {
+						return others.get(other++);
+					}
+					throw new NoSuchElementException();
+				}
+			};
+		}
+	}
+}
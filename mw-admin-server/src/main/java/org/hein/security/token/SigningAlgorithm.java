@@ -0,0 +1,52 @@
+package org.hein.security.token;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+
+import java.security.KeyPair;
+
+/**
+ * Token signing algorithms selectable with app.token.signing.algorithm.
+ * HS512 keeps the shared app.token.secret and publishes nothing; ES256 and EdDSA (Ed25519)
+ * sign with rotating private keys whose public halves are served as a JWKS.
+ */
+public enum SigningAlgorithm {
+
+	HS512(null, 64),
+	ES256("EC", 64),
+	EdDSA("Ed25519", 64);
+
+	private final String keyFactoryAlgorithm;
+	private final int signatureBytes;
+
+	SigningAlgorithm(String keyFactoryAlgorithm, int signatureBytes) {
+		this.keyFactoryAlgorithm = keyFactoryAlgorithm;
+		this.signatureBytes = signatureBytes;
+	}
+
+	public boolean isAsymmetric() {
+		return keyFactoryAlgorithm != null;
+	}
+
+	/**
+	 * JCA name used to decode stored PKCS#8 / X.509 encodings
+	 */
+	public String keyFactoryAlgorithm() {
+		return keyFactoryAlgorithm;
+	}
+
+	/**
+	 * Length of the base64url signature segment of a token signed with this algorithm
+	 */
+	public int encodedSignatureLength() {
+		return (signatureBytes * 4 + 2) / 3;
+	}
+
+	public KeyPair generateKeyPair() {
+		return switch (this) {
+			case ES256 -> Jwts.SIG.ES256.keyPair().build();
+			case EdDSA -> Jwks.CRV.Ed25519.keyPair().build();
+			case HS512 -> throw new IllegalStateException("HS512 has no key pair");
+		};
+	}
+}
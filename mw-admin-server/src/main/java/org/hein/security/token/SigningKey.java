@@ -0,0 +1,25 @@
+package org.hein.security.token;
+
+import java.security.Key;
+import java.time.Instant;
+
+/**
+ * One entry of the signing key ring. A key signs new tokens from activatesAt until retiresAt,
+ * and keeps verifying them until expiresAt, which is retiresAt plus the longest token lifetime.
+ */
+public record SigningKey(String kid,
+						 SigningAlgorithm algorithm,
+						 Key signingKey,
+						 Key verificationKey,
+						 Instant activatesAt,
+						 Instant retiresAt,
+						 Instant expiresAt) {
+
+	public boolean signsAt(Instant now) {
+		return !now.isBefore(activatesAt) && now.isBefore(retiresAt);
+	}
+
+	public boolean verifiesAt(Instant now) {
+		return now.isBefore(expiresAt);
+	}
+}
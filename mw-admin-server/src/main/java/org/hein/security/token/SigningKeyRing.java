@@ -0,0 +1,209 @@
+package org.hein.security.token;
+
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The keys tokens are signed and verified with.
+ * <p>
+ * With an asymmetric algorithm every key is published rotation-overlap ahead of its activation, so
+ * verifiers that cache the JWKS already know it when the first token carrying its kid arrives, and it
+ * keeps verifying for the longest token lifetime after its successor took over signing.
+ * With HS512 the ring holds the single app.token.secret key and nothing is published.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SigningKeyRing extends LocatorAdapter<Key> {
+
+	private static final String HS512_KID = "hs512";
+
+	private final SigningKeyStore store;
+
+	@Value("${app.token.secret}")
+	private String secretKeyValue;
+
+	@Value("${app.token.signing.algorithm:ES256}")
+	private SigningAlgorithm algorithm;
+
+	@Value("${app.token.signing.rotation-period-hours:168}")
+	private long rotationPeriodHours;
+
+	@Value("${app.token.signing.rotation-overlap-minutes:60}")
+	private long rotationOverlapMinutes;
+
+	@Value("${app.token.expiration.refresh}")
+	private int refreshLife;
+
+	private volatile List<SigningKey> keys = List.of();
+
+	@PostConstruct
+	public void initBean() {
+		if (!algorithm.isAsymmetric()) {
+			var secretKey = SecretKeys.stringToKey(secretKeyValue);
+			keys = List.of(new SigningKey(HS512_KID, algorithm, secretKey, secretKey, Instant.EPOCH, Instant.MAX, Instant.MAX));
+			return;
+		}
+		rotate();
+	}
+
+	/**
+	 * Key new tokens are signed with: the newest activated key, even if rotation is overdue
+	 */
+	public SigningKey active() {
+		var now = Instant.now();
+		SigningKey latest = null;
+		for (SigningKey key : keys) {
+			if (!now.isBefore(key.activatesAt())) {
+				latest = key;
+			}
+		}
+		if (latest == null) {
+			throw new IllegalStateException("No active token signing key");
+		}
+		if (!latest.signsAt(now)) {
+			log.warn("Signing key {} is past its retirement at {}, rotation is overdue", latest.kid(), latest.retiresAt());
+		}
+		return latest;
+	}
+
+	@Override
+	protected Key locate(JwsHeader header) {
+		String kid = header.getKeyId();
+		if (!algorithm.isAsymmetric() && kid == null) {
+			// Tokens issued before key ids were added to the header
+			return keys.get(0).verificationKey();
+		}
+		var now = Instant.now();
+		for (SigningKey key : keys) {
+			if (key.kid().equals(kid) && key.verifiesAt(now)) {
+				return key.verificationKey();
+			}
+		}
+		throw new UnknownKeyException(kid);
+	}
+
+	@Override
+	protected Key doLocate(Header header) {
+		return null;
+	}
+
+	/**
+	 * The public keys currently able to verify tokens, as a JWK Set
+	 */
+	public Map<String, Object> jwks() {
+		var now = Instant.now();
+		List<Map<String, Object>> published = new ArrayList<>();
+		for (SigningKey key : keys) {
+			if (key.algorithm().isAsymmetric() && key.verifiesAt(now)) {
+				var jwk = Jwks.builder()
+						.key((PublicKey) key.verificationKey())
+						.id(key.kid())
+						.algorithm(key.algorithm().name())
+						.publicKeyUse("sig")
+						.build();
+				published.add(new LinkedHashMap<>(jwk));
+			}
+		}
+		return Map.of("keys", published);
+	}
+
+	/**
+	 * Seconds a JWKS response may be cached: short enough that a key published rotation-overlap
+	 * ahead of activation reaches every verifier before it signs
+	 */
+	public long jwksMaxAgeSeconds() {
+		return Duration.ofMinutes(rotationOverlapMinutes).dividedBy(4).toSeconds();
+	}
+
+	/**
+	 * Create the successor key once the current one is within rotation-overlap of its retirement
+	 * (or immediately when the algorithm changed or no key exists) and reload the ring.
+	 */
+	@Scheduled(fixedDelayString = "${app.token.signing.refresh-interval-ms:60000}",
+			initialDelayString = "${app.token.signing.refresh-interval-ms:60000}")
+	public void rotate() {
+		if (!algorithm.isAsymmetric()) {
+			return;
+		}
+		try {
+			keys = store.withRotationLock(() -> {
+				var now = Instant.now();
+				store.deleteExpired(now);
+				var current = store.findUnexpired(now);
+				var successor = plan(current, now);
+				if (successor == null) {
+					return List.copyOf(current);
+				}
+				store.insert(successor);
+				log.info("Created {} signing key {} activating at {}", successor.algorithm(), successor.kid(), successor.activatesAt());
+				List<SigningKey> next = new ArrayList<>(current);
+				next.add(successor);
+				next.sort(Comparator.comparing(SigningKey::activatesAt));
+				return List.copyOf(next);
+			});
+		} catch (RuntimeException e) {
+			if (keys.isEmpty()) {
+				throw e;
+			}
+			log.warn("Signing key rotation failed, keeping {} known keys", keys.size(), e);
+		}
+	}
+
+	private SigningKey plan(List<SigningKey> current, Instant now) {
+		var overlap = Duration.ofMinutes(rotationOverlapMinutes);
+		SigningKey newest = current.isEmpty() ? null : current.get(current.size() - 1);
+		Instant activatesAt;
+		if (newest == null || !newest.algorithm().isAsymmetric()) {
+			activatesAt = now;
+		} else if (newest.algorithm() != algorithm) {
+			activatesAt = now.plus(overlap);
+		} else if (!newest.retiresAt().isAfter(now.plus(overlap))) {
+			activatesAt = newest.retiresAt().isAfter(now) ? newest.retiresAt() : now;
+		} else {
+			return null;
+		}
+		if (newest != null && newest.algorithm() != algorithm && newest.activatesAt().isAfter(now)) {
+			return null;
+		}
+		return create(activatesAt);
+	}
+
+	/**
+	 * No key in the ring verifies the token's kid right now. Unlike a bad signature this can change,
+	 * e.g. while this instance has not yet loaded a key another instance just created.
+	 */
+	public static class UnknownKeyException extends JwtException {
+
+		UnknownKeyException(String kid) {
+			super("No verification key for kid " + kid);
+		}
+	}
+
+	private SigningKey create(Instant activatesAt) {
+		var pair = algorithm.generateKeyPair();
+		String kid = Jwks.builder().key(pair.getPublic()).idFromThumbprint().build().getId();
+		var retiresAt = activatesAt.plus(Duration.ofHours(rotationPeriodHours));
+		var expiresAt = retiresAt.plus(Duration.ofMinutes(refreshLife + rotationOverlapMinutes));
+		return new SigningKey(kid, algorithm, pair.getPrivate(), pair.getPublic(), activatesAt, retiresAt, expiresAt);
+	}
+}
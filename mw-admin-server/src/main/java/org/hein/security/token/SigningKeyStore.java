@@ -0,0 +1,134 @@
+package org.hein.security.token;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Shares the asymmetric signing keys between instances through the token_signing_keys table.
+ * Private keys are stored AES-GCM encrypted under a key derived from app.token.secret.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SigningKeyStore {
+
+	private static final int IV_LENGTH = 12;
+	private static final int TAG_BITS = 128;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final SecureRandom random = new SecureRandom();
+
+	@Value("${app.token.secret}")
+	private String secretKeyValue;
+
+	/**
+	 * Run work holding a transaction-scoped advisory lock, so only one instance rotates at a time
+	 */
+	@Transactional
+	public <T> T withRotationLock(Supplier<T> work) {
+		jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtext('token_signing_keys'))", Object.class);
+		return work.get();
+	}
+
+	/**
+	 * Keys that still verify at now, oldest activation first. Keys that cannot be decrypted,
+	 * for example after app.token.secret changed, are skipped.
+	 */
+	public List<SigningKey> findUnexpired(Instant now) {
+		List<SigningKey> keys = new ArrayList<>();
+		jdbcTemplate.query(
+				"SELECT kid, algorithm, public_key, private_key, activates_at, retires_at, expires_at "
+						+ "FROM token_signing_keys WHERE expires_at > ? ORDER BY activates_at, kid",
+				rs -> {
+					try {
+						keys.add(map(rs));
+					} catch (GeneralSecurityException | IllegalArgumentException e) {
+						log.warn("Skipping signing key {} that cannot be decoded: {}", rs.getString("kid"), e.getMessage());
+					}
+				},
+				Timestamp.from(now));
+		return keys;
+	}
+
+	public void insert(SigningKey key) {
+		jdbcTemplate.update(
+				"INSERT INTO token_signing_keys (kid, algorithm, public_key, private_key, activates_at, retires_at, expires_at) "
+						+ "VALUES (?, ?, ?, ?, ?, ?, ?)",
+				key.kid(),
+				key.algorithm().name(),
+				Base64.getEncoder().encodeToString(key.verificationKey().getEncoded()),
+				encrypt(key.signingKey().getEncoded()),
+				Timestamp.from(key.activatesAt()),
+				Timestamp.from(key.retiresAt()),
+				Timestamp.from(key.expiresAt()));
+	}
+
+	public int deleteExpired(Instant now) {
+		return jdbcTemplate.update("DELETE FROM token_signing_keys WHERE expires_at <= ?", Timestamp.from(now));
+	}
+
+	private SigningKey map(ResultSet rs) throws SQLException, GeneralSecurityException {
+		var algorithm = SigningAlgorithm.valueOf(rs.getString("algorithm"));
+		var keyFactory = KeyFactory.getInstance(algorithm.keyFactoryAlgorithm());
+		var publicKey = keyFactory.generatePublic(
+				new X509EncodedKeySpec(Base64.getDecoder().decode(rs.getString("public_key"))));
+		var privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(rs.getString("private_key"))));
+		return new SigningKey(
+				rs.getString("kid"),
+				algorithm,
+				privateKey,
+				publicKey,
+				rs.getTimestamp("activates_at").toInstant(),
+				rs.getTimestamp("retires_at").toInstant(),
+				rs.getTimestamp("expires_at").toInstant());
+	}
+
+	private String encrypt(byte[] plain) {
+		try {
+			byte[] iv = new byte[IV_LENGTH];
+			random.nextBytes(iv);
+			var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+			cipher.init(Cipher.ENCRYPT_MODE, wrappingKey(), new GCMParameterSpec(TAG_BITS, iv));
+			byte[] sealed = cipher.doFinal(plain);
+			return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot encrypt signing key", e);
+		}
+	}
+
+	private byte[] decrypt(String stored) throws GeneralSecurityException {
+		byte[] bytes = Base64.getDecoder().decode(stored);
+		var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.DECRYPT_MODE, wrappingKey(), new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+		return cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+	}
+
+	private SecretKey wrappingKey() throws GeneralSecurityException {
+		byte[] digest = MessageDigest.getInstance("SHA-256").digest(Base64.getDecoder().decode(secretKeyValue));
+		return new SecretKeySpec(digest, "AES");
+	}
+}
@@ -0,0 +1,71 @@
+package org.hein.security.token;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Authentication built from a verified token. Authorities are decoded from the claims only
+ * when something asks for them, so requests that never reach an authority check pay nothing.
+ */
+public final class TokenAuthentication implements Authentication {
+
+	private final String username;
+	private transient Supplier<Collection<GrantedAuthority>> decoder;
+	private Collection<GrantedAuthority> authorities;
+	private boolean authenticated = true;
+
+	public TokenAuthentication(String username, Supplier<Collection<GrantedAuthority>> decoder) {
+		this.username = username;
+		this.decoder = decoder;
+	}
+
+	@Override
+	public synchronized Collection<GrantedAuthority> getAuthorities() {
+		if (authorities == null) {
+			authorities = decoder.get();
+			decoder = null;
+		}
+		return authorities;
+	}
+
+	@Override
+	public Object getCredentials() {
+		return null;
+	}
+
+	@Override
+	public Object getDetails() {
+		return null;
+	}
+
+	@Override
+	public Object getPrincipal() {
+		return username;
+	}
+
+	@Override
+	public String getName() {
+		return username;
+	}
+
+	@Override
+	public boolean isAuthenticated() {
+		return authenticated;
+	}
+
+	@Override
+	public void setAuthenticated(boolean isAuthenticated) {
+		if (isAuthenticated) {
+			throw new IllegalArgumentException("Cannot mark a token authentication as trusted");
+		}
+		this.authenticated = false;
+	}
+
+	@Override
+	public String toString() {
+		return "TokenAuthentication[" + username + "]";
+	}
+}
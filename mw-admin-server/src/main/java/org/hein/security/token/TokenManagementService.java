@@ -0,0 +1,137 @@
+package org.hein.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.hein.api.request.auth.TokenRefreshForm;
+import org.hein.api.request.auth.TokenRequestForm;
+import org.hein.api.request.auth.TokenRevokeForm;
+import org.hein.api.response.auth.TokenResponse;
+import org.hein.audit.AuditLog;
+import org.hein.commons.enum_.TokenType;
+import org.hein.datasource.ReadWriteRoutingDataSource;
+import org.hein.observability.SecurityMetrics;
+import org.hein.security.AppUserDetailsService;
+import org.hein.security.LoginActivityBuffer;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.hein.audit.AuditEventType.*;
+import static org.hein.observability.SecurityMetrics.TokenOperation.*;
+
+@Service
+@RequiredArgsConstructor
+public class TokenManagementService {
+
+	private final AuthenticationManager authenticationManager;
+	private final JwtTokenParser jwtTokenParser;
+	private final JwtTokenGenerator jwtTokenGenerator;
+	private final JtiTokenStore jtiTokenStore;
+	private final AppUserDetailsService userDetailsService;
+	private final SecurityMetrics securityMetrics;
+	private final AuditLog auditLog;
+	private final LoginActivityBuffer loginActivity;
+
+	/**
+	 * Authenticate and issue tokens. Last-login and failed-attempt updates go through the
+	 * {@link LoginActivityBuffer}, so the transaction stays read-only. It still reads the primary:
+	 * a lagging replica could accept a changed password or issue a revoked permission.
+	 */
+	@Transactional(readOnly = true)
+	public TokenResponse generate(TokenRequestForm form, String clientIp) {
+		return ReadWriteRoutingDataSource.onPrimary(() -> authenticate(form, clientIp));
+	}
+
+	/**
+	 * Issue new tokens for the user of a refresh token, with the permissions read from the primary
+	 */
+	@Transactional(readOnly = true)
+	public TokenResponse refresh(TokenRefreshForm form) {
+		return ReadWriteRoutingDataSource.onPrimary(() -> reissue(form));
+	}
+
+	private TokenResponse authenticate(TokenRequestForm form, String clientIp) {
+		long startedAt = System.nanoTime();
+		boolean success = false;
+		try {
+			Authentication usernamePasswordToken = UsernamePasswordAuthenticationToken.unauthenticated(form.username(), form.password());
+			Authentication authentication = authenticationManager.authenticate(usernamePasswordToken);
+
+			SecurityContextHolder.getContext().setAuthentication(authentication);
+
+			TokenResponse response = generateTokens(authentication);
+			success = true;
+			loginActivity.loginSucceeded(authentication.getName(), clientIp);
+			auditLog.recordNow(LOGIN_SUCCEEDED, form.username(), "User", form.username(), null);
+			return response;
+		} catch (AuthenticationException e) {
+			if (e instanceof BadCredentialsException) {
+				loginActivity.loginFailed(form.username());
+			}
+			auditLog.recordNow(LOGIN_FAILED, form.username(), "User", form.username(), e.getClass().getSimpleName());
+			throw e;
+		} finally {
+			securityMetrics.recordTokenOperation(GENERATE, success, startedAt);
+		}
+	}
+
+	private TokenResponse reissue(TokenRefreshForm form) {
+		long startedAt = System.nanoTime();
+		boolean success = false;
+		try {
+			String username = jwtTokenParser.parse(TokenType.Refresh, form.refreshToken()).getName();
+
+			// Reload so the new tokens reflect current permissions and a disabled or locked user is refused
+			var user = userDetailsService.loadUserByUsername(username);
+			Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+
+			jtiTokenStore.revokeTokens(username);
+
+			TokenResponse response = generateTokens(authentication);
+			success = true;
+			auditLog.recordNow(TOKEN_REFRESHED, username, "User", username, null);
+			return response;
+		} finally {
+			securityMetrics.recordTokenOperation(REFRESH, success, startedAt);
+		}
+	}
+
+	/**
+	 * Issue tokens from the authorities already on the authentication, without loading the user again
+	 */
+	private TokenResponse generateTokens(Authentication authentication) {
+		String username = authentication.getName();
+
+		// Generate a new jti for refresh token
+		String accessJti = UUID.randomUUID().toString();
+		String refreshJti = UUID.randomUUID().toString();
+
+		String accessToken = jwtTokenGenerator.generateAccessToken(authentication, accessJti);
+		String refreshToken = jwtTokenGenerator.generateRefreshToken(authentication, refreshJti);
+
+		jtiTokenStore.storeAccessJti(accessJti, username);
+		jtiTokenStore.storeRefreshJti(refreshJti, username);
+
+		return TokenResponse.from(username, accessToken, refreshToken);
+	}
+
+	public void revoke(TokenRevokeForm form) {
+		long startedAt = System.nanoTime();
+		boolean success = false;
+		try {
+			var authentication = jwtTokenParser.parse(TokenType.Refresh, form.refreshToken());
+			var username = authentication.getName();
+			jtiTokenStore.revokeTokens(username);
+			success = true;
+			auditLog.recordNow(TOKEN_REVOKED, username, "User", username, null);
+		} finally {
+			securityMetrics.recordTokenOperation(REVOKE, success, startedAt);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package org.hein.security.token;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hein.commons.enum_.TokenType;
+import org.hein.exceptions.ApiJwtTokenInvalidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cheap checks that run before any signature verification or Redis lookup.
+ * <p>
+ * {@link #checkStructure} rejects anything that cannot be one of our compact JWS tokens by looking at
+ * its characters and segment lengths only. Tokens that did reach the parser and were rejected for a
+ * reason that cannot change (bad signature under a known key, expired, wrong type, superseded jti;
+ * not an unknown kid, which a lagging key ring may still learn) are remembered by
+ * SHA-256 digest in a bounded cache, so replaying them costs one hash and one lookup. The digest
+ * covers the whole token: keying by the signature alone would let a forged payload carrying a
+ * victim's signature get the victim's valid token rejected.
+ */
+@Component
+public class TokenPrecheck {
+
+	private static final AuthenticationException MALFORMED = new ApiJwtTokenInvalidationException("Token is malformed.");
+
+	private record Digest(long high, long low, boolean access) {
+	}
+
+	private final int maxLength;
+	private final Set<Integer> signatureLengths;
+	private final Cache<Digest, AuthenticationException> rejected;
+
+	public TokenPrecheck(@Value("${app.token.precheck.max-length:8192}") int maxLength,
+						 @Value("${app.token.precheck.rejected-cache-size:10000}") long rejectedCacheSize,
+						 @Value("${app.token.precheck.rejected-cache-ttl-seconds:600}") long rejectedCacheTtlSeconds) {
+		this.maxLength = maxLength;
+		this.signatureLengths = Arrays.stream(SigningAlgorithm.values())
+				.map(SigningAlgorithm::encodedSignatureLength)
+				.collect(Collectors.toUnmodifiableSet());
+		this.rejected = Caffeine.newBuilder()
+				.maximumSize(rejectedCacheSize)
+				.expireAfterWrite(Duration.ofSeconds(rejectedCacheTtlSeconds))
+				.build();
+	}
+
+	/**
+	 * Three base64url segments, a JSON object header ("eyJ" is the encoding of '{"') and a signature
+	 * of a length some supported algorithm produces
+	 */
+	public void checkStructure(String token) {
+		int length = token.length();
+		if (length > maxLength || !token.startsWith("eyJ")) {
+			throw MALFORMED;
+		}
+		int firstDot = -1;
+		int secondDot = -1;
+		for (int i = 0; i < length; i++) {
+			char c = token.charAt(i);
+			if (c == '.') {
+				if (firstDot < 0) {
+					firstDot = i;
+				} else if (secondDot < 0) {
+					secondDot = i;
+				} else {
+					throw MALFORMED;
+				}
+			} else if (!isBase64Url(c)) {
+				throw MALFORMED;
+			}
+		}
+		if (secondDot < 0 || secondDot == firstDot + 1 || !signatureLengths.contains(length - secondDot - 1)) {
+			throw MALFORMED;
+		}
+	}
+
+	/**
+	 * The rejection previously recorded for this token, or null
+	 */
+	public AuthenticationException knownRejection(TokenType expectedType, String token) {
+		return rejected.getIfPresent(digest(expectedType, token));
+	}
+
+	public void remember(TokenType expectedType, String token, AuthenticationException rejection) {
+		rejected.put(digest(expectedType, token), rejection);
+	}
+
+	private static boolean isBase64Url(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+	}
+
+	private static Digest digest(TokenType expectedType, String token) {
+		try {
+			ByteBuffer hash = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+			return new Digest(hash.getLong(), hash.getLong(), expectedType == TokenType.Access);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package org.hein.service;
+
+import org.hein.api.request.authz.DecisionBatchRequest;
+import org.hein.api.request.authz.ImpactSimulationRequest;
+import org.hein.api.response.authz.DecisionBatchResponse;
+import org.hein.authz.ImpactSimulator;
+import org.hein.rbac.RbacUpdate;
+
+/**
+ * Service answering authorization checks for other services from the in-memory permission snapshot
+ */
+public interface AuthorizationDecisionService {
+
+    /**
+     * Decide every check of the batch without database access. Policies are evaluated with the
+     * checked subject and the current time only, so conditions on request attributes deny.
+     */
+    DecisionBatchResponse decide(DecisionBatchRequest request);
+
+    /**
+     * RBAC changes since the given version for clients that replicate the state, 0 for the full state
+     */
+    RbacUpdate replicate(long sinceVersion);
+
+    /**
+     * Validate proposed role changes against the current state; the result is run to compute per-user impact
+     */
+    ImpactSimulator.Simulation simulate(ImpactSimulationRequest request);
+}
@@ -1,6 +1,7 @@
 package org.hein.service;
 
 import org.hein.api.request.permission.PermissionCreateRequest;
+import org.hein.api.response.permission.PermissionHoldersResponse;
 import org.hein.api.response.permission.PermissionResponse;
 
 import java.util.List;
@@ -44,5 +45,9 @@ public interface PermissionService {
      * Find permissions that require approval
      */
     List<PermissionResponse> findRequiresApproval();
+    
+    /**
+     * One page of the roles and users that effectively hold a permission, in username order
+     */
+    PermissionHoldersResponse findHolders(Long id, String after, int size);
 }
-
@@ -0,0 +1,28 @@
+package org.hein.service;
+
+import org.hein.api.response.authz.RbacChangesResponse;
+import org.hein.rbac.RbacState;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service exposing the versioned RBAC change feed: full snapshots, changes since a revision
+ * and a push stream of new revisions
+ */
+public interface RbacChangeFeedService {
+
+    /**
+     * The full RBAC state, versioned with its revision
+     */
+    RbacState snapshot();
+
+    /**
+     * Changes after the given revision, at most maxRevisions revisions per call; larger values than
+     * app.rbac.change-feed.max-revisions are rejected
+     */
+    RbacChangesResponse changesSince(long revision, int maxRevisions);
+
+    /**
+     * Open a server-sent event stream of new revisions
+     */
+    SseEmitter subscribe();
+}
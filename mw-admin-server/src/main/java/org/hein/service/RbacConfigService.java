@@ -0,0 +1,32 @@
+package org.hein.service;
+
+import org.hein.rbacconfig.RbacConfigDiff;
+import org.hein.rbacconfig.RbacConfigSnapshot;
+
+/**
+ * Service promoting feature, permission and role configuration between environments as snapshots
+ */
+public interface RbacConfigService {
+
+    /**
+     * The current configuration, read consistently at one revision
+     */
+    RbacConfigSnapshot export();
+
+    /**
+     * The changes that applying the snapshot would make, without making them
+     *
+     * @param prune also delete entries the snapshot does not list
+     */
+    RbacConfigDiff diff(RbacConfigSnapshot snapshot, boolean prune);
+
+    /**
+     * Make the changes in one transaction and publish one invalidation for all of them
+     *
+     * @param prune        also delete entries the snapshot does not list
+     * @param baseRevision if given, fail unless the configuration is still at this revision,
+     *                     as when it was diffed
+     * @return the changes made
+     */
+    RbacConfigDiff apply(RbacConfigSnapshot snapshot, boolean prune, Long baseRevision);
+}
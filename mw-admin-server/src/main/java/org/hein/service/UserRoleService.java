@@ -0,0 +1,113 @@
+package org.hein.service;
+
+import org.hein.api.request.userrole.ApprovalDecisionRequest;
+import org.hein.api.request.userrole.UserRoleAssignmentRequest;
+import org.hein.api.request.userrole.UserRoleBulkRequest;
+import org.hein.api.response.userrole.PendingApprovalResponse;
+import org.hein.api.response.userrole.UserRoleBatchResponse;
+import org.hein.api.response.userrole.UserRoleHistoryResponse;
+import org.hein.api.response.userrole.UserRoleResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service for managing user role assignments with validity periods and approval workflow
+ */
+public interface UserRoleService {
+
+    /**
+     * Assign a role to a user
+     */
+    UserRoleResponse assignRole(UserRoleAssignmentRequest request);
+    
+    /**
+     * Remove a role from a user
+     */
+    void removeRole(Long userId, Long roleId);
+    
+    /**
+     * Get all role assignments for a user
+     */
+    List<UserRoleResponse> findByUserId(Long userId);
+    
+    /**
+     * Get all users assigned to a role
+     */
+    List<UserRoleResponse> findByRoleId(Long roleId);
+    
+    /**
+     * Approve a role assignment
+     */
+    UserRoleResponse approveAssignment(Long userRoleId, String approverNotes);
+    
+    /**
+     * Reject a role assignment
+     */
+    UserRoleResponse rejectAssignment(Long userRoleId, String rejectionReason);
+    
+    /**
+     * One page of the role assignments that require approval, in queue order after the given id
+     */
+    List<PendingApprovalResponse> findPendingApprovals(Long afterId, int size);
+    
+    /**
+     * Lease the next unclaimed pending assignments to the current user
+     */
+    List<PendingApprovalResponse> claimPendingApprovals(int limit);
+    
+    /**
+     * Return claimed assignments to the queue
+     */
+    int releaseClaims(List<Long> userRoleIds);
+    
+    /**
+     * Approve the assignments of the batch the current user holds a live claim on
+     */
+    UserRoleBatchResponse approveClaimed(ApprovalDecisionRequest request);
+    
+    /**
+     * Reject the assignments of the batch the current user holds a live claim on
+     */
+    UserRoleBatchResponse rejectClaimed(ApprovalDecisionRequest request);
+    
+    /**
+     * One page of archived role assignments, newest first, optionally of one user or role
+     */
+    List<UserRoleHistoryResponse> findHistory(Long userId, Long roleId, Long beforeId, int size);
+    
+    /**
+     * Find role assignments that will expire within a specified number of days
+     */
+    List<UserRoleResponse> findExpiringAssignments(Integer days);
+    
+    /**
+     * Extend the validity period of a role assignment
+     */
+    UserRoleResponse extendValidity(Long userRoleId, LocalDateTime newExpiryDate);
+    
+    /**
+     * Revoke a role assignment immediately (before expiry date)
+     */
+    void revokeAssignment(Long userRoleId, String revocationReason);
+    
+    /**
+     * Approve every pending assignment selected by the request
+     */
+    UserRoleBatchResponse bulkApprove(UserRoleBulkRequest request);
+    
+    /**
+     * Reject every pending assignment selected by the request
+     */
+    UserRoleBatchResponse bulkReject(UserRoleBulkRequest request);
+    
+    /**
+     * Revoke every assignment selected by the request that is not revoked yet
+     */
+    UserRoleBatchResponse bulkRevoke(UserRoleBulkRequest request);
+    
+    /**
+     * Move the expiry of every selected assignment that ends before the new date to the new date
+     */
+    UserRoleBatchResponse bulkExtend(UserRoleBulkRequest request);
+}
@@ -0,0 +1,79 @@
+package org.hein.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hein.api.request.authz.DecisionBatchRequest;
+import org.hein.api.request.authz.ImpactSimulationRequest;
+import org.hein.api.response.authz.DecisionBatchResponse;
+import org.hein.authz.ImpactSimulator;
+import org.hein.authz.PermissionSnapshotHolder;
+import org.hein.rbac.PermissionSnapshot;
+import org.hein.rbac.RbacUpdate;
+import org.hein.service.AuthorizationDecisionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class AuthorizationDecisionServiceImpl implements AuthorizationDecisionService {
+
+    private final PermissionSnapshotHolder snapshotHolder;
+    private final ImpactSimulator impactSimulator;
+    private final int maxBatchSize;
+
+    private final DistributionSummary batchSizes;
+    private final Counter granted;
+    private final Counter denied;
+
+    public AuthorizationDecisionServiceImpl(PermissionSnapshotHolder snapshotHolder,
+                                            ImpactSimulator impactSimulator,
+                                            @Value("${app.decision.max-batch-size:10000}") int maxBatchSize,
+                                            MeterRegistry registry) {
+        this.snapshotHolder = snapshotHolder;
+        this.impactSimulator = impactSimulator;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("authz.decision.batch.size").register(registry);
+        this.granted = Counter.builder("authz.decisions").tag("decision", "granted").register(registry);
+        this.denied = Counter.builder("authz.decisions").tag("decision", "denied").register(registry);
+    }
+
+    @Override
+    public DecisionBatchResponse decide(DecisionBatchRequest request) {
+        int size = request.checks().size();
+        if (size > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " checks are allowed per request, got " + size);
+        }
+
+        PermissionSnapshot snapshot = snapshotHolder.current();
+        boolean[] decisions = snapshot.decide(request.checks(),
+                DecisionBatchRequest.Check::subject,
+                DecisionBatchRequest.Check::permission,
+                System.currentTimeMillis());
+
+        int grantedCount = 0;
+        for (boolean decision : decisions) {
+            if (decision) {
+                grantedCount++;
+            }
+        }
+        batchSizes.record(size);
+        granted.increment(grantedCount);
+        denied.increment(size - grantedCount);
+
+        return new DecisionBatchResponse(snapshot.version(), snapshot.builtAt(), decisions);
+    }
+
+    @Override
+    public RbacUpdate replicate(long sinceVersion) {
+        return snapshotHolder.since(sinceVersion);
+    }
+
+    @Override
+    public ImpactSimulator.Simulation simulate(ImpactSimulationRequest request) {
+        if (request.changes().size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " changes are allowed per simulation, got " + request.changes().size());
+        }
+        return impactSimulator.prepare(snapshotHolder.currentState(),
+                request.changes().stream().map(ImpactSimulationRequest.Change::toRoleChange).toList());
+    }
+}
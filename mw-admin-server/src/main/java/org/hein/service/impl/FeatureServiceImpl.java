@@ -4,10 +4,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hein.api.request.feature.FeatureCreateRequest;
 import org.hein.api.response.feature.FeatureResponse;
+import org.hein.cache.InvalidationOutbox;
 import org.hein.entity.Feature;
 import org.hein.repository.FeatureRepository;
 import org.hein.service.FeatureService;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,10 +24,10 @@ import jakarta.persistence.EntityNotFoundException;
 public class FeatureServiceImpl implements FeatureService {
 
     private final FeatureRepository featureRepository;
+    private final InvalidationOutbox invalidationOutbox;
     
     @Override
     @Transactional
-    @CacheEvict(value = "features", allEntries = true)
     public FeatureResponse create(FeatureCreateRequest request) {
         Feature feature = new Feature();
         feature.setName(request.name());
@@ -45,12 +45,13 @@ public class FeatureServiceImpl implements FeatureService {
         }
         
         Feature savedFeature = featureRepository.save(feature);
+        invalidationOutbox.featureChanged(savedFeature.getId());
+        invalidationOutbox.featureChanged(request.parentId());
         return FeatureResponse.fromEntity(savedFeature, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "features", allEntries = true)
     public FeatureResponse update(Long id, FeatureCreateRequest request) {
         Feature feature = featureRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Feature not found: " + id));
@@ -67,6 +68,8 @@ public class FeatureServiceImpl implements FeatureService {
             throw new IllegalArgumentException("Feature cannot be its own parent");
         }
         
+        Long previousParentId = feature.getParent() != null ? feature.getParent().getId() : null;
+        
         // Update parent if provided and different from current
         if (request.parentId() != null) {
             Feature parent = featureRepository.findById(request.parentId())
@@ -84,12 +87,14 @@ public class FeatureServiceImpl implements FeatureService {
         }
         
         Feature updatedFeature = featureRepository.save(feature);
+        invalidationOutbox.featureChanged(id);
+        invalidationOutbox.featureChanged(previousParentId);
+        invalidationOutbox.featureChanged(request.parentId());
         return FeatureResponse.fromEntity(updatedFeature, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "features", allEntries = true)
     public void deleteById(Long id) {
         Feature feature = featureRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Feature not found: " + id));
@@ -104,24 +109,27 @@ public class FeatureServiceImpl implements FeatureService {
             throw new IllegalStateException("Cannot delete feature with permissions. Remove permissions first.");
         }
         
+        Long parentId = feature.getParent() != null ? feature.getParent().getId() : null;
         featureRepository.delete(feature);
+        invalidationOutbox.featureChanged(id);
+        invalidationOutbox.featureChanged(parentId);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "features", allEntries = true)
     public FeatureResponse toggleStatus(Long id) {
         Feature feature = featureRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Feature not found: " + id));
         
         feature.setEnabled(!feature.isEnabled());
         Feature updatedFeature = featureRepository.save(feature);
+        invalidationOutbox.featureChanged(id);
         
         return FeatureResponse.fromEntity(updatedFeature, false);
     }
 
     @Override
-    @Cacheable(value = "features", key = "#id + '-' + #includeChildren")
+    @Cacheable(value = "features", key = "#id + '-' + #includeChildren", sync = true)
     public FeatureResponse findById(Long id, boolean includeChildren) {
         Feature feature = featureRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Feature not found: " + id));
@@ -130,7 +138,7 @@ public class FeatureServiceImpl implements FeatureService {
     }
 
     @Override
-    @Cacheable(value = "features", key = "'all-' + #topLevelOnly + '-' + #includeChildren")
+    @Cacheable(value = "features", key = "'all-' + #topLevelOnly + '-' + #includeChildren", sync = true)
     public List<FeatureResponse> findAll(boolean topLevelOnly, boolean includeChildren) {
         List<Feature> features;
         
@@ -146,7 +154,7 @@ public class FeatureServiceImpl implements FeatureService {
     }
 
     @Override
-    @Cacheable(value = "features", key = "'children-' + #id")
+    @Cacheable(value = "features", key = "'children-' + #id", sync = true)
     public List<FeatureResponse> findChildren(Long id) {
         Feature feature = featureRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Feature not found: " + id));
@@ -158,7 +166,6 @@ public class FeatureServiceImpl implements FeatureService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "features", allEntries = true)
     public FeatureResponse moveToParent(Long id, Long parentId) {
         Feature feature = featureRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Feature not found: " + id));
@@ -175,15 +182,18 @@ public class FeatureServiceImpl implements FeatureService {
             throw new IllegalArgumentException("Circular reference detected in feature hierarchy");
         }
         
+        Long previousParentId = feature.getParent() != null ? feature.getParent().getId() : null;
         feature.setParent(parent);
         Feature updatedFeature = featureRepository.save(feature);
+        invalidationOutbox.featureChanged(id);
+        invalidationOutbox.featureChanged(previousParentId);
+        invalidationOutbox.featureChanged(parentId);
         
         return FeatureResponse.fromEntity(updatedFeature, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "features", allEntries = true)
     public FeatureResponse removeParent(Long id) {
         Feature feature = featureRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Feature not found: " + id));
@@ -192,8 +202,11 @@ public class FeatureServiceImpl implements FeatureService {
             return FeatureResponse.fromEntity(feature, false);
         }
         
+        Long previousParentId = feature.getParent().getId();
         feature.setParent(null);
         Feature updatedFeature = featureRepository.save(feature);
+        invalidationOutbox.featureChanged(id);
+        invalidationOutbox.featureChanged(previousParentId);
         
         return FeatureResponse.fromEntity(updatedFeature, false);
     }
@@ -3,14 +3,20 @@ package org.hein.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hein.api.request.permission.PermissionCreateRequest;
+import org.hein.api.response.permission.PermissionHoldersResponse;
 import org.hein.api.response.permission.PermissionResponse;
-import org.hein.entity.Action;
+import org.hein.audit.AuditEventType;
+import org.hein.audit.AuditLog;
+import org.hein.authz.PermissionHolderIndex;
+import org.hein.authz.PermissionSnapshotHolder;
+import org.hein.cache.InvalidationOutbox;
 import org.hein.entity.Feature;
 import org.hein.entity.Permission;
+import org.hein.policy.PolicyEngine;
+import org.hein.rbac.Action;
 import org.hein.repository.FeatureRepository;
 import org.hein.repository.PermissionRepository;
 import org.hein.service.PermissionService;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,12 +31,18 @@ import jakarta.persistence.EntityNotFoundException;
 @RequiredArgsConstructor
 public class PermissionServiceImpl implements PermissionService {
 
+    private static final int MAX_HOLDERS_PAGE = 1000;
+
     private final PermissionRepository permissionRepository;
     private final FeatureRepository featureRepository;
+    private final AuditLog auditLog;
+    private final InvalidationOutbox invalidationOutbox;
+    private final PolicyEngine policyEngine;
+    private final PermissionSnapshotHolder snapshotHolder;
+    private final PermissionHolderIndex holderIndex;
     
     @Override
     @Transactional
-    @CacheEvict(value = "permissions", allEntries = true)
     public PermissionResponse create(PermissionCreateRequest request) {
         // Validate feature exists
         Feature feature = featureRepository.findById(request.featureId())
@@ -42,6 +54,8 @@ public class PermissionServiceImpl implements PermissionService {
             throw new IllegalStateException("Permission already exists for feature " + feature.getName() + " and action " + request.action());
         }
         
+        policyEngine.validate(request.constraintPolicy());
+        
         Permission permission = new Permission();
         permission.setFeature(feature);
         permission.setAction(Action.valueOf(request.action().toUpperCase()));
@@ -50,28 +64,32 @@ public class PermissionServiceImpl implements PermissionService {
         permission.setConstraintPolicy(request.constraintPolicy());
         
         Permission savedPermission = permissionRepository.save(permission);
+        invalidationOutbox.permissionChanged(savedPermission.getId());
+        auditLog.record(AuditEventType.PERMISSION_CREATED, "Permission", savedPermission.getId(), savedPermission.getPermissionName());
         return PermissionResponse.fromEntity(savedPermission);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "permissions", allEntries = true)
     public PermissionResponse update(Long id, PermissionCreateRequest request) {
         Permission permission = permissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Permission not found: " + id));
         
         // Feature and action are immutable, only update description and approval settings
+        policyEngine.validate(request.constraintPolicy());
         permission.setDescription(request.description());
         permission.setRequiresApproval(request.requiresApproval());
         permission.setConstraintPolicy(request.constraintPolicy());
         
         Permission updatedPermission = permissionRepository.save(permission);
+        invalidationOutbox.permissionChanged(id);
+        auditLog.record(AuditEventType.PERMISSION_UPDATED, "Permission", id,
+                "requiresApproval=" + updatedPermission.isRequiresApproval() + " constraintPolicy=" + updatedPermission.getConstraintPolicy());
         return PermissionResponse.fromEntity(updatedPermission);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "permissions", allEntries = true)
     public void deleteById(Long id) {
         Permission permission = permissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Permission not found: " + id));
@@ -82,10 +100,12 @@ public class PermissionServiceImpl implements PermissionService {
         }
         
         permissionRepository.delete(permission);
+        invalidationOutbox.permissionChanged(id);
+        auditLog.record(AuditEventType.PERMISSION_DELETED, "Permission", id, permission.getPermissionName());
     }
 
     @Override
-    @Cacheable(value = "permissions", key = "#id")
+    @Cacheable(value = "permissions", key = "#id", sync = true)
     public PermissionResponse findById(Long id) {
         Permission permission = permissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Permission not found: " + id));
@@ -94,7 +114,7 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = "permissions", key = "'all'")
+    @Cacheable(value = "permissions", key = "'all'", sync = true)
     public List<PermissionResponse> findAll() {
         List<Permission> permissions = permissionRepository.findAll();
         return permissions.stream()
@@ -103,7 +123,7 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = "permissions", key = "'feature-' + #featureId")
+    @Cacheable(value = "permissions", key = "'feature-' + #featureId", sync = true)
     public List<PermissionResponse> findByFeatureId(Long featureId) {
         // Verify feature exists
         if (!featureRepository.existsById(featureId)) {
@@ -117,11 +137,25 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = "permissions", key = "'requires-approval'")
+    @Cacheable(value = "permissions", key = "'requires-approval'", sync = true)
     public List<PermissionResponse> findRequiresApproval() {
         List<Permission> permissions = permissionRepository.findByRequiresApprovalTrue();
         return permissions.stream()
                 .map(PermissionResponse::fromEntity)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public PermissionHoldersResponse findHolders(Long id, String after, int size) {
+        if (size < 1 || size > MAX_HOLDERS_PAGE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_HOLDERS_PAGE);
+        }
+        // Builds the snapshot, and with it the index, if this node has not done so yet
+        snapshotHolder.current();
+        PermissionHolderIndex.Holders holders = holderIndex.holders(id, after, size, System.currentTimeMillis());
+        if (holders == null) {
+            throw new EntityNotFoundException("Permission not found or its feature is disabled: " + id);
+        }
+        return PermissionHoldersResponse.from(holders);
+    }
 }
@@ -0,0 +1,62 @@
+package org.hein.service.impl;
+
+import org.hein.api.response.authz.RbacChangesResponse;
+import org.hein.authz.PermissionSnapshotHolder;
+import org.hein.authz.RbacChangeLog;
+import org.hein.authz.RbacChangeStream;
+import org.hein.rbac.RbacState;
+import org.hein.service.RbacChangeFeedService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@Service
+public class RbacChangeFeedServiceImpl implements RbacChangeFeedService {
+
+    private final PermissionSnapshotHolder snapshotHolder;
+    private final RbacChangeLog changeLog;
+    private final RbacChangeStream changeStream;
+    private final int maxRevisions;
+
+    public RbacChangeFeedServiceImpl(PermissionSnapshotHolder snapshotHolder,
+                                     RbacChangeLog changeLog,
+                                     RbacChangeStream changeStream,
+                                     @Value("${app.rbac.change-feed.max-revisions:5000}") int maxRevisions) {
+        this.snapshotHolder = snapshotHolder;
+        this.changeLog = changeLog;
+        this.changeStream = changeStream;
+        this.maxRevisions = maxRevisions;
+    }
+
+    @Override
+    public RbacState snapshot() {
+        return snapshotHolder.currentState();
+    }
+
+    @Override
+    public RbacChangesResponse changesSince(long revision, int maxRevisions) {
+        if (maxRevisions < 1 || maxRevisions > this.maxRevisions) {
+            throw new IllegalArgumentException("maxRevisions must be between 1 and " + this.maxRevisions + ", got " + maxRevisions);
+        }
+        long current = changeLog.current();
+        if (revision >= current) {
+            return new RbacChangesResponse(current, current, false, false, List.of());
+        }
+
+        // The log is contiguous from its oldest revision, so anything before that was purged
+        Long oldest = changeLog.oldest();
+        if (oldest == null || revision < oldest - 1) {
+            return new RbacChangesResponse(current, current, false, true, List.of());
+        }
+
+        long to = Math.min(current, revision + maxRevisions);
+        return new RbacChangesResponse(to, current, to < current, false, changeLog.between(revision, to));
+    }
+
+    @Override
+    public SseEmitter subscribe() {
+        return changeStream.subscribe(changeLog.current());
+    }
+}
@@ -0,0 +1,139 @@
+package org.hein.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.hein.audit.AuditLog;
+import org.hein.authz.RbacChangeLog;
+import org.hein.cache.InvalidationEvent;
+import org.hein.cache.InvalidationOutbox;
+import org.hein.cache.InvalidationType;
+import org.hein.policy.PolicyEngine;
+import org.hein.rbacconfig.RbacConfigDiff;
+import org.hein.rbacconfig.RbacConfigSnapshot;
+import org.hein.rbacconfig.RbacConfigStore;
+import org.hein.service.RbacConfigService;
+import org.hein.utils.AuditorAwareBean;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hein.audit.AuditEventType.RBAC_CONFIG_APPLIED;
+
+@Service
+@RequiredArgsConstructor
+public class RbacConfigServiceImpl implements RbacConfigService {
+
+    private final RbacConfigStore configStore;
+    private final RbacChangeLog changeLog;
+    private final InvalidationOutbox invalidationOutbox;
+    private final PolicyEngine policyEngine;
+    private final AuditLog auditLog;
+    private final AuditorAwareBean auditorAware;
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public RbacConfigSnapshot export() {
+        return configStore.load(changeLog.current()).snapshot();
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public RbacConfigDiff diff(RbacConfigSnapshot snapshot, boolean prune) {
+        return diff(configStore.load(changeLog.current()), snapshot, prune);
+    }
+
+    @Override
+    @Transactional
+    public RbacConfigDiff apply(RbacConfigSnapshot snapshot, boolean prune, Long baseRevision) {
+        long revision = changeLog.lock();
+        if (baseRevision != null && baseRevision != revision) {
+            throw new IllegalStateException("RBAC configuration changed since revision " + baseRevision
+                    + ", it is now at revision " + revision);
+        }
+        RbacConfigStore.Loaded current = configStore.load(revision);
+        RbacConfigDiff diff = diff(current, snapshot, prune);
+        if (diff.isEmpty()) {
+            return diff;
+        }
+
+        configStore.apply(current, diff, snapshot, auditorAware.getCurrentAuditor().orElse("System"));
+        invalidationOutbox.aggregatesChanged(invalidations(current, diff, snapshot, configStore.ids()));
+        auditLog.record(RBAC_CONFIG_APPLIED, "RbacConfig", revision, String.format(
+                "features=%d permissions=%d roles=%d grantsAdded=%d grantsRemoved=%d prune=%s",
+                diff.features().size(), diff.permissions().size(), diff.roles().size(),
+                diff.grantsAdded().size(), diff.grantsRemoved().size(), prune));
+        return diff;
+    }
+
+    private RbacConfigDiff diff(RbacConfigStore.Loaded current, RbacConfigSnapshot snapshot, boolean prune) {
+        RbacConfigDiff diff = RbacConfigDiff.between(current.snapshot(), snapshot, prune);
+        Map<String, RbacConfigSnapshot.Permission> permissions = snapshot.permissions().stream()
+                .collect(Collectors.toMap(RbacConfigSnapshot.Permission::name, Function.identity()));
+        diff.permissions().stream()
+                .filter(change -> change.op() != RbacConfigDiff.Op.DELETE)
+                .forEach(change -> policyEngine.validate(permissions.get(change.key()).constraintPolicy()));
+        return diff;
+    }
+
+    /**
+     * Every changed entry, the old and new parents of moved ones as their create and update endpoints
+     * do, the roles whose grants changed and the permissions deleted along with their feature
+     */
+    private static Set<InvalidationEvent> invalidations(RbacConfigStore.Loaded current, RbacConfigDiff diff,
+                                                        RbacConfigSnapshot target, RbacConfigStore.Ids after) {
+        RbacConfigStore.Ids before = current.ids();
+        Map<String, RbacConfigSnapshot.Feature> oldFeatures = byKey(current.snapshot().features(), RbacConfigSnapshot.Feature::code);
+        Map<String, RbacConfigSnapshot.Feature> newFeatures = byKey(target.features(), RbacConfigSnapshot.Feature::code);
+        Map<String, RbacConfigSnapshot.Role> oldRoles = byKey(current.snapshot().roles(), RbacConfigSnapshot.Role::code);
+        Map<String, RbacConfigSnapshot.Role> newRoles = byKey(target.roles(), RbacConfigSnapshot.Role::code);
+
+        Set<InvalidationEvent> events = new LinkedHashSet<>();
+        for (RbacConfigDiff.Change change : diff.features()) {
+            add(events, InvalidationType.FEATURE, before.features(), after.features(), change.key());
+            RbacConfigSnapshot.Feature old = oldFeatures.get(change.key());
+            RbacConfigSnapshot.Feature updated = newFeatures.get(change.key());
+            add(events, InvalidationType.FEATURE, before.features(), after.features(), old == null ? null : old.parent());
+            add(events, InvalidationType.FEATURE, before.features(), after.features(), updated == null ? null : updated.parent());
+        }
+        Set<String> deletedFeatures = Set.copyOf(RbacConfigDiff.keys(diff.features(), RbacConfigDiff.Op.DELETE));
+        for (RbacConfigSnapshot.Permission permission : current.snapshot().permissions()) {
+            if (deletedFeatures.contains(permission.feature())) {
+                add(events, InvalidationType.PERMISSION, before.permissions(), after.permissions(), permission.name());
+            }
+        }
+        for (RbacConfigDiff.Change change : diff.permissions()) {
+            add(events, InvalidationType.PERMISSION, before.permissions(), after.permissions(), change.key());
+        }
+        for (RbacConfigDiff.Change change : diff.roles()) {
+            add(events, InvalidationType.ROLE, before.roles(), after.roles(), change.key());
+            RbacConfigSnapshot.Role old = oldRoles.get(change.key());
+            RbacConfigSnapshot.Role updated = newRoles.get(change.key());
+            add(events, InvalidationType.ROLE, before.roles(), after.roles(), old == null ? null : old.parent());
+            add(events, InvalidationType.ROLE, before.roles(), after.roles(), updated == null ? null : updated.parent());
+        }
+        diff.grantsAdded().forEach(grant -> add(events, InvalidationType.ROLE, before.roles(), after.roles(), grant.role()));
+        diff.grantsRemoved().forEach(grant -> add(events, InvalidationType.ROLE, before.roles(), after.roles(), grant.role()));
+        return events;
+    }
+
+    private static void add(Set<InvalidationEvent> events, InvalidationType type,
+                            Map<String, Long> before, Map<String, Long> after, String key) {
+        if (key == null) {
+            return;
+        }
+        Long id = after.containsKey(key) ? after.get(key) : before.get(key);
+        if (id != null) {
+            events.add(InvalidationEvent.of(type, id));
+        }
+    }
+
+    private static <T> Map<String, T> byKey(List<T> entries, Function<T, String> key) {
+        return entries.stream().collect(Collectors.toMap(key, Function.identity()));
+    }
+}
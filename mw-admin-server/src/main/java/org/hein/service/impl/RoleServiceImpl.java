@@ -4,12 +4,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hein.api.request.role.RoleCreateRequest;
 import org.hein.api.response.role.RoleResponse;
+import org.hein.audit.AuditEventType;
+import org.hein.audit.AuditLog;
+import org.hein.cache.InvalidationOutbox;
 import org.hein.entity.Permission;
 import org.hein.entity.Role;
 import org.hein.repository.PermissionRepository;
 import org.hein.repository.RoleRepository;
 import org.hein.service.RoleService;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,10 +32,11 @@ public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
+    private final AuditLog auditLog;
+    private final InvalidationOutbox invalidationOutbox;
     
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public RoleResponse create(RoleCreateRequest request) {
         // Check if code is already in use
         if (roleRepository.findByCode(request.code()) != null) {
@@ -70,12 +73,13 @@ public class RoleServiceImpl implements RoleService {
         }
         
         Role savedRole = roleRepository.save(role);
+        invalidationOutbox.roleChanged(savedRole.getId());
+        invalidationOutbox.roleChanged(request.parentId());
         return RoleResponse.fromEntity(savedRole, true, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public RoleResponse update(Long id, RoleCreateRequest request) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -99,6 +103,8 @@ public class RoleServiceImpl implements RoleService {
             throw new IllegalArgumentException("Role cannot be its own parent");
         }
         
+        Long previousParentId = role.getParent() != null ? role.getParent().getId() : null;
+        
         // Update parent if provided and different from current
         if (request.parentId() != null) {
             Role parent = roleRepository.findById(request.parentId())
@@ -125,12 +131,14 @@ public class RoleServiceImpl implements RoleService {
         }
         
         Role updatedRole = roleRepository.save(role);
+        invalidationOutbox.roleChanged(id);
+        invalidationOutbox.roleChanged(previousParentId);
+        invalidationOutbox.roleChanged(request.parentId());
         return RoleResponse.fromEntity(updatedRole, true, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public void deleteById(Long id) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -145,11 +153,14 @@ public class RoleServiceImpl implements RoleService {
             throw new IllegalStateException("Cannot delete role that is assigned to users. Remove from users first.");
         }
         
+        Long parentId = role.getParent() != null ? role.getParent().getId() : null;
         roleRepository.delete(role);
+        invalidationOutbox.roleChanged(id);
+        invalidationOutbox.roleChanged(parentId);
     }
 
     @Override
-    @Cacheable(value = "roles", key = "#id + '-' + #includePermissions + '-' + #includeChildRoles")
+    @Cacheable(value = "roles", key = "#id + '-' + #includePermissions + '-' + #includeChildRoles", sync = true)
     public RoleResponse findById(Long id, boolean includePermissions, boolean includeChildRoles) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -158,7 +169,7 @@ public class RoleServiceImpl implements RoleService {
     }
 
     @Override
-    @Cacheable(value = "roles", key = "'all-' + #topLevelOnly + '-' + #includePermissions + '-' + #includeChildRoles")
+    @Cacheable(value = "roles", key = "'all-' + #topLevelOnly + '-' + #includePermissions + '-' + #includeChildRoles", sync = true)
     public List<RoleResponse> findAll(boolean topLevelOnly, boolean includePermissions, boolean includeChildRoles) {
         List<Role> roles;
         
@@ -174,7 +185,7 @@ public class RoleServiceImpl implements RoleService {
     }
 
     @Override
-    @Cacheable(value = "roles", key = "'children-' + #id")
+    @Cacheable(value = "roles", key = "'children-' + #id", sync = true)
     public List<RoleResponse> findChildRoles(Long id) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -186,7 +197,6 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public RoleResponse moveToParent(Long id, Long parentId) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -203,15 +213,18 @@ public class RoleServiceImpl implements RoleService {
             throw new IllegalArgumentException("Circular reference detected in role hierarchy");
         }
         
+        Long previousParentId = role.getParent() != null ? role.getParent().getId() : null;
         role.setParent(parent);
         Role updatedRole = roleRepository.save(role);
+        invalidationOutbox.roleChanged(id);
+        invalidationOutbox.roleChanged(previousParentId);
+        invalidationOutbox.roleChanged(parentId);
         
         return RoleResponse.fromEntity(updatedRole, false, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public RoleResponse removeParent(Long id) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -220,15 +233,17 @@ public class RoleServiceImpl implements RoleService {
             return RoleResponse.fromEntity(role, false, false);
         }
         
+        Long previousParentId = role.getParent().getId();
         role.setParent(null);
         Role updatedRole = roleRepository.save(role);
+        invalidationOutbox.roleChanged(id);
+        invalidationOutbox.roleChanged(previousParentId);
         
         return RoleResponse.fromEntity(updatedRole, false, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public RoleResponse addPermissions(Long id, Set<Long> permissionIds) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -246,13 +261,14 @@ public class RoleServiceImpl implements RoleService {
         
         role.setPermissions(currentPermissions);
         Role updatedRole = roleRepository.save(role);
+        invalidationOutbox.roleChanged(id);
+        auditLog.record(AuditEventType.ROLE_PERMISSIONS_ADDED, "Role", id, "permissions=" + permissionIds);
         
         return RoleResponse.fromEntity(updatedRole, true, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public RoleResponse removePermissions(Long id, Set<Long> permissionIds) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -262,16 +278,19 @@ public class RoleServiceImpl implements RoleService {
             return RoleResponse.fromEntity(role, true, false);
         }
         
-        currentPermissions.removeIf(permission -> permissionIds.contains(permission.getId()));
+        boolean removed = currentPermissions.removeIf(permission -> permissionIds.contains(permission.getId()));
         role.setPermissions(currentPermissions);
         
         Role updatedRole = roleRepository.save(role);
+        invalidationOutbox.roleChanged(id);
+        if (removed) {
+            auditLog.record(AuditEventType.ROLE_PERMISSIONS_REMOVED, "Role", id, "permissions=" + permissionIds);
+        }
         return RoleResponse.fromEntity(updatedRole, true, false);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "roles", allEntries = true)
     public RoleResponse toggleStatus(Long id) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found: " + id));
@@ -280,12 +299,13 @@ public class RoleServiceImpl implements RoleService {
         // since Role doesn't have an explicit enabled property
         role.setDefaultRole(!role.isDefaultRole());
         Role updatedRole = roleRepository.save(role);
+        invalidationOutbox.roleChanged(id);
         
         return RoleResponse.fromEntity(updatedRole, false, false);
     }
 
     @Override
-    @Cacheable(value = "roles", key = "'expiring-' + #days")
+    @Cacheable(value = "roles", key = "'expiring-' + #days", sync = true)
     public List<RoleResponse> findExpiringRoles(Integer days) {
         if (days == null || days < 0) {
             days = 30; // Default to 30 days if not specified or invalid
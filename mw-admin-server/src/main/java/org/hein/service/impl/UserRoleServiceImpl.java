@@ -4,17 +4,30 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hein.api.request.userrole.ApprovalDecisionRequest;
 import org.hein.api.request.userrole.UserRoleAssignmentRequest;
+import org.hein.api.request.userrole.UserRoleBulkRequest;
+import org.hein.api.response.userrole.PendingApprovalResponse;
+import org.hein.api.response.userrole.UserRoleBatchResponse;
+import org.hein.api.response.userrole.UserRoleHistoryResponse;
 import org.hein.api.response.userrole.UserRoleResponse;
+import org.hein.approval.ApprovalQueue;
+import org.hein.approval.UserRoleArchive;
+import org.hein.approval.UserRoleBulkUpdater;
+import org.hein.approval.UserRoleBulkUpdater.Operation;
+import org.hein.audit.AuditEventType;
+import org.hein.audit.AuditLog;
+import org.hein.cache.InvalidationOutbox;
 import org.hein.entity.Role;
 import org.hein.entity.User;
 import org.hein.entity.UserRole;
 import org.hein.entity.UserRoleStatus;
+import org.hein.policy.PolicyEngine;
 import org.hein.repository.RoleRepository;
 import org.hein.repository.UserRepository;
 import org.hein.repository.UserRoleRepository;
 import org.hein.service.UserRoleService;
-import org.springframework.cache.annotation.CacheEvict;
+import org.hein.utils.AuditorAwareBean;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
@@ -22,18 +35,28 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.hein.audit.AuditEventType.*;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserRoleServiceImpl implements UserRoleService {
 
+    private static final int MAX_HISTORY_PAGE = 1000;
+
     private final UserRoleRepository userRoleRepository;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final AuditLog auditLog;
+    private final InvalidationOutbox invalidationOutbox;
+    private final PolicyEngine policyEngine;
+    private final ApprovalQueue approvalQueue;
+    private final UserRoleBulkUpdater bulkUpdater;
+    private final UserRoleArchive archive;
+    private final AuditorAwareBean auditorAware;
     
     @Override
     @Transactional
-    @CacheEvict(value = {"user-roles", "user-permissions"}, allEntries = true)
     public UserRoleResponse assignRole(UserRoleAssignmentRequest request) {
         User user = userRepository.findById(request.userId())
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + request.userId()));
@@ -51,6 +74,7 @@ public class UserRoleServiceImpl implements UserRoleService {
                 request.validFrom().isAfter(request.validTo())) {
             throw new IllegalArgumentException("Valid from date must be before valid to date");
         }
+        policyEngine.validate(request.restrictions());
         
         UserRole userRole = new UserRole();
         userRole.setUser(user);
@@ -64,6 +88,7 @@ public class UserRoleServiceImpl implements UserRoleService {
             userRole.setAssignedBy(assignedBy);
         }
         userRole.setAssignmentReason(request.assignmentReason());
+        userRole.setRestrictions(request.restrictions());
         
         // Determine status based on whether the role's permissions require approval
         boolean requiresApproval = role.getPermissions().stream()
@@ -76,21 +101,27 @@ public class UserRoleServiceImpl implements UserRoleService {
         }
         
         UserRole savedUserRole = userRoleRepository.save(userRole);
+        invalidationOutbox.userChanged(user.getId());
+        auditLog.record(ROLE_ASSIGNED, "UserRole", savedUserRole.getId(),
+                "user=" + user.getId() + " role=" + role.getId() + " status=" + savedUserRole.getStatus());
         return UserRoleResponse.fromEntity(savedUserRole);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"user-roles", "user-permissions"}, allEntries = true)
     public void removeRole(Long userId, Long roleId) {
         UserRole userRole = userRoleRepository.findByUserIdAndRoleId(userId, roleId)
                 .orElseThrow(() -> new EntityNotFoundException("User role assignment not found"));
         
         userRoleRepository.delete(userRole);
+        invalidationOutbox.userChanged(userId);
+        // Tokens carry the removed authorities until they expire
+        invalidationOutbox.revokeTokens(userRole.getUser().getUsername());
+        auditLog.record(ROLE_UNASSIGNED, "UserRole", userRole.getId(), "user=" + userId + " role=" + roleId);
     }
 
     @Override
-    @Cacheable(value = "user-roles", key = "'user-' + #userId")
+    @Cacheable(value = "user-roles", key = "'user-' + #userId", sync = true)
     public List<UserRoleResponse> findByUserId(Long userId) {
         List<UserRole> userRoles = userRoleRepository.findByUserId(userId);
         return userRoles.stream()
@@ -99,7 +130,7 @@ public class UserRoleServiceImpl implements UserRoleService {
     }
 
     @Override
-    @Cacheable(value = "user-roles", key = "'role-' + #roleId")
+    @Cacheable(value = "user-roles", key = "'role-' + #roleId", sync = true)
     public List<UserRoleResponse> findByRoleId(Long roleId) {
         List<UserRole> userRoles = userRoleRepository.findByRoleId(roleId);
         return userRoles.stream()
@@ -109,7 +140,6 @@ public class UserRoleServiceImpl implements UserRoleService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"user-roles", "user-permissions"}, allEntries = true)
     public UserRoleResponse approveAssignment(Long userRoleId, String approverNotes) {
         UserRole userRole = userRoleRepository.findById(userRoleId)
                 .orElseThrow(() -> new EntityNotFoundException("User role assignment not found: " + userRoleId));
@@ -117,18 +147,20 @@ public class UserRoleServiceImpl implements UserRoleService {
         if (userRole.getStatus() != UserRoleStatus.PENDING) {
             throw new IllegalStateException("Cannot approve a role assignment that is not pending");
         }
+        checkNotClaimedByOther(userRole);
         
         userRole.setStatus(UserRoleStatus.ACTIVE);
         userRole.setApprovedAt(LocalDateTime.now());
         userRole.setApproverNotes(approverNotes);
         
         UserRole updatedUserRole = userRoleRepository.save(userRole);
+        invalidationOutbox.userChanged(userRole.getUser().getId());
+        auditLog.record(ROLE_ASSIGNMENT_APPROVED, "UserRole", userRoleId, approverNotes);
         return UserRoleResponse.fromEntity(updatedUserRole);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"user-roles", "user-permissions"}, allEntries = true)
     public UserRoleResponse rejectAssignment(Long userRoleId, String rejectionReason) {
         UserRole userRole = userRoleRepository.findById(userRoleId)
                 .orElseThrow(() -> new EntityNotFoundException("User role assignment not found: " + userRoleId));
@@ -136,25 +168,129 @@ public class UserRoleServiceImpl implements UserRoleService {
         if (userRole.getStatus() != UserRoleStatus.PENDING) {
             throw new IllegalStateException("Cannot reject a role assignment that is not pending");
         }
+        checkNotClaimedByOther(userRole);
         
         // Use the reject helper method on UserRole
         userRole.reject(null, rejectionReason);
         
         UserRole updatedUserRole = userRoleRepository.save(userRole);
+        invalidationOutbox.userChanged(userRole.getUser().getId());
+        auditLog.record(ROLE_ASSIGNMENT_REJECTED, "UserRole", userRoleId, rejectionReason);
         return UserRoleResponse.fromEntity(updatedUserRole);
     }
 
     @Override
-    @Cacheable(value = "user-roles", key = "'pending'")
-    public List<UserRoleResponse> findPendingApprovals() {
-        List<UserRole> pendingRoles = userRoleRepository.findByStatus(UserRoleStatus.PENDING);
-        return pendingRoles.stream()
-                .map(UserRoleResponse::fromEntity)
+    public List<PendingApprovalResponse> findPendingApprovals(Long afterId, int size) {
+        return approvalQueue.list(afterId != null ? afterId : 0L, size).stream()
+                .map(PendingApprovalResponse::from)
                 .collect(Collectors.toList());
     }
 
     @Override
-    @Cacheable(value = "user-roles", key = "'expiring-' + #days")
+    public List<UserRoleHistoryResponse> findHistory(Long userId, Long roleId, Long beforeId, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_HISTORY_PAGE);
+        }
+        return archive.history(userId, roleId, beforeId, size).stream()
+                .map(UserRoleHistoryResponse::from)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<PendingApprovalResponse> claimPendingApprovals(int limit) {
+        return approvalQueue.claim(currentUsername(), limit).stream()
+                .map(PendingApprovalResponse::from)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int releaseClaims(List<Long> userRoleIds) {
+        return approvalQueue.release(currentUsername(), userRoleIds);
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBatchResponse approveClaimed(ApprovalDecisionRequest request) {
+        List<ApprovalQueue.Decided> approved = approvalQueue.approve(currentUsername(), request.ids(), request.notes());
+        return claimedOutcome(ROLE_ASSIGNMENT_APPROVED, request, approved);
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBatchResponse rejectClaimed(ApprovalDecisionRequest request) {
+        List<ApprovalQueue.Decided> rejected = approvalQueue.reject(currentUsername(), request.ids(), request.notes());
+        return claimedOutcome(ROLE_ASSIGNMENT_REJECTED, request, rejected);
+    }
+
+    private UserRoleBatchResponse claimedOutcome(AuditEventType type, ApprovalDecisionRequest request,
+                                                 List<ApprovalQueue.Decided> decided) {
+        List<Long> ids = decided.stream().map(ApprovalQueue.Decided::id).toList();
+        auditLog.recordAll(type, "UserRole", ids, request.notes());
+        invalidationOutbox.usersChanged(decided.stream().map(ApprovalQueue.Decided::userId).collect(Collectors.toSet()));
+        return bulkUpdater.outcome(request.ids(), ids, row -> UserRoleStatus.PENDING.name().equals(row.status())
+                ? "not claimed by you or the claim expired" : "status is " + row.status());
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBatchResponse bulkApprove(UserRoleBulkRequest request) {
+        return bulk(Operation.APPROVE, ROLE_ASSIGNMENT_APPROVED, request, request.reason());
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBatchResponse bulkReject(UserRoleBulkRequest request) {
+        return bulk(Operation.REJECT, ROLE_ASSIGNMENT_REJECTED, request, request.reason());
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBatchResponse bulkRevoke(UserRoleBulkRequest request) {
+        return bulk(Operation.REVOKE, ROLE_ASSIGNMENT_REVOKED, request, request.reason());
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBatchResponse bulkExtend(UserRoleBulkRequest request) {
+        return bulk(Operation.EXTEND, ROLE_ASSIGNMENT_EXTENDED, request, "validTo -> " + request.newExpiryDate());
+    }
+
+    /**
+     * Apply one set-based update, then audit every row and publish one batch of invalidations
+     * for the affected users, all committed together
+     */
+    private UserRoleBatchResponse bulk(Operation operation, AuditEventType auditType, UserRoleBulkRequest request, String detail) {
+        String actor = currentUsername();
+        List<UserRoleBulkUpdater.Updated> updated = bulkUpdater.apply(operation, request.filter(), actor,
+                request.reason(), request.newExpiryDate());
+        List<Long> ids = updated.stream().map(UserRoleBulkUpdater.Updated::id).toList();
+        auditLog.recordAll(auditType, "UserRole", ids, detail);
+        invalidationOutbox.usersChanged(updated.stream().map(UserRoleBulkUpdater.Updated::userId).collect(Collectors.toSet()));
+        if (operation == Operation.REVOKE) {
+            // Tokens carry the revoked authorities until they expire
+            invalidationOutbox.revokeTokens(updated.stream().map(UserRoleBulkUpdater.Updated::username).collect(Collectors.toSet()));
+        }
+        return bulkUpdater.outcome(request.ids(), ids, row -> operation.skipReason(row, actor, request.newExpiryDate()));
+    }
+
+    /**
+     * Single-item decisions must not overtake an approver who is working through a claimed batch
+     */
+    private void checkNotClaimedByOther(UserRole userRole) {
+        if (userRole.getClaimedBy() != null && userRole.getClaimExpiresAt() != null
+                && userRole.getClaimExpiresAt().isAfter(LocalDateTime.now())
+                && !userRole.getClaimedBy().equals(currentUsername())) {
+            throw new IllegalStateException("Role assignment is claimed by " + userRole.getClaimedBy()
+                    + " until " + userRole.getClaimExpiresAt());
+        }
+    }
+
+    private String currentUsername() {
+        return auditorAware.getCurrentAuditor().orElseThrow();
+    }
+
+    @Override
+    @Cacheable(value = "user-roles", key = "'expiring-' + #days", sync = true)
     public List<UserRoleResponse> findExpiringAssignments(Integer days) {
         if (days == null || days < 0) {
             days = 30; // Default to 30 days if not specified or invalid
@@ -170,7 +306,6 @@ public class UserRoleServiceImpl implements UserRoleService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"user-roles", "user-permissions"}, allEntries = true)
     public UserRoleResponse extendValidity(Long userRoleId, LocalDateTime newExpiryDate) {
         UserRole userRole = userRoleRepository.findById(userRoleId)
                 .orElseThrow(() -> new EntityNotFoundException("User role assignment not found: " + userRoleId));
@@ -188,15 +323,17 @@ public class UserRoleServiceImpl implements UserRoleService {
             throw new IllegalArgumentException("New expiry date must be later than the current expiry date");
         }
         
+        LocalDateTime previousExpiryDate = userRole.getValidTo();
         userRole.setValidTo(newExpiryDate);
         UserRole updatedUserRole = userRoleRepository.save(userRole);
+        invalidationOutbox.userChanged(userRole.getUser().getId());
+        auditLog.record(ROLE_ASSIGNMENT_EXTENDED, "UserRole", userRoleId, "validTo=" + previousExpiryDate + " -> " + newExpiryDate);
         
         return UserRoleResponse.fromEntity(updatedUserRole);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"user-roles", "user-permissions"}, allEntries = true)
     public void revokeAssignment(Long userRoleId, String revocationReason) {
         UserRole userRole = userRoleRepository.findById(userRoleId)
                 .orElseThrow(() -> new EntityNotFoundException("User role assignment not found: " + userRoleId));
@@ -209,5 +346,8 @@ public class UserRoleServiceImpl implements UserRoleService {
         userRole.revoke(null, revocationReason);
         
         userRoleRepository.save(userRole);
+        invalidationOutbox.userChanged(userRole.getUser().getId());
+        invalidationOutbox.revokeTokens(userRole.getUser().getUsername());
+        auditLog.record(ROLE_ASSIGNMENT_REVOKED, "UserRole", userRoleId, revocationReason);
     }
 }
@@ -6,6 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.hein.api.request.user.UserCreateRequest;
 import org.hein.api.request.user.UserRequest;
 import org.hein.api.response.user.UserResponse;
+import org.hein.audit.AuditEventType;
+import org.hein.audit.AuditLog;
+import org.hein.cache.InvalidationOutbox;
 import org.hein.entity.Permission;
 import org.hein.entity.Role;
 import org.hein.entity.User;
@@ -15,7 +18,6 @@ import org.hein.repository.PermissionRepository;
 import org.hein.repository.RoleRepository;
 import org.hein.repository.UserRepository;
 import org.hein.service.UserService;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -36,10 +38,11 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AuditLog auditLog;
+    private final InvalidationOutbox invalidationOutbox;
 
     @Override
     @Transactional
-    @CacheEvict(value = {"users", "user-roles"}, allEntries = true)
     public UserResponse create(UserCreateRequest request) {
         // Check if username already exists
         if (userRepository.findByUsername(request.username()).isPresent()) {
@@ -77,12 +80,12 @@ public class UserServiceImpl implements UserService {
 
         // Save again with roles and permissions
         User finalUser = userRepository.save(savedUser);
+        invalidationOutbox.userChanged(finalUser.getId());
         return UserResponse.fromEntity(finalUser);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"users", "user-roles"}, allEntries = true)
     public UserResponse update(Long id, UserRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + id));
@@ -179,11 +182,12 @@ public class UserServiceImpl implements UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        invalidationOutbox.userChanged(id);
         return UserResponse.fromEntity(updatedUser);
     }
 
     @Override
-    @Cacheable(value = "users", key = "#id")
+    @Cacheable(value = "users", key = "#id", sync = true)
     public UserResponse getById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + id));
@@ -191,7 +195,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Cacheable(value = "users", key = "'all'")
+    @Cacheable(value = "users", key = "'all'", sync = true)
     public List<UserResponse> getAll() {
         return userRepository.findAll().stream()
                 .map(UserResponse::fromEntity)
@@ -200,7 +204,6 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"users", "user-roles"}, allEntries = true)
     public void deleteById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + id));
@@ -211,6 +214,8 @@ public class UserServiceImpl implements UserService {
         }
         
         userRepository.delete(user);
+        invalidationOutbox.userChanged(id);
+        invalidationOutbox.revokeTokens(user.getUsername());
     }
 
     @Override
@@ -227,7 +232,6 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"users", "user-roles"}, allEntries = true)
     public UserResponse assignRoles(Long userId, Set<Long> roleIds) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
@@ -243,29 +247,40 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toSet());
         
         // Add only new roles
+        Set<Long> addedRoleIds = new HashSet<>();
         for (Role role : roles) {
             if (!currentRoleIds.contains(role.getId())) {
                 UserRole userRole = new UserRole(user, role);
                 user.getUserRoles().add(userRole);
+                addedRoleIds.add(role.getId());
             }
         }
         
         User updatedUser = userRepository.save(user);
+        invalidationOutbox.userChanged(userId);
+        if (!addedRoleIds.isEmpty()) {
+            auditLog.record(AuditEventType.ROLE_ASSIGNED, "User", userId, "roles=" + addedRoleIds);
+        }
         return UserResponse.fromEntity(updatedUser);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"users", "user-roles"}, allEntries = true)
     public UserResponse removeRoles(Long userId, Set<Long> roleIds) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
         
         // Remove the specified roles
-        user.getUserRoles().removeIf(userRole -> 
+        boolean removed = user.getUserRoles().removeIf(userRole -> 
                 roleIds.contains(userRole.getRole().getId()));
         
         User updatedUser = userRepository.save(user);
+        if (removed) {
+            invalidationOutbox.userChanged(userId);
+            // Tokens carry the removed authorities until they expire
+            invalidationOutbox.revokeTokens(updatedUser.getUsername());
+            auditLog.record(AuditEventType.ROLE_UNASSIGNED, "User", userId, "roles=" + roleIds);
+        }
         return UserResponse.fromEntity(updatedUser);
     }
 
@@ -292,6 +307,7 @@ public class UserServiceImpl implements UserService {
         }
         
         userRepository.save(user);
+        invalidationOutbox.revokeTokens(user.getUsername());
     }
 
     @Override
@@ -308,23 +324,26 @@ public class UserServiceImpl implements UserService {
         user.setPasswordExpiresAt(LocalDateTime.now()); // Expired immediately
         
         userRepository.save(user);
+        invalidationOutbox.revokeTokens(user.getUsername());
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"users", "user-roles"}, allEntries = true)
     public UserResponse setEnabled(Long userId, boolean enabled) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
         
         user.setEnabled(enabled);
         User updatedUser = userRepository.save(user);
+        invalidationOutbox.userChanged(userId);
+        if (!enabled) {
+            invalidationOutbox.revokeTokens(updatedUser.getUsername());
+        }
         return UserResponse.fromEntity(updatedUser);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"users", "user-roles"}, allEntries = true)
     public UserResponse setLocked(Long userId, boolean locked) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
@@ -340,6 +359,10 @@ public class UserServiceImpl implements UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        invalidationOutbox.userChanged(userId);
+        if (locked) {
+            invalidationOutbox.revokeTokens(updatedUser.getUsername());
+        }
         return UserResponse.fromEntity(updatedUser);
     }
 
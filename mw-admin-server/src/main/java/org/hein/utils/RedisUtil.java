@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.CollectionType;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
@@ -18,6 +19,14 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class RedisUtil {
 
+    private static final RedisScript<Long> SET_IF_GREATER = RedisScript.of("""
+            local current = tonumber(redis.call('GET', KEYS[1]))
+            if current ~= nil and current >= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1""", Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
 
@@ -38,6 +47,17 @@ public class RedisUtil {
         return redisTemplate.opsForValue().get(key);
     }
 
+    public List<Object> multiGet(List<String> keys) {
+        return redisTemplate.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * Set a numeric value and its expiration unless the key already holds a value at least as large
+     */
+    public void setIfGreater(String key, long value, long duration, TimeUnit timeUnit) {
+        redisTemplate.execute(SET_IF_GREATER, List.of(key), value, timeUnit.toMillis(duration));
+    }
+
     public boolean delete(String key) {
         return Boolean.TRUE.equals(redisTemplate.delete(key));
     }
@@ -0,0 +1,12 @@
+-- Drop tables in reverse order of dependencies to avoid foreign key constraint errors
+DROP TABLE IF EXISTS user_permissions;
+DROP TABLE IF EXISTS role_permissions;
+DROP TABLE IF EXISTS user_roles_history;
+DROP TABLE IF EXISTS user_roles;
+DROP TABLE IF EXISTS permissions;
+DROP TABLE IF EXISTS features;
+DROP TABLE IF EXISTS roles;
+DROP TABLE IF EXISTS users;
+DROP TABLE IF EXISTS invalidation_outbox;
+DROP TABLE IF EXISTS rbac_change_log;
+DROP TABLE IF EXISTS rbac_revision;
@@ -0,0 +1,301 @@
+-- Every statement is idempotent: reapplying the schema keeps existing tables and data.
+-- schema-reset.sql drops the tables first where a clean database is wanted on every boot.
+
+-- Create users table
+CREATE TABLE IF NOT EXISTS users
+(
+    id                     BIGSERIAL PRIMARY KEY,
+    username               VARCHAR(50)  NOT NULL UNIQUE,
+    first_name             VARCHAR(100) NOT NULL,
+    last_name              VARCHAR(100) NOT NULL,
+    password               VARCHAR(255) NOT NULL,
+    password_changed_at    TIMESTAMP,
+    password_expires_at    TIMESTAMP,
+    password_history_count INTEGER,
+    failed_attempts        INTEGER               DEFAULT 0,
+    locked_until           TIMESTAMP,
+    email                  VARCHAR(100) NOT NULL UNIQUE,
+    mobile_phone           VARCHAR(20),
+    two_factor_enabled     BOOLEAN               DEFAULT FALSE,
+    last_login_at          TIMESTAMP,
+    last_login_ip          VARCHAR(45),
+    enabled                BOOLEAN               DEFAULT TRUE,
+    locked                 BOOLEAN               DEFAULT FALSE,
+    system_account         BOOLEAN               DEFAULT FALSE,
+    created_at             TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by             VARCHAR(50),
+    updated_at             TIMESTAMP,
+    updated_by             VARCHAR(50),
+    version     BIGINT       NOT NULL DEFAULT 0
+);
+
+-- Create features table with hierarchical support
+CREATE TABLE IF NOT EXISTS features
+(
+    id            BIGSERIAL PRIMARY KEY,
+    name          VARCHAR(50) NOT NULL UNIQUE,
+    code          VARCHAR(50) NOT NULL UNIQUE,
+    description   VARCHAR(255),
+    enabled       BOOLEAN              DEFAULT TRUE,
+    display_order INTEGER,
+    icon          VARCHAR(50),
+    parent_id     BIGINT,
+    created_at    TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by    VARCHAR(50),
+    updated_at    TIMESTAMP,
+    updated_by    VARCHAR(50),
+    version     BIGINT       NOT NULL DEFAULT 0,
+    FOREIGN KEY (parent_id) REFERENCES features (id) ON DELETE SET NULL
+);
+
+-- Create roles table with hierarchical support
+CREATE TABLE IF NOT EXISTS roles
+(
+    id           BIGSERIAL PRIMARY KEY,
+    name         VARCHAR(50) NOT NULL UNIQUE,
+    code         VARCHAR(50) NOT NULL UNIQUE,
+    description  VARCHAR(255),
+    priority     INTEGER              DEFAULT 0,
+    system_role  BOOLEAN              DEFAULT FALSE,
+    default_role BOOLEAN              DEFAULT FALSE,
+    parent_id    BIGINT,
+    expiry_date  TIMESTAMP,
+    created_at   TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by   VARCHAR(50),
+    updated_at   TIMESTAMP,
+    updated_by   VARCHAR(50),
+    version     BIGINT       NOT NULL DEFAULT 0,
+    FOREIGN KEY (parent_id) REFERENCES roles (id) ON DELETE SET NULL
+);
+
+-- Create permissions table
+CREATE TABLE IF NOT EXISTS permissions
+(
+    id                BIGSERIAL PRIMARY KEY,
+    feature_id        BIGINT      NOT NULL,
+    action            VARCHAR(50) NOT NULL,
+    description       VARCHAR(255),
+    requires_approval BOOLEAN              DEFAULT FALSE,
+    constraint_policy VARCHAR(1000),
+    created_at        TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by        VARCHAR(50),
+    updated_at        TIMESTAMP,
+    updated_by        VARCHAR(50),
+    version     BIGINT       NOT NULL DEFAULT 0,
+    FOREIGN KEY (feature_id) REFERENCES features (id) ON DELETE CASCADE,
+    UNIQUE (feature_id, action)
+);
+
+-- Create role_permissions table
+CREATE TABLE IF NOT EXISTS role_permissions
+(
+    role_id       BIGINT NOT NULL,
+    permission_id BIGINT NOT NULL,
+    PRIMARY KEY (role_id, permission_id),
+    FOREIGN KEY (role_id) REFERENCES roles (id) ON DELETE CASCADE,
+    FOREIGN KEY (permission_id) REFERENCES permissions (id) ON DELETE CASCADE
+);
+
+-- Create user_roles table
+CREATE TABLE IF NOT EXISTS user_roles
+(
+    id                  BIGSERIAL PRIMARY KEY,
+    user_id             BIGINT      NOT NULL,
+    role_id             BIGINT      NOT NULL,
+    assigned_at         TIMESTAMP   NOT NULL,
+    valid_from          TIMESTAMP,
+    valid_to            TIMESTAMP,
+    assigned_by_id      BIGINT,
+    assignment_reason   VARCHAR(500),
+    status              VARCHAR(20) NOT NULL,
+    approved_by_id      BIGINT,
+    approved_at         TIMESTAMP,
+    active              BOOLEAN              DEFAULT TRUE,
+    inherit_permissions BOOLEAN              DEFAULT TRUE,
+    restrictions        VARCHAR(1000),
+    approver_notes      VARCHAR(500),
+    rejection_reason    VARCHAR(500),
+    rejection_date      TIMESTAMP,
+    revoked_by_id       BIGINT,
+    revocation_date     TIMESTAMP,
+    revocation_reason   VARCHAR(500),
+    claimed_by          VARCHAR(50),
+    claim_expires_at    TIMESTAMP,
+    created_at          TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by          VARCHAR(50),
+    updated_at          TIMESTAMP,
+    updated_by          VARCHAR(50),
+    version     BIGINT       NOT NULL DEFAULT 0,
+    UNIQUE (user_id, role_id),
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    FOREIGN KEY (role_id) REFERENCES roles (id) ON DELETE CASCADE,
+    FOREIGN KEY (assigned_by_id) REFERENCES users (id) ON DELETE SET NULL,
+    FOREIGN KEY (approved_by_id) REFERENCES users (id) ON DELETE SET NULL,
+    FOREIGN KEY (revoked_by_id) REFERENCES users (id) ON DELETE SET NULL
+);
+
+-- Finished role assignments moved out of user_roles by UserRoleArchive. No foreign keys, so the
+-- history outlives deleted users and roles; claim columns and the version are not kept.
+CREATE TABLE IF NOT EXISTS user_roles_history
+(
+    id                  BIGINT PRIMARY KEY,
+    user_id             BIGINT      NOT NULL,
+    role_id             BIGINT      NOT NULL,
+    status              VARCHAR(20) NOT NULL,
+    assigned_at         TIMESTAMP   NOT NULL,
+    valid_from          TIMESTAMP,
+    valid_to            TIMESTAMP,
+    assigned_by_id      BIGINT,
+    assignment_reason   VARCHAR(500),
+    approved_by_id      BIGINT,
+    approved_at         TIMESTAMP,
+    approver_notes      VARCHAR(500),
+    rejection_reason    VARCHAR(500),
+    rejection_date      TIMESTAMP,
+    revoked_by_id       BIGINT,
+    revocation_date     TIMESTAMP,
+    revocation_reason   VARCHAR(500),
+    inherit_permissions BOOLEAN,
+    restrictions        VARCHAR(1000),
+    created_at          TIMESTAMP   NOT NULL,
+    created_by          VARCHAR(50),
+    updated_at          TIMESTAMP,
+    updated_by          VARCHAR(50),
+    archived_at         TIMESTAMP   NOT NULL
+);
+
+-- Create user_permissions table
+CREATE TABLE IF NOT EXISTS user_permissions
+(
+    user_id       BIGINT NOT NULL,
+    permission_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, permission_id),
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    FOREIGN KEY (permission_id) REFERENCES permissions (id) ON DELETE CASCADE
+);
+
+-- Transactional outbox for cache and token invalidation, drained by OutboxRelay
+CREATE TABLE IF NOT EXISTS invalidation_outbox
+(
+    id            BIGSERIAL PRIMARY KEY,
+    event_type    VARCHAR(20) NOT NULL,
+    aggregate_id  BIGINT,
+    aggregate_key VARCHAR(100),
+    created_at    TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Single-row RBAC revision counter. Every transaction that changes users, roles, permissions or
+-- features increments it once; the row lock serializes those writers so revisions commit in order.
+CREATE TABLE IF NOT EXISTS rbac_revision
+(
+    id       SMALLINT PRIMARY KEY CHECK (id = 1),
+    revision BIGINT NOT NULL
+);
+
+-- Aggregates changed at each revision, read by the change feed; purged after app.rbac.change-log.retention-days
+CREATE TABLE IF NOT EXISTS rbac_change_log
+(
+    revision     BIGINT      NOT NULL,
+    event_type   VARCHAR(20) NOT NULL,
+    aggregate_id BIGINT      NOT NULL,
+    changed_at   TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (revision, event_type, aggregate_id)
+);
+
+-- Index plan
+-- Every UNIQUE constraint and PRIMARY KEY above already creates a unique B-tree index, so no extra
+-- index is declared on users.username, users.email, features.code, roles.name, roles.code,
+-- permissions (feature_id, action), role_permissions (role_id, permission_id),
+-- user_roles (user_id, role_id) or user_permissions (user_id, permission_id).
+-- The indexes below are derived from the repository queries that actually run:
+--
+--   FeatureRepository.findByParentIsNull / Feature.children        -> idx_feature_parent_id
+--   RoleRepository.findByParentIsNull / Role.childRoles            -> idx_role_parent_id
+--   RoleRepository.findExpiringRoles                               -> idx_role_expiry_date (partial)
+--   RoleRepository.findByPermissionId / Permission.roles           -> idx_role_permissions_permission_id
+--   UserRoleRepository.findByUserId / User.userRoles               -> user_roles UNIQUE (user_id, role_id) prefix
+--   UserRoleRepository.findActiveRolesByUserId                     -> idx_user_roles_active_user (partial)
+--   UserRoleRepository.findByRoleId / Role.userRoles               -> idx_user_roles_role_id
+--   UserRepository.findByRoleId                                    -> idx_user_roles_active_role (partial)
+--   UserRepository.findAuthorityNames (login, refresh)             -> idx_user_roles_active_user (partial)
+--   UserRoleRepository.findByValidToBefore
+--   UserRepository.findByRoleExpiringBefore                        -> idx_user_roles_active_valid_to (partial)
+--   ApprovalQueue claim / list (PENDING in id order)               -> idx_user_roles_pending (partial)
+--   UserRoleArchive.archive (finished rows in id order)            -> idx_user_roles_finished (partial),
+--                                                                     idx_user_roles_active_valid_to (partial)
+--   UserRoleArchive.history by user / by role, newest first        -> idx_user_roles_history_user, idx_user_roles_history_role
+--   RbacChangeLog.between (revision range)                         -> rbac_change_log PRIMARY KEY prefix
+--   RbacChangeLog.purge (changed_at < ?)                           -> idx_rbac_change_log_changed_at
+--   ON DELETE CASCADE from permissions into user_permissions       -> idx_user_permissions_permission_id
+--
+-- The active-assignment indexes are partial on status = 'ACTIVE' so REVOKED, REJECTED and EXPIRED
+-- rows never enter them, and UserRoleArchive moves those rows to user_roles_history after
+-- app.user-role.archive.after-days, which keeps idx_user_roles_finished small. The boolean columns
+-- users.enabled, users.locked and user_roles.active are left unindexed because no query filters on them.
+-- IndexPlanExplainTest (tag "database") loads this file into a scratch schema and checks the main
+-- rows of the table above with EXPLAIN whenever a database is reachable.
+
+-- Indexes for features
+CREATE INDEX IF NOT EXISTS idx_feature_parent_id ON features (parent_id);
+
+-- Indexes for roles
+CREATE INDEX IF NOT EXISTS idx_role_parent_id ON roles (parent_id);
+CREATE INDEX IF NOT EXISTS idx_role_expiry_date ON roles (expiry_date) WHERE expiry_date IS NOT NULL;
+
+-- Indexes for role_permissions (reverse direction of the primary key)
+CREATE INDEX IF NOT EXISTS idx_role_permissions_permission_id ON role_permissions (permission_id);
+
+-- Indexes for user_roles
+CREATE INDEX IF NOT EXISTS idx_user_roles_role_id ON user_roles (role_id);
+CREATE INDEX IF NOT EXISTS idx_user_roles_active_user ON user_roles (user_id, valid_from, valid_to) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_user_roles_active_role ON user_roles (role_id, user_id, valid_from, valid_to) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_user_roles_active_valid_to ON user_roles (valid_to) WHERE status = 'ACTIVE' AND valid_to IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_user_roles_pending ON user_roles (id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_user_roles_finished ON user_roles (id) WHERE status IN ('REJECTED', 'REVOKED', 'EXPIRED');
+
+-- Indexes for user_roles_history
+CREATE INDEX IF NOT EXISTS idx_user_roles_history_user ON user_roles_history (user_id, id);
+CREATE INDEX IF NOT EXISTS idx_user_roles_history_role ON user_roles_history (role_id, id);
+
+-- Indexes for user_permissions (reverse direction of the primary key)
+CREATE INDEX IF NOT EXISTS idx_user_permissions_permission_id ON user_permissions (permission_id);
+
+-- Indexes for rbac_change_log
+CREATE INDEX IF NOT EXISTS idx_rbac_change_log_changed_at ON rbac_change_log (changed_at);
+
+-- Append-only audit trail, written in batches by AuditWriter.
+-- Not dropped by schema-reset.sql so the trail survives restarts. Monthly partitions (audit_log_yYYYYmMM) are
+-- created by JdbcAuditSink ahead of time; the default partition only catches clock skew.
+-- Retention is handled by detaching or dropping whole monthly partitions.
+CREATE TABLE IF NOT EXISTS audit_log
+(
+    id          BIGSERIAL,
+    occurred_at TIMESTAMPTZ NOT NULL,
+    event_type  VARCHAR(50) NOT NULL,
+    actor       VARCHAR(255),
+    target_type VARCHAR(50),
+    target_id   VARCHAR(100),
+    detail      TEXT,
+    request_id  VARCHAR(64),
+    PRIMARY KEY (id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+
+CREATE TABLE IF NOT EXISTS audit_log_default PARTITION OF audit_log DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_audit_log_target ON audit_log (target_type, target_id, occurred_at);
+CREATE INDEX IF NOT EXISTS idx_audit_log_actor ON audit_log (actor, occurred_at);
+
+-- Asymmetric token signing keys shared by all instances, managed by SigningKeyRing.
+-- Not dropped by schema-reset.sql so issued tokens stay verifiable across restarts; private_key is AES-GCM
+-- encrypted under app.token.secret. Rows are deleted once expires_at has passed.
+CREATE TABLE IF NOT EXISTS token_signing_keys
+(
+    kid          VARCHAR(64) PRIMARY KEY,
+    algorithm    VARCHAR(10) NOT NULL,
+    public_key   TEXT        NOT NULL,
+    private_key  TEXT        NOT NULL,
+    activates_at TIMESTAMPTZ NOT NULL,
+    retires_at   TIMESTAMPTZ NOT NULL,
+    expires_at   TIMESTAMPTZ NOT NULL,
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
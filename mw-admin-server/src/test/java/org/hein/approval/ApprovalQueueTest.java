@@ -0,0 +1,177 @@
+package org.hein.approval;
+
+import org.hein.api.request.userrole.ApprovalDecisionRequest;
+import org.hein.api.response.userrole.UserRoleBatchResponse;
+import org.hein.api.response.userrole.UserRoleBatchResponse.Skipped;
+import org.hein.audit.AuditLog;
+import org.hein.cache.InvalidationOutbox;
+import org.hein.policy.PolicyEngine;
+import org.hein.repository.RoleRepository;
+import org.hein.repository.ScratchSchema;
+import org.hein.repository.UserRepository;
+import org.hein.repository.UserRoleRepository;
+import org.hein.service.impl.UserRoleServiceImpl;
+import org.hein.utils.AuditorAwareBean;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hein.audit.AuditEventType.ROLE_ASSIGNMENT_APPROVED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the approval queue against schema.sql in a scratch schema, with a connection per statement or
+ * transaction so that concurrent approvers really contend for rows. Needs a reachable database
+ * (see {@link ScratchSchema}) and is skipped otherwise.
+ */
+@Tag("database")
+class ApprovalQueueTest {
+
+    private static ScratchSchema schema;
+    private static JdbcTemplate jdbc;
+    private static TransactionTemplate transactions;
+    private static ApprovalQueue queue;
+
+    @BeforeAll
+    static void loadSchema() throws SQLException {
+        schema = ScratchSchema.create("approval_queue", "schema.sql");
+        assumeTrue(schema != null, "No database reachable, approval queue not checked");
+
+        DataSource dataSource = schema.dataSource();
+        jdbc = new JdbcTemplate(dataSource);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        queue = new ApprovalQueue(jdbc, 300, 100);
+        jdbc.execute("""
+                INSERT INTO users (id, username, first_name, last_name, password, email)
+                SELECT g, 'user' || g, 'First', 'Last', 'x', 'user' || g || '@example.com' FROM generate_series(1, 10) g""");
+        jdbc.execute("INSERT INTO roles (id, name, code) VALUES (1, 'Auditor', 'AUDITOR')");
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (schema != null) {
+            schema.close();
+        }
+    }
+
+    @BeforeEach
+    void pendingAssignments() {
+        jdbc.execute("DELETE FROM user_roles");
+        jdbc.execute("""
+                INSERT INTO user_roles (id, user_id, role_id, assigned_at, status)
+                SELECT g, g, 1, CURRENT_TIMESTAMP, 'PENDING' FROM generate_series(1, 10) g""");
+    }
+
+    @Test
+    void batchesAreBounded() {
+        assertThrows(IllegalArgumentException.class, () -> queue.claim("alice", 101));
+        assertThrows(IllegalArgumentException.class, () -> queue.list(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> queue.release("alice", Collections.nCopies(101, 1L)));
+    }
+
+    @Test
+    void concurrentClaimsGetDisjointPages() {
+        // Bob claims on his own connection while Alice's claim is still uncommitted and holds its rows
+        List<List<Long>> pages = transactions.execute(status -> {
+            List<Long> alice = ids(queue.claim("alice", 3));
+            List<Long> bob = CompletableFuture.supplyAsync(() -> ids(queue.claim("bob", 3)))
+                    .orTimeout(10, TimeUnit.SECONDS)
+                    .join();
+            return List.of(alice, bob);
+        });
+
+        assertEquals(List.of(1L, 2L, 3L), pages.get(0));
+        assertEquals(List.of(4L, 5L, 6L), pages.get(1));
+        assertEquals(List.of(7L, 8L, 9L), ids(queue.claim("carol", 3)));
+    }
+
+    @Test
+    void liveLeaseIsNotClaimedAgainButAnExpiredOneIs() {
+        assertEquals(List.of(1L, 2L), ids(queue.claim("alice", 2)));
+        assertEquals(List.of(3L, 4L), ids(queue.claim("bob", 2)));
+
+        jdbc.update("UPDATE user_roles SET claim_expires_at = ? WHERE id = 1",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+
+        assertEquals(List.of(1L, 5L), ids(queue.claim("bob", 2)));
+        assertEquals("bob", jdbc.queryForObject("SELECT claimed_by FROM user_roles WHERE id = 1", String.class));
+    }
+
+    @Test
+    void decisionsOnlyTouchRowsTheCallerStillHolds() {
+        queue.claim("alice", 3);
+        queue.claim("bob", 2);
+        jdbc.update("UPDATE user_roles SET claim_expires_at = ? WHERE id = 3",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+
+        List<Long> approved = ids(transactions.execute(status -> queue.approve("alice", List.of(1L, 3L, 4L, 6L), "ok")));
+        List<Long> rejected = ids(transactions.execute(status -> queue.reject("alice", List.of(1L, 2L, 5L), "no")));
+
+        assertEquals(List.of(1L), approved);
+        assertEquals(List.of(2L), rejected);
+        assertEquals(List.of("ACTIVE", "REJECTED", "PENDING", "PENDING", "PENDING", "PENDING"),
+                jdbc.queryForList("SELECT status FROM user_roles WHERE id <= 6 ORDER BY id", String.class));
+        assertEquals("bob", jdbc.queryForObject("SELECT claimed_by FROM user_roles WHERE id = 4", String.class));
+    }
+
+    @Test
+    void releasedClaimsGoBackToTheQueue() {
+        queue.claim("alice", 2);
+
+        assertEquals(0, queue.release("bob", List.of(1L, 2L)));
+        assertEquals(1, queue.release("alice", List.of(1L)));
+        assertEquals(List.of(1L, 3L), ids(queue.claim("bob", 2)));
+    }
+
+    @Test
+    void batchDecisionReportsRowsWhoseClaimWasLost() {
+        InvalidationOutbox outbox = mock(InvalidationOutbox.class);
+        AuditLog auditLog = mock(AuditLog.class);
+        AuditorAwareBean auditorAware = mock(AuditorAwareBean.class);
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of("alice"));
+        UserRoleServiceImpl service = new UserRoleServiceImpl(mock(UserRoleRepository.class),
+                mock(UserRepository.class), mock(RoleRepository.class), auditLog, outbox, new PolicyEngine(10, 1),
+                queue, new UserRoleBulkUpdater(jdbc, 100), mock(UserRoleArchive.class), auditorAware);
+        queue.claim("alice", 2);
+        queue.claim("bob", 1);
+        jdbc.execute("UPDATE user_roles SET status = 'ACTIVE', claimed_by = NULL, claim_expires_at = NULL WHERE id = 4");
+
+        UserRoleBatchResponse response = transactions.execute(status -> service.approveClaimed(
+                new ApprovalDecisionRequest(List.of(1L, 2L, 3L, 4L, 3L, 99L), "ok")));
+
+        assertEquals(List.of(1L, 2L), response.applied());
+        assertEquals(List.of(
+                new Skipped(3L, "not claimed by you or the claim expired"),
+                new Skipped(4L, "status is ACTIVE"),
+                new Skipped(99L, "not found")), response.skipped());
+        verify(outbox).usersChanged(Set.of(1L, 2L));
+        verify(auditLog).recordAll(ROLE_ASSIGNMENT_APPROVED, "UserRole", List.of(1L, 2L), "ok");
+    }
+
+    private static List<Long> ids(List<?> rows) {
+        return rows.stream()
+                .map(row -> row instanceof ApprovalQueue.Item item ? item.id() : ((ApprovalQueue.Decided) row).id())
+                .toList();
+    }
+}
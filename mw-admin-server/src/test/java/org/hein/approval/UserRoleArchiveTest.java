@@ -0,0 +1,59 @@
+package org.hein.approval;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.cache.InvalidationOutbox;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserRoleArchiveTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final InvalidationOutbox outbox = mock(InvalidationOutbox.class);
+    private final UserRoleArchive archive = new UserRoleArchive(jdbcTemplate, transactionManager, outbox,
+            new SimpleMeterRegistry(), 7, 3);
+
+    @Test
+    void archivesInTransactionalBatchesUntilOneComesBackShort() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any(), any(), any()))
+                .thenReturn(List.of(10L, 10L, 20L), List.of(30L), List.of());
+
+        assertEquals(4, archive.archive());
+
+        verify(jdbcTemplate, times(2)).queryForList(argThat(sql -> sql.startsWith("WITH moved AS (")
+                        && sql.contains("FOR UPDATE SKIP LOCKED") && sql.contains("INSERT INTO user_roles_history")),
+                eq(Long.class), any(), any(), eq(3), any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(outbox).usersChanged(List.of(10L, 20L));
+        verify(outbox).usersChanged(List.of(30L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void historyPagesBackwardsByIdWithOptionalFilters() {
+        archive.history(5L, null, 100L, 20);
+        verify(jdbcTemplate).query(argThat((String sql) -> sql.contains("WHERE h.id < ? AND h.user_id = ?")
+                        && !sql.contains("h.role_id = ?") && sql.endsWith("ORDER BY h.id DESC LIMIT ?")),
+                any(RowMapper.class), eq(100L), eq(5L), eq(20));
+
+        archive.history(null, 3L, null, 20);
+        verify(jdbcTemplate).query(argThat((String sql) -> sql.contains("WHERE h.id < ? AND h.role_id = ?")),
+                any(RowMapper.class), eq(Long.MAX_VALUE), eq(3L), eq(20));
+    }
+}
@@ -0,0 +1,183 @@
+package org.hein.approval;
+
+import org.hein.api.response.userrole.UserRoleBatchResponse;
+import org.hein.api.response.userrole.UserRoleBatchResponse.Skipped;
+import org.hein.approval.UserRoleBulkUpdater.Filter;
+import org.hein.approval.UserRoleBulkUpdater.Operation;
+import org.hein.entity.UserRoleStatus;
+import org.hein.repository.ScratchSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the bulk updates against schema.sql in a scratch schema. Needs a reachable database
+ * (see {@link ScratchSchema}) and is skipped otherwise.
+ */
+@Tag("database")
+class UserRoleBulkUpdaterTest {
+
+    private static ScratchSchema schema;
+    private static JdbcTemplate jdbc;
+    private static UserRoleBulkUpdater updater;
+
+    @BeforeAll
+    static void loadSchema() throws SQLException {
+        schema = ScratchSchema.create("bulk_update", "schema.sql");
+        assumeTrue(schema != null, "No database reachable, bulk updates not checked");
+
+        jdbc = schema.jdbc();
+        updater = new UserRoleBulkUpdater(jdbc, 100);
+        jdbc.execute("""
+                INSERT INTO users (id, username, first_name, last_name, password, email)
+                SELECT g, 'user' || g, 'First', 'Last', 'x', 'user' || g || '@example.com' FROM generate_series(1, 10) g""");
+        jdbc.execute("INSERT INTO users (id, username, first_name, last_name, password, email) "
+                + "VALUES (100, 'admin', 'Admin', 'Admin', 'x', 'admin@example.com')");
+        jdbc.execute("INSERT INTO roles (id, name, code) VALUES (1, 'Auditor', 'AUDITOR'), (2, 'Operator', 'OPERATOR')");
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (schema != null) {
+            schema.close();
+        }
+    }
+
+    @BeforeEach
+    void clearAssignments() {
+        jdbc.execute("DELETE FROM user_roles");
+    }
+
+    @Test
+    void unfilteredOrOversizedUpdatesAreRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> updater.apply(Operation.REVOKE, new Filter(List.of(), null, null, null), "admin", "review", null));
+        assertThrows(IllegalArgumentException.class,
+                () -> updater.apply(Operation.REVOKE, new Filter(Collections.nCopies(101, 1L), null, null, null),
+                        "admin", "review", null));
+        assertThrows(IllegalArgumentException.class,
+                () -> updater.apply(Operation.EXTEND, new Filter(null, 1L, null, null), "admin", null,
+                        LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void revokeByFilterUpdatesMatchingRowsAndBumpsVersion() {
+        LocalDateTime soon = LocalDateTime.now().plusDays(5);
+        assign(1, 1, UserRoleStatus.ACTIVE, soon);
+        assign(2, 1, UserRoleStatus.ACTIVE, soon.plusDays(60));
+        assign(3, 1, UserRoleStatus.REVOKED, soon);
+        assign(4, 2, UserRoleStatus.ACTIVE, soon);
+
+        List<UserRoleBulkUpdater.Updated> updated = updater.apply(Operation.REVOKE,
+                new Filter(null, 1L, soon.plusDays(1), null), "admin", "quarterly review", null);
+
+        assertEquals(List.of(new UserRoleBulkUpdater.Updated(1L, 1L, "user1")), updated);
+        assertEquals("REVOKED", status(1));
+        assertEquals(1L, jdbc.queryForObject("SELECT version FROM user_roles WHERE id = 1", Long.class));
+        assertEquals(100L, jdbc.queryForObject("SELECT revoked_by_id FROM user_roles WHERE id = 1", Long.class));
+        assertEquals("ACTIVE", status(2));
+        assertEquals("ACTIVE", status(4));
+    }
+
+    @Test
+    void filterUpdatesAtMostMaxRows() {
+        for (int user = 1; user <= 5; user++) {
+            assign(user, 1, UserRoleStatus.PENDING, null);
+        }
+        UserRoleBulkUpdater small = new UserRoleBulkUpdater(jdbc, 2);
+
+        assertEquals(2, small.apply(Operation.APPROVE, new Filter(null, 1L, null, null), "admin", "ok", null).size());
+        assertEquals(2, small.apply(Operation.APPROVE, new Filter(null, 1L, null, null), "admin", "ok", null).size());
+        assertEquals(1, small.apply(Operation.APPROVE, new Filter(null, 1L, null, null), "admin", "ok", null).size());
+        assertEquals(0, small.apply(Operation.APPROVE, new Filter(null, 1L, null, null), "admin", "ok", null).size());
+    }
+
+    @Test
+    void approveSkipsRowsClaimedByAnotherApprover() {
+        assign(1, 1, UserRoleStatus.PENDING, null);
+        assign(2, 1, UserRoleStatus.PENDING, null);
+        assign(3, 1, UserRoleStatus.PENDING, null);
+        assign(4, 1, UserRoleStatus.PENDING, null);
+        claim(2, "carol", LocalDateTime.now().plusMinutes(5));
+        claim(3, "carol", LocalDateTime.now().minusMinutes(5));
+        claim(4, "admin", LocalDateTime.now().plusMinutes(5));
+        List<Long> ids = List.of(1L, 2L, 3L, 4L);
+
+        List<Long> applied = ids(updater.apply(Operation.APPROVE, new Filter(ids, null, null, null), "admin", "ok", null));
+        UserRoleBatchResponse outcome = updater.outcome(ids, applied, row -> Operation.APPROVE.skipReason(row, "admin", null));
+
+        assertEquals(List.of(1L, 3L, 4L), outcome.applied());
+        assertEquals(List.of(new Skipped(2L, "claimed by another approver")), outcome.skipped());
+        assertEquals("PENDING", status(2));
+        assertEquals("carol", jdbc.queryForObject("SELECT claimed_by FROM user_roles WHERE id = 2", String.class));
+        assertNull(jdbc.queryForObject("SELECT claimed_by FROM user_roles WHERE id = 4", String.class));
+    }
+
+    @Test
+    void rejectByFilterLeavesClaimedRowsToTheirApprover() {
+        assign(1, 1, UserRoleStatus.PENDING, null);
+        assign(2, 1, UserRoleStatus.PENDING, null);
+        claim(2, "carol", LocalDateTime.now().plusMinutes(5));
+
+        List<Long> applied = ids(updater.apply(Operation.REJECT, new Filter(null, 1L, null, UserRoleStatus.PENDING),
+                "admin", "not needed", null));
+
+        assertEquals(List.of(1L), applied);
+        assertEquals("REJECTED", status(1));
+        assertEquals("PENDING", status(2));
+    }
+
+    @Test
+    void skippedIdsCarryTheReasonOfTheirOperation() {
+        LocalDateTime newExpiry = LocalDateTime.now().plusDays(90);
+        assign(1, 1, UserRoleStatus.ACTIVE, LocalDateTime.now().plusDays(5));
+        assign(2, 1, UserRoleStatus.ACTIVE, null);
+        assign(3, 1, UserRoleStatus.REVOKED, LocalDateTime.now().plusDays(5));
+        assign(4, 1, UserRoleStatus.ACTIVE, newExpiry.plusDays(30));
+        List<Long> ids = List.of(1L, 2L, 3L, 4L, 99L);
+
+        List<Long> applied = ids(updater.apply(Operation.EXTEND, new Filter(ids, null, null, null), "admin", null, newExpiry));
+        UserRoleBatchResponse outcome = updater.outcome(ids, applied,
+                row -> Operation.EXTEND.skipReason(row, "admin", newExpiry));
+
+        assertEquals(List.of(1L), outcome.applied());
+        assertEquals(List.of(
+                new Skipped(2L, "has no expiry date"),
+                new Skipped(3L, "status is REVOKED"),
+                new Skipped(4L, "already valid beyond the new expiry date"),
+                new Skipped(99L, "not found")), outcome.skipped());
+    }
+
+    private static void assign(long userId, long roleId, UserRoleStatus status, LocalDateTime validTo) {
+        jdbc.update("INSERT INTO user_roles (id, user_id, role_id, assigned_at, valid_to, status) VALUES (?, ?, ?, ?, ?, ?)",
+                userId, userId, roleId, Timestamp.valueOf(LocalDateTime.now()),
+                validTo != null ? Timestamp.valueOf(validTo) : null, status.name());
+    }
+
+    private static void claim(long id, String approver, LocalDateTime expiresAt) {
+        jdbc.update("UPDATE user_roles SET claimed_by = ?, claim_expires_at = ? WHERE id = ?",
+                approver, Timestamp.valueOf(expiresAt), id);
+    }
+
+    private static String status(long id) {
+        return jdbc.queryForObject("SELECT status FROM user_roles WHERE id = ?", String.class, id);
+    }
+
+    private static List<Long> ids(List<UserRoleBulkUpdater.Updated> updated) {
+        return updated.stream().map(UserRoleBulkUpdater.Updated::id).toList();
+    }
+}
@@ -0,0 +1,142 @@
+package org.hein.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.utils.AuditorAwareBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hein.audit.AuditEventType.ROLE_ASSIGNED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void endTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    void blockGivesUpAfterTheTimeoutAndDropsTheNewEvent() throws InterruptedException {
+        AuditLog auditLog = auditLog(2, AuditOverflowPolicy.BLOCK, 20);
+        publish(auditLog, 1, 2, 3);
+
+        assertEquals(List.of("1", "2"), drain(auditLog));
+        assertEquals(1, count("audit.buffer.blocked"));
+        assertEquals(1, dropped("drop-newest"));
+        assertEquals(2, count("audit.events.published"));
+    }
+
+    @Test
+    void blockWaitsForTheWriterToMakeRoom() throws Exception {
+        AuditLog auditLog = auditLog(2, AuditOverflowPolicy.BLOCK, 5000);
+        publish(auditLog, 1, 2);
+
+        CompletableFuture<Void> blockedPublish = CompletableFuture.runAsync(() -> publish(auditLog, 3));
+        List<AuditEvent> first = new ArrayList<>();
+        while (count("audit.buffer.blocked") == 0) {
+            Thread.onSpinWait();
+        }
+        auditLog.drainTo(first, 1, 0);
+        blockedPublish.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("2", "3"), drain(auditLog));
+        assertEquals(1, count("audit.buffer.blocked"));
+        assertEquals(0, dropped("drop-newest"));
+        assertEquals(3, count("audit.events.published"));
+    }
+
+    @Test
+    void dropNewestKeepsTheBufferedEvents() throws InterruptedException {
+        AuditLog auditLog = auditLog(2, AuditOverflowPolicy.DROP_NEWEST, 0);
+        publish(auditLog, 1, 2, 3, 4);
+
+        assertEquals(List.of("1", "2"), drain(auditLog));
+        assertEquals(2, dropped("drop-newest"));
+        assertEquals(0, count("audit.buffer.blocked"));
+        assertEquals(2, count("audit.events.published"));
+    }
+
+    @Test
+    void dropOldestMakesRoomForTheNewEvent() throws InterruptedException {
+        AuditLog auditLog = auditLog(2, AuditOverflowPolicy.DROP_OLDEST, 0);
+        publish(auditLog, 1, 2, 3, 4);
+
+        assertEquals(List.of("3", "4"), drain(auditLog));
+        assertEquals(2, dropped("drop-oldest"));
+        assertEquals(0, dropped("drop-newest"));
+        assertEquals(4, count("audit.events.published"));
+    }
+
+    @Test
+    void eventsArePublishedOnlyWhenTheTransactionCommits() throws InterruptedException {
+        AuditLog auditLog = auditLog(10, AuditOverflowPolicy.BLOCK, 0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        auditLog.record(ROLE_ASSIGNED, "UserRole", 1L, null);
+        auditLog.recordAll(ROLE_ASSIGNED, "UserRole", List.of(2L, 3L), null);
+        assertTrue(auditLog.isEmpty());
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clear();
+        assertTrue(auditLog.isEmpty());
+
+        TransactionSynchronizationManager.initSynchronization();
+        auditLog.record(ROLE_ASSIGNED, "UserRole", 4L, null);
+        auditLog.recordAll(ROLE_ASSIGNED, "UserRole", List.of(5L, 6L), null);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(List.of("4", "5", "6"), drain(auditLog));
+    }
+
+    @Test
+    void recordNowIgnoresTheTransaction() throws InterruptedException {
+        AuditLog auditLog = auditLog(10, AuditOverflowPolicy.BLOCK, 0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        auditLog.recordNow(ROLE_ASSIGNED, "alice", "User", 1L, "login failed");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(List.of("1"), drain(auditLog));
+    }
+
+    private AuditLog auditLog(int capacity, AuditOverflowPolicy policy, long blockTimeoutMs) {
+        return new AuditLog(capacity, policy, blockTimeoutMs, new AuditorAwareBean(), registry);
+    }
+
+    private double count(String counter) {
+        return registry.get(counter).counter().count();
+    }
+
+    private double dropped(String policy) {
+        return registry.get("audit.events.dropped").tag("policy", policy).counter().count();
+    }
+
+    private static void publish(AuditLog auditLog, int... targetIds) {
+        for (int targetId : targetIds) {
+            auditLog.recordNow(ROLE_ASSIGNED, "admin", "UserRole", targetId, null);
+        }
+    }
+
+    private static List<String> drain(AuditLog auditLog) throws InterruptedException {
+        List<AuditEvent> events = new ArrayList<>();
+        auditLog.drainTo(events, 100, 0);
+        return events.stream().map(AuditEvent::targetId).toList();
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+    }
+}
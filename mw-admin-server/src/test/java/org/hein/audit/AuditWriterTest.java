@@ -0,0 +1,102 @@
+package org.hein.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.utils.AuditorAwareBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hein.audit.AuditEventType.ROLE_ASSIGNED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuditWriterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuditLog auditLog = new AuditLog(100, AuditOverflowPolicy.BLOCK, 0, new AuditorAwareBean(), registry);
+
+    @Test
+    void bufferedEventsAreWrittenInBatchesAndDrainedOnStop() {
+        FakeSink sink = new FakeSink(0);
+        publish(5);
+
+        AuditWriter writer = writer(sink);
+        writer.start();
+        writer.stop();
+
+        assertEquals(List.of(List.of("1", "2"), List.of("3", "4"), List.of("5")), sink.written);
+        assertEquals(3, sink.attempts);
+        assertEquals(5, registry.get("audit.events.written").counter().count());
+        assertEquals(0, registry.get("audit.events.failed").counter().count());
+    }
+
+    @Test
+    void failedBatchIsRetried() {
+        FakeSink sink = new FakeSink(2);
+        publish(2);
+
+        AuditWriter writer = writer(sink);
+        writer.start();
+        writer.stop();
+
+        assertEquals(List.of(List.of("1", "2")), sink.written);
+        assertEquals(3, sink.attempts);
+        assertEquals(2, registry.get("audit.events.written").counter().count());
+        assertEquals(0, registry.get("audit.events.failed").counter().count());
+    }
+
+    @Test
+    void batchIsCountedAsFailedAfterMaxAttempts() {
+        FakeSink sink = new FakeSink(Integer.MAX_VALUE);
+        publish(3);
+
+        AuditWriter writer = writer(sink);
+        writer.start();
+        writer.stop();
+
+        assertEquals(List.of(), sink.written);
+        assertEquals(6, sink.attempts);
+        assertEquals(0, registry.get("audit.events.written").counter().count());
+        assertEquals(3, registry.get("audit.events.failed").counter().count());
+    }
+
+    private AuditWriter writer(AuditSink sink) {
+        AuditWriter writer = new AuditWriter(auditLog, sink, registry);
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 5L);
+        ReflectionTestUtils.setField(writer, "maxAttempts", 3);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 10_000L);
+        return writer;
+    }
+
+    private void publish(int count) {
+        for (int i = 1; i <= count; i++) {
+            auditLog.recordNow(ROLE_ASSIGNED, "admin", "UserRole", i, null);
+        }
+    }
+
+    /**
+     * Records the target ids of every batch it accepts, after failing the given number of writes
+     */
+    static class FakeSink implements AuditSink {
+
+        final List<List<String>> written = new ArrayList<>();
+        int attempts;
+        private int failures;
+
+        FakeSink(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public void write(List<AuditEvent> batch) {
+            attempts++;
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("sink unavailable");
+            }
+            written.add(batch.stream().map(AuditEvent::targetId).toList());
+        }
+    }
+}
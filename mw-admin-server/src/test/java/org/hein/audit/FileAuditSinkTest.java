@@ -0,0 +1,54 @@
+package org.hein.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.hein.audit.AuditEventType.ROLE_ASSIGNED;
+import static org.hein.audit.AuditEventType.ROLE_UNASSIGNED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileAuditSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void everyEventBecomesOneJsonLine(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("audit/audit.jsonl");
+
+        FileAuditSink sink = new FileAuditSink(objectMapper, file);
+        sink.write(List.of(event(ROLE_ASSIGNED, "1", "line one"), event(ROLE_UNASSIGNED, "2", "line\ntwo")));
+        sink.close();
+        // A restarted instance appends to the same trail
+        sink = new FileAuditSink(objectMapper, file);
+        sink.write(List.of(event(ROLE_ASSIGNED, "3", null)));
+        sink.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        List<JsonNode> events = lines.stream().map(this::parse).toList();
+        assertEquals(List.of("1", "2", "3"), events.stream().map(event -> event.get("targetId").asText()).toList());
+        assertEquals("ROLE_UNASSIGNED", events.get(1).get("type").asText());
+        assertEquals("line\ntwo", events.get(1).get("detail").asText());
+        assertEquals("req-1", events.get(0).get("requestId").asText());
+    }
+
+    private JsonNode parse(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new AssertionError("Not a JSON line: " + line, e);
+        }
+    }
+
+    private static AuditEvent event(AuditEventType type, String targetId, String detail) {
+        return new AuditEvent(Instant.now(), type, "admin", "UserRole", targetId, detail, "req-1");
+    }
+}
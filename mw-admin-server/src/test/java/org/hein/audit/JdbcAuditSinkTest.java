@@ -0,0 +1,69 @@
+package org.hein.audit;
+
+import org.hein.repository.ScratchSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hein.audit.AuditEventType.ROLE_ASSIGNED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Writes audit batches into schema.sql in a scratch schema. Needs a reachable database
+ * (see {@link ScratchSchema}) and is skipped otherwise.
+ */
+@Tag("database")
+class JdbcAuditSinkTest {
+
+    private static ScratchSchema schema;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void loadSchema() throws SQLException {
+        schema = ScratchSchema.create("audit_sink", "schema.sql");
+        assumeTrue(schema != null, "No database reachable, audit sink not checked");
+        jdbc = schema.jdbc();
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (schema != null) {
+            schema.close();
+        }
+    }
+
+    @Test
+    void batchesLandInTheMonthlyPartition() {
+        JdbcAuditSink sink = new JdbcAuditSink(jdbc);
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        Instant now = Instant.now();
+        Instant nextMonth = month.plusMonths(1).atDay(2).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        sink.write(List.of(event(now, "1"), event(now, "2")));
+        sink.write(List.of(event(nextMonth, "3")));
+
+        assertEquals(2, rows(month));
+        assertEquals(1, rows(month.plusMonths(1)));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM audit_log_default", Integer.class));
+        // The month after the newest write is partitioned ahead of time
+        assertEquals(0, rows(month.plusMonths(2)));
+    }
+
+    private static int rows(YearMonth month) {
+        return jdbc.queryForObject(String.format("SELECT COUNT(*) FROM audit_log_y%04dm%02d",
+                month.getYear(), month.getMonthValue()), Integer.class);
+    }
+
+    private static AuditEvent event(Instant occurredAt, String targetId) {
+        return new AuditEvent(occurredAt, ROLE_ASSIGNED, "admin", "UserRole", targetId, null, null);
+    }
+}
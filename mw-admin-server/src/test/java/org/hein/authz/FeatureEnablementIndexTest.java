@@ -0,0 +1,123 @@
+package org.hein.authz;
+
+import org.hein.cache.InvalidationEvent;
+import org.hein.cache.InvalidationType;
+import org.hein.repository.FeatureRepository;
+import org.hein.repository.PermissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tree used below, with permission ids in brackets:
+ * <pre>
+ * admin(1) [10]
+ *   users(2) [20, 21]
+ *     audit(4) [40]
+ *   roles(3) [30]
+ * reports(5) [50]
+ * </pre>
+ */
+class FeatureEnablementIndexTest {
+
+    private final Map<Long, Object[]> features = new HashMap<>();
+    private final Map<Long, Long> permissions = new HashMap<>();
+    private FeatureRepository featureRepository;
+    private FeatureEnablementIndex index;
+
+    @BeforeEach
+    void setUp() {
+        feature(1, null, "admin", true);
+        feature(2, 1L, "users", true);
+        feature(3, 1L, "roles", true);
+        feature(4, 2L, "audit", true);
+        feature(5, null, "reports", true);
+        permissions.putAll(Map.of(10L, 1L, 20L, 2L, 21L, 2L, 40L, 4L, 30L, 3L, 50L, 5L));
+
+        featureRepository = mock(FeatureRepository.class);
+        when(featureRepository.findAllTreeNodes()).thenAnswer(i -> new ArrayList<>(features.values()));
+        when(featureRepository.findTreeNode(anyLong())).thenAnswer(i -> {
+            Object[] row = features.get(i.<Long>getArgument(0));
+            return row == null ? List.of() : List.<Object[]>of(row);
+        });
+        PermissionRepository permissionRepository = mock(PermissionRepository.class);
+        when(permissionRepository.findAllFeatureLinks()).thenAnswer(i -> permissions.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue()}).toList());
+        when(permissionRepository.findFeatureIdById(anyLong())).thenAnswer(i -> Optional.ofNullable(permissions.get(i.<Long>getArgument(0))));
+
+        index = new FeatureEnablementIndex(featureRepository, permissionRepository);
+    }
+
+    @Test
+    void disablingATopLevelFeatureMasksItsWholeSubtree() {
+        assertTrue(index.disabledPermissions().isEmpty());
+
+        toggle(1, false);
+
+        assertEquals(List.of(10, 20, 21, 30, 40), index.disabledPermissions().stream().boxed().toList());
+        assertFalse(index.isEnabled("audit:VIEW"));
+        assertTrue(index.isEnabled("reports:VIEW"));
+        assertTrue(index.isEnabled("ROLE_ADMIN"));
+
+        toggle(1, true);
+
+        assertTrue(index.disabledPermissions().isEmpty());
+        // One full load, then single-row refreshes only
+        verify(featureRepository, times(1)).findAllTreeNodes();
+    }
+
+    @Test
+    void movingAFeatureUnderADisabledParentDisablesIt() {
+        toggle(5, false);
+        assertEquals(List.of(50), index.disabledPermissions().stream().boxed().toList());
+
+        feature(2, 5L, "users", true);
+        index.onInvalidation(InvalidationEvent.of(InvalidationType.FEATURE, 2L));
+
+        assertEquals(List.of(20, 21, 40, 50), index.disabledPermissions().stream().boxed().toList());
+        assertTrue(index.isEnabled("roles:CREATE"));
+    }
+
+    @Test
+    void newPermissionOfDisabledFeatureIsMasked() {
+        toggle(3, false);
+
+        permissions.put(31L, 3L);
+        index.onInvalidation(InvalidationEvent.of(InvalidationType.PERMISSION, 31L));
+
+        assertEquals(List.of(30, 31), index.disabledPermissions().stream().boxed().toList());
+    }
+
+    @Test
+    void loaderHelperMatchesIndex() {
+        feature(2, 1L, "users", false);
+
+        assertEquals(Set.of(2L, 4L), FeatureEnablementIndex.disabledFeatures(new ArrayList<>(features.values())));
+    }
+
+    private void toggle(long id, boolean enabled) {
+        Object[] row = features.get(id);
+        feature(id, (Long) row[1], (String) row[2], enabled);
+        index.disabledPermissions();
+        index.onInvalidation(InvalidationEvent.of(InvalidationType.FEATURE, id));
+    }
+
+    private void feature(long id, Long parentId, String code, boolean enabled) {
+        features.put(id, new Object[]{id, parentId, code, enabled});
+    }
+}
@@ -0,0 +1,46 @@
+package org.hein.authz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.rbac.RbacState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hein.authz.ImpactSimulatorTest.NOW;
+import static org.hein.authz.ImpactSimulatorTest.forest;
+import static org.hein.authz.ImpactSimulatorTest.removeRootPermission;
+
+/**
+ * 500k users over 200 roles in 20 trees, with a permission removed from a root role. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class ImpactSimulatorBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ImpactSimulatorBenchmarkTest.class);
+
+    private final ImpactSimulator simulator = new ImpactSimulator(0, new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        simulator.shutdown();
+    }
+
+    @Test
+    void simulateHalfAMillionUsers() {
+        RbacState state = forest(500_000);
+
+        AtomicInteger streamed = new AtomicInteger();
+        for (int run = 0; run < 3; run++) {
+            streamed.set(0);
+            ImpactSimulator.Summary summary = simulator.prepare(state, List.of(removeRootPermission()))
+                    .run(NOW, batch -> streamed.addAndGet(batch.size()));
+            log.info(String.format("Simulated %d users on %d cores in %d ms, %d affected",
+                    summary.usersScanned(), Runtime.getRuntime().availableProcessors(), summary.elapsedMillis(), summary.usersAffected()));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.hein.authz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.rbac.RbacState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Roles used below, with permission ids in brackets:
+ * <pre>
+ * admin(1) [10]
+ *   editor(2) [20]
+ *     viewer(3) [30]
+ * auditor(4) [10]
+ * </pre>
+ */
+class ImpactSimulatorTest {
+
+    static final long NOW = 1_000_000L;
+
+    private final ImpactSimulator simulator = new ImpactSimulator(0, new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        simulator.shutdown();
+    }
+
+    @Test
+    void reportsGainedAndLostPermissionsOfAffectedUsersOnly() {
+        RbacState state = base()
+                .grant("alice", 3, null, null)
+                .grant("bob", 2, null, null)
+                .grant("carol", 3, null, null).grant("carol", 4, null, null)
+                .grant("dave", 1, null, null)
+                .grant("erin", 3, null, NOW - 1)
+                .build(7);
+
+        // viewer becomes top-level and gains auditor's permission back directly
+        List<ImpactSimulator.UserImpact> impacts = new ArrayList<>();
+        ImpactSimulator.Simulation simulation = simulator.prepare(state, List.of(
+                new RoleChange(RoleChange.Type.MOVE_TO_PARENT, 3L, null, null),
+                new RoleChange(RoleChange.Type.ADD_PERMISSIONS, 3L, Set.of(10L), null)));
+        ImpactSimulator.Summary summary = simulation.run(NOW, impacts::addAll);
+
+        impacts.sort(Comparator.comparing(ImpactSimulator.UserImpact::username));
+        // carol keeps admin:VIEW through auditor; erin's assignment has expired
+        assertEquals(List.of(
+                new ImpactSimulator.UserImpact("alice", List.of(), List.of("editor:VIEW")),
+                new ImpactSimulator.UserImpact("carol", List.of(), List.of("editor:VIEW"))), impacts);
+        assertEquals(List.of(3L), summary.affectedRoleIds());
+        assertEquals(7, summary.version());
+        assertEquals(5, summary.usersScanned());
+        assertEquals(2, summary.usersAffected());
+    }
+
+    @Test
+    void deletingARoleNeedsItsChildrenAndAssignmentsRemovedFirst() {
+        RbacState state = base().grant("alice", 3, null, null).grant("bob", 4, null, null).build(1);
+
+        IllegalArgumentException children = assertThrows(IllegalArgumentException.class, () -> simulator.prepare(state,
+                List.of(new RoleChange(RoleChange.Type.DELETE_ROLE, 2L, null, null))));
+        assertTrue(children.getMessage().contains("children"), children.getMessage());
+        IllegalArgumentException assigned = assertThrows(IllegalArgumentException.class, () -> simulator.prepare(state,
+                List.of(new RoleChange(RoleChange.Type.DELETE_ROLE, 4L, null, null))));
+        assertTrue(assigned.getMessage().contains("assigned"), assigned.getMessage());
+
+        // role 3 is assigned, but role 2 loses its only child once 3 is moved away
+        List<ImpactSimulator.UserImpact> impacts = new ArrayList<>();
+        ImpactSimulator.Summary summary = simulator.prepare(state, List.of(
+                        new RoleChange(RoleChange.Type.MOVE_TO_PARENT, 3L, null, 1L),
+                        new RoleChange(RoleChange.Type.DELETE_ROLE, 2L, null, null)))
+                .run(NOW, impacts::addAll);
+        assertEquals(List.of(2L, 3L), summary.affectedRoleIds());
+        assertEquals(List.of(new ImpactSimulator.UserImpact("alice", List.of(), List.of("editor:VIEW"))), impacts);
+    }
+
+    @Test
+    void rejectsUnknownReferencesAndCycles() {
+        RbacState state = base().build(1);
+
+        assertThrows(IllegalArgumentException.class, () -> simulator.prepare(state,
+                List.of(new RoleChange(RoleChange.Type.ADD_PERMISSIONS, 99L, Set.of(10L), null))));
+        assertThrows(IllegalArgumentException.class, () -> simulator.prepare(state,
+                List.of(new RoleChange(RoleChange.Type.ADD_PERMISSIONS, 1L, Set.of(99L), null))));
+        assertThrows(IllegalArgumentException.class, () -> simulator.prepare(state,
+                List.of(new RoleChange(RoleChange.Type.MOVE_TO_PARENT, 1L, null, 3L))));
+        // the change set is applied in order, so a role deleted earlier is unknown later
+        assertThrows(IllegalArgumentException.class, () -> simulator.prepare(state, List.of(
+                new RoleChange(RoleChange.Type.DELETE_ROLE, 4L, null, null),
+                new RoleChange(RoleChange.Type.MOVE_TO_PARENT, 3L, null, 4L))));
+    }
+
+    @Test
+    void streamsEveryAffectedUserAcrossChunks() {
+        AtomicInteger streamed = new AtomicInteger();
+        ImpactSimulator.Summary summary = simulator.prepare(forest(10_000), List.of(removeRootPermission()))
+                .run(NOW, batch -> streamed.addAndGet(batch.size()));
+
+        // role 1 roots the tree of roles 1, 21, 41, ..., 181
+        assertEquals(10, summary.affectedRoleIds().size());
+        assertEquals(10_000, summary.usersScanned());
+        assertEquals(summary.usersAffected(), streamed.get());
+        assertTrue(summary.usersAffected() >= 500, "affected " + summary.usersAffected());
+    }
+
+    /**
+     * Users over 200 roles in 20 trees of 10, two permissions per role; every user holds one role and
+     * every third a second one with an end date
+     */
+    static RbacState forest(int users) {
+        RbacState.Builder builder = RbacState.builder();
+        for (long permission = 1; permission <= 400; permission++) {
+            builder.permission(permission, "feature" + permission / 4 + ":ACTION" + permission % 4);
+        }
+        for (long role = 1; role <= 200; role++) {
+            builder.role(role, role <= 20 ? null : role - 20)
+                    .rolePermission(role, role * 2 - 1).rolePermission(role, role * 2);
+        }
+        for (int user = 0; user < users; user++) {
+            builder.grant("user" + user, 1 + user % 200, null, null);
+            if (user % 3 == 0) {
+                builder.grant("user" + user, 1 + (user * 7L) % 200, null, NOW + 1);
+            }
+        }
+        return builder.build(1);
+    }
+
+    static RoleChange removeRootPermission() {
+        return new RoleChange(RoleChange.Type.REMOVE_PERMISSIONS, 1L, Set.of(1L), null);
+    }
+
+    private static RbacState.Builder base() {
+        return RbacState.builder()
+                .permission(10, "admin:VIEW").permission(20, "editor:VIEW").permission(30, "viewer:VIEW")
+                .role(1, null).rolePermission(1, 10)
+                .role(2, 1L).rolePermission(2, 20)
+                .role(3, 2L).rolePermission(3, 30)
+                .role(4, null).rolePermission(4, 10);
+    }
+}
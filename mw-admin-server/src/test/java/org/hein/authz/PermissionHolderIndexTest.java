@@ -0,0 +1,174 @@
+package org.hein.authz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.rbac.RbacState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Roles used below, with permission ids in brackets:
+ * <pre>
+ * admin(1) [10]
+ *   editor(2) [20]
+ *     viewer(3) [30]
+ * </pre>
+ */
+class PermissionHolderIndexTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final PermissionHolderIndex index = new PermissionHolderIndex(new SimpleMeterRegistry());
+
+    @Test
+    void inheritedPermissionsReachUsersOfChildRolesAndPageByUsername() {
+        index.apply(base().grant("carol", 3, null, null).grant("alice", 2, null, null)
+                .grant("bob", 1, null, null).grant("dave", 3, null, NOW - 1).build(1));
+
+        var first = index.holders(10, null, 2, NOW);
+        assertEquals(List.of(1L, 2L, 3L), first.roleIds());
+        assertEquals(List.of("alice", "bob"), first.usernames());
+        assertEquals("bob", first.nextAfter());
+        // dave's assignment has expired
+        var second = index.holders(10, "bob", 2, NOW);
+        assertEquals(List.of("carol"), second.usernames());
+        assertNull(second.nextAfter());
+
+        assertEquals(List.of("carol"), index.holders(30, null, 10, NOW).usernames());
+        assertNull(index.holders(99, null, 10, NOW));
+    }
+
+    @Test
+    void reparentingARoleMovesItsUsers() {
+        index.apply(base().grant("carol", 3, null, null).build(1));
+        assertEquals(List.of("carol"), index.holders(10, null, 10, NOW).usernames());
+
+        // viewer no longer inherits from editor
+        RbacState.Builder detached = RbacState.builder();
+        detached.permission(10, "admin:VIEW").permission(20, "editor:VIEW").permission(30, "viewer:VIEW");
+        detached.role(1, null).rolePermission(1, 10).role(2, 1L).rolePermission(2, 20).role(3, null).rolePermission(3, 30);
+        index.apply(detached.grant("carol", 3, null, null).build(2));
+
+        assertEquals(List.of(), index.holders(10, null, 10, NOW).usernames());
+        assertEquals(List.of(1L, 2L), index.holders(10, null, 10, NOW).roleIds());
+        assertEquals(List.of("carol"), index.holders(30, null, 10, NOW).usernames());
+    }
+
+    @Test
+    void incrementalUpdatesMatchTheStateTheyFollow() {
+        Random random = new Random(42);
+        RbacState state = randomState(random, 1);
+        index.apply(state);
+        for (int version = 2; version <= 200; version++) {
+            state = mutate(random, state, version);
+            index.apply(state);
+            for (long permissionId : state.permissions().keySet()) {
+                var holders = index.holders(permissionId, null, 1_000, NOW);
+                assertEquals(expectedRoles(state, permissionId), new TreeSet<>(holders.roleIds()), "roles of " + permissionId);
+                assertEquals(expectedUsers(state, permissionId), new TreeSet<>(holders.usernames()), "users of " + permissionId);
+            }
+        }
+    }
+
+    private static RbacState.Builder base() {
+        return RbacState.builder()
+                .permission(10, "admin:VIEW").permission(20, "editor:VIEW").permission(30, "viewer:VIEW")
+                .role(1, null).rolePermission(1, 10)
+                .role(2, 1L).rolePermission(2, 20)
+                .role(3, 2L).rolePermission(3, 30);
+    }
+
+    private static RbacState randomState(Random random, long version) {
+        RbacState.Builder builder = RbacState.builder();
+        for (long p = 1; p <= 12; p++) {
+            builder.permission(p, "f" + p + ":VIEW");
+        }
+        for (long r = 1; r <= 8; r++) {
+            builder.role(r, r > 1 && random.nextBoolean() ? (long) random.nextInt((int) r - 1) + 1 : null);
+            for (int i = 0; i < 2; i++) {
+                builder.rolePermission(r, random.nextInt(12) + 1);
+            }
+        }
+        for (int u = 0; u < 20; u++) {
+            for (long r : randomRoles(random)) {
+                builder.grant("user" + u, r, null, random.nextInt(5) == 0 ? NOW - 1 : null);
+            }
+        }
+        return builder.build(version);
+    }
+
+    /**
+     * Change one subject's assignments, one role's parent and one role's permissions
+     */
+    private static RbacState mutate(Random random, RbacState state, long version) {
+        RbacState.Builder builder = RbacState.builder();
+        state.permissions().forEach(builder::permission);
+        long changedRole = random.nextInt(8) + 1;
+        state.roles().forEach((id, role) -> {
+            Long parent = role.parentId();
+            Set<Long> permissions = role.permissionIds();
+            if (id == changedRole) {
+                // Parents always have a lower id, so the hierarchy stays acyclic
+                parent = id > 1 && random.nextBoolean() ? (long) random.nextInt((int) (long) id - 1) + 1 : null;
+                permissions = new HashSet<>(permissions);
+                permissions.add((long) random.nextInt(12) + 1);
+                permissions.remove((long) random.nextInt(12) + 1);
+            }
+            builder.role(id, parent);
+            permissions.forEach(p -> builder.rolePermission(id, p));
+        });
+        String changedSubject = "user" + random.nextInt(25);
+        state.subjects().forEach((subject, grants) -> {
+            if (!subject.equals(changedSubject)) {
+                grants.forEach(g -> builder.grant(subject, g.roleId(), g.validFrom(), g.validTo()));
+            }
+        });
+        for (long r : randomRoles(random)) {
+            builder.grant(changedSubject, r, null, null);
+        }
+        return builder.build(version);
+    }
+
+    private static Set<Long> randomRoles(Random random) {
+        Set<Long> roles = new HashSet<>();
+        int count = random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            roles.add((long) random.nextInt(8) + 1);
+        }
+        return roles;
+    }
+
+    private static Set<Long> expectedRoles(RbacState state, long permissionId) {
+        Set<Long> roles = new TreeSet<>();
+        state.roles().keySet().forEach(roleId -> {
+            for (Long id = roleId; id != null; id = state.roles().get(id).parentId()) {
+                if (state.roles().get(id).permissionIds().contains(permissionId)) {
+                    roles.add(roleId);
+                    break;
+                }
+            }
+        });
+        return roles;
+    }
+
+    private static Set<String> expectedUsers(RbacState state, long permissionId) {
+        Set<Long> roles = expectedRoles(state, permissionId);
+        Set<String> users = new TreeSet<>();
+        state.subjects().forEach((subject, grants) -> {
+            List<RbacState.Grant> valid = new ArrayList<>(grants);
+            valid.removeIf(g -> g.validTo() != null && g.validTo() < NOW);
+            if (valid.stream().anyMatch(g -> roles.contains(g.roleId()))) {
+                users.add(subject);
+            }
+        });
+        return users;
+    }
+}
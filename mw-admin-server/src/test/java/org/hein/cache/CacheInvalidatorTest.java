@@ -0,0 +1,74 @@
+package org.hein.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheInvalidatorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DependencyIndex dependencyIndex = new DependencyIndex(registry);
+    private final DependencyTrackingCacheManager cacheManager = new DependencyTrackingCacheManager(dependencyIndex, registry,
+            Duration.ofSeconds(5), Duration.ZERO, Runnable::run, UnaryOperator.identity());
+    private final CacheInvalidator invalidator = new CacheInvalidator(cacheManager, dependencyIndex,
+            new DefaultListableBeanFactory().getBeanProvider(InvalidationListener.class));
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    @Test
+    void loadThatReadBeforeAnInvalidationIsNotCached() throws Exception {
+        cacheManager.setCacheNames(List.of("roles"));
+        Cache roles = cacheManager.getCache("roles");
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        // The key is not cached or registered yet, so the eviction itself cannot reach it
+        Future<String> stale = loader.submit(() -> roles.get(7L, () -> {
+            read.countDown();
+            invalidated.await();
+            return "before";
+        }));
+        read.await(5, TimeUnit.SECONDS);
+        invalidator.apply(InvalidationEvent.of(InvalidationType.ROLE, 7L));
+        invalidated.countDown();
+
+        assertEquals("before", stale.get(5, TimeUnit.SECONDS));
+        assertNull(roles.get(7L));
+        assertEquals("after", roles.get(7L, () -> "after"));
+        assertEquals("after", roles.get(7L).get());
+    }
+
+    @Test
+    void entriesEvictedBySizeAreUnregistered() {
+        cacheManager.setCacheSpecification("maximumSize=1");
+        cacheManager.setCacheNames(List.of("roles"));
+        DependencyTrackingCache roles = (DependencyTrackingCache) cacheManager.getCache("roles");
+
+        roles.put("all", List.of());
+        roles.put("page-2", List.of());
+        roles.getNativeCache().cleanUp();
+        roles.evict("page-2");
+
+        assertEquals(0, roles.getNativeCache().estimatedSize());
+        // Only the explicitly evicted entry is left, for the next invalidation of roles to drop
+        assertEquals(1, dependencyIndex.consume(Dependency.collection(InvalidationType.ROLE)).size());
+    }
+}
@@ -0,0 +1,113 @@
+package org.hein.cache;
+
+import org.hein.authz.RbacChangeLog;
+import org.hein.entity.InvalidationOutboxEntry;
+import org.hein.repository.InvalidationOutboxRepository;
+import org.hein.security.token.JtiTokenStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Token revocations go to the outbox with a cutoff taken just before commit, and are applied
+ * once more right after commit without failing the caller
+ */
+class InvalidationOutboxTest {
+
+    private static final String INSERT = "INSERT INTO invalidation_outbox (event_type, aggregate_id, aggregate_key) VALUES (?, ?, ?)";
+
+    private final InvalidationOutboxRepository outboxRepository = mock(InvalidationOutboxRepository.class);
+    private final CacheInvalidator cacheInvalidator = mock(CacheInvalidator.class);
+    private final RbacChangeLog changeLog = mock(RbacChangeLog.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final JtiTokenStore jtiTokenStore = mock(JtiTokenStore.class);
+    private final InvalidationOutbox outbox = new InvalidationOutbox(outboxRepository, cacheInvalidator, changeLog, jdbcTemplate, jtiTokenStore);
+
+    @BeforeEach
+    void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        when(changeLog.next()).thenReturn(1L);
+    }
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revocationsAreWrittenBeforeCommitWithOneCutoff() {
+        outbox.revokeTokens("alice");
+        outbox.userChanged(7L);
+        outbox.revokeTokens(List.of("alice", "bob"));
+
+        ArgumentCaptor<InvalidationOutboxEntry> saved = ArgumentCaptor.forClass(InvalidationOutboxEntry.class);
+        verify(outboxRepository).save(saved.capture());
+        assertEquals(InvalidationType.USER, saved.getValue().getType());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        long before = System.currentTimeMillis();
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(INSERT), rows.capture());
+        assertEquals(List.of("alice", "bob"), rows.getValue().stream().map(row -> row[2]).toList());
+        long cutoff = (Long) rows.getValue().get(0)[1];
+        assertTrue(cutoff >= before, "cutoff " + cutoff);
+        assertEquals(List.of(InvalidationType.USER_TOKENS.name(), cutoff),
+                List.of(rows.getValue().get(1)[0], rows.getValue().get(1)[1]));
+        verify(jtiTokenStore, never()).revokeIssuedBefore(anyString(), anyLong());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(jtiTokenStore).revokeIssuedBefore("alice", cutoff);
+        verify(jtiTokenStore).revokeIssuedBefore("bob", cutoff);
+        verify(cacheInvalidator).apply(anyCollection());
+    }
+
+    @Test
+    void failedRevocationAfterCommitIsLeftToTheRelay() {
+        doThrow(new IllegalStateException("redis down")).when(jtiTokenStore).revokeIssuedBefore(anyString(), anyLong());
+        outbox.revokeTokens(List.of("alice", "bob"));
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(jtiTokenStore).revokeIssuedBefore(eq("alice"), anyLong());
+        verify(jtiTokenStore).revokeIssuedBefore(eq("bob"), anyLong());
+    }
+
+    @Test
+    void rolledBackTransactionRevokesNothing() {
+        outbox.revokeTokens("alice");
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(jtiTokenStore, never()).revokeIssuedBefore(anyString(), anyLong());
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+    }
+}
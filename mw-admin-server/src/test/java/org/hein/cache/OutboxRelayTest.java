@@ -0,0 +1,55 @@
+package org.hein.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hein.entity.InvalidationOutboxEntry;
+import org.hein.repository.InvalidationOutboxRepository;
+import org.hein.security.token.JtiTokenStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final InvalidationOutboxRepository outboxRepository = mock(InvalidationOutboxRepository.class);
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final JtiTokenStore jtiTokenStore = mock(JtiTokenStore.class);
+    private final OutboxRelay relay = new OutboxRelay(outboxRepository, redis, new ObjectMapper(), jtiTokenStore);
+
+    private final List<InvalidationOutboxEntry> entries = List.of(
+            new InvalidationOutboxEntry(InvalidationType.USER, 7L, null),
+            new InvalidationOutboxEntry(InvalidationType.USER_TOKENS, 1_000L, "alice"));
+
+    @Test
+    void revocationsAreAppliedAndOnlyAggregatesPublished() throws Exception {
+        when(outboxRepository.lockNextBatch(any(Integer.class))).thenReturn(entries);
+
+        relay.relay();
+
+        verify(jtiTokenStore).revokeIssuedBefore("alice", 1_000L);
+        verify(redis).convertAndSend(OutboxRelay.CHANNEL, "[{\"type\":\"USER\",\"id\":7,\"key\":null}]");
+        verify(outboxRepository).deleteAllInBatch(entries);
+    }
+
+    @Test
+    void failedRevocationKeepsTheRowsForTheNextRun() {
+        when(outboxRepository.lockNextBatch(any(Integer.class))).thenReturn(entries);
+        doThrow(new IllegalStateException("redis down")).when(jtiTokenStore).revokeIssuedBefore(eq("alice"), eq(1_000L));
+
+        assertThrows(IllegalStateException.class, relay::relay);
+
+        verify(redis, never()).convertAndSend(anyString(), anyString());
+        verify(outboxRepository, never()).deleteAllInBatch(anyList());
+    }
+}
@@ -0,0 +1,61 @@
+package org.hein.cache;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hein.cache.SingleFlightStampedeTest.cache;
+import static org.hein.cache.SingleFlightStampedeTest.slowLoad;
+import static org.hein.cache.SingleFlightStampedeTest.stampede;
+
+/**
+ * Reader latency when 1000 readers hit an empty key whose load takes 50 ms: naive read-through,
+ * single-flight, and stale-while-revalidate over an expired entry. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class SingleFlightStampedeBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightStampedeBenchmarkTest.class);
+
+    private static final int READERS = 1000;
+
+    @Test
+    void stampedeLatency() throws Exception {
+        AtomicInteger naiveLoads = new AtomicInteger();
+        Cache naive = cache(Duration.ZERO);
+        report("naive", naiveLoads, stampede(READERS, () -> {
+            Cache.ValueWrapper hit = naive.get("all");
+            if (hit != null) {
+                return hit.get();
+            }
+            Object value = slowLoad(naiveLoads);
+            naive.put("all", value);
+            return value;
+        }));
+
+        AtomicInteger coalescedLoads = new AtomicInteger();
+        DependencyTrackingCache coalescing = cache(Duration.ZERO);
+        report("single-flight", coalescedLoads,
+                stampede(READERS, () -> coalescing.get("all", () -> slowLoad(coalescedLoads))));
+
+        AtomicInteger refreshLoads = new AtomicInteger();
+        DependencyTrackingCache refreshing = cache(Duration.ofNanos(1));
+        refreshing.put("all", List.of("stale"));
+        report("stale-while-revalidate", refreshLoads,
+                stampede(READERS, () -> refreshing.get("all", () -> slowLoad(refreshLoads))));
+    }
+
+    private static void report(String name, AtomicInteger loads, long[] sortedLatencies) {
+        log.info(String.format("%-24s readers=%d loads=%d p50=%.2fms p99=%.2fms max=%.2fms",
+                name, READERS, loads.get(),
+                sortedLatencies[READERS / 2] / 1e6,
+                sortedLatencies[READERS * 99 / 100] / 1e6,
+                sortedLatencies[READERS - 1] / 1e6));
+    }
+}
@@ -0,0 +1,162 @@
+package org.hein.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Synthetic stampede: readers released at once against an empty key whose load takes
+ * 50 ms, once with naive read-through and once through {@link DependencyTrackingCache}.
+ * The latency comparison is in {@link SingleFlightStampedeBenchmarkTest}.
+ */
+class SingleFlightStampedeTest {
+
+    static final int READERS = 200;
+    static final long LOAD_MS = 50;
+
+    @Test
+    void stampedeRunsOneLoad() throws Exception {
+        AtomicInteger naiveLoads = new AtomicInteger();
+        Cache naive = cache(Duration.ZERO);
+        stampede(READERS, () -> {
+            Cache.ValueWrapper hit = naive.get("all");
+            if (hit != null) {
+                return hit.get();
+            }
+            Object value = slowLoad(naiveLoads);
+            naive.put("all", value);
+            return value;
+        });
+
+        AtomicInteger coalescedLoads = new AtomicInteger();
+        DependencyTrackingCache coalescing = cache(Duration.ZERO);
+        stampede(READERS, () -> coalescing.get("all", () -> slowLoad(coalescedLoads)));
+
+        assertEquals(1, coalescedLoads.get());
+        assertTrue(coalescing.singleFlight().coalesced() > 0);
+        assertTrue(naiveLoads.get() > 1);
+    }
+
+    @Test
+    void staleEntryIsServedWhileOneRefreshRuns() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        DependencyTrackingCache cache = cache(Duration.ofNanos(1));
+        cache.put("all", List.of("stale"));
+
+        stampede(READERS, () -> cache.get("all", () -> slowLoad(loads)));
+
+        assertTrue(loads.get() < READERS / 10);
+        assertTrue(cache.refreshes() >= 1);
+        Thread.sleep(LOAD_MS * 4);
+        assertEquals(List.of("loaded"), cache.get("all").get());
+    }
+
+    @Test
+    void waitersGiveUpAfterTheTimeout() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(10);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService leader = Executors.newSingleThreadExecutor();
+        try {
+            leader.submit(() -> singleFlight.load("k", () -> release.await(5, TimeUnit.SECONDS)));
+            while (singleFlight.loads() == 0) {
+                Thread.onSpinWait();
+            }
+            assertThrows(TimeoutException.class, () -> singleFlight.load("k", () -> true));
+            assertEquals(1, singleFlight.timeouts());
+        } finally {
+            release.countDown();
+            leader.shutdown();
+        }
+    }
+
+    @Test
+    void loadRacingAnEvictionIsNotCached() {
+        DependencyTrackingCache cache = cache(Duration.ZERO);
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("k", () -> {
+                    throw new IllegalStateException("boom");
+                }));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        cache.get("k", () -> {
+            cache.evict("k");
+            return "loaded";
+        });
+        assertNull(cache.get("k"));
+    }
+
+    static DependencyTrackingCache cache(Duration refreshAfter) {
+        ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "cache-refresh-test");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new DependencyTrackingCache("roles",
+                Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(10)).build(),
+                true,
+                key -> null,
+                new DependencyIndex(new SimpleMeterRegistry()),
+                new SingleFlight(5000),
+                refreshAfter,
+                refreshExecutor,
+                loader -> loader);
+    }
+
+    static Object slowLoad(AtomicInteger loads) throws InterruptedException {
+        loads.incrementAndGet();
+        Thread.sleep(LOAD_MS);
+        return List.of("loaded");
+    }
+
+    /**
+     * Releases the readers at once and returns their latencies in nanoseconds, sorted
+     */
+    static long[] stampede(int count, Callable<Object> read) throws Exception {
+        ExecutorService readers = Executors.newFixedThreadPool(count);
+        try {
+            CountDownLatch ready = new CountDownLatch(count);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(readers.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    long startedAt = System.nanoTime();
+                    read.call();
+                    return System.nanoTime() - startedAt;
+                }));
+            }
+            ready.await();
+            start.countDown();
+
+            long[] latencies = new long[count];
+            for (int i = 0; i < count; i++) {
+                latencies[i] = results.get(i).get(30, TimeUnit.SECONDS);
+            }
+            Arrays.sort(latencies);
+            return latencies;
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.hein.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.observability.SecurityMetrics;
+import org.hein.security.RbacPermissionEvaluator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The traced @PreAuthorize manager must not cost the other pre/post annotations their interceptors
+ */
+class MethodSecurityConfigTest {
+
+    private AnnotationConfigApplicationContext context;
+    private Guarded guarded;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(TestConfiguration.class);
+        guarded = context.getBean(Guarded.class);
+        registry = context.getBean(SimpleMeterRegistry.class);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", "n/a", "USER:READ"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Test
+    void preAuthorizeIsEnforcedAndCounted() {
+        assertEquals("read", guarded.read());
+        assertThrows(AccessDeniedException.class, guarded::delete);
+
+        assertEquals(1, registry.get("rbac.permission.decisions")
+                .tags("evaluator", "pre-authorize", "permission", "hasAuthority('USER:READ')", "decision", "granted").counter().count());
+        assertEquals(1, registry.get("rbac.permission.decisions")
+                .tags("evaluator", "pre-authorize", "permission", "hasAuthority('USER:DELETE')", "decision", "denied").counter().count());
+    }
+
+    @Test
+    void postAuthorizeAndPostFilterStillApply() {
+        assertEquals("alice", guarded.owner("alice"));
+        assertThrows(AccessDeniedException.class, () -> guarded.owner("bob"));
+        assertEquals(List.of("alice"), guarded.owners());
+    }
+
+    static class Guarded {
+
+        @PreAuthorize("hasAuthority('USER:READ')")
+        public String read() {
+            return "read";
+        }
+
+        @PreAuthorize("hasAuthority('USER:DELETE')")
+        public String delete() {
+            return "delete";
+        }
+
+        @PostAuthorize("returnObject == authentication.name")
+        public String owner(String name) {
+            return name;
+        }
+
+        @PostFilter("filterObject == authentication.name")
+        public List<String> owners() {
+            return new ArrayList<>(List.of("alice", "bob"));
+        }
+    }
+
+    @Configuration
+    @Import(MethodSecurityConfig.class)
+    static class TestConfiguration {
+
+        @Bean
+        RbacPermissionEvaluator rbacPermissionEvaluator() {
+            return mock(RbacPermissionEvaluator.class);
+        }
+
+        @Bean
+        SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        SecurityMetrics securityMetrics(SimpleMeterRegistry meterRegistry) {
+            return new SecurityMetrics(meterRegistry);
+        }
+
+        @Bean
+        Guarded guarded() {
+            return new Guarded();
+        }
+    }
+}
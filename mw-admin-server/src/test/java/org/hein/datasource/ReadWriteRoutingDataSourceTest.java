@@ -0,0 +1,179 @@
+package org.hein.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.cache.DependencyIndex;
+import org.hein.cache.DependencyTrackingCacheManager;
+import org.hein.entity.User;
+import org.hein.repository.UserRepository;
+import org.hein.security.AppUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives real transactions through the routing data source, with two stand-in pools
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        when(replica.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica,
+                new RecentWriters(Duration.ofMinutes(1)), registry);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.afterPropertiesSet();
+        dataSource = proxy;
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaAndOthersThePrimary() throws SQLException {
+        run(readOnly);
+        verify(replica).getConnection();
+        verify(primary, never()).getConnection();
+
+        run(readWrite);
+        verify(primary).getConnection();
+        assertEquals(1.0, count("replica", "read"));
+        assertEquals(1.0, count("primary", "write"));
+    }
+
+    @Test
+    void aUsersReadsStayOnThePrimaryAfterTheirOwnWrite() throws SQLException {
+        signIn("alice");
+        run(readWrite);
+        clearInvocations(primary, replica);
+
+        run(readOnly);
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+
+        signIn("bob");
+        run(readOnly);
+        verify(replica).getConnection();
+        assertEquals(1.0, count("primary", "read_your_writes"));
+    }
+
+    @Test
+    void rolledBackWritesDoNotPinTheUser() throws SQLException {
+        signIn("alice");
+        readWrite.executeWithoutResult(status -> {
+            touch();
+            status.setRollbackOnly();
+        });
+        run(readOnly);
+        verify(replica).getConnection();
+    }
+
+    @Test
+    void onPrimaryKeepsReadOnlyTransactionsOnThePrimary() throws SQLException {
+        ReadWriteRoutingDataSource.onPrimary(() -> {
+            run(readOnly);
+            return null;
+        });
+        run(readOnly);
+
+        verify(primary, times(1)).getConnection();
+        verify(replica, times(1)).getConnection();
+        assertEquals(1.0, count("primary", "primary_only"));
+    }
+
+    @Test
+    void cacheLoadsReadThePrimary() throws SQLException {
+        SimpleMeterRegistry cacheRegistry = new SimpleMeterRegistry();
+        DependencyTrackingCacheManager caches = new DependencyTrackingCacheManager(new DependencyIndex(cacheRegistry),
+                cacheRegistry, Duration.ofSeconds(5), Duration.ZERO, Runnable::run, UnaryOperator.identity());
+        caches.setCacheNames(List.of("roles"));
+
+        caches.getCache("roles").get(1L, () -> readOnly.execute(status -> {
+            touch();
+            return "role";
+        }));
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void userLoadsReadThePrimary() throws SQLException {
+        User user = User.builder().username("alice").password("secret").enabled(true).build();
+        user.setId(7L);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("alice")).thenAnswer(invocation -> {
+            touch();
+            return Optional.of(user);
+        });
+        AppUserDetailsService userDetailsService = new AppUserDetailsService(userRepository);
+
+        readOnly.execute(status -> userDetailsService.loadUserByUsername("alice"));
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    private void run(TransactionTemplate template) {
+        template.executeWithoutResult(status -> touch());
+    }
+
+    /**
+     * Issue a statement, which makes the lazy proxy fetch the pooled connection
+     */
+    private void touch() {
+        try {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private double count(String pool, String reason) {
+        return registry.get("datasource.routing").tag("pool", pool).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,58 @@
+package org.hein.observability;
+
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FirstRequestTimerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FirstRequestTimer timer = new FirstRequestTimer(registry);
+
+    @Test
+    void recordsOnlyTheFirstRequest() throws Exception {
+        assertNull(registry.find(FirstRequestTimer.METRIC_NAME).timeGauge());
+
+        timer.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(), new MockFilterChain());
+        TimeGauge gauge = registry.find(FirstRequestTimer.METRIC_NAME).timeGauge();
+        assertNotNull(gauge);
+        double first = gauge.value(TimeUnit.MILLISECONDS);
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        assertTrue(first > 0 && first <= uptime + 1000, () -> first + " ms vs uptime " + uptime + " ms");
+
+        Thread.sleep(20);
+        timer.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(first, gauge.value(TimeUnit.MILLISECONDS));
+        assertEquals(1, registry.find(FirstRequestTimer.METRIC_NAME).timeGauges().size());
+    }
+
+    @Test
+    void failedRequestStillCounts() {
+        MockFilterChain failing = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException {
+                throw new ServletException("boom");
+            }
+        });
+
+        assertThrows(ServletException.class,
+                () -> timer.doFilter(new MockHttpServletRequest("POST", "/api/v1/auth/login"), new MockHttpServletResponse(), failing));
+        assertNotNull(registry.find(FirstRequestTimer.METRIC_NAME).timeGauge());
+    }
+}
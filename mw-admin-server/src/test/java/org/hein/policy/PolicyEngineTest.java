@@ -0,0 +1,34 @@
+package org.hein.policy;
+
+import org.hein.entity.Permission;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicyEngineTest {
+
+    private static final PolicyContext TEN_AM = new PolicyContext().set(PolicyAttributes.TIME_HOUR, 10);
+
+    @Test
+    void engineCompilesOncePerVersion() {
+        PolicyEngine engine = new PolicyEngine(100, 60);
+        Permission permission = new Permission();
+        permission.setId(7L);
+        permission.setVersion(1L);
+        permission.setConstraintPolicy("time.hour >= 9 && time.hour < 18");
+
+        Policy first = engine.permissionPolicy(permission);
+        assertSame(first, engine.permissionPolicy(permission));
+        assertTrue(first.test(TEN_AM));
+
+        permission.setVersion(2L);
+        permission.setConstraintPolicy("time.hour >= 18");
+        assertEquals(false, engine.permissionPolicy(permission).test(TEN_AM));
+
+        permission.setVersion(3L);
+        permission.setConstraintPolicy("time.hour >=");
+        assertSame(Policy.DENY, engine.permissionPolicy(permission));
+    }
+}
@@ -0,0 +1,106 @@
+package org.hein.rbacconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RbacConfigDiffTest {
+
+    private static final RbacConfigSnapshot.Feature USERS = feature("users", null);
+    private static final RbacConfigSnapshot.Feature REPORTS = feature("reports", null);
+    private static final RbacConfigSnapshot.Permission USERS_VIEW = permission("users:VIEW");
+    private static final RbacConfigSnapshot.Permission USERS_UPDATE = permission("users:UPDATE");
+    private static final RbacConfigSnapshot.Permission REPORTS_VIEW = permission("reports:VIEW");
+
+    private final RbacConfigSnapshot current = snapshot(7L,
+            List.of(USERS, REPORTS),
+            List.of(USERS_VIEW, USERS_UPDATE, REPORTS_VIEW),
+            List.of(role("admin", null, "users:UPDATE", "users:VIEW"), role("viewer", "admin", "users:VIEW")));
+
+    @Test
+    void identicalSnapshotHasNoChanges() {
+        RbacConfigDiff diff = RbacConfigDiff.between(current, current, true);
+
+        assertTrue(diff.isEmpty());
+        assertEquals(7, diff.baseRevision());
+    }
+
+    @Test
+    void listsCreatesFieldUpdatesAndGrantChangesOnly() {
+        RbacConfigSnapshot target = snapshot(null,
+                List.of(USERS, feature("audit", "users")),
+                List.of(permission("audit:VIEW"), new RbacConfigSnapshot.Permission("users:VIEW", "See users", true, null)),
+                List.of(role("viewer", null, "audit:VIEW", "users:VIEW"), role("auditor", "viewer")));
+
+        RbacConfigDiff diff = RbacConfigDiff.between(current, target, false);
+
+        assertEquals(List.of(new RbacConfigDiff.Change(RbacConfigDiff.Op.CREATE, "audit", List.of())), diff.features());
+        assertEquals(List.of(
+                new RbacConfigDiff.Change(RbacConfigDiff.Op.CREATE, "audit:VIEW", List.of()),
+                new RbacConfigDiff.Change(RbacConfigDiff.Op.UPDATE, "users:VIEW", List.of("description", "requiresApproval"))),
+                diff.permissions());
+        assertEquals(List.of(
+                new RbacConfigDiff.Change(RbacConfigDiff.Op.CREATE, "auditor", List.of()),
+                new RbacConfigDiff.Change(RbacConfigDiff.Op.UPDATE, "viewer", List.of("parent"))), diff.roles());
+        assertEquals(List.of(new RbacConfigDiff.Grant("viewer", "audit:VIEW")), diff.grantsAdded());
+        assertEquals(List.of(), diff.grantsRemoved());
+    }
+
+    @Test
+    void pruneDeletesWhatTheSnapshotDoesNotList() {
+        RbacConfigSnapshot target = snapshot(null, List.of(USERS), List.of(USERS_VIEW), List.of(role("admin", null, "users:VIEW")));
+
+        RbacConfigDiff diff = RbacConfigDiff.between(current, target, true);
+
+        assertEquals(List.of("reports"), RbacConfigDiff.keys(diff.features(), RbacConfigDiff.Op.DELETE));
+        assertEquals(List.of("reports:VIEW", "users:UPDATE"), RbacConfigDiff.keys(diff.permissions(), RbacConfigDiff.Op.DELETE).stream().sorted().toList());
+        assertEquals(List.of("viewer"), RbacConfigDiff.keys(diff.roles(), RbacConfigDiff.Op.DELETE));
+        assertEquals(List.of(new RbacConfigDiff.Grant("admin", "users:UPDATE")), diff.grantsRemoved());
+    }
+
+    @Test
+    void withoutPruneTheSnapshotMayReferToExistingEntries() {
+        RbacConfigSnapshot target = snapshot(null, List.of(), List.of(), List.of(role("auditor", "admin", "reports:VIEW")));
+
+        RbacConfigDiff diff = RbacConfigDiff.between(current, target, false);
+        assertEquals(List.of(new RbacConfigDiff.Grant("auditor", "reports:VIEW")), diff.grantsAdded());
+
+        // with prune those entries would be deleted, so the references no longer resolve
+        assertThrows(IllegalArgumentException.class, () -> RbacConfigDiff.between(current, target, true));
+    }
+
+    @Test
+    void rejectsInvalidSnapshots() {
+        assertThrows(IllegalArgumentException.class, () -> RbacConfigDiff.between(current,
+                snapshot(null, List.of(), List.of(), List.of(role("admin", "viewer"))), false));
+        assertThrows(IllegalArgumentException.class, () -> RbacConfigDiff.between(current,
+                snapshot(null, List.of(), List.of(permission("missing:VIEW")), List.of()), false));
+        assertThrows(IllegalArgumentException.class, () -> RbacConfigDiff.between(current,
+                snapshot(null, List.of(), List.of(permission("users:FLY")), List.of()), false));
+        assertThrows(IllegalArgumentException.class, () -> RbacConfigDiff.between(current,
+                snapshot(null, List.of(USERS, USERS), List.of(), List.of()), false));
+        assertThrows(IllegalArgumentException.class, () -> RbacConfigDiff.between(current,
+                new RbacConfigSnapshot(2, null, null, List.of(), List.of(), List.of()), false));
+    }
+
+    private static RbacConfigSnapshot snapshot(Long revision, List<RbacConfigSnapshot.Feature> features,
+                                               List<RbacConfigSnapshot.Permission> permissions, List<RbacConfigSnapshot.Role> roles) {
+        return new RbacConfigSnapshot(RbacConfigSnapshot.FORMAT, revision, null, features, permissions, roles);
+    }
+
+    private static RbacConfigSnapshot.Feature feature(String code, String parent) {
+        return new RbacConfigSnapshot.Feature(code, code.toUpperCase(), null, true, null, null, parent);
+    }
+
+    private static RbacConfigSnapshot.Permission permission(String name) {
+        return new RbacConfigSnapshot.Permission(name, null, false, null);
+    }
+
+    private static RbacConfigSnapshot.Role role(String code, String parent, String... permissions) {
+        return new RbacConfigSnapshot.Role(code, code.toUpperCase(), null, 0, false, false, parent, null, List.of(permissions));
+    }
+}
@@ -0,0 +1,151 @@
+package org.hein.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the index plan in schema.sql against Postgres: loads the schema into a scratch schema,
+ * seeds a skewed user_roles workload and asserts that EXPLAIN picks the intended index for the
+ * repository queries, and that reapplying the schema keeps the data. Needs a reachable database
+ * (see {@link ScratchSchema}) and is skipped otherwise.
+ */
+@Tag("database")
+class IndexPlanExplainTest {
+
+    private static ScratchSchema schema;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void loadSchema() throws SQLException {
+        schema = ScratchSchema.create("index_plan", "schema.sql");
+        assumeTrue(schema != null, "No database reachable, index plan not checked");
+
+        jdbc = schema.jdbc();
+        seed();
+        jdbc.execute("VACUUM ANALYZE users, roles, role_permissions, user_roles, user_roles_history");
+        // Only asks whether an index applies at all; the table sizes here are far from production
+        jdbc.execute("SET enable_seqscan = off");
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (schema != null) {
+            schema.close();
+        }
+    }
+
+    @Test
+    void activeRolesOfUser() {
+        // UserRoleRepository.findActiveRolesByUserId
+        assertUses("idx_user_roles_active_user", """
+                SELECT ur.* FROM user_roles ur
+                WHERE ur.user_id = 42 AND ur.status = 'ACTIVE'
+                AND (ur.valid_from IS NULL OR ur.valid_from <= CURRENT_TIMESTAMP)
+                AND (ur.valid_to IS NULL OR ur.valid_to > CURRENT_TIMESTAMP)""");
+    }
+
+    @Test
+    void authorityNamesOfUser() {
+        // UserRepository.findAuthorityNames, anchor of the recursive query
+        assertUses("idx_user_roles_active_user", """
+                SELECT r.id FROM user_roles ur JOIN roles r ON r.id = ur.role_id
+                WHERE ur.user_id = 42 AND ur.active AND ur.status = 'ACTIVE'
+                AND (ur.valid_from IS NULL OR ur.valid_from <= LOCALTIMESTAMP)
+                AND (ur.valid_to IS NULL OR ur.valid_to >= LOCALTIMESTAMP)""");
+    }
+
+    @Test
+    void activeHoldersOfRole() {
+        // UserRepository.findByRoleId
+        assertUses("idx_user_roles_active_role", """
+                SELECT DISTINCT u.* FROM users u JOIN user_roles ur ON ur.user_id = u.id
+                WHERE ur.role_id = 5 AND ur.status = 'ACTIVE'
+                AND (ur.valid_from IS NULL OR ur.valid_from <= CURRENT_TIMESTAMP)
+                AND (ur.valid_to IS NULL OR ur.valid_to > CURRENT_TIMESTAMP)""");
+    }
+
+    @Test
+    void activeAssignmentsExpiringBefore() {
+        // UserRoleRepository.findByValidToBefore, UserRepository.findByRoleExpiringBefore
+        assertUses("idx_user_roles_active_valid_to", """
+                SELECT ur.* FROM user_roles ur
+                WHERE ur.status = 'ACTIVE' AND ur.valid_to IS NOT NULL
+                AND ur.valid_to <= CURRENT_TIMESTAMP + INTERVAL '7 days'""");
+    }
+
+    @Test
+    void pendingApprovalsInIdOrder() {
+        // ApprovalQueue claim and list
+        assertUses("idx_user_roles_pending", """
+                SELECT id FROM user_roles
+                WHERE status = 'PENDING' AND (claim_expires_at IS NULL OR claim_expires_at < CURRENT_TIMESTAMP)
+                ORDER BY id LIMIT 50""");
+    }
+
+    @Test
+    void historyOfUserNewestFirst() {
+        // UserRoleArchive.history by user
+        assertUses("idx_user_roles_history_user", """
+                SELECT h.* FROM user_roles_history h
+                WHERE h.id < 9223372036854775807 AND h.user_id = 42
+                ORDER BY h.id DESC LIMIT 50""");
+    }
+
+    @Test
+    void holdersOfPermission() {
+        // RoleRepository.findByPermissionId
+        assertUses("idx_role_permissions_permission_id", "SELECT role_id FROM role_permissions WHERE permission_id = 3");
+    }
+
+    @Test
+    void schemaCanBeReappliedOverExistingData() {
+        // The fast-start profile applies schema.sql on every boot, over whatever is already there
+        schema.run("schema.sql");
+        assertEquals(5000, jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+
+    private static void assertUses(String index, String query) {
+        String plan = String.join("\n", jdbc.queryForList("EXPLAIN " + query, String.class));
+        assertTrue(plan.contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+
+    /**
+     * 5000 users with 8 assignments each: mostly ACTIVE, one in eight with an end date,
+     * a revoked and an expired one per user and a few PENDING, plus archived history
+     */
+    private static void seed() {
+        jdbc.execute("""
+                INSERT INTO users (username, first_name, last_name, password, email)
+                SELECT 'user' || g, 'First', 'Last', 'x', 'user' || g || '@example.com' FROM generate_series(1, 5000) g""");
+        jdbc.execute("""
+                INSERT INTO roles (name, code) SELECT 'role' || g, 'ROLE' || g FROM generate_series(1, 100) g""");
+        jdbc.execute("""
+                INSERT INTO features (name, code) SELECT 'feature' || g, 'FEATURE' || g FROM generate_series(1, 20) g""");
+        jdbc.execute("""
+                INSERT INTO permissions (feature_id, action)
+                SELECT f, a FROM generate_series(1, 20) f, unnest(ARRAY['READ', 'CREATE', 'UPDATE', 'DELETE']) a""");
+        jdbc.execute("""
+                INSERT INTO role_permissions (role_id, permission_id)
+                SELECT r, p FROM generate_series(1, 100) r, generate_series(1, 80) p WHERE (r + p) % 5 = 0""");
+        jdbc.execute("""
+                INSERT INTO user_roles (user_id, role_id, assigned_at, valid_to, status)
+                SELECT u, (u * 7 + k) % 100 + 1, CURRENT_TIMESTAMP,
+                       CASE WHEN k = 0 THEN CURRENT_TIMESTAMP + (u % 60) * INTERVAL '1 day' END,
+                       CASE WHEN k < 6 THEN 'ACTIVE' WHEN k = 6 THEN 'REVOKED'
+                            WHEN u % 20 = 0 THEN 'PENDING' ELSE 'EXPIRED' END
+                FROM generate_series(1, 5000) u, generate_series(0, 7) k""");
+        jdbc.execute("""
+                INSERT INTO user_roles_history (id, user_id, role_id, status, assigned_at, created_at, archived_at)
+                SELECT 1000000 + g, g % 5000 + 1, g % 100 + 1, 'EXPIRED', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+                FROM generate_series(1, 20000) g""");
+    }
+}
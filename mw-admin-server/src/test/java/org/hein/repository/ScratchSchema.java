@@ -0,0 +1,90 @@
+package org.hein.repository;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * A throwaway Postgres schema for the tests tagged "database". Connects to test.db.url, test.db.username
+ * and test.db.password, defaulting to the docker-compose instance, and drops the schema on close.
+ */
+public final class ScratchSchema implements AutoCloseable {
+
+    private static final String URL = System.getProperty("test.db.url", "jdbc:postgresql://localhost:5432/mw-admin-db");
+    private static final String USERNAME = System.getProperty("test.db.username", "mw-admin-usr");
+    private static final String PASSWORD = System.getProperty("test.db.password", "mw-admin-pwd");
+
+    private final String name;
+    private final Connection connection;
+    private final JdbcTemplate jdbc;
+
+    private ScratchSchema(String name, Connection connection) {
+        this.name = name;
+        this.connection = connection;
+        this.jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+    }
+
+    /**
+     * Create a schema and run the given classpath scripts in it
+     *
+     * @return the schema, or null if no database is reachable
+     */
+    public static ScratchSchema create(String prefix, String... scripts) throws SQLException {
+        Connection connection = connect();
+        if (connection == null) {
+            return null;
+        }
+        ScratchSchema schema = new ScratchSchema(prefix + "_" + Long.toHexString(System.nanoTime()), connection);
+        schema.jdbc.execute("CREATE SCHEMA " + schema.name);
+        schema.jdbc.execute("SET search_path TO " + schema.name);
+        for (String script : scripts) {
+            schema.run(script);
+        }
+        return schema;
+    }
+
+    public void run(String script) {
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource(script));
+    }
+
+    /**
+     * Statements on the schema's own connection, which keeps session settings between calls
+     */
+    public JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    /**
+     * A new connection to the schema per call, for code that runs its own transactions
+     */
+    public DataSource dataSource() {
+        Properties properties = new Properties();
+        properties.setProperty("currentSchema", name);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(URL, USERNAME, PASSWORD);
+        dataSource.setConnectionProperties(properties);
+        return dataSource;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        jdbc.execute("DROP SCHEMA IF EXISTS " + name + " CASCADE");
+        connection.close();
+    }
+
+    private static Connection connect() {
+        DriverManager.setLoginTimeout(2);
+        try {
+            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.hein.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * data.sql runs on every boot of the fast-start profile and must only ever seed an empty database.
+ * Needs a reachable database (see {@link ScratchSchema}) and is skipped otherwise.
+ */
+@Tag("database")
+class SeedDataTest {
+
+    private ScratchSchema schema;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        schema = ScratchSchema.create("seed_data", "schema.sql", "data.sql");
+        assumeTrue(schema != null, "No database reachable, seed data not checked");
+        jdbc = schema.jdbc();
+    }
+
+    @AfterEach
+    void dropSchema() throws SQLException {
+        if (schema != null) {
+            schema.close();
+        }
+    }
+
+    @Test
+    void seedsAnEmptyDatabase() {
+        assertEquals(2, count("users"));
+        assertEquals(1L, jdbc.queryForObject("SELECT parent_id FROM roles WHERE id = 2", Long.class));
+        assertEquals(2, count("user_roles"));
+        assertEquals(1, count("rbac_revision"));
+    }
+
+    @Test
+    void rerunKeepsChangesAndDeletions() {
+        jdbc.update("UPDATE roles SET parent_id = NULL WHERE id = 2");
+        jdbc.update("DELETE FROM user_roles WHERE user_id = 2 AND role_id = 4");
+        jdbc.update("DELETE FROM role_permissions WHERE role_id = 4");
+        Long revision = jdbc.queryForObject("SELECT revision FROM rbac_revision", Long.class);
+
+        schema.run("schema.sql");
+        schema.run("data.sql");
+
+        assertNull(jdbc.queryForObject("SELECT parent_id FROM roles WHERE id = 2", Long.class));
+        assertEquals(1, count("user_roles"));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM role_permissions WHERE role_id = 4", Integer.class));
+        assertEquals(revision, jdbc.queryForObject("SELECT revision FROM rbac_revision", Long.class));
+    }
+
+    private int count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
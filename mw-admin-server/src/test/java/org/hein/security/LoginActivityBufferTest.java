@@ -0,0 +1,124 @@
+package org.hein.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class LoginActivityBufferTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LoginActivityBuffer buffer = new LoginActivityBuffer(jdbcTemplate, new SimpleMeterRegistry());
+
+    LoginActivityBufferTest() {
+        ReflectionTestUtils.setField(buffer, "maxPending", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void repeatedLoginsCoalesceIntoOneRowPerUser() {
+        for (int i = 0; i < 100; i++) {
+            buffer.loginSucceeded("alice", "10.0.0." + i);
+        }
+        buffer.loginFailed("alice");
+        buffer.loginFailed("bob");
+        buffer.loginFailed("bob");
+
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> successes = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Object[]>> failures = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE users SET last_login_at"), successes.capture());
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE users SET failed_attempts"), failures.capture());
+
+        assertEquals(1, successes.getValue().size());
+        Object[] alice = successes.getValue().get(0);
+        assertEquals("10.0.0.99", alice[1]);
+        assertEquals(1, alice[2]);
+        assertEquals("alice", alice[3]);
+        assertArrayEquals(new Object[]{2, "bob"}, failures.getValue().get(0));
+
+        buffer.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void newUsersAreDroppedWhenFull() {
+        buffer.loginFailed("a");
+        buffer.loginFailed("b");
+        buffer.loginFailed("c");
+        buffer.loginFailed("a");
+
+        buffer.flush();
+        buffer.flush();
+
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE users SET failed_attempts"), ArgumentMatchers.<List<Object[]>>argThat(rows -> rows.size() == 2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushIsRetriedTogetherWithLaterActivity() {
+        when(jdbcTemplate.batchUpdate(anyString(), ArgumentMatchers.<Object[]>anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenReturn(new int[0]);
+        buffer.loginFailed("alice");
+        buffer.loginFailed("alice");
+        buffer.loginSucceeded("carol", "10.0.0.1");
+        buffer.flush();
+
+        buffer.loginFailed("alice");
+        buffer.loginFailed("carol");
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> successes = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Object[]>> failures = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE users SET last_login_at"), successes.capture());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE users SET failed_attempts"), failures.capture());
+        // The earlier success is kept with the failure after it, and failures on both sides of the outage add up
+        Object[] carol = successes.getValue().get(0);
+        assertEquals(List.of("10.0.0.1", 1, "carol"), List.of(carol[1], carol[2], carol[3]));
+        assertArrayEquals(new Object[]{3, "alice"}, failures.getValue().get(0));
+
+        buffer.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void laterSuccessReplacesActivityThatFailedToWrite() {
+        when(jdbcTemplate.batchUpdate(anyString(), ArgumentMatchers.<Object[]>anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenReturn(new int[0]);
+        buffer.loginFailed("alice");
+        buffer.flush();
+
+        buffer.loginSucceeded("alice", "10.0.0.2");
+        buffer.flush();
+
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE users SET last_login_at"),
+                ArgumentMatchers.<List<Object[]>>argThat(rows -> rows.size() == 1
+                        && "10.0.0.2".equals(rows.get(0)[1]) && Integer.valueOf(0).equals(rows.get(0)[2])));
+    }
+
+    @Test
+    void emptyFlushWritesNothing() {
+        buffer.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,41 @@
+package org.hein.security.token;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.observability.SecurityMetrics;
+import org.hein.utils.RedisUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JtiTokenStoreTest {
+
+	private static final List<String> KEYS = List.of("auth:access:alice", "auth:revoked-before:alice");
+
+	private final RedisUtil redisUtil = mock(RedisUtil.class);
+	private final JtiTokenStore store = new JtiTokenStore(redisUtil, new SecurityMetrics(new SimpleMeterRegistry()));
+
+	@Test
+	void tokensUpToTheCutoffAreRejected() {
+		when(redisUtil.multiGet(KEYS)).thenReturn(Arrays.asList("jti-1", 5_000L));
+
+		assertFalse(store.validateAccessJti("jti-1", "alice", new Date(4_000)));
+		assertFalse(store.validateAccessJti("jti-1", "alice", new Date(5_000)));
+		assertTrue(store.validateAccessJti("jti-1", "alice", new Date(6_000)));
+		assertFalse(store.validateAccessJti("jti-0", "alice", new Date(6_000)));
+	}
+
+	@Test
+	void withoutARevocationTheJtiDecides() {
+		when(redisUtil.multiGet(KEYS)).thenReturn(Arrays.asList("jti-1", null));
+
+		assertTrue(store.validateAccessJti("jti-1", "alice", new Date(4_000)));
+		assertFalse(store.validateAccessJti("jti-0", "alice", new Date(4_000)));
+	}
+}
@@ -0,0 +1,102 @@
+package org.hein.security.token;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.api.request.auth.TokenRefreshForm;
+import org.hein.api.request.auth.TokenRequestForm;
+import org.hein.audit.AuditLog;
+import org.hein.commons.enum_.TokenType;
+import org.hein.entity.User;
+import org.hein.observability.SecurityMetrics;
+import org.hein.repository.UserRepository;
+import org.hein.security.AppAuthenticationProvider;
+import org.hein.security.AppUserDetails;
+import org.hein.security.AppUserDetailsService;
+import org.hein.security.LoginActivityBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the user queries behind a login and a refresh: each should read the user row once and
+ * its authorities once, and token generation should work from the authenticated principal alone.
+ */
+class LoginQueryCountTest {
+
+	private UserRepository userRepository;
+	private JwtTokenGenerator generator;
+	private JwtTokenParser parser;
+	private TokenManagementService tokens;
+
+	@BeforeEach
+	void setUp() {
+		User user = User.builder().username("alice").password("secret").enabled(true).build();
+		user.setId(7L);
+
+		userRepository = mock(UserRepository.class);
+		when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+		when(userRepository.findAuthorityNames(eq(7L), any())).thenReturn(List.of("ROLE_ADMIN", "user:VIEW", "role:VIEW"));
+
+		var userDetailsService = new AppUserDetailsService(userRepository);
+		var authenticationManager = new ProviderManager(
+				new AppAuthenticationProvider(userDetailsService, NoOpPasswordEncoder.getInstance()));
+
+		generator = mock(JwtTokenGenerator.class);
+		when(generator.generateAccessToken(any(), anyString())).thenReturn("access");
+		when(generator.generateRefreshToken(any(), anyString())).thenReturn("refresh");
+		parser = mock(JwtTokenParser.class);
+
+		tokens = new TokenManagementService(authenticationManager, parser, generator, mock(JtiTokenStore.class),
+				userDetailsService, new SecurityMetrics(new SimpleMeterRegistry()), mock(AuditLog.class), mock(LoginActivityBuffer.class));
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void loginLoadsUserOnce() {
+		var response = tokens.generate(new TokenRequestForm("alice", "secret"), "127.0.0.1");
+
+		assertEquals("alice", response.username());
+		verify(userRepository, times(1)).findByUsername("alice");
+		verify(userRepository, times(1)).findAuthorityNames(eq(7L), any());
+		verifyNoMoreInteractions(userRepository);
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		AppUserDetails principal = assertInstanceOf(AppUserDetails.class, authentication.getPrincipal());
+		assertEquals(7L, principal.getId());
+		assertEquals(3, authentication.getAuthorities().size());
+		verify(generator).generateAccessToken(eq(authentication), anyString());
+	}
+
+	@Test
+	void refreshLoadsUserOnce() {
+		when(parser.parse(TokenType.Refresh, "refresh")).thenReturn(new TokenAuthentication("alice", List::of));
+
+		var response = tokens.refresh(new TokenRefreshForm("refresh"));
+
+		assertEquals("alice", response.username());
+		verify(userRepository, times(1)).findByUsername("alice");
+		verify(userRepository, times(1)).findAuthorityNames(eq(7L), any());
+		verifyNoMoreInteractions(userRepository);
+	}
+}
@@ -0,0 +1,142 @@
+package org.hein.security.token;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.authz.FeatureEnablementIndex;
+import org.hein.authz.PermissionSnapshotHolder;
+import org.hein.config.MethodSecurityConfig;
+import org.hein.observability.SecurityMetrics;
+import org.hein.policy.PolicyContextFactory;
+import org.hein.rbac.PermissionSnapshot;
+import org.hein.rbac.RbacState;
+import org.hein.security.RbacPermissionEvaluator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Constraint policies and assignment restrictions must deny hasAuthority checks on token authorities,
+ * not only hasPermission ones
+ */
+class PermissionClaimsPolicyTest {
+
+	private static final RbacState STATE = RbacState.builder()
+			.permission(1, "users:VIEW")
+			.permission(2, "users:DELETE")
+			.constraint(2, "request.ip in cidr('10.0.0.0/8')")
+			.role(1, null)
+			.rolePermission(1, 1)
+			.rolePermission(1, 2)
+			.grant("alice", 1, null, null)
+			.grant("bob", 1, null, null, "request.method == 'GET'")
+			.build(1);
+
+	private AnnotationConfigApplicationContext context;
+	private PermissionClaims claims;
+	private Guarded guarded;
+
+	@BeforeEach
+	void setUp() {
+		PermissionSnapshotHolder snapshotHolder = mock(PermissionSnapshotHolder.class);
+		when(snapshotHolder.current()).thenReturn(PermissionSnapshot.compile(STATE));
+		when(snapshotHolder.currentState()).thenReturn(STATE);
+		FeatureEnablementIndex featureEnablement = mock(FeatureEnablementIndex.class);
+		when(featureEnablement.isEnabled(anyString())).thenReturn(true);
+		when(featureEnablement.disabledPermissions()).thenReturn(new BitSet());
+		claims = new PermissionClaims(snapshotHolder, featureEnablement, new PolicyContextFactory());
+
+		context = new AnnotationConfigApplicationContext(TestConfiguration.class);
+		guarded = context.getBean(Guarded.class);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		RequestContextHolder.resetRequestAttributes();
+		context.close();
+	}
+
+	@Test
+	void failingConstraintPolicyDeniesTheRequest() {
+		request("alice", "DELETE", "10.1.2.3");
+		assertEquals("deleted", guarded.delete());
+
+		request("alice", "DELETE", "203.0.113.9");
+		assertThrows(AccessDeniedException.class, guarded::delete);
+		assertEquals("viewed", guarded.view());
+	}
+
+	@Test
+	void failingAssignmentRestrictionDeniesTheRequest() {
+		request("bob", "GET", "10.1.2.3");
+		assertEquals("viewed", guarded.view());
+
+		request("bob", "POST", "10.1.2.3");
+		assertThrows(AccessDeniedException.class, guarded::view);
+	}
+
+	/**
+	 * Start a request from the address, authenticated with a token issued while the user held both permissions
+	 */
+	private void request(String username, String method, String remoteAddress) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/users/1");
+		request.setRemoteAddr(remoteAddress);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		var encoded = claims.encode(List.of(new SimpleGrantedAuthority("users:VIEW"), new SimpleGrantedAuthority("users:DELETE")));
+		SecurityContextHolder.getContext().setAuthentication(
+				new TokenAuthentication(username, () -> claims.decode(username, encoded.permissions(), encoded.others())));
+	}
+
+	static class Guarded {
+
+		@PreAuthorize("hasAuthority('users:VIEW')")
+		public String view() {
+			return "viewed";
+		}
+
+		@PreAuthorize("hasAuthority('users:DELETE')")
+		public String delete() {
+			return "deleted";
+		}
+	}
+
+	@Configuration
+	@Import(MethodSecurityConfig.class)
+	static class TestConfiguration {
+
+		@Bean
+		RbacPermissionEvaluator rbacPermissionEvaluator() {
+			return mock(RbacPermissionEvaluator.class);
+		}
+
+		@Bean
+		SecurityMetrics securityMetrics() {
+			return new SecurityMetrics(new SimpleMeterRegistry());
+		}
+
+		@Bean
+		Guarded guarded() {
+			return new Guarded();
+		}
+	}
+}
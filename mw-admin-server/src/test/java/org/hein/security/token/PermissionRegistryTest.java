@@ -0,0 +1,73 @@
+package org.hein.security.token;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip of the bitmap permission claim and its size against the comma-joined names it replaces.
+ */
+class PermissionRegistryTest {
+
+	private static final int PERMISSIONS = 300;
+
+	@Test
+	void claimStaysCompactAndRoundTrips() {
+		Map<Long, String> permissions = new HashMap<>();
+		Set<GrantedAuthority> granted = new HashSet<>();
+		for (long id = 1; id <= PERMISSIONS; id++) {
+			permissions.put(id, "feature" + id + ":VIEW");
+			granted.add(new SimpleGrantedAuthority("feature" + id + ":VIEW"));
+		}
+		granted.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+		var registry = PermissionRegistry.of(42, permissions);
+
+		List<String> rest = new ArrayList<>();
+		String claim = registry.encode(granted, rest);
+		String legacy = granted.stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
+
+		assertEquals(List.of("ROLE_ADMIN"), rest);
+		assertTrue(claim.startsWith("42."));
+		assertTrue(claim.length() < 60, claim);
+		assertTrue(claim.length() * 50 < legacy.length(), () -> claim.length() + " chars vs " + legacy.length() + " in the name list");
+
+		var decoded = registry.decode(claim, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), new BitSet());
+		assertEquals(granted.size(), decoded.size());
+		assertEquals(granted, new HashSet<>(decoded));
+
+		// Authorities are shared registry instances, not allocated per decode
+		var first = registry.decode(claim, List.of(), new BitSet()).iterator().next();
+		var again = registry.decode(claim, List.of(), new BitSet()).iterator().next();
+		assertSame(first, again);
+	}
+
+	@Test
+	void deletedPermissionsDropOut() {
+		var before = PermissionRegistry.of(1, Map.of(1L, "user:VIEW", 2L, "user:DELETE", 3L, "role:VIEW"));
+		String claim = before.encode(List.of(new SimpleGrantedAuthority("user:VIEW"), new SimpleGrantedAuthority("user:DELETE")), new ArrayList<>());
+
+		var after = PermissionRegistry.of(2, Map.of(1L, "user:VIEW", 3L, "role:VIEW", 4L, "role:CREATE"));
+		var decoded = after.decode(claim, List.of(), new BitSet());
+
+		assertEquals(1, decoded.size());
+		assertEquals("user:VIEW", decoded.iterator().next().getAuthority());
+
+		// Masked ids, e.g. permissions of a disabled feature, drop out the same way
+		BitSet masked = new BitSet();
+		masked.set(1);
+		assertEquals(0, after.decode(claim, List.of(), masked).size());
+	}
+}
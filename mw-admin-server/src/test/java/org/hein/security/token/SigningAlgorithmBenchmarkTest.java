@@ -0,0 +1,54 @@
+package org.hein.security.token;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.Key;
+
+import static org.hein.security.token.SigningAlgorithmTest.keys;
+import static org.hein.security.token.SigningAlgorithmTest.sign;
+
+/**
+ * Sign and verify cost of the selectable algorithms on a token shaped like an access token.
+ * Verification dominates for services validating tokens locally, signing for the login path.
+ * Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class SigningAlgorithmBenchmarkTest {
+
+	private static final Logger log = LoggerFactory.getLogger(SigningAlgorithmBenchmarkTest.class);
+
+	private static final int WARMUP = 1_000;
+	private static final int ITERATIONS = 2_000;
+
+	@Test
+	void compareSignAndVerify() {
+		for (SigningAlgorithm algorithm : SigningAlgorithm.values()) {
+			Key[] keys = keys(algorithm);
+			var parser = Jwts.parser().keyLocator(header -> keys[1]).requireIssuer("org.hein").build();
+
+			for (int i = 0; i < WARMUP; i++) {
+				parser.parseSignedClaims(sign(keys[0], i));
+			}
+
+			String[] tokens = new String[ITERATIONS];
+			long signStartedAt = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				tokens[i] = sign(keys[0], i);
+			}
+			long signNanos = System.nanoTime() - signStartedAt;
+
+			long verifyStartedAt = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				parser.parseSignedClaims(tokens[i]);
+			}
+			long verifyNanos = System.nanoTime() - verifyStartedAt;
+
+			log.info(String.format("%-6s sign %7.1f us/op, verify %7.1f us/op, token %d bytes",
+					algorithm, signNanos / 1_000.0 / ITERATIONS, verifyNanos / 1_000.0 / ITERATIONS, tokens[0].length()));
+		}
+	}
+}
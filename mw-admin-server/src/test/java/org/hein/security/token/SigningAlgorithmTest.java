@@ -0,0 +1,76 @@
+package org.hein.security.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SigningAlgorithmTest {
+
+	@Test
+	void everyAlgorithmSignsAndVerifies() {
+		for (SigningAlgorithm algorithm : SigningAlgorithm.values()) {
+			Key[] keys = keys(algorithm);
+			var parser = Jwts.parser().keyLocator(header -> keys[1]).requireIssuer("org.hein").build();
+
+			assertEquals("user7", parser.parseSignedClaims(sign(keys[0], 7)).getPayload().getSubject(), algorithm.name());
+		}
+	}
+
+	@Test
+	void publishedJwkRoundTrips() throws Exception {
+		for (SigningAlgorithm algorithm : SigningAlgorithm.values()) {
+			if (!algorithm.isAsymmetric()) {
+				continue;
+			}
+			var pair = algorithm.generateKeyPair();
+			var jwk = Jwks.builder().key(pair.getPublic()).idFromThumbprint().algorithm(algorithm.name()).build();
+			// Serialized the way JwksApi returns it
+			String json = new ObjectMapper().writeValueAsString(new LinkedHashMap<>(jwk));
+			var parsed = (PublicJwk<?>) Jwks.parser().build().parse(json);
+
+			assertEquals(jwk.getId(), parsed.getId());
+			assertEquals(pair.getPublic(), parsed.toKey());
+			assertEquals(new LinkedHashMap<>(jwk), new LinkedHashMap<>(parsed));
+		}
+	}
+
+	/**
+	 * Signing key and verification key for the algorithm
+	 */
+	static Key[] keys(SigningAlgorithm algorithm) {
+		if (algorithm.isAsymmetric()) {
+			var pair = algorithm.generateKeyPair();
+			return new Key[] { pair.getPrivate(), pair.getPublic() };
+		}
+		Key secret = SecretKeys.getKey();
+		return new Key[] { secret, secret };
+	}
+
+	/**
+	 * A token shaped like an access token
+	 */
+	static String sign(Key key, int i) {
+		var now = Instant.now();
+		return Jwts.builder()
+				.header().keyId("bench").and()
+				.subject("user" + i)
+				.issuer("org.hein")
+				.issuedAt(Date.from(now))
+				.expiration(Date.from(now.plus(10, ChronoUnit.MINUTES)))
+				.claim("rol", "user:VIEW,user:CREATE,role:VIEW,permission:VIEW")
+				.claim("typ", "Access")
+				.claim("jti", "0b8f3c1e-5d2a-4c1b-9e7f-" + i)
+				.signWith(key)
+				.compact();
+	}
+}
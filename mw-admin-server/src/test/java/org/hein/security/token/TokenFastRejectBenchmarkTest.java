@@ -0,0 +1,60 @@
+package org.hein.security.token;
+
+import org.hein.commons.enum_.TokenType;
+import org.hein.exceptions.ApiJwtTokenInvalidationException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hein.security.token.TokenFastRejectTest.MALFORMED;
+import static org.hein.security.token.TokenFastRejectTest.forged;
+import static org.hein.security.token.TokenFastRejectTest.parser;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Floods the parser with garbage and with a replayed forged token; both should be rejected in
+ * microseconds. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class TokenFastRejectBenchmarkTest {
+
+	private static final Logger log = LoggerFactory.getLogger(TokenFastRejectBenchmarkTest.class);
+
+	private static final int FLOOD = 20_000;
+
+	private final JwtTokenParser parser = parser(mock(JtiTokenStore.class));
+
+	@Test
+	void malformedFlood() {
+		flood(MALFORMED);
+		log.info(String.format("malformed: %.2f us/op", flood(MALFORMED)));
+	}
+
+	@Test
+	void forgedReplayFlood() {
+		String forged = forged();
+		long firstStartedAt = System.nanoTime();
+		flood(forged, 1);
+		double firstMicros = (System.nanoTime() - firstStartedAt) / 1_000.0;
+
+		flood(forged);
+		log.info(String.format("forged: first %.1f us, replayed %.2f us/op", firstMicros, flood(forged)));
+	}
+
+	private double flood(String header) {
+		return flood(header, FLOOD);
+	}
+
+	private double flood(String header, int count) {
+		long startedAt = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			try {
+				parser.parse(TokenType.Access, header);
+			} catch (ApiJwtTokenInvalidationException expected) {
+				// rejected
+			}
+		}
+		return (System.nanoTime() - startedAt) / 1_000.0 / count;
+	}
+}
@@ -0,0 +1,113 @@
+package org.hein.security.token;
+
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hein.commons.enum_.TokenType;
+import org.hein.exceptions.ApiJwtTokenInvalidationException;
+import org.hein.observability.SecurityMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Garbage and replayed forged tokens should be rejected without signature verification or a Redis
+ * round trip and without stack traces. The timings are in {@link TokenFastRejectBenchmarkTest}.
+ */
+class TokenFastRejectTest {
+
+	static final String MALFORMED = "Bearer eyJhbGciOiJIUzUxMiJ9." + "A".repeat(200) + "." + "B".repeat(85);
+
+	private JtiTokenStore jtiTokenStore;
+	private JwtTokenParser parser;
+
+	@BeforeEach
+	void setUp() {
+		jtiTokenStore = mock(JtiTokenStore.class);
+		parser = parser(jtiTokenStore);
+	}
+
+	@Test
+	void malformedTokensFailStructuralCheck() {
+		for (String header : new String[]{"Bearer x", "Bearer eyJ.a.b", "Bearer eyJhbGciOi.e30.%%%", "Bearer eyJa.b.c.d", MALFORMED}) {
+			var e = assertThrows(ApiJwtTokenInvalidationException.class, () -> parser.parse(TokenType.Access, header));
+			assertEquals(0, e.getStackTrace().length);
+		}
+		verifyNoInteractions(jtiTokenStore);
+	}
+
+	@Test
+	void replayedForgedTokenIsRejectedFromCache() {
+		String forged = forged();
+
+		var first = assertThrows(ApiJwtTokenInvalidationException.class, () -> parser.parse(TokenType.Access, forged));
+		var replayed = assertThrows(ApiJwtTokenInvalidationException.class, () -> parser.parse(TokenType.Access, forged));
+
+		assertSame(first, replayed);
+		verifyNoInteractions(jtiTokenStore);
+	}
+
+	@Test
+	void unknownKeyIdIsNotRemembered() {
+		var now = Instant.now();
+		String unknownKid = "Bearer " + Jwts.builder()
+				.header().keyId("not-yet-loaded").and()
+				.subject("alice")
+				.issuer("org.hein")
+				.expiration(Date.from(now.plus(10, ChronoUnit.MINUTES)))
+				.claim("typ", "Access")
+				.signWith(SecretKeys.getKey())
+				.compact();
+
+		var first = assertThrows(ApiJwtTokenInvalidationException.class, () -> parser.parse(TokenType.Access, unknownKid));
+		var again = assertThrows(ApiJwtTokenInvalidationException.class, () -> parser.parse(TokenType.Access, unknownKid));
+
+		assertInstanceOf(SigningKeyRing.UnknownKeyException.class, first.getCause());
+		assertNotSame(first, again);
+	}
+
+	/**
+	 * A parser over an HS512 key ring with its own random key
+	 */
+	static JwtTokenParser parser(JtiTokenStore jtiTokenStore) {
+		var ring = new SigningKeyRing(mock(SigningKeyStore.class));
+		ReflectionTestUtils.setField(ring, "secretKeyValue", SecretKeys.keyToString(SecretKeys.getKey()));
+		ReflectionTestUtils.setField(ring, "algorithm", SigningAlgorithm.HS512);
+		ring.initBean();
+
+		var parser = new JwtTokenParser(jtiTokenStore, new SecurityMetrics(new SimpleMeterRegistry()), ring,
+				mock(PermissionClaims.class), new TokenPrecheck(8192, 1000, 600));
+		ReflectionTestUtils.setField(parser, "issuer", "org.hein");
+		ReflectionTestUtils.setField(parser, "typeKey", "typ");
+		ReflectionTestUtils.setField(parser, "jtiKey", "jti");
+		parser.initBean();
+		return parser;
+	}
+
+	/**
+	 * A well-formed access token signed with a key the parser does not know
+	 */
+	static String forged() {
+		var now = Instant.now();
+		return "Bearer " + Jwts.builder()
+				.subject("alice")
+				.issuer("org.hein")
+				.issuedAt(Date.from(now))
+				.expiration(Date.from(now.plus(10, ChronoUnit.MINUTES)))
+				.claim("typ", "Access")
+				.claim("jti", "stolen")
+				.signWith(SecretKeys.getKey())
+				.compact();
+	}
+}
@@ -0,0 +1,45 @@
+package org.hein.service.impl;
+
+import org.hein.api.response.authz.RbacChangesResponse;
+import org.hein.authz.PermissionSnapshotHolder;
+import org.hein.authz.RbacChangeLog;
+import org.hein.authz.RbacChangeStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RbacChangeFeedServiceImplTest {
+
+    private final RbacChangeLog changeLog = mock(RbacChangeLog.class);
+    private final RbacChangeFeedServiceImpl service = new RbacChangeFeedServiceImpl(mock(PermissionSnapshotHolder.class),
+            changeLog, mock(RbacChangeStream.class), 100);
+
+    @Test
+    void maxRevisionsOutsideTheConfiguredRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.changesSince(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.changesSince(0, 101));
+        assertThrows(IllegalArgumentException.class, () -> service.changesSince(0, Integer.MAX_VALUE));
+        verifyNoInteractions(changeLog);
+    }
+
+    @Test
+    void pageEndsAfterMaxRevisions() {
+        when(changeLog.current()).thenReturn(500L);
+        when(changeLog.oldest()).thenReturn(1L);
+        when(changeLog.between(10, 110)).thenReturn(List.of());
+
+        RbacChangesResponse page = service.changesSince(10, 100);
+
+        assertEquals(110, page.revision());
+        assertTrue(page.hasMore());
+        verify(changeLog).between(10, 110);
+    }
+}
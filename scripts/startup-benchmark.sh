@@ -0,0 +1,48 @@
+#!/usr/bin/env sh
+# Startup benchmark: time from `docker run` until the first request is answered, for each image given.
+#
+#   docker build -t mw-admin:latest .
+#   docker build --target fast-start -t mw-admin:fast-start .
+#   scripts/startup-benchmark.sh                      # compares the two images above
+#   RUNS=10 scripts/startup-benchmark.sh mw-admin:fast-start
+#
+# Postgres and Redis come from docker-compose.yml. The default image recreates the database on every
+# boot, the fast-start image only creates what is missing and seeds an empty database.
+# Next to the wall-clock figure, the application.first.request.time the app logged itself is shown.
+
+set -eu
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+NETWORK=${NETWORK:-$(basename "$(pwd)")_mw-admin}
+URL="http://localhost:${PORT}/mw-admin/actuator/health"
+
+if [ "$#" -eq 0 ]; then
+    set -- mw-admin:latest mw-admin:fast-start
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+docker compose up -d db redis >/dev/null
+
+for image in "$@"; do
+    i=1
+    while [ "$i" -le "$RUNS" ]; do
+        start=$(now_ms)
+        cid=$(docker run -d --rm --network "$NETWORK" -p "${PORT}:8080" \
+            -e SPRING_DATASOURCE_URL=jdbc:postgresql://db:5432/mw-admin-db \
+            -e SPRING_DATA_REDIS_HOST=redis \
+            "$image")
+        until curl -fs -o /dev/null "$URL"; do
+            sleep 0.05
+        done
+        elapsed=$(($(now_ms) - start))
+        sleep 0.2
+        reported=$(docker logs "$cid" 2>&1 | sed -n 's/.*First request .* answered \([0-9]*\) ms.*/\1/p' | head -n 1)
+        printf '%s\trun %d\tfirst request after %d ms (in-app %s ms)\n' "$image" "$i" "$elapsed" "${reported:-?}"
+        docker stop "$cid" >/dev/null
+        i=$((i + 1))
+    done
+done